@@ -1 +1 @@
-start bin\jre\bin\javaw.exe -Xmx512m -jar -Djava.net.preferIPv4Stack=true bin\sc-trade-companion.jar
\ No newline at end of file
+start bin\jre\bin\javaw.exe -Xmx512m --add-modules jdk.incubator.vector -jar -Djava.net.preferIPv4Stack=true bin\sc-trade-companion.jar
\ No newline at end of file
@@ -0,0 +1,112 @@
+package tools.sctrade.companion.domain.commodity;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.sctrade.companion.domain.image.manipulations.AlignToTemplate;
+import tools.sctrade.companion.domain.ocr.Ocr;
+import tools.sctrade.companion.domain.ocr.OcrResult;
+import tools.sctrade.companion.utils.NativeRuntime;
+import tools.sctrade.companion.utils.ResourceUtil;
+
+/**
+ * Reading a commodity kiosk's regions of interest versus reading the whole aligned capture, with a
+ * stand-in OCR whose cost is proportional to the number of pixels it reads. The {@code pixels}
+ * counter, divided by the {@code reads} counter, is the number of pixels read per capture.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegionOfInterestOcrBenchmark {
+  @Param({"arc-l1-sell-1", "canard-view-buy-1", "levski-buy-1", "lorville-sell-1",
+      "rayari-anvik-buy-1"})
+  public String fixture;
+
+  private BufferedImage image;
+  private PixelCountingOcr ocr;
+
+  /**
+   * Reads the fixture, and aligns it to the kiosk template once, outside of the measurement.
+   *
+   * @throws IOException If the fixture can't be read.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    NativeRuntime.load();
+    image = new AlignToTemplate().manipulate(
+        ResourceUtil.getBufferedImage("/kiosks/commodity/images/" + fixture + ".jpg"));
+    ocr = new PixelCountingOcr();
+  }
+
+  @Benchmark
+  public OcrResult readWholeCapture(Counters counters) {
+    ocr.counters = counters;
+
+    return ocr.read(image);
+  }
+
+  @Benchmark
+  public OcrResult readRegionsOfInterest(Counters counters) {
+    ocr.counters = counters;
+
+    return ocr.read(image, CommoditySubmissionFactory::getRegionsOfInterest);
+  }
+
+  /**
+   * Pixels read by the OCR.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+    public long pixels;
+    public long reads;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      pixels = 0;
+      reads = 0;
+    }
+  }
+
+  /**
+   * Stand-in for an OCR, going through every sample of the image it reads once.
+   */
+  private static class PixelCountingOcr extends Ocr {
+    private Counters counters;
+    private long checksum; // Kept so that the JIT can't skip reading the pixels
+
+    PixelCountingOcr() {
+      super(List.of());
+    }
+
+    @Override
+    protected OcrResult process(BufferedImage image) {
+      var dataBuffer = image.getRaster().getDataBuffer();
+      for (int i = 0; i < dataBuffer.getSize(); i++) {
+        checksum += dataBuffer.getElem(i);
+      }
+
+      counters.pixels += (long) image.getWidth() * image.getHeight();
+      counters.reads++;
+
+      return new OcrResult(List.of());
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package tools.sctrade.companion.domain.commodity;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.sctrade.companion.domain.image.ImageManipulation;
+import tools.sctrade.companion.domain.notification.ConsoleNotificationRepository;
+import tools.sctrade.companion.domain.notification.NotificationService;
+import tools.sctrade.companion.domain.ocr.LocatedWord;
+import tools.sctrade.companion.domain.ocr.Ocr;
+import tools.sctrade.companion.domain.ocr.OcrRecording;
+import tools.sctrade.companion.domain.ocr.OcrRecordingRepository;
+import tools.sctrade.companion.domain.ocr.OcrResult;
+import tools.sctrade.companion.domain.ocr.RecordingOcr;
+import tools.sctrade.companion.domain.ocr.ReplayOcr;
+import tools.sctrade.companion.domain.user.User;
+import tools.sctrade.companion.domain.user.UserService;
+import tools.sctrade.companion.utils.JsonUtil;
+import tools.sctrade.companion.utils.ResourceUtil;
+
+/**
+ * Builds submissions out of commodity kiosk captures end to end, with the words OneOCR read in them
+ * replayed by {@link ReplayOcr}: runs anywhere, and measures everything but the OCR itself, whose
+ * cost is a fixed {@code latency}. The words of each fixture are recorded at setup, through
+ * {@link RecordingOcr}, then matched back to the capture by perceptual hash.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReplayedSubmissionBenchmark {
+  // Fixtures with both a capture and recorded words, from which listings can be read
+  private static final List<String> FIXTURES = List.of("arc-l2-sell-1");
+
+  @Param({"0", "200"})
+  public long latencyMillis;
+
+  private List<BufferedImage> captures;
+  private CommoditySubmissionFactory submissionFactory;
+
+  /**
+   * Records the words of every fixture, and builds the submission factory replaying them.
+   *
+   * @throws IOException If a fixture can't be read.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    // The words were recorded in the captures as is, not aligned
+    List<ImageManipulation> preprocessing = List.of();
+    var recordingRepository = new ListOcrRecordingRepository();
+    captures = new ArrayList<>();
+
+    for (var fixture : FIXTURES) {
+      var capture = ResourceUtil.getBufferedImage("/kiosks/commodity/images/" + fixture + ".jpg");
+      var recordedOcr = new FixtureOcr(preprocessing, readRecordedWords(fixture));
+      new RecordingOcr(recordedOcr, recordingRepository).read(capture,
+          CommoditySubmissionFactory::getRegionsOfInterest);
+      captures.add(capture);
+    }
+
+    var ocr = new ReplayOcr(preprocessing, recordingRepository.findAll(), 0.0,
+        Duration.ofMillis(latencyMillis));
+    submissionFactory = new CommoditySubmissionFactory(new FixedUserService(),
+        new NotificationService(new ConsoleNotificationRepository()),
+        new CommodityLocationReader(new TestLocationRepository()),
+        new CommodityListingFactory(new TestCommodityRepository()), ocr);
+  }
+
+  @Benchmark
+  public List<CommoditySubmission> buildSubmissions() {
+    return captures.stream().map(submissionFactory::build).toList();
+  }
+
+  private static List<LocatedWord> readRecordedWords(String fixture) {
+    var json = ResourceUtil.getTextLines("/kiosks/commodity/actuals/" + fixture + ".json").stream()
+        .collect(Collectors.joining(""));
+
+    return JsonUtil.parseList(json, RecordedWord.class).stream().map(RecordedWord::toLocatedWord)
+        .toList();
+  }
+
+  /**
+   * Stand-in for OneOCR, reading the words it recorded on the fixture, in the regions read only.
+   */
+  private static class FixtureOcr extends Ocr {
+    private final List<LocatedWord> words;
+
+    FixtureOcr(List<ImageManipulation> preprocessing, List<LocatedWord> words) {
+      super(preprocessing);
+      this.words = words;
+    }
+
+    @Override
+    protected OcrResult process(BufferedImage image) {
+      return new OcrResult(words, new Dimension(image.getWidth(), image.getHeight()));
+    }
+
+    @Override
+    protected OcrResult process(BufferedImage image, List<Rectangle> regions) {
+      return new OcrResult(
+          words.stream().filter(n -> regions.stream().anyMatch(n::isContainedBy)).toList(),
+          new Dimension(image.getWidth(), image.getHeight()));
+    }
+  }
+
+  private static class ListOcrRecordingRepository implements OcrRecordingRepository {
+    private final List<OcrRecording> recordings = new ArrayList<>();
+
+    @Override
+    public void save(OcrRecording recording) {
+      recordings.add(recording);
+    }
+
+    @Override
+    public List<OcrRecording> findAll() {
+      return recordings;
+    }
+  }
+
+  private static class FixedUserService extends UserService {
+    private static final User USER = new User("benchmark", "benchmark");
+
+    FixedUserService() {
+      super(null, null);
+    }
+
+    @Override
+    public User get() {
+      return USER;
+    }
+  }
+
+  private record RecordedWord(@JsonProperty("Text") String text, @JsonProperty("X") double x,
+      @JsonProperty("Y") double y, @JsonProperty("Width") double width,
+      @JsonProperty("Height") double height) {
+    LocatedWord toLocatedWord() {
+      return new LocatedWord(text.toLowerCase(), new Rectangle((int) Math.round(x),
+          (int) Math.round(y), (int) Math.round(width), (int) Math.round(height)));
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package tools.sctrade.companion.domain.commodity;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.sctrade.companion.domain.ocr.LocatedWord;
+import tools.sctrade.companion.domain.ocr.Ocr;
+import tools.sctrade.companion.domain.ocr.OcrResult;
+import tools.sctrade.companion.domain.ocr.TiledOcr;
+import tools.sctrade.companion.utils.JsonUtil;
+import tools.sctrade.companion.utils.ResourceUtil;
+
+/**
+ * Reading a commodity kiosk capture in concurrent tiles versus in one piece, with a stand-in OCR
+ * serving the words OneOCR read in the capture after a fixed {@code tileLatencyMillis} per read.
+ * With a single tile, whole captures are read in one piece and regions of interest one after the
+ * other. Tiled results are checked against the words read in one piece at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TiledOcrBenchmark {
+  private static final String FIXTURE = "arc-l2-sell-1";
+  private static final Dimension FRAME_SIZE = new Dimension(3904, 2196); // Of the fixture
+
+  @Param({"1", "2", "4"})
+  public int tiles;
+
+  @Param({"100"})
+  public long tileLatencyMillis;
+
+  private BufferedImage capture;
+  private TiledOcr ocr;
+
+  /**
+   * Builds the tiled OCR, and checks that it reads the same words as the stand-in alone.
+   */
+  @Setup
+  public void setUp() {
+    capture = new BufferedImage(FRAME_SIZE.width, FRAME_SIZE.height, BufferedImage.TYPE_INT_RGB);
+    var frameWordsOcr = new FrameWordsOcr(readRecordedWords(), tileLatencyMillis);
+    ocr = new TiledOcr(frameWordsOcr, tiles);
+
+    if (!format(ocr.read(capture).getWords())
+        .equals(format(frameWordsOcr.read(capture).getWords()))) {
+      throw new IllegalStateException("Tiles weren't stitched back into the same words");
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    ocr.close();
+  }
+
+  @Benchmark
+  public OcrResult readWholeCapture() {
+    return ocr.read(capture);
+  }
+
+  @Benchmark
+  public OcrResult readRegionsOfInterest() {
+    return ocr.read(capture, CommoditySubmissionFactory::getRegionsOfInterest);
+  }
+
+  private static List<LocatedWord> readRecordedWords() {
+    var json = ResourceUtil.getTextLines("/kiosks/commodity/actuals/" + FIXTURE + ".json").stream()
+        .collect(Collectors.joining(""));
+
+    return JsonUtil.parseList(json, RecordedWord.class).stream().map(RecordedWord::toLocatedWord)
+        .toList();
+  }
+
+  private static List<String> format(Collection<LocatedWord> words) {
+    return words.stream().map(n -> n.getText() + "@" + n.getBoundingBox()).sorted().toList();
+  }
+
+  /**
+   * Stand-in for OneOCR, reading the recorded words of the part of the capture it is given, located
+   * from the offset of its raster. Words cut by the edges of the part are read as their visible
+   * part.
+   */
+  private static class FrameWordsOcr extends Ocr {
+    private final List<LocatedWord> words;
+    private final long latencyMillis;
+
+    FrameWordsOcr(List<LocatedWord> words, long latencyMillis) {
+      super(List.of());
+      this.words = words;
+      this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    protected OcrResult process(BufferedImage image) {
+      try {
+        Thread.sleep(latencyMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+
+      var raster = image.getRaster();
+      var part = new Rectangle(-raster.getSampleModelTranslateX(),
+          -raster.getSampleModelTranslateY(), image.getWidth(), image.getHeight());
+
+      return new OcrResult(words.stream().filter(n -> n.getBoundingBox().intersects(part))
+          .map(n -> {
+            var boundingBox = n.getBoundingBox().intersection(part);
+            boundingBox.translate(-part.x, -part.y);
+
+            return new LocatedWord(n.getText(), boundingBox);
+          }).toList(), new Dimension(image.getWidth(), image.getHeight()));
+    }
+  }
+
+  private record RecordedWord(@JsonProperty("Text") String text, @JsonProperty("X") double x,
+      @JsonProperty("Y") double y, @JsonProperty("Width") double width,
+      @JsonProperty("Height") double height) {
+    LocatedWord toLocatedWord() {
+      return new LocatedWord(text.toLowerCase(), new Rectangle((int) Math.round(x),
+          (int) Math.round(y), (int) Math.round(width), (int) Math.round(height)));
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package tools.sctrade.companion.domain.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.sctrade.companion.domain.image.manipulations.AdjustBrightnessAndContrast;
+import tools.sctrade.companion.domain.image.manipulations.AlignToTemplate;
+import tools.sctrade.companion.domain.image.manipulations.AutoTreshold;
+import tools.sctrade.companion.domain.image.manipulations.CommodityKioskTextThreshold1;
+import tools.sctrade.companion.domain.image.manipulations.CommodityKioskTextThreshold2;
+import tools.sctrade.companion.domain.image.manipulations.CommodityKioskTextThreshold3;
+import tools.sctrade.companion.domain.image.manipulations.ConvertToEqualizedGreyscale;
+import tools.sctrade.companion.domain.image.manipulations.ConvertToGreyscale;
+import tools.sctrade.companion.domain.image.manipulations.InvertColors;
+import tools.sctrade.companion.domain.image.manipulations.UpscaleTo4k;
+import tools.sctrade.companion.utils.AlignmentReference;
+import tools.sctrade.companion.utils.NativeRuntime;
+import tools.sctrade.companion.utils.ResourceUtil;
+import tools.sctrade.companion.utils.ScalingQuality;
+
+/**
+ * Latency and allocation rate of every {@link ImageManipulation}, and of the production
+ * preprocessing, on the commodity kiosk fixtures at their real resolution.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageManipulationBenchmark {
+  @Param({"arc-l1-sell-1", "canard-view-buy-1", "levski-buy-1", "lorville-sell-1",
+      "rayari-anvik-buy-1"})
+  public String fixture;
+
+  @Param({"UpscaleTo4k", "AlignToTemplate", "AlignToTemplateNative", "AdjustBrightnessAndContrast",
+      "AutoTreshold", "CommodityKioskTextThreshold1", "CommodityKioskTextThreshold2",
+      "CommodityKioskTextThreshold3", "ConvertToEqualizedGreyscale", "ConvertToGreyscale",
+      "InvertColors", "Preprocessing"})
+  public String manipulation;
+
+  private BufferedImage image;
+  private ImageManipulation imageManipulation;
+
+  /**
+   * Reads the fixture, and creates the manipulation.
+   *
+   * @throws IOException If the fixture can't be read.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    NativeRuntime.load();
+    image = ResourceUtil.getBufferedImage("/kiosks/commodity/images/" + fixture + ".jpg");
+    imageManipulation = switch (manipulation) {
+      case "UpscaleTo4k" -> new UpscaleTo4k();
+      case "AlignToTemplate" -> new AlignToTemplate();
+      case "AlignToTemplateNative" -> new AlignToTemplate(AlignmentReference.Resolution.NATIVE);
+      case "AdjustBrightnessAndContrast" -> new AdjustBrightnessAndContrast(1.5f, -20f);
+      case "AutoTreshold" -> new AutoTreshold();
+      case "CommodityKioskTextThreshold1" -> new CommodityKioskTextThreshold1();
+      case "CommodityKioskTextThreshold2" -> new CommodityKioskTextThreshold2();
+      case "CommodityKioskTextThreshold3" -> new CommodityKioskTextThreshold3();
+      case "ConvertToEqualizedGreyscale" -> new ConvertToEqualizedGreyscale();
+      case "ConvertToGreyscale" -> new ConvertToGreyscale();
+      case "InvertColors" -> new InvertColors();
+      // What a capture goes through before the OCR, with the default settings
+      case "Preprocessing" -> new ImageManipulationPipeline(
+          List.of(new UpscaleTo4k(ScalingQuality.ULTRA_QUALITY), new AlignToTemplate()));
+      default -> throw new IllegalArgumentException("Unknown manipulation: " + manipulation);
+    };
+  }
+
+  @Benchmark
+  public BufferedImage manipulate() {
+    return imageManipulation.manipulate(image);
+  }
+}
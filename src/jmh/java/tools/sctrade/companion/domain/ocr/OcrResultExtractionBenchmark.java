@@ -0,0 +1,214 @@
+package tools.sctrade.companion.domain.ocr;
+
+import com.sun.jna.Library;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.ptr.LongByReference;
+import com.sun.jna.ptr.PointerByReference;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.sctrade.companion.domain.ocr.OneOcr.Img;
+import tools.sctrade.companion.domain.ocr.OneOcr.OneOcrLib;
+
+/**
+ * Reading the words of a recognition from the native stub of OneOCR (see {@code src/test/c}), which
+ * returns {@value #LINES} lines of {@value #WORDS_PER_LINE} words straight away: what's left is the
+ * cost of the bindings. Scores are per word.
+ *
+ * <ul>
+ * <li>{@code direct}: {@link DirectOneOcrLib}, {@link OneOcr}'s JNA binding.</li>
+ * <li>{@code foreign}: {@link ForeignOneOcrLib}, {@link OneOcr}'s FFM binding.</li>
+ * <li>{@code interface}: the same {@link OneOcrLib} through JNA's interface mapping.</li>
+ * <li>{@code legacy}: the binding as it was before, pointer holders and a bounding box structure
+ * allocated for every call.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OcrResultExtractionBenchmark {
+  private static final int LINES = 40;
+  private static final int WORDS_PER_LINE = 6;
+
+  @Param({"direct", "foreign", "interface", "legacy"})
+  public String binding;
+
+  private final BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+  private OcrPipeline pipeline;
+  private LegacyPipeline legacyPipeline;
+
+  /**
+   * Loads the stub, see {@link OneOcrStub}.
+   */
+  @Setup
+  public void setUp() {
+    String path = OneOcrStub.getPath()
+        .orElseThrow(() -> new IllegalStateException("Run with -Doneocr.stub=<path of the stub>"));
+    OneOcrStub.load(path).StubSetWords(LINES, WORDS_PER_LINE);
+
+    switch (binding) {
+      case "direct" -> pipeline =
+          new JnaOcrPipeline(DirectOneOcrLib.load(path), "model", "key");
+      case "foreign" -> pipeline =
+          new ForeignOcrPipeline(ForeignOneOcrLib.load(path), "model", "key");
+      case "interface" -> pipeline =
+          new JnaOcrPipeline(Native.load(path, OneOcrLib.class), "model", "key");
+      case "legacy" -> legacyPipeline = new LegacyPipeline(Native.load(path, LegacyLib.class));
+      default -> throw new IllegalArgumentException(binding);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (pipeline != null) {
+      pipeline.close();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LINES * WORDS_PER_LINE)
+  public List<LocatedWord> readWords() {
+    return pipeline == null ? legacyPipeline.run(image) : pipeline.run(image);
+  }
+
+  /** The binding as it was before. */
+  interface LegacyLib extends Library {
+    long CreateOcrInitOptions(PointerByReference ctx);
+
+    long CreateOcrPipeline(Pointer modelPath, Pointer key, Pointer ctx,
+        PointerByReference pipeline);
+
+    long CreateOcrProcessOptions(PointerByReference opt);
+
+    long OcrProcessOptionsSetMaxRecognitionLineCount(Pointer opt, long count);
+
+    long RunOcrPipeline(Pointer pipeline, Img.ByReference img, Pointer opt,
+        PointerByReference instance);
+
+    long GetOcrLineCount(Pointer instance, LongByReference count);
+
+    long GetOcrLine(Pointer instance, long index, PointerByReference line);
+
+    long GetOcrLineWordCount(Pointer line, LongByReference count);
+
+    long GetOcrWord(Pointer line, long index, PointerByReference word);
+
+    long GetOcrWordContent(Pointer word, PointerByReference textPtr);
+
+    long GetOcrWordBoundingBox(Pointer word, PointerByReference boxPtr);
+
+    long ReleaseOcrResult(Pointer instance);
+  }
+
+  /** The {@code OcrBoundingBox} structure as it was mapped before. */
+  public static class LegacyBoundingBox extends Structure {
+    public float x1, y1, x2, y2, x3, y3, x4, y4;
+
+    @Override
+    protected List<String> getFieldOrder() {
+      return List.of("x1", "y1", "x2", "y2", "x3", "y3", "x4", "y4");
+    }
+  }
+
+  /** Result extraction as it was before, on a pipeline that's never released. */
+  private static class LegacyPipeline {
+    private final LegacyLib lib;
+    private final NativePixelBuffer pixelBuffer = new NativePixelBuffer();
+    private final Pointer pipeline;
+    private final Pointer processOptions;
+
+    LegacyPipeline(LegacyLib lib) {
+      this.lib = lib;
+
+      var ref = new PointerByReference();
+      lib.CreateOcrInitOptions(ref);
+      Pointer ctx = ref.getValue();
+      lib.CreateOcrPipeline(toNativeString("model"), toNativeString("key"), ctx, ref);
+      pipeline = ref.getValue();
+      lib.CreateOcrProcessOptions(ref);
+      processOptions = ref.getValue();
+      lib.OcrProcessOptionsSetMaxRecognitionLineCount(processOptions, 1000);
+    }
+
+    List<LocatedWord> run(BufferedImage image) {
+      var img = new Img.ByReference();
+      img.t = Img.TYPE_BGRA;
+      img.col = image.getWidth();
+      img.row = image.getHeight();
+      img.step = NativePixelBuffer.getStep(image);
+      img.dataPtr = Pointer.nativeValue(pixelBuffer.pack(image));
+
+      var instanceRef = new PointerByReference();
+      lib.RunOcrPipeline(pipeline, img, processOptions, instanceRef);
+      Pointer instance = instanceRef.getValue();
+
+      try {
+        var lineCountRef = new LongByReference();
+        lib.GetOcrLineCount(instance, lineCountRef);
+        var words = new ArrayList<LocatedWord>();
+
+        for (long i = 0; i < lineCountRef.getValue(); i++) {
+          var lineRef = new PointerByReference();
+          lib.GetOcrLine(instance, i, lineRef);
+          var wordCountRef = new LongByReference();
+          lib.GetOcrLineWordCount(lineRef.getValue(), wordCountRef);
+
+          for (long j = 0; j < wordCountRef.getValue(); j++) {
+            var wordRef = new PointerByReference();
+            lib.GetOcrWord(lineRef.getValue(), j, wordRef);
+            words.add(toLocatedWord(wordRef.getValue()));
+          }
+        }
+
+        return words;
+      } finally {
+        lib.ReleaseOcrResult(instance);
+      }
+    }
+
+    private LocatedWord toLocatedWord(Pointer word) {
+      var textRef = new PointerByReference();
+      lib.GetOcrWordContent(word, textRef);
+      String text = textRef.getValue().getString(0, StandardCharsets.UTF_8.name());
+
+      var boxRef = new PointerByReference();
+      lib.GetOcrWordBoundingBox(word, boxRef);
+      var box = Structure.newInstance(LegacyBoundingBox.class, boxRef.getValue());
+      box.read();
+
+      return new LocatedWord(text.toLowerCase(), new Rectangle(Math.round(box.x1),
+          Math.round(box.y1), Math.round(box.x3 - box.x1), Math.round(box.y3 - box.y1)));
+    }
+
+    private static Memory toNativeString(String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      var memory = new Memory(bytes.length + 1L);
+      memory.write(0, bytes, 0, bytes.length);
+      memory.setByte(bytes.length, (byte) 0);
+
+      return memory;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package tools.sctrade.companion.utils;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency and allocation rate of the alignment to the commodity kiosk template, on the commodity
+ * kiosk fixtures at their real resolution: with the template's features detected on every call or
+ * once, and with the previous capture's camera pose reused or not.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlignmentReferenceBenchmark {
+  private static final String TEMPLATE_PATH = "/images/ocr/commodity_kiosk_template.jpg";
+  private static final double MIN_SIMILARITY_TRESHOLD = 0.12;
+
+  @Param({"arc-l1-sell-1", "canard-view-buy-1", "levski-buy-1", "lorville-sell-1",
+      "rayari-anvik-buy-1"})
+  public String fixture;
+
+  @Param({"FULL_RESOLUTION", "COARSE_TO_FINE"})
+  public AlignmentReference.Mode mode;
+
+  private BufferedImage template;
+  private Mat mat;
+  private AlignmentReference reference;
+  private AlignmentReference posedReference;
+
+  /**
+   * Reads the fixture, and prepares the references. The posed one has already aligned the fixture,
+   * and remembers its camera pose.
+   *
+   * @throws IOException If the fixture can't be read.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    NativeRuntime.load();
+    template = ImageUtil.readFromResource(TEMPLATE_PATH);
+    mat = ImageUtil.toMat(ResourceUtil.getBufferedImage(
+        "/kiosks/commodity/images/" + fixture + ".jpg"));
+    reference = AlignmentReference.of(template, mode);
+    posedReference = AlignmentReference.of(template, mode);
+    release(posedReference.align(mat, MIN_SIMILARITY_TRESHOLD, true));
+  }
+
+  @TearDown
+  public void tearDown() {
+    reference.close();
+    posedReference.close();
+    mat.release();
+  }
+
+  @Benchmark
+  public boolean alignWithUncachedTemplate() {
+    try (var uncachedReference = AlignmentReference.of(template, mode)) {
+      return release(uncachedReference.align(mat, MIN_SIMILARITY_TRESHOLD, false));
+    }
+  }
+
+  @Benchmark
+  public boolean alignWithCachedTemplate() {
+    return release(reference.align(mat, MIN_SIMILARITY_TRESHOLD, false));
+  }
+
+  @Benchmark
+  public boolean alignFromSamePose() {
+    return release(posedReference.align(mat, MIN_SIMILARITY_TRESHOLD, true));
+  }
+
+  /**
+   * Estimates the homography only, without warping nor validating.
+   *
+   * @return The number of elements of the homography.
+   */
+  @Benchmark
+  public long findHomography() {
+    Mat homography = reference.findHomography(mat);
+
+    try {
+      return homography.total();
+    } finally {
+      homography.release();
+    }
+  }
+
+  /**
+   * Releases an aligned mat right away, so that native memory doesn't pile up.
+   */
+  private static boolean release(Optional<Mat> aligned) {
+    aligned.ifPresent(Mat::release);
+
+    return aligned.isPresent();
+  }
+}
@@ -0,0 +1,232 @@
+package tools.sctrade.companion.utils;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency and allocation rate of every {@link ImageUtil} operation, on the commodity kiosk fixtures
+ * at their real resolution. In-place operations work on a fresh copy of the fixture, made outside
+ * of the measured time. The GC profiler still counts the copy: compare their allocation rate to
+ * {@link #makeCopy()}'s.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageUtilBenchmark {
+  private static final String TEMPLATE_PATH = "/images/ocr/commodity_kiosk_template.jpg";
+  private static final double MIN_SIMILARITY_TRESHOLD = 0.12;
+
+  @Param({"arc-l1-sell-1", "canard-view-buy-1", "levski-buy-1", "lorville-sell-1",
+      "rayari-anvik-buy-1"})
+  public String fixture;
+
+  private BufferedImage image;
+  private BufferedImage binaryImage;
+  private BufferedImage template;
+  private Rectangle rightHalf;
+  private Mat mat;
+
+  /**
+   * Reads the fixture, and prepares the inputs of the operations that don't take a screen capture.
+   *
+   * @throws IOException If the fixture can't be read.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    NativeRuntime.load();
+    image = ResourceUtil.getBufferedImage("/kiosks/commodity/images/" + fixture + ".jpg");
+    binaryImage = ImageUtil.applyOtsuBinarization(image);
+    template = ImageUtil.readFromResource(TEMPLATE_PATH);
+    rightHalf = new Rectangle(image.getWidth() / 2, 0, image.getWidth() / 2, image.getHeight());
+    mat = ImageUtil.toMat(image);
+  }
+
+  @TearDown
+  public void tearDown() {
+    mat.release();
+  }
+
+  @Benchmark
+  public BufferedImage makeHistogramEqualizedGreyscaleCopy() {
+    return ImageUtil.makeHistogramEqualizedGreyscaleCopy(image);
+  }
+
+  @Benchmark
+  public BufferedImage makeClaheEqualizedGreyscaleCopy() {
+    return ImageUtil.makeClaheEqualizedGreyscaleCopy(image);
+  }
+
+  @Benchmark
+  public BufferedImage makeGreyscaleCopy() {
+    return ImageUtil.makeGreyscaleCopy(image);
+  }
+
+  @Benchmark
+  public BufferedImage invertColors(Copy copy) {
+    ImageUtil.invertColors(copy.image);
+
+    return copy.image;
+  }
+
+  @Benchmark
+  public BufferedImage adjustBrightnessAndContrast(Copy copy) {
+    ImageUtil.adjustBrightnessAndContrast(copy.image, 1.5f, -20f);
+
+    return copy.image;
+  }
+
+  @Benchmark
+  public Color calculateDominantColor() {
+    return ImageUtil.calculateDominantColor(image);
+  }
+
+  @Benchmark
+  public Color calculateAverageColor() {
+    return ImageUtil.calculateAverageColor(image);
+  }
+
+  @Benchmark
+  public BufferedImage scaleToHeight() {
+    return ImageUtil.scaleToHeight(image, 2160);
+  }
+
+  @Benchmark
+  public BufferedImage makeCopy() {
+    return ImageUtil.makeCopy(image);
+  }
+
+  @Benchmark
+  public BufferedImage crop() {
+    return ImageUtil.crop(image, rightHalf);
+  }
+
+  @Benchmark
+  public BufferedImage applyGaussianBlur() {
+    return ImageUtil.applyGaussianBlur(image, 5, 0);
+  }
+
+  @Benchmark
+  public BufferedImage applyAdaptiveGaussianThreshold() {
+    return ImageUtil.applyAdaptiveGaussianThreshold(image, 11, 2);
+  }
+
+  @Benchmark
+  public BufferedImage applyOtsuBinarization() {
+    return ImageUtil.applyOtsuBinarization(image);
+  }
+
+  @Benchmark
+  public List<Rectangle> findBoundingBoxes() {
+    return ImageUtil.findBoundingBoxes(binaryImage);
+  }
+
+  /**
+   * Converts the fixture to a mat, released right away so that native memory doesn't pile up.
+   *
+   * @return The number of elements of the mat.
+   */
+  @Benchmark
+  public long toMat() {
+    Mat converted = ImageUtil.toMat(image);
+
+    try {
+      return converted.total();
+    } finally {
+      converted.release();
+    }
+  }
+
+  @Benchmark
+  public BufferedImage toBufferedImage() {
+    return ImageUtil.toBufferedImage(mat);
+  }
+
+  /**
+   * Baseline of {@link #toMat()}: the previous conversion, through a JPEG encoding.
+   *
+   * @return The number of elements of the mat.
+   * @throws IOException If the fixture can't be encoded.
+   */
+  @Benchmark
+  public long toMatThroughJpeg() throws IOException {
+    var outputStream = new ByteArrayOutputStream();
+    ImageIO.write(image, "jpg", outputStream);
+    var bytes = new MatOfByte(outputStream.toByteArray());
+    Mat converted = Imgcodecs.imdecode(bytes, Imgcodecs.IMREAD_ANYCOLOR);
+
+    try {
+      return converted.total();
+    } finally {
+      converted.release();
+      bytes.release();
+    }
+  }
+
+  /**
+   * Baseline of {@link #toBufferedImage()}: the previous conversion, through a JPEG encoding.
+   *
+   * @return The converted image.
+   * @throws IOException If the mat can't be decoded.
+   */
+  @Benchmark
+  public BufferedImage toBufferedImageThroughJpeg() throws IOException {
+    var bytes = new MatOfByte();
+
+    try {
+      Imgcodecs.imencode(".jpg", mat, bytes);
+
+      return ImageIO.read(new ByteArrayInputStream(bytes.toArray()));
+    } finally {
+      bytes.release();
+    }
+  }
+
+  @Benchmark
+  public BufferedImage alignToReferenceWithValidation() {
+    return ImageUtil.alignToReferenceWithValidation(image, template, MIN_SIMILARITY_TRESHOLD);
+  }
+
+  @Benchmark
+  public double calculateImageSimilarity() {
+    return ImageUtil.calculateImageSimilarity(image, template);
+  }
+
+  /**
+   * Copy of the fixture, for in-place operations.
+   */
+  @State(Scope.Thread)
+  public static class Copy {
+    BufferedImage image;
+
+    @Setup(Level.Invocation)
+    public void setUp(ImageUtilBenchmark benchmark) {
+      image = ImageUtil.makeCopy(benchmark.image);
+    }
+  }
+}
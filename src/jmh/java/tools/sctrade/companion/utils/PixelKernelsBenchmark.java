@@ -0,0 +1,94 @@
+package tools.sctrade.companion.utils;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of the scalar and vectorized {@link PixelKernels}, on random frames of the common screen
+ * resolutions, as byte BGR (type 5) and int RGB (type 1) images. Kernels run on the calling
+ * thread, see {@link TiledPixelKernelsBenchmark} for the thread scaling.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PixelKernelsBenchmark {
+  @Param({"1920x1080", "2560x1440", "3840x2160"})
+  public String resolution;
+
+  @Param({"1", "5"})
+  public int imageType;
+
+  @Param({"scalar", "vectorized"})
+  public String implementation;
+
+  private BufferedImage image;
+  private PixelKernels kernels;
+
+  /**
+   * Builds the frame, and picks the kernels.
+   */
+  @Setup
+  public void setUp() {
+    String[] dimensions = resolution.split("x");
+    image = buildRandomImage(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]),
+        imageType);
+    PixelKernels implementationKernels = switch (implementation) {
+      case "scalar" -> PixelKernels.scalar();
+      case "vectorized" -> PixelKernels.vectorized().orElseThrow();
+      default -> throw new IllegalArgumentException("Unknown implementation: " + implementation);
+    };
+    kernels = implementationKernels.on(new TiledExecutor(1));
+  }
+
+  /**
+   * Inverts the frame in place. Inverting it twice gives it back, so every invocation works on
+   * the same pixel values.
+   */
+  @Benchmark
+  public BufferedImage invertColors() {
+    kernels.invertColors(image);
+
+    return image;
+  }
+
+  @Benchmark
+  public int calculateAverageColor() {
+    return kernels.calculateAverageColor(image, image.getRaster().getBounds());
+  }
+
+  @Benchmark
+  public int calculateDominantColor() {
+    return kernels.calculateDominantColor(image, image.getRaster().getBounds());
+  }
+
+  static BufferedImage buildRandomImage(int width, int height, int imageType) {
+    var random = new Random(imageType);
+    var image = new BufferedImage(width, height, imageType);
+    int[] row = new int[width];
+
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        row[x] = random.nextInt();
+      }
+
+      image.setRGB(0, y, width, 1, row, 0, width);
+    }
+
+    return image;
+  }
+}
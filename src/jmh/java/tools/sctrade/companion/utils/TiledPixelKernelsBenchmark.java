@@ -0,0 +1,59 @@
+package tools.sctrade.companion.utils;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of the default {@link PixelKernels} on a random 4K byte BGR frame, split in bands over a
+ * growing number of threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TiledPixelKernelsBenchmark {
+  @Param({"1", "2", "4", "8"})
+  public int parallelism;
+
+  private BufferedImage image;
+  private PixelKernels kernels;
+
+  @Setup
+  public void setUp() {
+    image = PixelKernelsBenchmark.buildRandomImage(3840, 2160, BufferedImage.TYPE_3BYTE_BGR);
+    kernels = PixelKernels.get().on(new TiledExecutor(parallelism));
+  }
+
+  /**
+   * See {@link PixelKernelsBenchmark#invertColors()}.
+   */
+  @Benchmark
+  public BufferedImage invertColors() {
+    kernels.invertColors(image);
+
+    return image;
+  }
+
+  @Benchmark
+  public int calculateAverageColor() {
+    return kernels.calculateAverageColor(image, image.getRaster().getBounds());
+  }
+
+  @Benchmark
+  public int calculateDominantColor() {
+    return kernels.calculateDominantColor(image, image.getRaster().getBounds());
+  }
+}
@@ -7,13 +7,17 @@ import org.jnativehook.NativeHookException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
 import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import tools.sctrade.companion.domain.commodity.CommodityReprocessor;
 import tools.sctrade.companion.gui.CompanionGui;
 import tools.sctrade.companion.input.KeyListener;
+import tools.sctrade.companion.output.commodity.CommodityCsvWriter;
+import tools.sctrade.companion.utils.NativeRuntimeBootstrap;
 
 @SpringBootApplication
 @EnableScheduling
@@ -29,10 +33,26 @@ public class CompanionApplication {
     var context = new SpringApplicationBuilder(CompanionApplication.class).headless(false)
         .web(WebApplicationType.NONE).run(args);
 
+    // Command, e.g. `gradlew bootRun --args='--ocr.reprocess-cache=true'`: no capture is taken
+    if (context.getEnvironment().getProperty("ocr.reprocess-cache", Boolean.class, false)) {
+      reprocessOcrCache(context);
+      return;
+    }
+
+    // In the background, so that the first capture is fast without the GUI waiting for it
+    context.getBean(NativeRuntimeBootstrap.class).start();
     registerKeyListenerOrCrash(context);
     openGui(context);
   }
 
+  private static void reprocessOcrCache(ConfigurableApplicationContext context) {
+    var submission = context.getBean(CommodityReprocessor.class).reprocess();
+    submission.ifPresent(
+        context.getBean("ReprocessedCommodityCsvWriter", CommodityCsvWriter.class)::process);
+
+    System.exit(SpringApplication.exit(context));
+  }
+
   private static void registerKeyListenerOrCrash(ConfigurableApplicationContext context) {
     try {
       GlobalScreen.registerNativeHook();
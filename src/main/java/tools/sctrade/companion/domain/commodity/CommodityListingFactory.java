@@ -148,7 +148,7 @@ public class CommodityListingFactory {
         .filter(n -> n.getBoundingBox().getMinX() > minX)
         .filter(n -> n.getBoundingBox().getMinY() > minY).toList();
 
-    return new OcrResult(words);
+    return new OcrResult(words, result.getFrameSize().orElse(null));
   }
 
   private OcrResult removePureGibberishWords(OcrResult result) {
@@ -156,7 +156,7 @@ public class CommodityListingFactory {
         .flatMap(n -> n.getWordsInReadingOrder().stream())
         .filter(n -> n.getText().matches(".*[a-zA-Z0-9].*")).toList();
 
-    return new OcrResult(words);
+    return new OcrResult(words, result.getFrameSize().orElse(null));
   }
 
   private List<RawCommodityListing> assembleRawListings(List<LocatedColumn> leftHalfListings,
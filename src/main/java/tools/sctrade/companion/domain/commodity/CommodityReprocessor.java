@@ -0,0 +1,83 @@
+package tools.sctrade.companion.domain.commodity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.sctrade.companion.domain.ocr.OcrResultCache;
+
+/**
+ * Rebuilds commodity submissions out of every cached OCR result, without reading the captures
+ * again: only the parsing of the listings runs, on every cached capture in parallel. Meant to
+ * evaluate changes to the parsing against the captures of the past.
+ */
+public class CommodityReprocessor {
+  private final Logger logger = LoggerFactory.getLogger(CommodityReprocessor.class);
+
+  private final CommoditySubmissionFactory submissionFactory;
+  private final OcrResultCache ocrResultCache;
+  private final int parallelism;
+
+  /**
+   * Creates a new reprocessor.
+   *
+   * @param submissionFactory Builds the submissions out of the OCR results.
+   * @param ocrResultCache The cached OCR results.
+   * @param parallelism The number of captures parsed at once.
+   */
+  public CommodityReprocessor(CommoditySubmissionFactory submissionFactory,
+      OcrResultCache ocrResultCache, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+    }
+
+    this.submissionFactory = submissionFactory;
+    this.ocrResultCache = ocrResultCache;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Reprocesses every cached capture. Captures from which no listing can be read are skipped.
+   *
+   * @return The listings of every capture, as a single submission. Unlike merged submissions,
+   *         listings without a location are left as is. Empty if no listing could be read.
+   */
+  public Optional<CommoditySubmission> reprocess() {
+    var keys = List.copyOf(ocrResultCache.getKeys());
+    logger.info("Reprocessing {} cached captures...", keys.size());
+    var pool = new ForkJoinPool(parallelism);
+    List<CommoditySubmission> submissions;
+
+    try {
+      submissions = pool.submit(() -> keys.parallelStream().map(this::reprocess)
+          .flatMap(Optional::stream).toList()).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while reprocessing cached captures", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Could not reprocess cached captures", e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+
+    List<CommodityListing> listings = new ArrayList<>();
+    submissions.forEach(n -> listings.addAll(n.getListings()));
+    logger.info("Read {} listings out of {} of the {} cached captures", listings.size(),
+        submissions.size(), keys.size());
+
+    return submissions.stream().findFirst()
+        .map(n -> new CommoditySubmission(n.getUser(), listings));
+  }
+
+  private Optional<CommoditySubmission> reprocess(String key) {
+    try {
+      return ocrResultCache.get(key).map(submissionFactory::build);
+    } catch (RuntimeException e) {
+      logger.debug("Could not reprocess cached capture {}", key, e);
+      return Optional.empty();
+    }
+  }
+}
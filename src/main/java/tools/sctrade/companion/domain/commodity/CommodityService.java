@@ -1,6 +1,8 @@
 package tools.sctrade.companion.domain.commodity;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.Semaphore;
@@ -11,6 +13,8 @@ import org.springframework.scheduling.annotation.Scheduled;
 import tools.sctrade.companion.domain.notification.NotificationService;
 import tools.sctrade.companion.utils.AsynchronousProcessor;
 import tools.sctrade.companion.utils.LocalizationUtil;
+import tools.sctrade.companion.utils.PerceptualHash;
+import tools.sctrade.companion.utils.PerceptualHashCache;
 
 /**
  * Service that processes images into commodity listings and publishes them.
@@ -20,6 +24,7 @@ public class CommodityService extends AsynchronousProcessor<BufferedImage> {
 
   private CommoditySubmissionFactory submissionFactory;
   private Collection<AsynchronousProcessor<CommoditySubmission>> publishers;
+  private PerceptualHashCache<Instant> recentCaptures;
 
   private Semaphore mutex = new Semaphore(1, true);
   private boolean publishNextTime;
@@ -30,15 +35,19 @@ public class CommodityService extends AsynchronousProcessor<BufferedImage> {
    *
    * @param submissionFactory Factory that builds commodity submissions.
    * @param publishers Publishers that export commodity submissions.
+   * @param recentCaptures When recent screen captures were taken, by the perceptual hash of their
+   *        regions of interest, to skip near-identical captures.
    * @param notificationService Notification service.
    */
   public CommodityService(CommoditySubmissionFactory submissionFactory,
       Collection<AsynchronousProcessor<CommoditySubmission>> publishers,
+      PerceptualHashCache<Instant> recentCaptures,
       NotificationService notificationService) {
     super(notificationService);
 
     this.submissionFactory = submissionFactory;
     this.publishers = publishers;
+    this.recentCaptures = recentCaptures;
     this.publishNextTime = false;
     this.pendingSubmission = Optional.empty();
   }
@@ -56,19 +65,45 @@ public class CommodityService extends AsynchronousProcessor<BufferedImage> {
   }
 
   /**
-   * Processes a screen capture.
+   * Processes a screen capture. A capture near-identical to a recent one, e.g. of a kiosk that
+   * didn't change since, is skipped: its listings were already read, or are being read.
    *
    * @param screenCapture Screen capture of a commodity kiosk.
    * @throws InterruptedException If the thread is interrupted
    */
   @Override
   public void process(BufferedImage screenCapture) throws InterruptedException {
-    CommoditySubmission submission = submissionFactory.build(screenCapture);
+    var hash = PerceptualHash.of(screenCapture, CommoditySubmissionFactory
+        .getRegionsOfInterest(new Dimension(screenCapture.getWidth(), screenCapture.getHeight())));
+    var recentCapture = recentCaptures.putIfAbsent(hash, Instant.now());
+
+    if (recentCapture.isPresent()) {
+      logger.info("Skipped screen capture, near-identical to the one taken at {}",
+          recentCapture.get());
+      notificationService.info(LocalizationUtil.get("infoDuplicateCapture"));
+      return;
+    }
+
+    CommoditySubmission submission;
+
+    try {
+      submission = submissionFactory.build(screenCapture);
+    } catch (RuntimeException e) {
+      // Let the player try again
+      recentCaptures.remove(hash);
+      throw e;
+    }
+
     notificationService.info(LocalizationUtil.get("infoCommodityListingsRead"));
 
     process(submission);
   }
 
+  @Override
+  public void warmUp(BufferedImage syntheticScreenCapture) {
+    submissionFactory.warmUp(syntheticScreenCapture);
+  }
+
   private void process(CommoditySubmission submission) throws InterruptedException {
     try {
       logger.debug("Acquiring mutex...");
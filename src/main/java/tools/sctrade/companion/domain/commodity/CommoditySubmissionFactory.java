@@ -1,5 +1,6 @@
 package tools.sctrade.companion.domain.commodity;
 
+import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.List;
@@ -7,6 +8,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tools.sctrade.companion.domain.notification.NotificationService;
 import tools.sctrade.companion.domain.ocr.Ocr;
+import tools.sctrade.companion.domain.ocr.OcrResult;
 import tools.sctrade.companion.domain.user.UserService;
 import tools.sctrade.companion.exceptions.NoListingsException;
 import tools.sctrade.companion.utils.LocalizationUtil;
@@ -41,21 +43,45 @@ public class CommoditySubmissionFactory {
     this.ocr = ocr;
   }
 
+  /**
+   * Builds a submission out of a screen capture of a commodity kiosk. Only the regions holding the
+   * location and the listings are read.
+   *
+   * @param screenCapture The screen capture.
+   * @return The submission.
+   * @throws NoListingsException If no listing could be read.
+   */
   public CommoditySubmission build(BufferedImage screenCapture) {
-    var ocrResult = ocr.read(screenCapture);
-    Rectangle topLeftBoundingBox =
-        new Rectangle(0, 0, (screenCapture.getWidth() / 2), (screenCapture.getHeight() / 3));
-    var topLeftCornerOcrResult = ocrResult.crop(topLeftBoundingBox);
-    var location = commodityLocationReader.read(topLeftCornerOcrResult);
+    var ocrResult = ocr.read(screenCapture, CommoditySubmissionFactory::getRegionsOfInterest);
+
+    return build(ocrResult, getFrameSize(ocrResult, screenCapture));
+  }
+
+  /**
+   * Builds a submission out of the text the OCR read in the regions of a commodity kiosk, without
+   * reading it again, e.g. to reprocess cached OCR results.
+   *
+   * @param ocrResult The OCR result, read from the regions of interest of a screen capture.
+   * @return The submission.
+   * @throws IllegalArgumentException If the size of the image the result was read from is unknown.
+   * @throws NoListingsException If no listing could be read.
+   */
+  public CommoditySubmission build(OcrResult ocrResult) {
+    var frameSize = ocrResult.getFrameSize().orElseThrow(
+        () -> new IllegalArgumentException("The OCR result doesn't tell what it was read from"));
+
+    return build(ocrResult, frameSize);
+  }
+
+  private CommoditySubmission build(OcrResult ocrResult, Dimension frameSize) {
+    var location = commodityLocationReader.read(ocrResult.crop(getLocationBoundingBox(frameSize)));
 
     if (location.isEmpty()) {
       notificationService.warn(LocalizationUtil.get("warnNoLocation"));
     }
 
-    Rectangle rightHalfBoundingBox = new Rectangle((screenCapture.getWidth() / 2), 0,
-        (screenCapture.getWidth() - (screenCapture.getWidth() / 2)), screenCapture.getHeight());
-    var rightHalfOcrResult = ocrResult.crop(rightHalfBoundingBox);
-    var listings = commodityListingFactory.build(rightHalfOcrResult, location.orElse(null));
+    var listings = commodityListingFactory
+        .build(ocrResult.crop(getListingsBoundingBox(frameSize)), location.orElse(null));
 
     if (listings.isEmpty()) {
       throw new NoListingsException();
@@ -64,7 +90,50 @@ public class CommoditySubmissionFactory {
     return new CommoditySubmission(userService.get(), listings);
   }
 
+  /**
+   * Reads a synthetic screen capture like {@link #build(BufferedImage)} would, without notifying
+   * the user nor building a submission, so that the first real capture doesn't pay for loading
+   * resources and warming the JIT up. A synthetic capture may hold no listing, or no location, in
+   * which case reading them fails and is logged as usual.
+   *
+   * @param syntheticCapture The synthetic screen capture.
+   */
+  public void warmUp(BufferedImage syntheticCapture) {
+    var ocrResult = ocr.warmUp(syntheticCapture, CommoditySubmissionFactory::getRegionsOfInterest);
+    var frameSize = getFrameSize(ocrResult, syntheticCapture);
+    var location = commodityLocationReader.read(ocrResult.crop(getLocationBoundingBox(frameSize)));
+    var listings = commodityListingFactory
+        .build(ocrResult.crop(getListingsBoundingBox(frameSize)), location.orElse(null));
+    logger.debug("Warmed up, read {} listings", listings.size());
+  }
+
   public CommoditySubmission build(CommodityListing commodityListing) {
     return new CommoditySubmission(userService.get(), List.of(commodityListing));
   }
+
+  private static Dimension getFrameSize(OcrResult ocrResult, BufferedImage screenCapture) {
+    // The OCR may have read an image of another size, e.g. aligned to a template
+    return ocrResult.getFrameSize()
+        .orElseGet(() -> new Dimension(screenCapture.getWidth(), screenCapture.getHeight()));
+  }
+
+  /**
+   * Locates the regions of a commodity kiosk to read: the location dropdown, in the top-left
+   * corner, and the listings, in the right half.
+   *
+   * @param frameSize The size of the capture, aligned to the kiosk template.
+   * @return The regions to read.
+   */
+  static List<Rectangle> getRegionsOfInterest(Dimension frameSize) {
+    return List.of(getLocationBoundingBox(frameSize), getListingsBoundingBox(frameSize));
+  }
+
+  private static Rectangle getLocationBoundingBox(Dimension frameSize) {
+    return new Rectangle(0, 0, (frameSize.width / 2), (frameSize.height / 3));
+  }
+
+  private static Rectangle getListingsBoundingBox(Dimension frameSize) {
+    return new Rectangle((frameSize.width / 2), 0, (frameSize.width - (frameSize.width / 2)),
+        frameSize.height);
+  }
 }
@@ -13,4 +13,16 @@ public interface ImageManipulation {
    * @return Manipulated image.
    */
   BufferedImage manipulate(BufferedImage image);
+
+  /**
+   * Manipulates a synthetic image, e.g. at startup, without any side effect: nothing learned from
+   * it may affect how real images are manipulated. Manipulates it like any other image by default,
+   * manipulations with side effects must override it.
+   *
+   * @param image Synthetic image to manipulate.
+   * @return Manipulated image.
+   */
+  default BufferedImage manipulateForWarmUp(BufferedImage image) {
+    return manipulate(image);
+  }
 }
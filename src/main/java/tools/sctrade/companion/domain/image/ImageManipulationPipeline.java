@@ -0,0 +1,80 @@
+package tools.sctrade.companion.domain.image;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import tools.sctrade.companion.utils.NativeImage;
+
+/**
+ * Applies a list of image manipulations, in order. Consecutive {@link NativeImageManipulation}s are
+ * fused: the image is copied into native memory before the first one, and back after the last one,
+ * instead of around each of them. Intermediary native images are released as soon as they are
+ * replaced.
+ */
+public class ImageManipulationPipeline implements ImageManipulation {
+  private List<ImageManipulation> manipulations;
+
+  /**
+   * Creates a new image manipulation pipeline.
+   *
+   * @param manipulations The manipulations to apply, in order.
+   */
+  public ImageManipulationPipeline(List<ImageManipulation> manipulations) {
+    this.manipulations = List.copyOf(manipulations);
+  }
+
+  @Override
+  public BufferedImage manipulate(BufferedImage image) {
+    return manipulate(image, false);
+  }
+
+  @Override
+  public BufferedImage manipulateForWarmUp(BufferedImage image) {
+    return manipulate(image, true);
+  }
+
+  private BufferedImage manipulate(BufferedImage image, boolean isWarmUp) {
+    int i = 0;
+
+    while (i < manipulations.size()) {
+      if (manipulations.get(i) instanceof NativeImageManipulation) {
+        int end = findEndOfNativeSequence(i);
+        image = manipulateNatively(image, manipulations.subList(i, end), isWarmUp);
+        i = end;
+      } else if (isWarmUp) {
+        image = manipulations.get(i).manipulateForWarmUp(image);
+        i++;
+      } else {
+        image = manipulations.get(i).manipulate(image);
+        i++;
+      }
+    }
+
+    return image;
+  }
+
+  private int findEndOfNativeSequence(int start) {
+    int end = start;
+
+    while (end < manipulations.size()
+        && manipulations.get(end) instanceof NativeImageManipulation) {
+      end++;
+    }
+
+    return end;
+  }
+
+  private BufferedImage manipulateNatively(BufferedImage image,
+      List<ImageManipulation> nativeManipulations, boolean isWarmUp) {
+    try (var nativeImage = NativeImage.of(image)) {
+      for (var manipulation : nativeManipulations) {
+        if (isWarmUp) {
+          ((NativeImageManipulation) manipulation).manipulateForWarmUp(nativeImage);
+        } else {
+          ((NativeImageManipulation) manipulation).manipulate(nativeImage);
+        }
+      }
+
+      return nativeImage.toBufferedImage();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package tools.sctrade.companion.domain.image;
+
+import java.awt.image.BufferedImage;
+import tools.sctrade.companion.utils.NativeImage;
+
+/**
+ * Image manipulation that operates on images held in native memory. Consecutive native
+ * manipulations can be chained through an {@link ImageManipulationPipeline} without converting the
+ * image back and forth between each of them.
+ */
+public interface NativeImageManipulation extends ImageManipulation {
+  /**
+   * Manipulates the given image, in-place.
+   *
+   * @param image Image to manipulate.
+   */
+  void manipulate(NativeImage image);
+
+  /**
+   * Manipulates the given synthetic image, in-place, without any side effect. See
+   * {@link ImageManipulation#manipulateForWarmUp(BufferedImage)}.
+   *
+   * @param image Synthetic image to manipulate.
+   */
+  default void manipulateForWarmUp(NativeImage image) {
+    manipulate(image);
+  }
+
+  /**
+   * Manipulates a copy of the given image, in native memory.
+   *
+   * @param image Image to manipulate. Untouched.
+   * @return Manipulated image.
+   */
+  @Override
+  default BufferedImage manipulate(BufferedImage image) {
+    try (var nativeImage = NativeImage.of(image)) {
+      manipulate(nativeImage);
+
+      return nativeImage.toBufferedImage();
+    }
+  }
+
+  @Override
+  default BufferedImage manipulateForWarmUp(BufferedImage image) {
+    try (var nativeImage = NativeImage.of(image)) {
+      manipulateForWarmUp(nativeImage);
+
+      return nativeImage.toBufferedImage();
+    }
+  }
+}
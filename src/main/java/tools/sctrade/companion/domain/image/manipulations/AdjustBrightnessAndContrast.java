@@ -1,13 +1,12 @@
 package tools.sctrade.companion.domain.image.manipulations;
 
-import java.awt.image.BufferedImage;
-import tools.sctrade.companion.domain.image.ImageManipulation;
-import tools.sctrade.companion.utils.ImageUtil;
+import tools.sctrade.companion.domain.image.NativeImageManipulation;
+import tools.sctrade.companion.utils.NativeImage;
 
 /**
  * Adjusts the brightness and contrast of an image.
  */
-public class AdjustBrightnessAndContrast implements ImageManipulation {
+public class AdjustBrightnessAndContrast implements NativeImageManipulation {
   private float contrastScale;
   private float brightnessOffset;
 
@@ -23,10 +22,7 @@ public class AdjustBrightnessAndContrast implements ImageManipulation {
   }
 
   @Override
-  public BufferedImage manipulate(BufferedImage image) {
-    var copy = ImageUtil.makeCopy(image);
-    ImageUtil.adjustBrightnessAndContrast(copy, contrastScale, brightnessOffset);
-
-    return copy;
+  public void manipulate(NativeImage image) {
+    image.adjustBrightnessAndContrast(contrastScale, brightnessOffset);
   }
 }
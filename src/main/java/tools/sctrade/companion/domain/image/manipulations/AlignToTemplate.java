@@ -1,26 +1,45 @@
 package tools.sctrade.companion.domain.image.manipulations;
 
-import java.awt.image.BufferedImage;
-import tools.sctrade.companion.domain.image.ImageManipulation;
+import tools.sctrade.companion.domain.image.NativeImageManipulation;
+import tools.sctrade.companion.utils.AlignmentReference;
 import tools.sctrade.companion.utils.ImageUtil;
+import tools.sctrade.companion.utils.NativeImage;
 
 /**
  * Aligns an image to a reference template using homography transformation. This manipulation uses
  * ORB feature detection on the blue channel to find matching points between the input image and a
- * reference template, then applies a perspective transformation to align the image.
+ * reference template, then applies a perspective transformation to align the image. The template is
+ * decoded and its features detected once, on first use, so that creating this manipulation is
+ * cheap and never blocks the application's startup. Features are matched on downscaled
+ * images, and the resulting homography refined at full resolution (see
+ * {@link AlignmentReference.Mode#COARSE_TO_FINE}). Features are only detected around the kiosk's
+ * window, the only part of the template that isn't blacked out. Aligned images either have the
+ * template's 4k resolution, or keep their own (see {@link AlignmentReference.Resolution}).
  */
-public class AlignToTemplate implements ImageManipulation {
+public class AlignToTemplate implements NativeImageManipulation {
   private static final String TEMPLATE_PATH = "/images/ocr/commodity_kiosk_template.jpg";
   private static final double MIN_SIMILARITY_TRESHOLD = 0.12;
 
-  private final BufferedImage template;
+  private final String templateImage;
   private final double minSimilarityThreshold;
+  private final AlignmentReference.Resolution resolution;
+  private volatile AlignmentReference template;
 
   /**
    * Creates a new AlignToTemplate manipulation using the default template and validation threshold.
+   * Aligned images have the template's resolution.
    */
   public AlignToTemplate() {
-    this(TEMPLATE_PATH, MIN_SIMILARITY_TRESHOLD);
+    this(AlignmentReference.Resolution.REFERENCE);
+  }
+
+  /**
+   * Creates a new AlignToTemplate manipulation using the default template and validation threshold.
+   *
+   * @param resolution The resolution of aligned images.
+   */
+  public AlignToTemplate(AlignmentReference.Resolution resolution) {
+    this(TEMPLATE_PATH, MIN_SIMILARITY_TRESHOLD, resolution);
   }
 
   /**
@@ -29,15 +48,49 @@ public class AlignToTemplate implements ImageManipulation {
    * @param templateImage The template image to align to.
    * @param minSimilarityThreshold Minimum similarity score (0.0 to 1.0) for the alignment to be
    *        considered valid. If the aligned image's similarity to the template is below this
-   *        threshold, returns null. Use 0.0 to skip validation.
+   *        threshold, the image is left as-is. Use 0.0 to skip validation.
    */
   public AlignToTemplate(String templateImage, double minSimilarityThreshold) {
-    this.template = ImageUtil.readFromResource(templateImage);
+    this(templateImage, minSimilarityThreshold, AlignmentReference.Resolution.REFERENCE);
+  }
+
+  /**
+   * Creates a new AlignToTemplate manipulation with a custom template and validation threshold.
+   *
+   * @param templateImage The template image to align to.
+   * @param minSimilarityThreshold Minimum similarity score (0.0 to 1.0) for the alignment to be
+   *        considered valid. If the aligned image's similarity to the template is below this
+   *        threshold, the image is left as-is. Use 0.0 to skip validation.
+   * @param resolution The resolution of aligned images.
+   */
+  public AlignToTemplate(String templateImage, double minSimilarityThreshold,
+      AlignmentReference.Resolution resolution) {
+    this.templateImage = templateImage;
     this.minSimilarityThreshold = minSimilarityThreshold;
+    this.resolution = resolution;
+  }
+
+  @Override
+  public void manipulate(NativeImage image) {
+    image.alignTo(getTemplate(), minSimilarityThreshold);
   }
 
+  // The synthetic capture's pose mustn't be compared to the first real capture's
   @Override
-  public BufferedImage manipulate(BufferedImage image) {
-    return ImageUtil.alignToReferenceWithValidation(image, template, minSimilarityThreshold);
+  public void manipulateForWarmUp(NativeImage image) {
+    image.alignTo(getTemplate(), minSimilarityThreshold, false);
+  }
+
+  private AlignmentReference getTemplate() {
+    if (template == null) {
+      synchronized (this) {
+        if (template == null) {
+          template = AlignmentReference.of(ImageUtil.readFromResource(templateImage),
+              AlignmentReference.Mode.COARSE_TO_FINE, resolution);
+        }
+      }
+    }
+
+    return template;
   }
 }
@@ -1,15 +1,14 @@
 package tools.sctrade.companion.domain.image.manipulations;
 
-import java.awt.image.BufferedImage;
-import tools.sctrade.companion.domain.image.ImageManipulation;
-import tools.sctrade.companion.utils.ImageUtil;
+import tools.sctrade.companion.domain.image.NativeImageManipulation;
+import tools.sctrade.companion.utils.NativeImage;
 
 /**
  * Thresholds (converts to pure black and white) an image automatically.
  */
-public class AutoTreshold implements ImageManipulation {
+public class AutoTreshold implements NativeImageManipulation {
   @Override
-  public BufferedImage manipulate(BufferedImage image) {
-    return ImageUtil.applyOtsuBinarization(image);
+  public void manipulate(NativeImage image) {
+    image.applyOtsuBinarization();
   }
 }
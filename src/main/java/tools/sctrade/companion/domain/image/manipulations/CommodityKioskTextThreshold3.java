@@ -1,16 +1,15 @@
 package tools.sctrade.companion.domain.image.manipulations;
 
-import java.awt.image.BufferedImage;
-import tools.sctrade.companion.domain.image.ImageManipulation;
-import tools.sctrade.companion.utils.ImageUtil;
+import tools.sctrade.companion.domain.image.NativeImageManipulation;
+import tools.sctrade.companion.utils.NativeImage;
 
 /**
  * Applies an important adaptive Gaussian threshold to an image.
  */
-public class CommodityKioskTextThreshold3 implements ImageManipulation {
+public class CommodityKioskTextThreshold3 implements NativeImageManipulation {
 
   @Override
-  public BufferedImage manipulate(BufferedImage image) {
-    return ImageUtil.applyAdaptiveGaussianThreshold(image, 41, 26);
+  public void manipulate(NativeImage image) {
+    image.applyAdaptiveGaussianThreshold(41, 26);
   }
 }
@@ -1,15 +1,14 @@
 package tools.sctrade.companion.domain.image.manipulations;
 
-import java.awt.image.BufferedImage;
-import tools.sctrade.companion.domain.image.ImageManipulation;
-import tools.sctrade.companion.utils.ImageUtil;
+import tools.sctrade.companion.domain.image.NativeImageManipulation;
+import tools.sctrade.companion.utils.NativeImage;
 
 /**
  * Converts an image to histogram-equalized greyscale.
  */
-public class ConvertToEqualizedGreyscale implements ImageManipulation {
+public class ConvertToEqualizedGreyscale implements NativeImageManipulation {
   @Override
-  public BufferedImage manipulate(BufferedImage image) {
-    return ImageUtil.makeClaheEqualizedGreyscaleCopy(image);
+  public void manipulate(NativeImage image) {
+    image.applyClahe(3.0);
   }
 }
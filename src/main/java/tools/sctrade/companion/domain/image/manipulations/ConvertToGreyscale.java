@@ -1,15 +1,14 @@
 package tools.sctrade.companion.domain.image.manipulations;
 
-import java.awt.image.BufferedImage;
-import tools.sctrade.companion.domain.image.ImageManipulation;
-import tools.sctrade.companion.utils.ImageUtil;
+import tools.sctrade.companion.domain.image.NativeImageManipulation;
+import tools.sctrade.companion.utils.NativeImage;
 
 /**
  * Converts an image to greyscale.
  */
-public class ConvertToGreyscale implements ImageManipulation {
+public class ConvertToGreyscale implements NativeImageManipulation {
   @Override
-  public BufferedImage manipulate(BufferedImage image) {
-    return ImageUtil.makeGreyscaleCopy(image);
+  public void manipulate(NativeImage image) {
+    image.convertToGreyscale();
   }
 }
@@ -3,6 +3,7 @@ package tools.sctrade.companion.domain.image.manipulations;
 import java.awt.image.BufferedImage;
 import tools.sctrade.companion.domain.image.ImageManipulation;
 import tools.sctrade.companion.utils.ImageUtil;
+import tools.sctrade.companion.utils.ScalingQuality;
 
 /**
  * Upscales an image to 4k resolution. If the image is already at least 4k, it will not be modified.
@@ -10,13 +11,31 @@ import tools.sctrade.companion.utils.ImageUtil;
 public class UpscaleTo4k implements ImageManipulation {
   private static final int TARGET_HEIGHT = 2196;
 
+  private final ScalingQuality quality;
+
+  /**
+   * Creates a new UpscaleTo4k manipulation, using the best, slowest quality tier.
+   */
+  public UpscaleTo4k() {
+    this(ScalingQuality.ULTRA_QUALITY);
+  }
+
+  /**
+   * Creates a new UpscaleTo4k manipulation.
+   *
+   * @param quality The quality tier of the upscale, trading speed for quality.
+   */
+  public UpscaleTo4k(ScalingQuality quality) {
+    this.quality = quality;
+  }
+
   @Override
   public BufferedImage manipulate(BufferedImage image) {
     if (image.getHeight() >= TARGET_HEIGHT) {
       return image;
     }
 
-    return ImageUtil.scaleToHeight(image, TARGET_HEIGHT);
+    return ImageUtil.scaleToHeight(image, TARGET_HEIGHT, quality);
   }
 
 }
@@ -0,0 +1,90 @@
+package tools.sctrade.companion.domain.ocr;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.sctrade.companion.utils.HashUtil;
+
+/**
+ * Decorates an OCR, caching what it reads by the hash of the pixels it reads and of its
+ * configuration: an image read again, e.g. when reprocessing screenshots, isn't recognized again.
+ * Warm up reads aren't cached.
+ */
+public class CachingOcr extends Ocr {
+  private final Logger logger = LoggerFactory.getLogger(CachingOcr.class);
+
+  private final Ocr ocr;
+  private final OcrResultCache cache;
+  private final String configuration;
+
+  /**
+   * Creates a new caching OCR.
+   *
+   * @param ocr The cached OCR, which preprocesses and reads the images.
+   * @param cache Where to cache the results.
+   * @param configuration Describes everything, besides the pixels read, that the results depend
+   *        on, e.g. the OCR backend. Results read with another configuration aren't used.
+   */
+  public CachingOcr(Ocr ocr, OcrResultCache cache, String configuration) {
+    super(ocr);
+    this.ocr = ocr;
+    this.cache = cache;
+    this.configuration = configuration;
+  }
+
+  @Override
+  protected OcrResult process(BufferedImage image, List<Rectangle> regions) {
+    return read(HashUtil.hashContent(image, regions, configuration),
+        () -> ocr.process(image, regions));
+  }
+
+  @Override
+  protected OcrResult process(BufferedImage image) {
+    var bounds = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+
+    return read(HashUtil.hashContent(image, List.of(bounds), configuration),
+        () -> ocr.process(image));
+  }
+
+  @Override
+  protected OcrResult processForWarmUp(BufferedImage image) {
+    return ocr.processForWarmUp(image);
+  }
+
+  @Override
+  public void close() throws Exception {
+    ocr.close();
+  }
+
+  private OcrResult read(String key, Supplier<OcrResult> reader) {
+    var cachedResult = get(key);
+
+    if (cachedResult.isPresent()) {
+      logger.debug("Read OCR result {} from the cache", key);
+      return cachedResult.get();
+    }
+
+    var result = reader.get();
+
+    try {
+      cache.put(key, result);
+    } catch (Exception e) {
+      logger.warn("Could not cache OCR result", e);
+    }
+
+    return result;
+  }
+
+  private Optional<OcrResult> get(String key) {
+    try {
+      return cache.get(key);
+    } catch (Exception e) {
+      logger.warn("Could not read OCR result from the cache", e);
+      return Optional.empty();
+    }
+  }
+}
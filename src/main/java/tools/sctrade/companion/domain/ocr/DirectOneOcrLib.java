@@ -0,0 +1,95 @@
+package tools.sctrade.companion.domain.ocr;
+
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Pointer;
+import tools.sctrade.companion.domain.ocr.OneOcr.Img;
+import tools.sctrade.companion.domain.ocr.OneOcr.OneOcrLib;
+
+/**
+ * {@link OneOcrLib} bound with JNA's direct mapping: calls go straight to the native functions,
+ * without the reflective proxy of interface mapping and its per-call argument conversion. This
+ * matters for result extraction, which makes a few calls per word read.
+ *
+ * <p>
+ * Native methods of a class can only be bound to one library per JVM: see {@link #load(String)}.
+ * </p>
+ */
+class DirectOneOcrLib implements OneOcrLib {
+  private static String loadedPath;
+
+  private DirectOneOcrLib() {}
+
+  /**
+   * Binds the native methods to a library, on first call.
+   *
+   * @param path The path of the library.
+   * @return The binding.
+   * @throws IllegalStateException If already bound to another library.
+   */
+  static synchronized DirectOneOcrLib load(String path) {
+    if (loadedPath == null) {
+      Native.register(DirectOneOcrLib.class, NativeLibrary.getInstance(path));
+      loadedPath = path;
+    } else if (!loadedPath.equals(path)) {
+      throw new IllegalStateException("Already bound to '" + loadedPath + "', not '" + path + "'");
+    }
+
+    return new DirectOneOcrLib();
+  }
+
+  @Override
+  public native long CreateOcrInitOptions(long[] ctx);
+
+  @Override
+  public native long OcrInitOptionsSetUseModelDelayLoad(long ctx, byte flag);
+
+  @Override
+  public native long CreateOcrPipeline(Pointer modelPath, Pointer key, long ctx, long[] pipeline);
+
+  @Override
+  public native long CreateOcrProcessOptions(long[] opt);
+
+  @Override
+  public native long OcrProcessOptionsSetMaxRecognitionLineCount(long opt, long count);
+
+  @Override
+  public native long RunOcrPipeline(long pipeline, Img.ByReference img, long opt,
+      long[] instance);
+
+  @Override
+  public native long GetOcrLineCount(long instance, long[] count);
+
+  @Override
+  public native long GetOcrLine(long instance, long index, long[] line);
+
+  @Override
+  public native long GetOcrLineContent(long line, long[] text);
+
+  @Override
+  public native long GetOcrLineBoundingBox(long line, long[] box);
+
+  @Override
+  public native long GetOcrLineWordCount(long line, long[] count);
+
+  @Override
+  public native long GetOcrWord(long line, long index, long[] word);
+
+  @Override
+  public native long GetOcrWordContent(long word, long[] text);
+
+  @Override
+  public native long GetOcrWordBoundingBox(long word, long[] box);
+
+  @Override
+  public native long ReleaseOcrResult(long instance);
+
+  @Override
+  public native long ReleaseOcrProcessOptions(long opt);
+
+  @Override
+  public native long ReleaseOcrPipeline(long pipeline);
+
+  @Override
+  public native long ReleaseOcrInitOptions(long ctx);
+}
@@ -0,0 +1,282 @@
+package tools.sctrade.companion.domain.ocr;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static tools.sctrade.companion.domain.ocr.ForeignOneOcrLib.BOX_X1;
+import static tools.sctrade.companion.domain.ocr.ForeignOneOcrLib.BOX_X3;
+import static tools.sctrade.companion.domain.ocr.ForeignOneOcrLib.BOX_Y1;
+import static tools.sctrade.companion.domain.ocr.ForeignOneOcrLib.BOX_Y3;
+import static tools.sctrade.companion.domain.ocr.ForeignOneOcrLib.IMG;
+import static tools.sctrade.companion.domain.ocr.ForeignOneOcrLib.IMG_COL;
+import static tools.sctrade.companion.domain.ocr.ForeignOneOcrLib.IMG_DATA_PTR;
+import static tools.sctrade.companion.domain.ocr.ForeignOneOcrLib.IMG_ROW;
+import static tools.sctrade.companion.domain.ocr.ForeignOneOcrLib.IMG_STEP;
+import static tools.sctrade.companion.domain.ocr.ForeignOneOcrLib.IMG_T;
+import static tools.sctrade.companion.domain.ocr.ForeignOneOcrLib.OCR_BOUNDING_BOX;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.sctrade.companion.domain.ocr.OneOcr.Img;
+
+/**
+ * {@link OcrPipeline} bound with the Foreign Function &amp; Memory API, see
+ * {@link ForeignOneOcrLib}. Every native allocation of a recognition, pixels included, is made in a
+ * confined {@link Arena} and freed as soon as the recognition ends, rather than whenever the
+ * garbage collector gets to it. Only the pipeline and its process options outlive recognitions,
+ * until the pipeline is closed.
+ */
+class ForeignOcrPipeline implements OcrPipeline {
+  private static final Logger logger = LoggerFactory.getLogger(ForeignOcrPipeline.class);
+
+  private static final byte DISABLE_MODEL_DELAY_LOAD = 0;
+  private static final long MAX_RECOGNITION_LINES = 1000;
+  private static final long PIXEL_ALIGNMENT = 64;
+
+  private final ForeignOneOcrLib lib;
+  private final AtomicInteger nativeHandles = new AtomicInteger();
+  private int[] row = new int[0];
+  private MemorySegment pipeline = MemorySegment.NULL;
+  private MemorySegment processOptions = MemorySegment.NULL;
+
+  /**
+   * Creates the pipeline, loading the model. Takes a while.
+   *
+   * @param lib The native library.
+   * @param modelPath The path of the model file.
+   * @param modelKey The decryption key of the model file.
+   * @throws IllegalStateException If the pipeline can't be created. Whatever was allocated is
+   *         released.
+   */
+  ForeignOcrPipeline(ForeignOneOcrLib lib, String modelPath, String modelKey) {
+    this.lib = lib;
+
+    try (var arena = Arena.ofConfined()) {
+      pipeline = createPipeline(arena, modelPath, modelKey);
+      createProcessOptions(arena);
+    } catch (RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  @Override
+  public List<LocatedWord> run(BufferedImage image) {
+    try (var arena = Arena.ofConfined()) {
+      var out = arena.allocate(ADDRESS);
+      check("RunOcrPipeline",
+          lib.RunOcrPipeline(pipeline, toNativeImg(arena, image), processOptions, out));
+      var instance = out.get(ADDRESS, 0);
+      nativeHandles.incrementAndGet();
+
+      try {
+        return toLocatedWords(arena, instance);
+      } finally {
+        release("ReleaseOcrResult", lib.ReleaseOcrResult(instance));
+      }
+    }
+  }
+
+  @Override
+  public int getNativeHandles() {
+    return nativeHandles.get();
+  }
+
+  /**
+   * Pixels are freed along with their recognition's arena: nothing is held between recognitions.
+   */
+  @Override
+  public long getNativeBufferBytes() {
+    return 0;
+  }
+
+  @Override
+  public void close() {
+    if (!isNull(processOptions)) {
+      release("ReleaseOcrProcessOptions", lib.ReleaseOcrProcessOptions(processOptions));
+      processOptions = MemorySegment.NULL;
+    }
+    if (!isNull(pipeline)) {
+      release("ReleaseOcrPipeline", lib.ReleaseOcrPipeline(pipeline));
+      pipeline = MemorySegment.NULL;
+    }
+  }
+
+  // -------------------------------------------------------------------------
+  // Initialisation
+  // -------------------------------------------------------------------------
+
+  private MemorySegment createPipeline(Arena arena, String modelPath, String modelKey) {
+    var out = arena.allocate(ADDRESS);
+    check("CreateOcrInitOptions", lib.CreateOcrInitOptions(out));
+    var ctx = out.get(ADDRESS, 0);
+    nativeHandles.incrementAndGet();
+
+    try {
+      check("OcrInitOptionsSetUseModelDelayLoad",
+          lib.OcrInitOptionsSetUseModelDelayLoad(ctx, DISABLE_MODEL_DELAY_LOAD));
+      check("CreateOcrPipeline", lib.CreateOcrPipeline(arena.allocateUtf8String(modelPath),
+          arena.allocateUtf8String(modelKey), ctx, out));
+      nativeHandles.incrementAndGet();
+
+      return out.get(ADDRESS, 0);
+    } finally {
+      // Only needed to create the pipeline
+      release("ReleaseOcrInitOptions", lib.ReleaseOcrInitOptions(ctx));
+    }
+  }
+
+  private void createProcessOptions(Arena arena) {
+    var out = arena.allocate(ADDRESS);
+    check("CreateOcrProcessOptions", lib.CreateOcrProcessOptions(out));
+    processOptions = out.get(ADDRESS, 0);
+    nativeHandles.incrementAndGet();
+
+    check("OcrProcessOptionsSetMaxRecognitionLineCount",
+        lib.OcrProcessOptionsSetMaxRecognitionLineCount(processOptions, MAX_RECOGNITION_LINES));
+  }
+
+  // -------------------------------------------------------------------------
+  // Recognition
+  // -------------------------------------------------------------------------
+
+  /**
+   * Packs the image's pixels into the arena, in the layout described by {@link NativePixelBuffer},
+   * and points an {@code Img} struct at them.
+   */
+  private MemorySegment toNativeImg(Arena arena, BufferedImage image) {
+    var pixels = arena.allocate(NativePixelBuffer.getSize(image), PIXEL_ALIGNMENT);
+    if (row.length < image.getWidth()) {
+      row = new int[image.getWidth()];
+    }
+    NativePixelBuffer.pack(image, row, (offset, source, start, count) -> MemorySegment
+        .copy(source, start, pixels, JAVA_INT, offset, count));
+
+    var img = arena.allocate(IMG);
+    IMG_T.set(img, Img.TYPE_BGRA);
+    IMG_COL.set(img, image.getWidth());
+    IMG_ROW.set(img, image.getHeight());
+    IMG_STEP.set(img, NativePixelBuffer.getStep(image));
+    IMG_DATA_PTR.set(img, pixels.address());
+
+    return img;
+  }
+
+  /**
+   * Reads the words of a result in two passes, like {@link JnaOcrPipeline} does, skipping the lines
+   * and words that can't be read.
+   */
+  private List<LocatedWord> toLocatedWords(Arena arena, MemorySegment instance) {
+    var out = arena.allocate(ADDRESS);
+    var count = arena.allocate(JAVA_LONG);
+
+    var lines = new MemorySegment[(int) longOf(lib.GetOcrLineCount(instance, count), count)];
+    long[] wordCounts = new long[lines.length];
+    int wordCount = 0;
+
+    for (int i = 0; i < lines.length; i++) {
+      lines[i] = addressOf(lib.GetOcrLine(instance, i, out), out);
+
+      if (!isNull(lines[i])) {
+        wordCounts[i] = longOf(lib.GetOcrLineWordCount(lines[i], count), count);
+        wordCount += (int) wordCounts[i];
+      }
+    }
+
+    var words = new LocatedWord[wordCount];
+    int size = 0;
+
+    for (int i = 0; i < lines.length; i++) {
+      for (long j = 0; j < wordCounts[i]; j++) {
+        var word = addressOf(lib.GetOcrWord(lines[i], j, out), out);
+        var locatedWord = isNull(word) ? null : toLocatedWord(word, out);
+
+        if (locatedWord != null) {
+          words[size++] = locatedWord;
+        }
+      }
+    }
+
+    return Collections.unmodifiableList(Arrays.asList(words).subList(0, size));
+  }
+
+  private LocatedWord toLocatedWord(MemorySegment word, MemorySegment out) {
+    var text = addressOf(lib.GetOcrWordContent(word, out), out);
+    var box = addressOf(lib.GetOcrWordBoundingBox(word, out), out);
+
+    if (isNull(text) || isNull(box)) {
+      return null;
+    }
+
+    // Null-terminated, of unknown length
+    return new LocatedWord(text.reinterpret(Long.MAX_VALUE).getUtf8String(0).toLowerCase(),
+        toRectangle(box.reinterpret(OCR_BOUNDING_BOX.byteSize())));
+  }
+
+  /**
+   * Releases a native object, logging failures rather than throwing them, like
+   * {@link JnaOcrPipeline} does.
+   */
+  private void release(String functionName, long result) {
+    nativeHandles.decrementAndGet();
+
+    if (result != 0) {
+      logger.warn("Native call '{}' failed with error code: {}", functionName, result);
+    }
+  }
+
+  // -------------------------------------------------------------------------
+  // Static helpers
+  // -------------------------------------------------------------------------
+
+  /**
+   * Converts a quadrilateral {@code OcrBoundingBox} to an axis-aligned {@link Rectangle} using the
+   * top-left (x1,y1) and bottom-right (x3,y3) corners.
+   */
+  private static Rectangle toRectangle(MemorySegment box) {
+    float x1 = (float) BOX_X1.get(box);
+    float y1 = (float) BOX_Y1.get(box);
+    int width = Math.round((float) BOX_X3.get(box) - x1);
+    int height = Math.round((float) BOX_Y3.get(box) - y1);
+    return new Rectangle(Math.round(x1), Math.round(y1), width, height);
+  }
+
+  /**
+   * Reads an address out parameter, or {@code NULL} if the call that set it failed: out parameters
+   * are reused within a recognition, and would otherwise hold the value of a previous call.
+   */
+  private static MemorySegment addressOf(long result, MemorySegment out) {
+    return result == 0 ? out.get(ADDRESS, 0) : MemorySegment.NULL;
+  }
+
+  /**
+   * Reads a count out parameter, or {@code 0} if the call that set it failed.
+   */
+  private static long longOf(long result, MemorySegment out) {
+    return result == 0 ? out.get(JAVA_LONG, 0) : 0;
+  }
+
+  private static boolean isNull(MemorySegment segment) {
+    return segment.address() == 0;
+  }
+
+  /**
+   * Asserts that a native API call succeeded (return code {@code 0}).
+   *
+   * @throws IllegalStateException if {@code result} is non-zero
+   */
+  private static void check(String functionName, long result) {
+    if (result != 0) {
+      throw new IllegalStateException(
+          "Native call '" + functionName + "' failed with error code: " + result);
+    }
+  }
+}
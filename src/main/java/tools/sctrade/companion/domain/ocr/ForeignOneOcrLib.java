@@ -0,0 +1,272 @@
+package tools.sctrade.companion.domain.ocr;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_FLOAT;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemoryLayout.PathElement;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Binding for the native {@code oneocr.dll} built on the Foreign Function &amp; Memory API: one
+ * {@link Linker} downcall per function, and {@link MemoryLayout}s for the structs it exchanges.
+ * Handles to native objects are plain address segments, out parameters segments allocated by the
+ * caller. Every function returns {@code 0} on success.
+ *
+ * <p>
+ * The API is a preview in Java 21: this class, and the classes using it, only load on a JVM
+ * started with {@code --enable-preview}, see {@link #load(String)}.
+ * </p>
+ */
+final class ForeignOneOcrLib {
+  /**
+   * Mirrors the native {@code Img} struct, see {@link OneOcr.Img}.
+   */
+  static final StructLayout IMG = MemoryLayout.structLayout(JAVA_INT.withName("t"),
+      JAVA_INT.withName("col"), JAVA_INT.withName("row"), JAVA_INT.withName("unk"),
+      JAVA_LONG.withName("step"), JAVA_LONG.withName("dataPtr")).withName("Img");
+  static final VarHandle IMG_T = IMG.varHandle(PathElement.groupElement("t"));
+  static final VarHandle IMG_COL = IMG.varHandle(PathElement.groupElement("col"));
+  static final VarHandle IMG_ROW = IMG.varHandle(PathElement.groupElement("row"));
+  static final VarHandle IMG_STEP = IMG.varHandle(PathElement.groupElement("step"));
+  static final VarHandle IMG_DATA_PTR = IMG.varHandle(PathElement.groupElement("dataPtr"));
+
+  /**
+   * Mirrors the native {@code OcrBoundingBox} struct returned for each recognised word or line:
+   * four corners in clockwise order starting from the top-left.
+   *
+   * <pre>
+   * struct OcrBoundingBox { float X1, Y1, X2, Y2, X3, Y3, X4, Y4; }
+   * </pre>
+   */
+  static final StructLayout OCR_BOUNDING_BOX = MemoryLayout.structLayout(
+      JAVA_FLOAT.withName("x1"), JAVA_FLOAT.withName("y1"), JAVA_FLOAT.withName("x2"),
+      JAVA_FLOAT.withName("y2"), JAVA_FLOAT.withName("x3"), JAVA_FLOAT.withName("y3"),
+      JAVA_FLOAT.withName("x4"), JAVA_FLOAT.withName("y4")).withName("OcrBoundingBox");
+  static final VarHandle BOX_X1 = OCR_BOUNDING_BOX.varHandle(PathElement.groupElement("x1"));
+  static final VarHandle BOX_Y1 = OCR_BOUNDING_BOX.varHandle(PathElement.groupElement("y1"));
+  static final VarHandle BOX_X3 = OCR_BOUNDING_BOX.varHandle(PathElement.groupElement("x3"));
+  static final VarHandle BOX_Y3 = OCR_BOUNDING_BOX.varHandle(PathElement.groupElement("y3"));
+
+  private final MethodHandle createOcrInitOptions;
+  private final MethodHandle ocrInitOptionsSetUseModelDelayLoad;
+  private final MethodHandle createOcrPipeline;
+  private final MethodHandle createOcrProcessOptions;
+  private final MethodHandle ocrProcessOptionsSetMaxRecognitionLineCount;
+  private final MethodHandle runOcrPipeline;
+  private final MethodHandle getOcrLineCount;
+  private final MethodHandle getOcrLine;
+  private final MethodHandle getOcrLineWordCount;
+  private final MethodHandle getOcrWord;
+  private final MethodHandle getOcrWordContent;
+  private final MethodHandle getOcrWordBoundingBox;
+  private final MethodHandle releaseOcrResult;
+  private final MethodHandle releaseOcrProcessOptions;
+  private final MethodHandle releaseOcrPipeline;
+  private final MethodHandle releaseOcrInitOptions;
+
+  private ForeignOneOcrLib(SymbolLookup library) {
+    var linker = Linker.nativeLinker();
+    // Handle or out parameter
+    var address = FunctionDescriptor.of(JAVA_LONG, ADDRESS);
+    var handleAndOut = FunctionDescriptor.of(JAVA_LONG, ADDRESS, ADDRESS);
+    var handleIndexAndOut = FunctionDescriptor.of(JAVA_LONG, ADDRESS, JAVA_LONG, ADDRESS);
+
+    createOcrInitOptions = downcall(linker, library, "CreateOcrInitOptions", address);
+    ocrInitOptionsSetUseModelDelayLoad = downcall(linker, library,
+        "OcrInitOptionsSetUseModelDelayLoad", FunctionDescriptor.of(JAVA_LONG, ADDRESS, JAVA_BYTE));
+    createOcrPipeline = downcall(linker, library, "CreateOcrPipeline",
+        FunctionDescriptor.of(JAVA_LONG, ADDRESS, ADDRESS, ADDRESS, ADDRESS));
+    createOcrProcessOptions = downcall(linker, library, "CreateOcrProcessOptions", address);
+    ocrProcessOptionsSetMaxRecognitionLineCount =
+        downcall(linker, library, "OcrProcessOptionsSetMaxRecognitionLineCount",
+            FunctionDescriptor.of(JAVA_LONG, ADDRESS, JAVA_LONG));
+    runOcrPipeline = downcall(linker, library, "RunOcrPipeline",
+        FunctionDescriptor.of(JAVA_LONG, ADDRESS, ADDRESS, ADDRESS, ADDRESS));
+    getOcrLineCount = downcall(linker, library, "GetOcrLineCount", handleAndOut);
+    getOcrLine = downcall(linker, library, "GetOcrLine", handleIndexAndOut);
+    getOcrLineWordCount = downcall(linker, library, "GetOcrLineWordCount", handleAndOut);
+    getOcrWord = downcall(linker, library, "GetOcrWord", handleIndexAndOut);
+    getOcrWordContent = downcall(linker, library, "GetOcrWordContent", handleAndOut);
+    getOcrWordBoundingBox = downcall(linker, library, "GetOcrWordBoundingBox", handleAndOut);
+    releaseOcrResult = downcall(linker, library, "ReleaseOcrResult", address);
+    releaseOcrProcessOptions = downcall(linker, library, "ReleaseOcrProcessOptions", address);
+    releaseOcrPipeline = downcall(linker, library, "ReleaseOcrPipeline", address);
+    releaseOcrInitOptions = downcall(linker, library, "ReleaseOcrInitOptions", address);
+  }
+
+  /**
+   * Loads the library, which then stays loaded until the JVM exits.
+   *
+   * @param path The path of the library. Windows appends {@code .dll} if it has no extension.
+   * @return The binding.
+   * @throws IllegalArgumentException If the library can't be loaded.
+   * @throws IllegalStateException If a function is missing from the library.
+   */
+  static ForeignOneOcrLib load(String path) {
+    return new ForeignOneOcrLib(SymbolLookup.libraryLookup(path, Arena.global()));
+  }
+
+  long CreateOcrInitOptions(MemorySegment ctx) {
+    try {
+      return (long) createOcrInitOptions.invokeExact(ctx);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long OcrInitOptionsSetUseModelDelayLoad(MemorySegment ctx, byte flag) {
+    try {
+      return (long) ocrInitOptionsSetUseModelDelayLoad.invokeExact(ctx, flag);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long CreateOcrPipeline(MemorySegment modelPath, MemorySegment key, MemorySegment ctx,
+      MemorySegment pipeline) {
+    try {
+      return (long) createOcrPipeline.invokeExact(modelPath, key, ctx, pipeline);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long CreateOcrProcessOptions(MemorySegment opt) {
+    try {
+      return (long) createOcrProcessOptions.invokeExact(opt);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long OcrProcessOptionsSetMaxRecognitionLineCount(MemorySegment opt, long count) {
+    try {
+      return (long) ocrProcessOptionsSetMaxRecognitionLineCount.invokeExact(opt, count);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long RunOcrPipeline(MemorySegment pipeline, MemorySegment img, MemorySegment opt,
+      MemorySegment instance) {
+    try {
+      return (long) runOcrPipeline.invokeExact(pipeline, img, opt, instance);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long GetOcrLineCount(MemorySegment instance, MemorySegment count) {
+    try {
+      return (long) getOcrLineCount.invokeExact(instance, count);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long GetOcrLine(MemorySegment instance, long index, MemorySegment line) {
+    try {
+      return (long) getOcrLine.invokeExact(instance, index, line);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long GetOcrLineWordCount(MemorySegment line, MemorySegment count) {
+    try {
+      return (long) getOcrLineWordCount.invokeExact(line, count);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long GetOcrWord(MemorySegment line, long index, MemorySegment word) {
+    try {
+      return (long) getOcrWord.invokeExact(line, index, word);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long GetOcrWordContent(MemorySegment word, MemorySegment text) {
+    try {
+      return (long) getOcrWordContent.invokeExact(word, text);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long GetOcrWordBoundingBox(MemorySegment word, MemorySegment box) {
+    try {
+      return (long) getOcrWordBoundingBox.invokeExact(word, box);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long ReleaseOcrResult(MemorySegment instance) {
+    try {
+      return (long) releaseOcrResult.invokeExact(instance);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long ReleaseOcrProcessOptions(MemorySegment opt) {
+    try {
+      return (long) releaseOcrProcessOptions.invokeExact(opt);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long ReleaseOcrPipeline(MemorySegment pipeline) {
+    try {
+      return (long) releaseOcrPipeline.invokeExact(pipeline);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  long ReleaseOcrInitOptions(MemorySegment ctx) {
+    try {
+      return (long) releaseOcrInitOptions.invokeExact(ctx);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  private static MethodHandle downcall(Linker linker, SymbolLookup library, String name,
+      FunctionDescriptor descriptor) {
+    var function = library.find(name)
+        .orElseThrow(() -> new IllegalStateException("Native function not found: " + name));
+
+    return linker.downcallHandle(function, descriptor);
+  }
+
+  /**
+   * Downcalls only throw unchecked exceptions, {@link MethodHandle#invokeExact} declaring
+   * {@link Throwable} notwithstanding.
+   */
+  private static RuntimeException rethrow(Throwable t) {
+    if (t instanceof RuntimeException e) {
+      return e;
+    }
+    if (t instanceof Error e) {
+      throw e;
+    }
+
+    return new IllegalStateException(t);
+  }
+}
@@ -0,0 +1,274 @@
+package tools.sctrade.companion.domain.ocr;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.sctrade.companion.domain.ocr.OneOcr.Img;
+import tools.sctrade.companion.domain.ocr.OneOcr.OneOcrLib;
+
+/**
+ * {@link OcrPipeline} bound with JNA, with everything it needs to run: its process options and its
+ * pixel buffer, allocated once and reused by every recognition. Each recognition's native result is
+ * released as soon as its words are read. Everything else is released when the pipeline is closed.
+ */
+class JnaOcrPipeline implements OcrPipeline {
+  private static final Logger logger = LoggerFactory.getLogger(JnaOcrPipeline.class);
+
+  private static final byte DISABLE_MODEL_DELAY_LOAD = 0;
+  private static final long MAX_RECOGNITION_LINES = 1000;
+  private static final int BOX_FLOATS = 8;
+
+  private final OneOcrLib lib;
+  private final NativePixelBuffer pixelBuffer = new NativePixelBuffer();
+  private final AtomicInteger nativeHandles = new AtomicInteger();
+  // Out parameters and bounding box, reused from one call to the next
+  private final long[] handle = new long[1];
+  private final long[] count = new long[1];
+  private final float[] box = new float[BOX_FLOATS];
+  private long pipeline;
+  private long processOptions;
+
+  /**
+   * Creates the pipeline, loading the model. Takes a while.
+   *
+   * @param lib The native library.
+   * @param modelPath The path of the model file.
+   * @param modelKey The decryption key of the model file.
+   * @throws IllegalStateException If the pipeline can't be created. Whatever was allocated is
+   *         released.
+   */
+  JnaOcrPipeline(OneOcrLib lib, String modelPath, String modelKey) {
+    this.lib = lib;
+
+    try {
+      pipeline = createPipeline(modelPath, modelKey);
+      createProcessOptions();
+    } catch (RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  @Override
+  public List<LocatedWord> run(BufferedImage image) {
+    Img.ByReference img = toNativeImg(image, pixelBuffer.pack(image));
+    check("RunOcrPipeline", lib.RunOcrPipeline(pipeline, img, processOptions, handle));
+    long instance = handle[0];
+    nativeHandles.incrementAndGet();
+
+    try {
+      return toLocatedWords(instance);
+    } finally {
+      release("ReleaseOcrResult", lib.ReleaseOcrResult(instance));
+    }
+  }
+
+  @Override
+  public int getNativeHandles() {
+    return nativeHandles.get();
+  }
+
+  @Override
+  public long getNativeBufferBytes() {
+    return pixelBuffer.getCapacity();
+  }
+
+  @Override
+  public void close() {
+    if (processOptions != 0) {
+      release("ReleaseOcrProcessOptions", lib.ReleaseOcrProcessOptions(processOptions));
+      processOptions = 0;
+    }
+    if (pipeline != 0) {
+      release("ReleaseOcrPipeline", lib.ReleaseOcrPipeline(pipeline));
+      pipeline = 0;
+    }
+
+    pixelBuffer.close();
+  }
+
+  // -------------------------------------------------------------------------
+  // Initialisation
+  // -------------------------------------------------------------------------
+
+  private long createPipeline(String modelPath, String modelKey) {
+    check("CreateOcrInitOptions", lib.CreateOcrInitOptions(handle));
+    long ctx = handle[0];
+    nativeHandles.incrementAndGet();
+
+    try {
+      check("OcrInitOptionsSetUseModelDelayLoad",
+          lib.OcrInitOptionsSetUseModelDelayLoad(ctx, DISABLE_MODEL_DELAY_LOAD));
+
+      // Memory instances keep the native buffers alive for the duration of the call.
+      Memory modelMem = toNativeString(modelPath);
+      Memory keyMem = toNativeString(modelKey);
+
+      check("CreateOcrPipeline", lib.CreateOcrPipeline(modelMem, keyMem, ctx, handle));
+      nativeHandles.incrementAndGet();
+
+      return handle[0];
+    } finally {
+      // Only needed to create the pipeline
+      release("ReleaseOcrInitOptions", lib.ReleaseOcrInitOptions(ctx));
+    }
+  }
+
+  private void createProcessOptions() {
+    check("CreateOcrProcessOptions", lib.CreateOcrProcessOptions(handle));
+    processOptions = handle[0];
+    nativeHandles.incrementAndGet();
+
+    check("OcrProcessOptionsSetMaxRecognitionLineCount",
+        lib.OcrProcessOptionsSetMaxRecognitionLineCount(processOptions, MAX_RECOGNITION_LINES));
+  }
+
+  // -------------------------------------------------------------------------
+  // Result extraction
+  // -------------------------------------------------------------------------
+
+  /**
+   * Reads the words of a result in two passes: lines and their word counts first, so that words
+   * are then built straight into an array of the right size. Lines and words that can't be read are
+   * skipped, like null ones.
+   */
+  private List<LocatedWord> toLocatedWords(long instance) {
+    long[] lines = new long[(int) valueOf(lib.GetOcrLineCount(instance, count), count)];
+    long[] wordCounts = new long[lines.length];
+    int wordCount = 0;
+
+    for (int i = 0; i < lines.length; i++) {
+      lines[i] = valueOf(lib.GetOcrLine(instance, i, handle), handle);
+
+      if (lines[i] != 0) {
+        wordCounts[i] = valueOf(lib.GetOcrLineWordCount(lines[i], count), count);
+        wordCount += (int) wordCounts[i];
+      }
+    }
+
+    var words = new LocatedWord[wordCount];
+    int size = 0;
+
+    for (int i = 0; i < lines.length; i++) {
+      for (long j = 0; j < wordCounts[i]; j++) {
+        long word = valueOf(lib.GetOcrWord(lines[i], j, handle), handle);
+        var locatedWord = word == 0 ? null : toLocatedWord(word);
+
+        if (locatedWord != null) {
+          words[size++] = locatedWord;
+        }
+      }
+    }
+
+    return Collections.unmodifiableList(Arrays.asList(words).subList(0, size));
+  }
+
+  private LocatedWord toLocatedWord(long word) {
+    long text = valueOf(lib.GetOcrWordContent(word, handle), handle);
+    long boundingBox = valueOf(lib.GetOcrWordBoundingBox(word, handle), handle);
+
+    if (text == 0 || boundingBox == 0) {
+      return null;
+    }
+
+    new Pointer(boundingBox).read(0, box, 0, BOX_FLOATS);
+
+    return new LocatedWord(
+        new Pointer(text).getString(0, StandardCharsets.UTF_8.name()).toLowerCase(),
+        toRectangle(box));
+  }
+
+  /**
+   * Releases a native object. Failures are logged rather than thrown, so that releasing one object
+   * never prevents releasing the others. The object is forgotten all the same: there's no retrying
+   * a release.
+   */
+  private void release(String functionName, long result) {
+    nativeHandles.decrementAndGet();
+
+    if (result != 0) {
+      logger.warn("Native call '{}' failed with error code: {}", functionName, result);
+    }
+  }
+
+  // -------------------------------------------------------------------------
+  // Static helpers
+  // -------------------------------------------------------------------------
+
+  /**
+   * Creates a native {@link Img} struct pointing at pixels packed with BGRA layout, the format
+   * expected by the native OCR pipeline. The pixels aren't copied: they must stay valid for the
+   * duration of the OCR call.
+   *
+   * @param image the packed image
+   * @param pixels the packed pixels, see {@link NativePixelBuffer#pack(BufferedImage)}
+   * @return a native-compatible {@code Img} struct referencing the pixel data
+   */
+  private static Img.ByReference toNativeImg(BufferedImage image, Pointer pixels) {
+    Img.ByReference img = new Img.ByReference();
+    img.t = Img.TYPE_BGRA;
+    img.col = image.getWidth();
+    img.row = image.getHeight();
+    img.unk = 0;
+    img.step = NativePixelBuffer.getStep(image);
+    img.dataPtr = Pointer.nativeValue(pixels);
+    return img;
+  }
+
+  /**
+   * Converts a quadrilateral bounding box to an axis-aligned {@link Rectangle} using the top-left
+   * (x1,y1) and bottom-right (x3,y3) corners.
+   *
+   * @param box the native {@code OcrBoundingBox}: four corners in clockwise order starting from the
+   *        top-left, {@code struct OcrBoundingBox { float X1, Y1, X2, Y2, X3, Y3, X4, Y4; }}
+   */
+  private static Rectangle toRectangle(float[] box) {
+    int x = Math.round(box[0]);
+    int y = Math.round(box[1]);
+    int width = Math.round(box[4] - box[0]);
+    int height = Math.round(box[5] - box[1]);
+    return new Rectangle(x, y, width, height);
+  }
+
+  /**
+   * Encodes {@code s} as ASCII and appends a null terminator into a native {@link Memory} buffer.
+   */
+  private static Memory toNativeString(String s) {
+    byte[] encoded = s.getBytes(StandardCharsets.US_ASCII);
+    Memory mem = new Memory(encoded.length + 1L); // +1 for null terminator
+    mem.write(0, encoded, 0, encoded.length);
+    mem.setByte(encoded.length, (byte) 0);
+    return mem;
+  }
+
+  /**
+   * Reads the value of an out parameter, or {@code 0} if the call that set it failed: holders are
+   * reused, and would otherwise hold the value of a previous call.
+   *
+   * @param result The result of the call.
+   * @param holder The out parameter.
+   */
+  private static long valueOf(long result, long[] holder) {
+    return result == 0 ? holder[0] : 0;
+  }
+
+  /**
+   * Asserts that a native API call succeeded (return code {@code 0}).
+   *
+   * @throws IllegalStateException if {@code result} is non-zero
+   */
+  private static void check(String functionName, long result) {
+    if (result != 0) {
+      throw new IllegalStateException(
+          "Native call '" + functionName + "' failed with error code: " + result);
+    }
+  }
+}
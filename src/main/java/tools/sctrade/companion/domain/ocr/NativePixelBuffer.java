@@ -0,0 +1,187 @@
+package tools.sctrade.companion.domain.ocr;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import tools.sctrade.companion.utils.ImageBufferPool;
+
+/**
+ * Reusable off-heap buffer holding an image's pixels in the layout the native OCR pipeline reads:
+ * 32bpp ARGB ints in native (little-endian) memory, i.e. BGRA bytes, exactly what GDI+ exposes
+ * through {@code BitmapData.Scan0}. Pixels are packed row by row straight from the image's raster,
+ * without going through {@link BufferedImage#getRGB} nor a full-frame array. The buffer only grows,
+ * so that it's allocated once per resolution, and is freed when closed. Not thread-safe.
+ */
+class NativePixelBuffer implements AutoCloseable {
+  private static final int BYTES_PER_PIXEL = Integer.BYTES;
+  private static final int OPAQUE = 0xFF000000;
+
+  private Memory memory;
+  private int[] row = new int[0];
+
+  /**
+   * Where packed rows go.
+   */
+  @FunctionalInterface
+  interface RowWriter {
+    /**
+     * Writes pixels.
+     *
+     * @param offset The offset to write at, in bytes.
+     * @param pixels The pixels, as ARGB ints.
+     * @param start The index of the first pixel to write.
+     * @param count The number of pixels to write.
+     */
+    void write(long offset, int[] pixels, int start, int count);
+  }
+
+  /**
+   * Packs an image into the buffer, replacing the previous one.
+   *
+   * @param image The image. Untouched.
+   * @return The pixels, valid until the next call or until the buffer is closed.
+   */
+  Pointer pack(BufferedImage image) {
+    ensureCapacity(getSize(image), image.getWidth());
+    pack(image, row, memory::write);
+
+    return memory;
+  }
+
+  /**
+   * Packs an image into native memory owned by the caller.
+   *
+   * @param image The image. Untouched.
+   * @param row A buffer for one row of pixels, at least as long as the image is wide.
+   * @param writer Writes rows into native memory at least {@link #getSize(BufferedImage)} long.
+   */
+  static void pack(BufferedImage image, int[] row, RowWriter writer) {
+    switch (image.getType()) {
+      case BufferedImage.TYPE_3BYTE_BGR -> packBgrBytes(image, row, writer);
+      case BufferedImage.TYPE_INT_ARGB -> packInts(image, 0, row, writer);
+      case BufferedImage.TYPE_INT_RGB -> packInts(image, OPAQUE, row, writer);
+      default -> packConverted(image, row, writer);
+    }
+  }
+
+  /**
+   * Gets the size of an image once packed.
+   *
+   * @param image The image.
+   * @return The size, in bytes.
+   */
+  static long getSize(BufferedImage image) {
+    return getStep(image) * image.getHeight();
+  }
+
+  /**
+   * Gets the distance between two rows of the last packed image.
+   *
+   * @param image The last packed image.
+   * @return The distance, in bytes.
+   */
+  static long getStep(BufferedImage image) {
+    return (long) image.getWidth() * BYTES_PER_PIXEL;
+  }
+
+  long getCapacity() {
+    return memory == null ? 0 : memory.size();
+  }
+
+  @Override
+  public void close() {
+    if (memory != null) {
+      memory.close();
+      memory = null;
+    }
+  }
+
+  private void ensureCapacity(long size, int width) {
+    if (memory == null || memory.size() < size) {
+      close();
+      memory = new Memory(size);
+    }
+    if (row.length < width) {
+      row = new int[width];
+    }
+  }
+
+  /**
+   * Packs the images decoded from JPEG: one byte per channel, blue first.
+   */
+  private static void packBgrBytes(BufferedImage image, int[] row, RowWriter writer) {
+    var raster = image.getRaster();
+    var sampleModel = (ComponentSampleModel) raster.getSampleModel();
+    byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+    int[] bandOffsets = sampleModel.getBandOffsets(); // Red, green, blue
+    int pixelStride = sampleModel.getPixelStride();
+    int scanlineStride = sampleModel.getScanlineStride();
+    int x0 = -raster.getSampleModelTranslateX();
+    int y0 = -raster.getSampleModelTranslateY();
+    int width = image.getWidth();
+
+    for (int y = 0; y < image.getHeight(); y++) {
+      int i = (y0 + y) * scanlineStride + x0 * pixelStride;
+
+      for (int x = 0; x < width; x++, i += pixelStride) {
+        row[x] = OPAQUE | (data[i + bandOffsets[0]] & 0xFF) << 16
+            | (data[i + bandOffsets[1]] & 0xFF) << 8 | (data[i + bandOffsets[2]] & 0xFF);
+      }
+
+      writer.write(y * getStep(image), row, 0, width);
+    }
+  }
+
+  /**
+   * Packs images already stored as ARGB ints, rows written as is unless alpha must be forced.
+   */
+  private static void packInts(BufferedImage image, int alpha, int[] row, RowWriter writer) {
+    var raster = image.getRaster();
+    var sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+    int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+    int scanlineStride = sampleModel.getScanlineStride();
+    int x0 = -raster.getSampleModelTranslateX();
+    int y0 = -raster.getSampleModelTranslateY();
+    int width = image.getWidth();
+
+    for (int y = 0; y < image.getHeight(); y++) {
+      int start = (y0 + y) * scanlineStride + x0;
+
+      if (alpha == 0) {
+        writer.write(y * getStep(image), data, start, width);
+      } else {
+        for (int x = 0; x < width; x++) {
+          row[x] = alpha | data[start + x];
+        }
+
+        writer.write(y * getStep(image), row, 0, width);
+      }
+    }
+  }
+
+  /**
+   * Packs any other image by first converting it to ARGB, like {@code .Clone(...,
+   * Format32bppArgb)} does in the C# wrapper: pixels are replaced rather than blended with.
+   */
+  private static void packConverted(BufferedImage image, int[] row, RowWriter writer) {
+    // Pooled: overwritten entirely
+    var argb = ImageBufferPool.get().borrowImage(image.getWidth(), image.getHeight(),
+        BufferedImage.TYPE_INT_ARGB);
+
+    try {
+      Graphics2D graphics = argb.createGraphics();
+      graphics.setComposite(AlphaComposite.Src);
+      graphics.drawImage(image, 0, 0, null);
+      graphics.dispose();
+      packInts(argb, 0, row, writer);
+    } finally {
+      ImageBufferPool.get().returnImage(argb);
+    }
+  }
+}
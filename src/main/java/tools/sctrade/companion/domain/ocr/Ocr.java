@@ -1,35 +1,115 @@
 package tools.sctrade.companion.domain.ocr;
 
+import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.function.Function;
 import tools.sctrade.companion.domain.image.ImageManipulation;
+import tools.sctrade.companion.domain.image.ImageManipulationPipeline;
+import tools.sctrade.companion.utils.MatScope;
 
 /**
- * Abstract class for Optical Character Recognition (OCR) operations.
+ * Abstract class for Optical Character Recognition (OCR) operations. Backends, the engines actually
+ * reading the text, implement its {@code process} methods: see {@link OcrBackend} for those that
+ * can be configured.
  */
-public abstract class Ocr {
-  private List<ImageManipulation> preprocessingManipulations;
+public abstract class Ocr implements AutoCloseable {
+  private ImageManipulation preprocessing;
 
   /**
    * Creates a new instance of the Ocr class.
    *
    * @param preprocessingManipulations The list of image manipulations to apply, in order, before
-   *        processing.
+   *        processing. Run through an {@link ImageManipulationPipeline}.
    */
   protected Ocr(List<ImageManipulation> preprocessingManipulations) {
-    this.preprocessingManipulations = preprocessingManipulations;
+    this.preprocessing = new ImageManipulationPipeline(preprocessingManipulations);
   }
 
   /**
-   * Reads the text from an image.
+   * Creates an OCR decorating another one, whose {@code process} methods it calls: images are
+   * preprocessed once, the way the decorated OCR does.
+   *
+   * @param decorated The decorated OCR.
+   */
+  protected Ocr(Ocr decorated) {
+    this.preprocessing = decorated.preprocessing;
+  }
+
+  /**
+   * Reads the text from an image. The native memory allocated while reading is released before
+   * returning.
    *
    * @param image The image to read.
    * @return The OCR result.
    */
   public final OcrResult read(BufferedImage image) {
-    image = preProcess(image);
+    try (var scope = MatScope.open()) {
+      image = preprocessing.manipulate(image);
 
-    return process(image);
+      return process(image);
+    }
+  }
+
+  /**
+   * Reads the text from regions of an image, ignoring the rest of it. The native memory allocated
+   * while reading is released before returning.
+   *
+   * @param image The image to read.
+   * @param regionLocator Locates the regions to read in the preprocessed image, given its size.
+   * @return The OCR result, located in the preprocessed image.
+   */
+  public final OcrResult read(BufferedImage image,
+      Function<Dimension, List<Rectangle>> regionLocator) {
+    try (var scope = MatScope.open()) {
+      image = preprocessing.manipulate(image);
+      var frameSize = new Dimension(image.getWidth(), image.getHeight());
+
+      return process(image, regionLocator.apply(frameSize));
+    }
+  }
+
+  /**
+   * Reads the text from regions of a synthetic image, e.g. at startup, so that the first real read
+   * doesn't pay for loading resources and warming the JIT up. Unlike
+   * {@link #read(BufferedImage, Function)}, must have no side effect.
+   *
+   * @param image The synthetic image to read.
+   * @param regionLocator Locates the regions to read in the preprocessed image, given its size.
+   * @return The OCR result, located in the preprocessed image.
+   */
+  public final OcrResult warmUp(BufferedImage image,
+      Function<Dimension, List<Rectangle>> regionLocator) {
+    try (var scope = MatScope.open()) {
+      image = preprocessing.manipulateForWarmUp(image);
+      var frameSize = new Dimension(image.getWidth(), image.getHeight());
+
+      try (var mosaic = OcrMosaic.of(image, regionLocator.apply(frameSize))) {
+        var result = processForWarmUp(mosaic.getImage());
+
+        return new OcrResult(mosaic.toFrame(result.getWords()), frameSize);
+      }
+    }
+  }
+
+  /**
+   * Processes regions of the image to extract their text. By default, packs them into a single
+   * image, a mosaic, processed with {@link #process(BufferedImage)}: the OCR reads fewer pixels
+   * than in the whole image, in a single pass.
+   *
+   * @param image The preprocessed image.
+   * @param regions The regions of the image to read.
+   * @return The OCR result, located in the image.
+   */
+  protected OcrResult process(BufferedImage image, List<Rectangle> regions) {
+    var frameSize = new Dimension(image.getWidth(), image.getHeight());
+
+    try (var mosaic = OcrMosaic.of(image, regions)) {
+      var result = process(mosaic.getImage());
+
+      return new OcrResult(mosaic.toFrame(result.getWords()), frameSize);
+    }
   }
 
   /**
@@ -40,11 +120,21 @@ public abstract class Ocr {
    */
   protected abstract OcrResult process(BufferedImage image);
 
-  private BufferedImage preProcess(BufferedImage image) {
-    for (var manipulation : preprocessingManipulations) {
-      image = manipulation.manipulate(image);
-    }
-
-    return image;
+  /**
+   * Processes a synthetic image to extract the text, without any side effect. Processes it like any
+   * other image by default, implementations with side effects must override it.
+   *
+   * @param image The preprocessed synthetic image.
+   * @return The OCR result.
+   */
+  protected OcrResult processForWarmUp(BufferedImage image) {
+    return process(image);
   }
+
+  /**
+   * Releases what the OCR holds, e.g. native pipelines or threads. Decorators close the OCR they
+   * decorate. Does nothing by default.
+   */
+  @Override
+  public void close() throws Exception {}
 }
@@ -0,0 +1,16 @@
+package tools.sctrade.companion.domain.ocr;
+
+/**
+ * Engines reading the text of captures, that can be configured.
+ */
+public enum OcrBackend {
+  /**
+   * Windows' OCR engine, see {@link OneOcr}.
+   */
+  ONE_OCR,
+  /**
+   * Words recorded beforehand by {@link RecordingOcr}, served back by {@link ReplayOcr}. Runs
+   * anywhere, deterministically: meant to load test everything downstream of the OCR.
+   */
+  REPLAY
+}
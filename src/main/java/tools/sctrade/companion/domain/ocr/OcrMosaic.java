@@ -0,0 +1,123 @@
+package tools.sctrade.companion.domain.ocr;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import tools.sctrade.companion.utils.ImageBufferPool;
+
+/**
+ * Regions of interest of a frame, packed into a single image so that the OCR reads them, and only
+ * them, in one pass. Regions are stacked from top to bottom, separated by blank bands so that the
+ * OCR never joins text from two regions. Words read in the mosaic are then mapped back to the
+ * frame. Must be closed to give the mosaic's buffer back to the {@link ImageBufferPool}.
+ */
+class OcrMosaic implements AutoCloseable {
+  private static final int GAP_HEIGHT_DIVISOR = 50; // ~43px at 4k, wider than a line's spacing
+
+  private final List<Rectangle> regions;
+  private final List<Rectangle> tiles;
+  private final BufferedImage image;
+
+  private OcrMosaic(List<Rectangle> regions, List<Rectangle> tiles, BufferedImage image) {
+    this.regions = regions;
+    this.tiles = tiles;
+    this.image = image;
+  }
+
+  /**
+   * Packs regions of a frame into a mosaic.
+   *
+   * @param frame The frame. Untouched.
+   * @param regions The regions of interest, in the frame. Clipped to the frame, and shouldn't
+   *        overlap: text in the overlap would be read twice.
+   * @return The mosaic.
+   */
+  static OcrMosaic of(BufferedImage frame, Collection<Rectangle> regions) {
+    var frameBounds = new Rectangle(0, 0, frame.getWidth(), frame.getHeight());
+    int gapHeight = Math.max(1, frame.getHeight() / GAP_HEIGHT_DIVISOR);
+    List<Rectangle> clippedRegions = new ArrayList<>();
+    List<Rectangle> tiles = new ArrayList<>();
+    int width = 1;
+    int y = 0;
+
+    for (var region : regions) {
+      var clippedRegion = region.intersection(frameBounds);
+
+      if (clippedRegion.isEmpty()) {
+        continue;
+      }
+
+      y += tiles.isEmpty() ? 0 : gapHeight;
+      clippedRegions.add(clippedRegion);
+      tiles.add(new Rectangle(0, y, clippedRegion.width, clippedRegion.height));
+      width = Math.max(width, clippedRegion.width);
+      y += clippedRegion.height;
+    }
+
+    int type = frame.getType() == BufferedImage.TYPE_CUSTOM ? BufferedImage.TYPE_INT_RGB
+        : frame.getType();
+    // Pooled: overwritten entirely, blank first then tiles
+    var image = ImageBufferPool.get().borrowImage(width, Math.max(1, y), type);
+    Graphics2D graphics = image.createGraphics();
+    graphics.setColor(Color.BLACK);
+    graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+
+    for (int i = 0; i < tiles.size(); i++) {
+      var region = clippedRegions.get(i);
+      var tile = tiles.get(i);
+      graphics.drawImage(frame.getSubimage(region.x, region.y, region.width, region.height), tile.x,
+          tile.y, null);
+    }
+
+    graphics.dispose();
+
+    return new OcrMosaic(List.copyOf(clippedRegions), List.copyOf(tiles), image);
+  }
+
+  BufferedImage getImage() {
+    return image;
+  }
+
+  long getPixelCount() {
+    return (long) image.getWidth() * image.getHeight();
+  }
+
+  /**
+   * Maps words read in the mosaic back to the frame. A word belongs to the tile containing its
+   * center, and is clipped to the tile's region. Words read in the blank bands are dropped.
+   *
+   * @param words The words read in the mosaic.
+   * @return The words, located in the frame.
+   */
+  List<LocatedWord> toFrame(Collection<LocatedWord> words) {
+    return words.stream().map(this::toFrame).flatMap(Optional::stream).toList();
+  }
+
+  @Override
+  public void close() {
+    ImageBufferPool.get().returnImage(image);
+  }
+
+  private Optional<LocatedWord> toFrame(LocatedWord word) {
+    var boundingBox = word.getBoundingBox();
+
+    for (int i = 0; i < tiles.size(); i++) {
+      var tile = tiles.get(i);
+
+      if (tile.contains(boundingBox.getCenterX(), boundingBox.getCenterY())) {
+        var region = regions.get(i);
+        var frameBoundingBox = new Rectangle(boundingBox);
+        frameBoundingBox.translate(region.x - tile.x, region.y - tile.y);
+
+        return Optional.of(new LocatedWord(word.getText(), frameBoundingBox.intersection(region)));
+      }
+    }
+
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,39 @@
+package tools.sctrade.companion.domain.ocr;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * One OneOCR recognition pipeline, loaded with its own copy of the model, over one of the bindings
+ * of the native library: {@link JnaOcrPipeline} or {@link ForeignOcrPipeline}. Not thread-safe: a
+ * pipeline runs one recognition at a time, see {@link OcrPipelinePool}.
+ */
+interface OcrPipeline extends AutoCloseable {
+  /**
+   * Reads the words of an image.
+   *
+   * @param image The image. Untouched.
+   * @return The words.
+   */
+  List<LocatedWord> run(BufferedImage image);
+
+  /**
+   * Counts the native objects this pipeline allocated and didn't release yet.
+   *
+   * @return The number of native objects, not counting pixel buffers.
+   */
+  int getNativeHandles();
+
+  /**
+   * Measures the native memory this pipeline holds on to between recognitions, for pixels.
+   *
+   * @return The number of bytes.
+   */
+  long getNativeBufferBytes();
+
+  /**
+   * Releases the pipeline's native objects.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,169 @@
+package tools.sctrade.companion.domain.ocr;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Small pool of {@link OcrPipeline}s, so that concurrent recognitions each get a pipeline of their
+ * own rather than sharing one. Pipelines are only created when every existing one is busy, up to
+ * the pool's size: each holds a copy of the model, and most of the time a single one is enough.
+ * Recognitions wait for a pipeline beyond that. Thread-safe.
+ *
+ * <p>
+ * Its usage can be measured at any time with {@link #getInUse()}, {@link #getWaiting()},
+ * {@link #getNativeHandles()} and {@link #getNativeBufferBytes()}.
+ * </p>
+ */
+class OcrPipelinePool implements AutoCloseable {
+  private final Supplier<OcrPipeline> pipelineFactory;
+  private final int size;
+  private final List<OcrPipeline> pipelines = new ArrayList<>();
+  private final Deque<OcrPipeline> idlePipelines = new ArrayDeque<>();
+  private int creating;
+  private int inUse;
+  private int waiting;
+  private boolean closed;
+
+  /**
+   * Creates an empty pool.
+   *
+   * @param pipelineFactory Creates pipelines, when needed.
+   * @param size The maximum number of pipelines.
+   */
+  OcrPipelinePool(Supplier<OcrPipeline> pipelineFactory, int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Size must be at least 1: " + size);
+    }
+
+    this.pipelineFactory = pipelineFactory;
+    this.size = size;
+  }
+
+  /**
+   * Reads the words of an image on a pipeline of the pool, waiting for one if they're all busy.
+   *
+   * @param image The image. Untouched.
+   * @return The words.
+   * @throws IllegalStateException If the pool is closed, or if the thread is interrupted while
+   *         waiting.
+   */
+  List<LocatedWord> run(BufferedImage image) {
+    var pipeline = borrowPipeline();
+
+    try {
+      return pipeline.run(image);
+    } finally {
+      returnPipeline(pipeline);
+    }
+  }
+
+  synchronized int getInUse() {
+    return inUse;
+  }
+
+  synchronized int getWaiting() {
+    return waiting;
+  }
+
+  synchronized int getSize() {
+    return pipelines.size();
+  }
+
+  /**
+   * Counts the native objects allocated by the pipelines of the pool, and not released yet.
+   *
+   * @return The number of native objects, not counting pixel buffers.
+   */
+  synchronized int getNativeHandles() {
+    return pipelines.stream().mapToInt(OcrPipeline::getNativeHandles).sum();
+  }
+
+  synchronized long getNativeBufferBytes() {
+    return pipelines.stream().mapToLong(OcrPipeline::getNativeBufferBytes).sum();
+  }
+
+  /**
+   * Closes the pool, releasing its idle pipelines now and busy ones once they're returned.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    idlePipelines.forEach(this::closePipeline);
+    idlePipelines.clear();
+    notifyAll();
+  }
+
+  private OcrPipeline borrowPipeline() {
+    synchronized (this) {
+      waiting++;
+
+      try {
+        while (!closed && idlePipelines.isEmpty() && pipelines.size() + creating >= size) {
+          wait();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for an OCR pipeline", e);
+      } finally {
+        waiting--;
+      }
+
+      if (closed) {
+        throw new IllegalStateException("The OCR pipeline pool is closed");
+      }
+
+      inUse++;
+
+      if (!idlePipelines.isEmpty()) {
+        return idlePipelines.pop();
+      }
+
+      creating++;
+    }
+
+    // Loading the model takes a while: other threads may return pipelines in the meantime
+    return createPipeline();
+  }
+
+  private OcrPipeline createPipeline() {
+    OcrPipeline pipeline = null;
+
+    try {
+      pipeline = pipelineFactory.get();
+    } finally {
+      synchronized (this) {
+        creating--;
+
+        if (pipeline == null) {
+          inUse--;
+          notifyAll();
+        } else {
+          pipelines.add(pipeline);
+        }
+      }
+    }
+
+    return pipeline;
+  }
+
+  private synchronized void returnPipeline(OcrPipeline pipeline) {
+    inUse--;
+
+    if (closed) {
+      closePipeline(pipeline);
+    } else {
+      idlePipelines.push(pipeline);
+    }
+
+    notifyAll();
+  }
+
+  private void closePipeline(OcrPipeline pipeline) {
+    pipeline.close();
+    pipelines.remove(pipeline);
+  }
+}
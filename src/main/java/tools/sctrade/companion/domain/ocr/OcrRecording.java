@@ -0,0 +1,40 @@
+package tools.sctrade.companion.domain.ocr;
+
+import java.awt.Dimension;
+import java.util.List;
+import java.util.Optional;
+import tools.sctrade.companion.utils.PerceptualHash;
+
+/**
+ * Words read by the OCR in an image, recorded to be served back by {@link ReplayOcr}.
+ */
+public class OcrRecording {
+  private final PerceptualHash imageHash;
+  private final List<LocatedWord> words;
+  private final Dimension frameSize;
+
+  /**
+   * Creates a new recording.
+   *
+   * @param imageHash The hash of the regions of the image that were read, or of the whole image.
+   * @param words The words that were read.
+   * @param frameSize The size of the image the words are located in, if known.
+   */
+  public OcrRecording(PerceptualHash imageHash, List<LocatedWord> words, Dimension frameSize) {
+    this.imageHash = imageHash;
+    this.words = List.copyOf(words);
+    this.frameSize = frameSize == null ? null : new Dimension(frameSize);
+  }
+
+  public PerceptualHash getImageHash() {
+    return imageHash;
+  }
+
+  public List<LocatedWord> getWords() {
+    return words;
+  }
+
+  public Optional<Dimension> getFrameSize() {
+    return Optional.ofNullable(frameSize).map(Dimension::new);
+  }
+}
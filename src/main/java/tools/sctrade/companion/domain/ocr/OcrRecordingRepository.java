@@ -0,0 +1,22 @@
+package tools.sctrade.companion.domain.ocr;
+
+import java.util.List;
+
+/**
+ * Stores {@link OcrRecording}s. To be implemented by a concrete output port.
+ */
+public interface OcrRecordingRepository {
+  /**
+   * Saves a recording.
+   *
+   * @param recording The recording.
+   */
+  void save(OcrRecording recording);
+
+  /**
+   * Loads every saved recording.
+   *
+   * @return The recordings.
+   */
+  List<OcrRecording> findAll();
+}
@@ -1,10 +1,12 @@
 package tools.sctrade.companion.domain.ocr;
 
+import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
 import tools.sctrade.companion.exceptions.NotEnoughColumnsException;
@@ -15,13 +17,27 @@ import tools.sctrade.companion.exceptions.NotEnoughColumnsException;
 public class OcrResult {
   private Map<Double, LocatedLine> linesByY;
   private Map<Double, LocatedColumn> columnsByX;
+  private Dimension frameSize;
 
   /**
-   * Creates a new OCR result.
+   * Creates a new OCR result, read from an image of unknown size.
    *
    * @param words The words that were read.
    */
   public OcrResult(Collection<LocatedWord> words) {
+    this(words, null);
+  }
+
+  /**
+   * Creates a new OCR result.
+   *
+   * @param words The words that were read.
+   * @param frameSize The size of the image the words were read from. Since the words are located in
+   *        that image, it may differ from the size of the image given to the OCR, e.g. if it was
+   *        aligned to a template.
+   */
+  public OcrResult(Collection<LocatedWord> words, Dimension frameSize) {
+    this.frameSize = frameSize == null ? null : new Dimension(frameSize);
     linesByY = new TreeMap<>();
     columnsByX = new TreeMap<>();
 
@@ -32,6 +48,20 @@ public class OcrResult {
     buildColumns();
   }
 
+  public Optional<Dimension> getFrameSize() {
+    return Optional.ofNullable(frameSize).map(Dimension::new);
+  }
+
+  /**
+   * Gets every word, line by line, in reading order.
+   *
+   * @return The words.
+   */
+  public List<LocatedWord> getWords() {
+    return linesByY.values().stream().map(n -> n.getFragments()).flatMap(n -> n.stream())
+        .map(n -> n.getWordsInReadingOrder()).flatMap(n -> n.stream()).toList();
+  }
+
   public List<LocatedLine> getLines() {
     return linesByY.values().stream().toList();
   }
@@ -100,11 +130,10 @@ public class OcrResult {
    * @return OcrResult
    */
   public OcrResult crop(Rectangle boundingBox) {
-    var wordsInBoundingBox = linesByY.values().stream().map(n -> n.getFragments())
-        .flatMap(n -> n.stream()).map(n -> n.getWordsInReadingOrder()).flatMap(n -> n.stream())
-        .filter(n -> n.isContainedBy(boundingBox)).toList();
+    var wordsInBoundingBox =
+        getWords().stream().filter(n -> n.isContainedBy(boundingBox)).toList();
 
-    return new OcrResult(wordsInBoundingBox);
+    return new OcrResult(wordsInBoundingBox, frameSize);
   }
 
   private LocatedColumn upsert(LocatedColumn column, LocatedFragment fragment) {
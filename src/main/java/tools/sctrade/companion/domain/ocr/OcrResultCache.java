@@ -0,0 +1,33 @@
+package tools.sctrade.companion.domain.ocr;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Cache of OCR results, by the hash of the content they were read from, see {@link CachingOcr}. To
+ * be implemented by a concrete output port.
+ */
+public interface OcrResultCache {
+  /**
+   * Gets a cached result.
+   *
+   * @param key The hash of the content the result was read from.
+   * @return The result, if cached.
+   */
+  Optional<OcrResult> get(String key);
+
+  /**
+   * Caches a result, possibly evicting others.
+   *
+   * @param key The hash of the content the result was read from.
+   * @param result The result.
+   */
+  void put(String key, OcrResult result);
+
+  /**
+   * Gets the keys of every cached result.
+   *
+   * @return The keys.
+   */
+  Collection<String> getKeys();
+}
@@ -1,34 +1,26 @@
 package tools.sctrade.companion.domain.ocr;
 
 import com.sun.jna.Library;
-import com.sun.jna.Memory;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 import com.sun.jna.Structure;
-import com.sun.jna.ptr.LongByReference;
-import com.sun.jna.ptr.PointerByReference;
-import java.awt.Rectangle;
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import javax.imageio.ImageIO;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tools.sctrade.companion.domain.image.ImageManipulation;
-import tools.sctrade.companion.domain.image.ImageType;
-import tools.sctrade.companion.output.DiskImageWriter;
+import tools.sctrade.companion.utils.ImageUtil;
 
 /**
  * OCR implementation backed by the native OneOCR library via JNA.
  *
- * The image is first written to disk as JPEG (matching the encoding path used by the C# wrapper)
- * and then reloaded with ICC profile processing disabled, so that the raw pixel values fed to the
- * native pipeline are identical to those produced by {@code System.Drawing.Bitmap}.
+ * The image is first round-tripped through JPEG in memory (matching the screenshot the C# wrapper
+ * reads back from disk), with no ICC profile processing, so that the raw pixel values fed to the
+ * native pipeline are identical to those produced by {@code System.Drawing.Bitmap}. They are then
+ * packed straight into a reusable native buffer, see {@link NativePixelBuffer}.
  */
 public class OneOcr extends Ocr {
   private static final Logger logger = LoggerFactory.getLogger(OneOcr.class);
@@ -39,8 +31,6 @@ public class OneOcr extends Ocr {
   private static final String WRAPPER_DIR = Paths.get("bin/oneocr").toAbsolutePath().toString();
   private static final String DLL_PATH = WRAPPER_DIR + "/oneocr";
   private static final String MODEL_PATH = WRAPPER_DIR + "/oneocr.onemodel";
-  private static final byte DISABLE_MODEL_DELAY_LOAD = 0;
-  private static final long MAX_RECOGNITION_LINES = 1000;
   /** Decryption key for the bundled OneOCR model file. */
   private static final String MODEL_KEY = "kj)TGtrK>f]b[Piow.gU+nC@s\"\"\"\"\"\"4";
 
@@ -48,37 +38,48 @@ public class OneOcr extends Ocr {
   // JNA interfaces
   // -------------------------------------------------------------------------
 
-  /** JNA binding for the native {@code oneocr.dll}. */
+  /**
+   * Binding for the native {@code oneocr.dll}, implemented by {@link DirectOneOcrLib}. Handles to
+   * native objects are passed as their address, the library being 64-bit only, and out parameters
+   * as single-element arrays, so that no wrapper objects are allocated per call and holders can be
+   * reused from one call to the next. Every function returns {@code 0} on success.
+   */
   interface OneOcrLib extends Library {
-    long CreateOcrInitOptions(PointerByReference ctx);
+    long CreateOcrInitOptions(long[] ctx);
+
+    long OcrInitOptionsSetUseModelDelayLoad(long ctx, byte flag);
+
+    long CreateOcrPipeline(Pointer modelPath, Pointer key, long ctx, long[] pipeline);
+
+    long CreateOcrProcessOptions(long[] opt);
+
+    long OcrProcessOptionsSetMaxRecognitionLineCount(long opt, long count);
 
-    long OcrInitOptionsSetUseModelDelayLoad(Pointer ctx, byte flag);
+    long RunOcrPipeline(long pipeline, Img.ByReference img, long opt, long[] instance);
 
-    long CreateOcrPipeline(Pointer modelPath, Pointer key, Pointer ctx,
-        PointerByReference pipeline);
+    long GetOcrLineCount(long instance, long[] count);
 
-    long CreateOcrProcessOptions(PointerByReference opt);
+    long GetOcrLine(long instance, long index, long[] line);
 
-    long OcrProcessOptionsSetMaxRecognitionLineCount(Pointer opt, long count);
+    long GetOcrLineContent(long line, long[] text);
 
-    long RunOcrPipeline(Pointer pipeline, Img.ByReference img, Pointer opt,
-        PointerByReference instance);
+    long GetOcrLineBoundingBox(long line, long[] box);
 
-    long GetOcrLineCount(Pointer instance, LongByReference count);
+    long GetOcrLineWordCount(long line, long[] count);
 
-    long GetOcrLine(Pointer instance, long index, PointerByReference line);
+    long GetOcrWord(long line, long index, long[] word);
 
-    long GetOcrLineContent(Pointer line, PointerByReference textPtr);
+    long GetOcrWordContent(long word, long[] text);
 
-    long GetOcrLineBoundingBox(Pointer line, PointerByReference boxPtr);
+    long GetOcrWordBoundingBox(long word, long[] box);
 
-    long GetOcrLineWordCount(Pointer line, LongByReference count);
+    long ReleaseOcrResult(long instance);
 
-    long GetOcrWord(Pointer line, long index, PointerByReference word);
+    long ReleaseOcrProcessOptions(long opt);
 
-    long GetOcrWordContent(Pointer word, PointerByReference textPtr);
+    long ReleaseOcrPipeline(long pipeline);
 
-    long GetOcrWordBoundingBox(Pointer word, PointerByReference boxPtr);
+    long ReleaseOcrInitOptions(long ctx);
   }
 
   /**
@@ -103,7 +104,10 @@ public class OneOcr extends Ocr {
    * </pre>
    */
   public static class Img extends Structure {
-    /** Image type identifier; {@code 3} denotes a 4-channel BGRA/ARGB image. */
+    /** Image type of 4-channel images, with BGRA layout. The only one the pipeline is fed. */
+    public static final int TYPE_BGRA = 3;
+
+    /** Image type identifier, see {@link #TYPE_BGRA}. */
     public int t;
     /** Image width in pixels. */
     public int col;
@@ -126,57 +130,61 @@ public class OneOcr extends Ocr {
   }
 
   /**
-   * Mirrors the native {@code OcrBoundingBox} struct returned for each recognised word or line. The
-   * box is represented as four corners in clockwise order starting from the top-left: (x1,y1) →
-   * (x2,y2) → (x3,y3) → (x4,y4).
-   *
-   * <pre>
-   * struct OcrBoundingBox { float X1, Y1, X2, Y2, X3, Y3, X4, Y4; }
-   * </pre>
+   * Ways of calling the native library.
    */
-  public static class OcrBoundingBox extends Structure {
-    public float x1, y1, x2, y2, x3, y3, x4, y4;
-
-    @Override
-    protected List<String> getFieldOrder() {
-      return List.of("x1", "y1", "x2", "y2", "x3", "y3", "x4", "y4");
-    }
+  public enum Binding {
+    /**
+     * JNA, see {@link DirectOneOcrLib}.
+     */
+    JNA,
+    /**
+     * The Foreign Function &amp; Memory API, see {@link ForeignOneOcrLib}. A preview in Java 21:
+     * the JVM must be started with {@code --enable-preview}.
+     */
+    FFM
   }
 
   // -------------------------------------------------------------------------
   // Instance state
   // -------------------------------------------------------------------------
 
-  private final OneOcrLib lib;
-  private final Pointer pipeline;
-  private final DiskImageWriter diskImageWriter;
+  private final int pipelineCount;
+  private final Binding binding;
+  private volatile OcrPipelinePool pipelinePool;
 
   // -------------------------------------------------------------------------
-  // Constructor
+  // Constructors
   // -------------------------------------------------------------------------
 
   /**
-   * Loads the native OneOCR library and initialises the recognition pipeline.
+   * Creates the OCR, with a single recognition pipeline.
    *
    * @param preprocessingManipulations image manipulations applied before OCR
-   * @param diskImageWriter used to persist the screenshot before passing it to the native library
    */
-  public OneOcr(List<ImageManipulation> preprocessingManipulations,
-      DiskImageWriter diskImageWriter) {
-    super(preprocessingManipulations);
-    this.diskImageWriter = diskImageWriter;
+  public OneOcr(List<ImageManipulation> preprocessingManipulations) {
+    this(preprocessingManipulations, 1, Binding.JNA);
+  }
 
-    // Extend the DLL search path so that oneocr.dll can find its sibling DLLs.
-    Kernel32 kernel32 = Native.load("kernel32", Kernel32.class);
-    kernel32.SetDllDirectoryA(WRAPPER_DIR);
+  /**
+   * Creates the OCR. The native OneOCR library is only loaded, and recognition pipelines
+   * initialised, on first use: loading the model takes a while, and mustn't block the application's
+   * startup.
+   *
+   * @param preprocessingManipulations image manipulations applied before OCR
+   * @param pipelineCount maximum number of recognition pipelines, i.e. of concurrent recognitions.
+   *        Each holds a copy of the model, and is only created when the others are busy.
+   * @param binding how the native library is called
+   */
+  public OneOcr(List<ImageManipulation> preprocessingManipulations, int pipelineCount,
+      Binding binding) {
+    super(preprocessingManipulations);
 
-    try {
-      lib = Native.load(DLL_PATH, OneOcrLib.class);
-      pipeline = createPipeline();
-    } finally {
-      // Always restore the original DLL search path.
-      kernel32.SetDllDirectoryA(null);
+    if (pipelineCount < 1) {
+      throw new IllegalArgumentException("Pipeline count must be at least 1: " + pipelineCount);
     }
+
+    this.pipelineCount = pipelineCount;
+    this.binding = binding;
   }
 
   // -------------------------------------------------------------------------
@@ -185,211 +193,99 @@ public class OneOcr extends Ocr {
 
   @Override
   protected OcrResult process(BufferedImage image) {
-    var imagePath = diskImageWriter.write(image, ImageType.SCREENSHOT)
-        .orElseThrow(() -> new IllegalStateException(
-            "Screenshot output is disabled; OneOcr requires the image to be written to disk"));
-
-    BufferedImage bgra = loadImageFromDisk(imagePath);
-    Img.ByReference img = toNativeImg(bgra);
-    List<LocatedWord> locatedWords = runOcr(img);
-    OcrResult ocrResult = new OcrResult(locatedWords);
+    List<LocatedWord> locatedWords = runOcr(ImageUtil.decode(ImageUtil.encodeToJpeg(image)));
+    OcrResult ocrResult =
+        new OcrResult(locatedWords, new Dimension(image.getWidth(), image.getHeight()));
 
     return ocrResult;
   }
 
-  // -------------------------------------------------------------------------
-  // Pipeline initialisation
-  // -------------------------------------------------------------------------
-
-  private Pointer createPipeline() {
-    Pointer ctx = createInitOptions();
-
-    check("OcrInitOptionsSetUseModelDelayLoad",
-        lib.OcrInitOptionsSetUseModelDelayLoad(ctx, DISABLE_MODEL_DELAY_LOAD));
-
-    // Memory instances keep the native buffers alive for the duration of the call.
-    Memory modelMem = toNativeString(MODEL_PATH);
-    Memory keyMem = toNativeString(MODEL_KEY);
-
-    var pipelineRef = new PointerByReference();
-    check("CreateOcrPipeline", lib.CreateOcrPipeline(modelMem, keyMem, ctx, pipelineRef));
-    return pipelineRef.getValue();
+  /**
+   * Runs the native pipeline straight on the image, without the JPEG round trip: the exact pixel
+   * values don't matter when warming up.
+   */
+  @Override
+  protected OcrResult processForWarmUp(BufferedImage image) {
+    return new OcrResult(runOcr(image), new Dimension(image.getWidth(), image.getHeight()));
   }
 
-  private Pointer createInitOptions() {
-    var ctxRef = new PointerByReference();
-    check("CreateOcrInitOptions", lib.CreateOcrInitOptions(ctxRef));
-    return ctxRef.getValue();
+  /**
+   * Releases the recognition pipelines, once they're done with their current recognition.
+   */
+  @Override
+  public void close() {
+    if (pipelinePool != null) {
+      pipelinePool.close();
+    }
   }
 
   // -------------------------------------------------------------------------
-  // OCR execution
+  // Pipeline initialisation
   // -------------------------------------------------------------------------
 
-  private BufferedImage loadImageFromDisk(Path imagePath) {
-    BufferedImage loaded;
-    try {
-      loaded = ImageIO.read(imagePath.toFile());
-    } catch (IOException e) {
-      throw new IllegalStateException("Failed to read image: " + imagePath, e);
+  private OcrPipelinePool getPipelinePool() {
+    if (pipelinePool != null) {
+      return pipelinePool;
     }
 
-    // Mirror the C# .Clone(..., Format32bppArgb) step: produce a 32bpp ARGB image
-    // whose backing int[] is laid out as BGRA bytes in native (little-endian) memory,
-    // exactly matching what GDI+ exposes through BitmapData.Scan0.
-    BufferedImage bgra =
-        new BufferedImage(loaded.getWidth(), loaded.getHeight(), BufferedImage.TYPE_INT_ARGB);
-    bgra.createGraphics().drawImage(loaded, 0, 0, null);
-
-    return bgra;
-  }
-
-  private List<LocatedWord> runOcr(Img.ByReference img) {
-    Pointer opt = createProcessOptions();
-
-    var instanceRef = new PointerByReference();
-    check("RunOcrPipeline", lib.RunOcrPipeline(pipeline, img, opt, instanceRef));
-    Pointer instance = instanceRef.getValue();
-
-    var lineCountRef = new LongByReference();
-    lib.GetOcrLineCount(instance, lineCountRef);
-
-    return toLocatedWords(instance, lineCountRef.getValue());
-  }
-
-  private Pointer createProcessOptions() {
-    var optRef = new PointerByReference();
-    check("CreateOcrProcessOptions", lib.CreateOcrProcessOptions(optRef));
-    Pointer opt = optRef.getValue();
-
-    check("OcrProcessOptionsSetMaxRecognitionLineCount",
-        lib.OcrProcessOptionsSetMaxRecognitionLineCount(opt, MAX_RECOGNITION_LINES));
-
-    return opt;
-  }
-
-  private List<LocatedWord> toLocatedWords(Pointer instance, long lineCount) {
-    var words = new ArrayList<LocatedWord>();
-
-    for (long i = 0; i < lineCount; i++) {
-      var lineRef = new PointerByReference();
-      lib.GetOcrLine(instance, i, lineRef);
-      Pointer line = lineRef.getValue();
-
-      if (isNullPointer(line)) {
-        continue;
+    synchronized (this) {
+      if (pipelinePool != null) {
+        return pipelinePool;
       }
 
-      toLocatedWords(line, words);
-    }
+      Kernel32 kernel32 = Native.load("kernel32", Kernel32.class);
+      var pipelineFactory = inDllDirectory(kernel32, this::loadPipelineFactory);
+      // Pipelines are created on demand, each loading the model and its sibling DLLs
+      pipelinePool = new OcrPipelinePool(() -> inDllDirectory(kernel32, pipelineFactory),
+          pipelineCount);
 
-    return Collections.unmodifiableList(words);
+      return pipelinePool;
+    }
   }
 
-  private void toLocatedWords(Pointer line, List<LocatedWord> words) {
-    var wordCountRef = new LongByReference();
-    lib.GetOcrLineWordCount(line, wordCountRef);
-    long wordCount = wordCountRef.getValue();
-
-    for (long j = 0; j < wordCount; j++) {
-      var wordRef = new PointerByReference();
-      lib.GetOcrWord(line, j, wordRef);
-      Pointer word = wordRef.getValue();
-
-      if (isNullPointer(word)) {
-        continue;
-      }
+  /**
+   * Extends the DLL search path while calling the supplier, so that oneocr.dll can find its sibling
+   * DLLs. The search path is process-wide, hence the lock: pipelines may be created concurrently.
+   */
+  private static synchronized <T> T inDllDirectory(Kernel32 kernel32, Supplier<T> supplier) {
+    kernel32.SetDllDirectoryA(WRAPPER_DIR);
 
-      words.add(toLocatedWord(word));
+    try {
+      return supplier.get();
+    } finally {
+      // Always restore the original DLL search path.
+      kernel32.SetDllDirectoryA(null);
     }
   }
 
-  private LocatedWord toLocatedWord(Pointer word) {
-    var textRef = new PointerByReference();
-    lib.GetOcrWordContent(word, textRef);
-    String text = textRef.getValue().getString(0, StandardCharsets.UTF_8.name());
-
-    var boxRef = new PointerByReference();
-    lib.GetOcrWordBoundingBox(word, boxRef);
-    OcrBoundingBox box = Structure.newInstance(OcrBoundingBox.class, boxRef.getValue());
-    box.read();
+  private Supplier<OcrPipeline> loadPipelineFactory() {
+    if (binding == Binding.JNA) {
+      OneOcrLib lib = DirectOneOcrLib.load(DLL_PATH);
+      return () -> new JnaOcrPipeline(lib, MODEL_PATH, MODEL_KEY);
+    }
 
-    return new LocatedWord(text.toLowerCase(), toRectangle(box));
+    try {
+      ForeignOneOcrLib lib = ForeignOneOcrLib.load(DLL_PATH);
+      return () -> new ForeignOcrPipeline(lib, MODEL_PATH, MODEL_KEY);
+    } catch (UnsupportedClassVersionError e) {
+      // Classes using preview APIs don't load otherwise
+      throw new IllegalStateException("The FFM binding needs the JVM option --enable-preview", e);
+    }
   }
 
   // -------------------------------------------------------------------------
-  // Static helpers
+  // OCR execution
   // -------------------------------------------------------------------------
 
-  /**
-   * Converts a {@link BufferedImage} to a native {@link Img} struct with BGRA pixel layout,
-   * matching the format expected by the native OCR pipeline. The pixel data is copied into a
-   * contiguous native buffer, and the returned {@code Img} struct points to this buffer. The caller
-   * must ensure that the native buffer remains valid for the duration of the OCR call (e.g. by
-   * keeping a reference to the returned struct and allowing the GC to clean up the native memory
-   * when no longer needed).
-   *
-   * @param image the input image, expected to be in ARGB format (e.g. loaded with
-   *        BufferedImage.TYPE_INT_ARGB)
-   * @return a native-compatible {@code Img} struct referencing the pixel data
-   */
-  private static Img.ByReference toNativeImg(BufferedImage image) {
-    int width = image.getWidth();
-    int height = image.getHeight();
-
-    int[] pixels = new int[width * height];
-    image.getRGB(0, 0, width, height, pixels, 0, width);
-
-    Memory pixelMem = new Memory((long) pixels.length * Integer.BYTES);
-    pixelMem.write(0, pixels, 0, pixels.length);
-
-    Img.ByReference img = new Img.ByReference();
-    img.t = 3; // 4-channel image type
-    img.col = width;
-    img.row = height;
-    img.unk = 0;
-    img.step = (long) width * Integer.BYTES;
-    img.dataPtr = Pointer.nativeValue(pixelMem);
-    return img;
-  }
-
-  /**
-   * Converts a quadrilateral {@link OcrBoundingBox} to an axis-aligned {@link Rectangle} using the
-   * top-left (x1,y1) and bottom-right (x3,y3) corners.
-   */
-  private static Rectangle toRectangle(OcrBoundingBox box) {
-    int x = Math.round(box.x1);
-    int y = Math.round(box.y1);
-    int width = Math.round(box.x3 - box.x1);
-    int height = Math.round(box.y3 - box.y1);
-    return new Rectangle(x, y, width, height);
-  }
+  private List<LocatedWord> runOcr(BufferedImage image) {
+    var pool = getPipelinePool();
 
-  /**
-   * Encodes {@code s} as ASCII and appends a null terminator into a native {@link Memory} buffer.
-   */
-  private static Memory toNativeString(String s) {
-    byte[] encoded = s.getBytes(StandardCharsets.US_ASCII);
-    Memory mem = new Memory(encoded.length + 1L); // +1 for null terminator
-    mem.write(0, encoded, 0, encoded.length);
-    mem.setByte(encoded.length, (byte) 0);
-    return mem;
-  }
-
-  /** Returns {@code true} if {@code ptr} is null or points to address zero. */
-  private static boolean isNullPointer(Pointer ptr) {
-    return ptr == null || Pointer.nativeValue(ptr) == 0;
-  }
-
-  /**
-   * Asserts that a native API call succeeded (return code {@code 0}).
-   *
-   * @throws IllegalStateException if {@code result} is non-zero
-   */
-  private static void check(String functionName, long result) {
-    if (result != 0) {
-      throw new IllegalStateException(
-          "Native call '" + functionName + "' failed with error code: " + result);
+    try {
+      return pool.run(image);
+    } finally {
+      logger.debug("OCR pipelines: {}/{} in use, {} waiting, {} native objects, {} buffer bytes",
+          pool.getInUse(), pool.getSize(), pool.getWaiting(), pool.getNativeHandles(),
+          pool.getNativeBufferBytes());
     }
   }
 }
@@ -0,0 +1,66 @@
+package tools.sctrade.companion.domain.ocr;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.sctrade.companion.utils.PerceptualHash;
+
+/**
+ * Decorates an OCR, recording the words it reads along with a perceptual hash of what it read, so
+ * that {@link ReplayOcr} can serve them back without it. Warm up reads aren't recorded.
+ */
+public class RecordingOcr extends Ocr {
+  private final Logger logger = LoggerFactory.getLogger(RecordingOcr.class);
+
+  private final Ocr ocr;
+  private final OcrRecordingRepository recordingRepository;
+
+  /**
+   * Creates a new recording OCR.
+   *
+   * @param ocr The recorded OCR, which preprocesses and reads the images.
+   * @param recordingRepository Where to save the recordings.
+   */
+  public RecordingOcr(Ocr ocr, OcrRecordingRepository recordingRepository) {
+    super(ocr);
+    this.ocr = ocr;
+    this.recordingRepository = recordingRepository;
+  }
+
+  @Override
+  protected OcrResult process(BufferedImage image, List<Rectangle> regions) {
+    var result = ocr.process(image, regions);
+    record(PerceptualHash.of(image, regions), result);
+
+    return result;
+  }
+
+  @Override
+  protected OcrResult process(BufferedImage image) {
+    var result = ocr.process(image);
+    record(PerceptualHash.of(image), result);
+
+    return result;
+  }
+
+  @Override
+  protected OcrResult processForWarmUp(BufferedImage image) {
+    return ocr.processForWarmUp(image);
+  }
+
+  @Override
+  public void close() throws Exception {
+    ocr.close();
+  }
+
+  private void record(PerceptualHash imageHash, OcrResult result) {
+    try {
+      recordingRepository
+          .save(new OcrRecording(imageHash, result.getWords(), result.getFrameSize().orElse(null)));
+    } catch (Exception e) {
+      logger.warn("Could not record OCR result", e);
+    }
+  }
+}
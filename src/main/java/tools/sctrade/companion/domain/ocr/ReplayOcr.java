@@ -0,0 +1,93 @@
+package tools.sctrade.companion.domain.ocr;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import tools.sctrade.companion.domain.image.ImageManipulation;
+import tools.sctrade.companion.utils.PerceptualHash;
+
+/**
+ * OCR backend serving back the words recorded by {@link RecordingOcr}: the recording whose image is
+ * perceptually the nearest to the one read is returned, after a configurable latency standing for
+ * the real OCR's. Needs no native library, hence runs anywhere, e.g. to benchmark everything
+ * downstream of the OCR on Linux.
+ */
+public class ReplayOcr extends Ocr {
+  private final List<OcrRecording> recordings;
+  private final double maxDistance;
+  private final Duration latency;
+
+  /**
+   * Creates a new replaying OCR.
+   *
+   * @param preprocessingManipulations The manipulations the recorded OCR applied to images, so that
+   *        they are hashed alike.
+   * @param recordings The recordings to serve back.
+   * @param maxDistance The maximum distance between the hashes of a recorded image and of the image
+   *        read, see {@link PerceptualHash#distanceTo(PerceptualHash)}.
+   * @param latency How long each read takes.
+   */
+  public ReplayOcr(List<ImageManipulation> preprocessingManipulations,
+      List<OcrRecording> recordings, double maxDistance, Duration latency) {
+    super(preprocessingManipulations);
+    this.recordings = List.copyOf(recordings);
+    this.maxDistance = maxDistance;
+    this.latency = latency;
+  }
+
+  @Override
+  protected OcrResult process(BufferedImage image, List<Rectangle> regions) {
+    return replay(PerceptualHash.of(image, regions));
+  }
+
+  @Override
+  protected OcrResult process(BufferedImage image) {
+    return replay(PerceptualHash.of(image));
+  }
+
+  @Override
+  protected OcrResult processForWarmUp(BufferedImage image) {
+    return new OcrResult(Collections.emptyList());
+  }
+
+  private OcrResult replay(PerceptualHash imageHash) {
+    OcrRecording nearest = null;
+    double nearestDistance = Double.POSITIVE_INFINITY;
+
+    for (var recording : recordings) {
+      double distance = recording.getImageHash().distanceTo(imageHash);
+
+      if (distance < nearestDistance) {
+        nearest = recording;
+        nearestDistance = distance;
+      }
+    }
+
+    if (nearest == null || nearestDistance > maxDistance) {
+      throw new IllegalStateException(
+          String.format(Locale.ROOT,
+              "No OCR recording of this image, the nearest is at a distance of %.3f",
+              nearestDistance));
+    }
+
+    simulateLatency();
+
+    return new OcrResult(nearest.getWords(), nearest.getFrameSize().orElse(null));
+  }
+
+  private void simulateLatency() {
+    if (latency.isZero()) {
+      return;
+    }
+
+    try {
+      Thread.sleep(latency);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while replaying an OCR recording", e);
+    }
+  }
+}
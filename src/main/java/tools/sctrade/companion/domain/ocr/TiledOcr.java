@@ -0,0 +1,200 @@
+package tools.sctrade.companion.domain.ocr;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import tools.sctrade.companion.utils.MatScope;
+
+/**
+ * Decorates an OCR, splitting the images it reads into tiles recognized concurrently, then
+ * stitching the words read in each tile back into a single result. Whole images, or each of their
+ * regions of interest, are split into horizontal bands overlapping by more than a word's height, so
+ * that every word lies entirely within a band: a word belongs to the band owning its center, the
+ * bands sharing each overlap at its middle, and the partial words read at the edges of a band are
+ * dropped. Regions share the tiles between them, taller regions getting the leftover ones.
+ *
+ * <p>
+ * The decorated OCR must support concurrent recognitions, e.g. {@link OneOcr} with as many
+ * pipelines as there are tiles.
+ * </p>
+ */
+public class TiledOcr extends Ocr {
+  private static final int OVERLAP_DIVISOR = 20; // ~108px at 4k, taller than any word
+
+  private final Ocr ocr;
+  private final int tileCount;
+  private final ExecutorService executor;
+
+  /**
+   * Creates a new tiled OCR.
+   *
+   * @param ocr The decorated OCR, which preprocesses and reads the tiles.
+   * @param tileCount The number of tiles images are split into, and recognized concurrently.
+   */
+  public TiledOcr(Ocr ocr, int tileCount) {
+    super(ocr);
+
+    if (tileCount < 1) {
+      throw new IllegalArgumentException("Tile count must be at least 1: " + tileCount);
+    }
+
+    this.ocr = ocr;
+    this.tileCount = tileCount;
+    var threadCount = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(tileCount, runnable -> {
+      var thread = new Thread(runnable, "ocr-tile-" + threadCount.getAndIncrement());
+      thread.setDaemon(true);
+
+      return thread;
+    });
+  }
+
+  @Override
+  protected OcrResult process(BufferedImage image, List<Rectangle> regions) {
+    var bounds = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+    List<Rectangle> clippedRegions = regions.stream().map(n -> n.intersection(bounds))
+        .filter(n -> !n.isEmpty()).sorted(Comparator.comparingInt(n -> -n.height)).toList();
+    int overlap = getOverlap(image.getHeight());
+    List<Tile> tiles = new ArrayList<>();
+
+    for (int i = 0; i < clippedRegions.size(); i++) {
+      int bandCount = (tileCount / clippedRegions.size())
+          + (i < tileCount % clippedRegions.size() ? 1 : 0);
+      tiles.addAll(split(clippedRegions.get(i), bandCount, overlap));
+    }
+
+    return read(image, tiles);
+  }
+
+  @Override
+  protected OcrResult process(BufferedImage image) {
+    return read(image, split(image.getWidth(), image.getHeight(), tileCount));
+  }
+
+  @Override
+  protected OcrResult processForWarmUp(BufferedImage image) {
+    return ocr.processForWarmUp(image);
+  }
+
+  /**
+   * Stops the threads recognizing tiles, and closes the decorated OCR.
+   */
+  @Override
+  public void close() throws Exception {
+    executor.shutdown();
+    ocr.close();
+  }
+
+  /**
+   * Splits an image into horizontal bands, overlapping by more than a word's height.
+   *
+   * @param width The width of the image.
+   * @param height The height of the image.
+   * @param bandCount The maximum number of bands. Fewer for images too small to be split as many
+   *        times.
+   * @return The bands, from top to bottom.
+   */
+  static List<Tile> split(int width, int height, int bandCount) {
+    return split(new Rectangle(0, 0, width, height), bandCount, getOverlap(height));
+  }
+
+  /**
+   * Splits part of an image into horizontal bands.
+   *
+   * @param area The part of the image.
+   * @param bandCount The maximum number of bands. Fewer for parts too small to be split as many
+   *        times.
+   * @param overlap How much the bands overlap, more than a word's height.
+   * @return The bands, from top to bottom.
+   */
+  static List<Tile> split(Rectangle area, int bandCount, int overlap) {
+    int height = area.height;
+    // Bands at least twice as tall as their overlap
+    bandCount = Math.max(1, Math.min(bandCount, (height - overlap) / overlap));
+    int step = Math.ceilDiv(height - overlap, bandCount);
+    List<Tile> bands = new ArrayList<>();
+
+    for (int i = 0; i < bandCount; i++) {
+      int y = i * step;
+      int end = i == bandCount - 1 ? height : Math.min(height, y + step + overlap);
+      int ownedY = i == 0 ? 0 : y + (overlap / 2);
+      int ownedEnd = i == bandCount - 1 ? height : y + step + (overlap / 2);
+      bands.add(new Tile(new Rectangle(area.x, area.y + y, area.width, end - y),
+          new Rectangle(area.x, area.y + ownedY, area.width, ownedEnd - ownedY)));
+    }
+
+    return bands;
+  }
+
+  private static int getOverlap(int frameHeight) {
+    return Math.max(1, frameHeight / OVERLAP_DIVISOR);
+  }
+
+  private OcrResult read(BufferedImage image, List<Tile> tiles) {
+    var frameSize = new Dimension(image.getWidth(), image.getHeight());
+
+    if (tiles.size() == 1) {
+      return new OcrResult(read(image, tiles.getFirst()), frameSize);
+    }
+
+    List<Callable<List<LocatedWord>>> tasks = tiles.stream()
+        .<Callable<List<LocatedWord>>>map(tile -> () -> {
+          try (var scope = MatScope.open()) {
+            return read(image, tile);
+          }
+        }).toList();
+    List<LocatedWord> words = new ArrayList<>();
+
+    try {
+      for (Future<List<LocatedWord>> future : executor.invokeAll(tasks)) {
+        words.addAll(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while reading OCR tiles", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+
+      throw new IllegalStateException("Could not read OCR tile", e.getCause());
+    }
+
+    return new OcrResult(words, frameSize);
+  }
+
+  private List<LocatedWord> read(BufferedImage image, Tile tile) {
+    var bounds = tile.bounds();
+    var result = ocr.process(image.getSubimage(bounds.x, bounds.y, bounds.width, bounds.height));
+    List<LocatedWord> words = new ArrayList<>();
+
+    for (var word : result.getWords()) {
+      var boundingBox = new Rectangle(word.getBoundingBox());
+      boundingBox.translate(bounds.x, bounds.y);
+
+      if (tile.owned().contains(boundingBox.getCenterX(), boundingBox.getCenterY())) {
+        words.add(new LocatedWord(word.getText(), boundingBox.intersection(bounds)));
+      }
+    }
+
+    return words;
+  }
+
+  /**
+   * Part of an image recognized on its own.
+   *
+   * @param bounds The part of the image that is read.
+   * @param owned The part of the image whose words are kept, the rest being read by other tiles.
+   */
+  record Tile(Rectangle bounds, Rectangle owned) {
+  }
+}
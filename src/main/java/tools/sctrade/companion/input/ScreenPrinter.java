@@ -1,5 +1,8 @@
 package tools.sctrade.companion.input;
 
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Robot;
 import java.awt.image.BufferedImage;
 import java.nio.file.Path;
@@ -10,6 +13,7 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import tools.sctrade.companion.domain.image.ImageManipulation;
+import tools.sctrade.companion.domain.image.ImageManipulationPipeline;
 import tools.sctrade.companion.domain.image.ImageType;
 import tools.sctrade.companion.domain.image.ImageWriter;
 import tools.sctrade.companion.domain.notification.NotificationService;
@@ -17,6 +21,7 @@ import tools.sctrade.companion.domain.setting.Setting;
 import tools.sctrade.companion.domain.setting.SettingRepository;
 import tools.sctrade.companion.utils.AsynchronousProcessor;
 import tools.sctrade.companion.utils.GraphicsDeviceUtil;
+import tools.sctrade.companion.utils.ImageUtil;
 import tools.sctrade.companion.utils.LocalizationUtil;
 import tools.sctrade.companion.utils.SoundUtil;
 
@@ -25,11 +30,12 @@ import tools.sctrade.companion.utils.SoundUtil;
  */
 public class ScreenPrinter implements Runnable {
   private static final String CAMERA_SHUTTER = "/sounds/camera-shutter.wav";
+  private static final String SYNTHETIC_CAPTURE = "/images/ocr/commodity_kiosk_template.jpg";
 
   private final Logger logger = LoggerFactory.getLogger(ScreenPrinter.class);
 
   private Collection<AsynchronousProcessor<BufferedImage>> imageProcessors;
-  private List<ImageManipulation> postprocessingManipulations;
+  private ImageManipulation postprocessing;
   private ImageWriter<Optional<Path>> imageWriter;
   private SoundUtil soundPlayer;
   private NotificationService notificationService;
@@ -56,7 +62,8 @@ public class ScreenPrinter implements Runnable {
    *
    * @param imageProcessors The image processors to call after capturing the screen.
    * @param postprocessingManipulations The postprocessing manipulations to apply to the screen
-   *        capture, after capturing it but before handing it over to the image processors.
+   *        capture, after capturing it but before handing it over to the image processors. Run
+   *        through an {@link ImageManipulationPipeline}.
    * @param imageWriter The image writer to save the screen capture.
    * @param soundPlayer The sound player to play a sound when capturing the screen.
    * @param notificationService The notification service to notify the user of the screen capture
@@ -66,7 +73,7 @@ public class ScreenPrinter implements Runnable {
       List<ImageManipulation> postprocessingManipulations, ImageWriter<Optional<Path>> imageWriter,
       SoundUtil soundPlayer, NotificationService notificationService, SettingRepository settings) {
     this.imageProcessors = imageProcessors;
-    this.postprocessingManipulations = postprocessingManipulations;
+    this.postprocessing = new ImageManipulationPipeline(postprocessingManipulations);
     this.imageWriter = imageWriter;
     this.soundPlayer = soundPlayer;
     this.notificationService = notificationService;
@@ -81,7 +88,8 @@ public class ScreenPrinter implements Runnable {
       var monitor = GraphicsDeviceUtil
           .get(settings.get(Setting.STAR_CITIZEN_MONITOR, GraphicsDeviceUtil.getPrimaryId()));
       var screenRectangle = monitor.getDefaultConfiguration().getBounds();
-      var screenCapture = postProcess(new Robot(monitor).createScreenCapture(screenRectangle));
+      var screenCapture =
+          postprocessing.manipulate(new Robot(monitor).createScreenCapture(screenRectangle));
       logger.debug("Printed screen");
 
       logger.debug("Calling image processors...");
@@ -95,12 +103,32 @@ public class ScreenPrinter implements Runnable {
     }
   }
 
-  private BufferedImage postProcess(BufferedImage screenCapture) {
-    for (var manipulation : postprocessingManipulations) {
-      screenCapture = manipulation.manipulate(screenCapture);
-    }
-
-    return screenCapture;
+  /**
+   * Runs a synthetic capture, the commodity kiosk template at the configured screen's resolution,
+   * through the postprocessing and the image processors, without any side effect: nothing is
+   * played, written nor published. Meant to be called once, in the background, at startup.
+   */
+  public void warmUp() {
+    logger.debug("Warming up...");
+    var monitor = GraphicsDeviceUtil
+        .get(settings.get(Setting.STAR_CITIZEN_MONITOR, GraphicsDeviceUtil.getPrimaryId()));
+    var screenRectangle = monitor.getDefaultConfiguration().getBounds();
+    var syntheticCapture = postprocessing.manipulate(buildSyntheticCapture(screenRectangle));
+    imageProcessors.stream().forEach(n -> n.warmUp(syntheticCapture));
+    logger.debug("Warmed up");
   }
 
+  private static BufferedImage buildSyntheticCapture(Rectangle screenRectangle) {
+    // Robot captures have this type
+    var capture = new BufferedImage(screenRectangle.width, screenRectangle.height,
+        BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = capture.createGraphics();
+    graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+    graphics.drawImage(ImageUtil.readFromResource(SYNTHETIC_CAPTURE), 0, 0, capture.getWidth(),
+        capture.getHeight(), null);
+    graphics.dispose();
+
+    return capture;
+  }
 }
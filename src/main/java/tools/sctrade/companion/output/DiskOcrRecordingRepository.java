@@ -0,0 +1,117 @@
+package tools.sctrade.companion.output;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.sctrade.companion.domain.ocr.LocatedWord;
+import tools.sctrade.companion.domain.ocr.OcrRecording;
+import tools.sctrade.companion.domain.ocr.OcrRecordingRepository;
+import tools.sctrade.companion.domain.setting.Setting;
+import tools.sctrade.companion.domain.setting.SettingRepository;
+import tools.sctrade.companion.utils.JsonUtil;
+import tools.sctrade.companion.utils.PerceptualHash;
+import tools.sctrade.companion.utils.TimeFormat;
+import tools.sctrade.companion.utils.TimeUtil;
+
+/**
+ * Stores OCR recordings on disk, as JSON files next to the screenshots.
+ */
+public class DiskOcrRecordingRepository implements OcrRecordingRepository {
+  private static final String SUFFIX = "_ocr.json";
+
+  private final Logger logger = LoggerFactory.getLogger(DiskOcrRecordingRepository.class);
+
+  private SettingRepository settings;
+
+  /**
+   * Creates a new instance of the disk OCR recording repository.
+   *
+   * @param settings The settings repository.
+   */
+  public DiskOcrRecordingRepository(SettingRepository settings) {
+    this.settings = settings;
+  }
+
+  @Override
+  public void save(OcrRecording recording) {
+    Path path = getDirectory().resolve(TimeUtil.getNowAsString(TimeFormat.IMAGE_FILENAME) + SUFFIX);
+    logger.debug("Writing '{}' to disk...", path);
+
+    try {
+      Files.createDirectories(path.getParent());
+      Files.writeString(path, JsonUtil.toJson(RecordedResult.of(recording)).toString());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public List<OcrRecording> findAll() {
+    var directory = getDirectory();
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+
+    List<OcrRecording> recordings = new ArrayList<>();
+
+    try (var paths = Files.list(directory)) {
+      for (var path : paths.filter(n -> n.getFileName().toString().endsWith(SUFFIX)).toList()) {
+        recordings.add(JsonUtil.parse(Files.readString(path), RecordedResult.class).toRecording());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    logger.info("Loaded {} OCR recordings from '{}'", recordings.size(), directory);
+
+    return recordings;
+  }
+
+  private Path getDirectory() {
+    return Paths.get(settings.get(Setting.MY_IMAGES_PATH).toString());
+  }
+
+  private record RecordedResult(@JsonProperty("ImageHash") String imageHash,
+      @JsonProperty("FrameWidth") Integer frameWidth,
+      @JsonProperty("FrameHeight") Integer frameHeight,
+      @JsonProperty("Words") List<RecordedWord> words) {
+    static RecordedResult of(OcrRecording recording) {
+      var frameSize = recording.getFrameSize();
+
+      return new RecordedResult(recording.getImageHash().toString(),
+          frameSize.map(n -> n.width).orElse(null), frameSize.map(n -> n.height).orElse(null),
+          recording.getWords().stream().map(RecordedWord::of).toList());
+    }
+
+    OcrRecording toRecording() {
+      var frameSize = frameWidth == null || frameHeight == null ? null
+          : new Dimension(frameWidth, frameHeight);
+
+      return new OcrRecording(PerceptualHash.parse(imageHash),
+          words.stream().map(RecordedWord::toLocatedWord).toList(), frameSize);
+    }
+  }
+
+  private record RecordedWord(@JsonProperty("Text") String text, @JsonProperty("X") int x,
+      @JsonProperty("Y") int y, @JsonProperty("Width") int width,
+      @JsonProperty("Height") int height) {
+    static RecordedWord of(LocatedWord word) {
+      var box = word.getBoundingBox();
+
+      return new RecordedWord(word.getText(), box.x, box.y, box.width, box.height);
+    }
+
+    LocatedWord toLocatedWord() {
+      return new LocatedWord(text, new Rectangle(x, y, width, height));
+    }
+  }
+}
@@ -0,0 +1,361 @@
+package tools.sctrade.companion.output;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.sctrade.companion.domain.ocr.LocatedWord;
+import tools.sctrade.companion.domain.ocr.OcrResult;
+import tools.sctrade.companion.domain.ocr.OcrResultCache;
+import tools.sctrade.companion.domain.setting.Setting;
+import tools.sctrade.companion.domain.setting.SettingRepository;
+
+/**
+ * Caches OCR results on disk, in the {@code ocr-cache} folder of the data folder: one compact
+ * binary file per result, named after its key, and an index of them all. Results are evicted
+ * oldest first, once they are too old or once they take too much space.
+ *
+ * <p>
+ * Results are stored as: a magic number, a version, the width and height of the frame they were
+ * read from ({@code -1} if unknown), the number of words, then each word's text, x, y, width and
+ * height. The index is: a magic number, a version, the number of results, then each result's key,
+ * size in bytes and creation time, oldest first. It is rebuilt from the results if missing.
+ * </p>
+ */
+public class DiskOcrResultCache implements OcrResultCache {
+  private static final int RESULT_MAGIC = 0x4F435252; // "OCRR"
+  private static final int INDEX_MAGIC = 0x4F435249; // "OCRI"
+  private static final byte VERSION = 1;
+  private static final String RESULT_EXTENSION = ".ocr";
+  private static final String INDEX_FILE_NAME = "index.bin";
+  private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]+");
+
+  private final Logger logger = LoggerFactory.getLogger(DiskOcrResultCache.class);
+
+  private final Path directory;
+  private final long maxBytes;
+  private final Duration maxAge;
+  private final Clock clock;
+  private final Map<String, IndexEntry> index = new LinkedHashMap<>(); // Oldest first
+  private long totalBytes;
+  private boolean isLoaded;
+
+  /**
+   * Creates a new instance of the disk OCR result cache.
+   *
+   * @param settings The settings repository.
+   * @param maxBytes The maximum size of the cached results, in bytes.
+   * @param maxAge How long results are kept.
+   */
+  public DiskOcrResultCache(SettingRepository settings, long maxBytes, Duration maxAge) {
+    this(Paths.get(settings.get(Setting.MY_DATA_PATH).toString(), "ocr-cache"), maxBytes, maxAge,
+        Clock.systemUTC());
+  }
+
+  /**
+   * Creates a new instance of the disk OCR result cache.
+   *
+   * @param directory The folder holding the cached results.
+   * @param maxBytes The maximum size of the cached results, in bytes.
+   * @param maxAge How long results are kept.
+   * @param clock The clock results age by.
+   */
+  public DiskOcrResultCache(Path directory, long maxBytes, Duration maxAge, Clock clock) {
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.maxAge = maxAge;
+    this.clock = clock;
+  }
+
+  @Override
+  public Optional<OcrResult> get(String key) {
+    synchronized (this) {
+      load();
+
+      if (!index.containsKey(key)) {
+        return Optional.empty();
+      }
+    }
+
+    // Read outside of the lock, so that results can be read concurrently
+    try {
+      return Optional.of(readResult(getResultPath(key)));
+    } catch (IOException e) {
+      if (!(e instanceof NoSuchFileException)) {
+        logger.warn("Evicting unreadable cached OCR result {}", key, e);
+      }
+
+      evict(key);
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public void put(String key, OcrResult result) {
+    var path = getResultPath(key);
+
+    try {
+      Files.createDirectories(directory);
+      var temporaryPath = Files.createTempFile(directory, key, ".tmp");
+
+      try {
+        writeResult(temporaryPath, result);
+        long size = Files.size(temporaryPath);
+
+        synchronized (this) {
+          load();
+          Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+          remove(key);
+          index.put(key, new IndexEntry(size, clock.instant()));
+          totalBytes += size;
+          evictOldEntries();
+          writeIndex();
+        }
+      } finally {
+        deleteIfNotMoved(temporaryPath);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public synchronized Collection<String> getKeys() {
+    load();
+
+    return List.copyOf(index.keySet());
+  }
+
+  private synchronized void evict(String key) {
+    remove(key);
+
+    try {
+      Files.deleteIfExists(getResultPath(key));
+      writeIndex();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void load() {
+    if (isLoaded) {
+      return;
+    }
+
+    isLoaded = true;
+    var indexPath = directory.resolve(INDEX_FILE_NAME);
+
+    try {
+      if (Files.exists(indexPath)) {
+        readIndex(indexPath);
+      } else if (Files.isDirectory(directory)) {
+        rebuildIndex();
+      } else {
+        return;
+      }
+
+      logger.info("Loaded {} cached OCR results, {} bytes, from '{}'", index.size(), totalBytes,
+          directory);
+
+      if (evictOldEntries()) {
+        writeIndex();
+      }
+    } catch (IOException e) {
+      logger.warn("Could not load the index of the OCR result cache, rebuilding it", e);
+      index.clear();
+      totalBytes = 0;
+
+      try {
+        rebuildIndex();
+        writeIndex();
+      } catch (IOException rebuildException) {
+        throw new UncheckedIOException(rebuildException);
+      }
+    }
+  }
+
+  private boolean evictOldEntries() throws IOException {
+    var oldestAllowed = clock.instant().minus(maxAge);
+    var iterator = index.entrySet().iterator();
+    boolean isEvicted = false;
+
+    while (iterator.hasNext()) {
+      var entry = iterator.next();
+
+      if (totalBytes <= maxBytes && !entry.getValue().createdAt().isBefore(oldestAllowed)) {
+        break;
+      }
+
+      iterator.remove();
+      totalBytes -= entry.getValue().size();
+      Files.deleteIfExists(getResultPath(entry.getKey()));
+      isEvicted = true;
+    }
+
+    return isEvicted;
+  }
+
+  private void remove(String key) {
+    var entry = index.remove(key);
+
+    if (entry != null) {
+      totalBytes -= entry.size();
+    }
+  }
+
+  private Path getResultPath(String key) {
+    if (!KEY_PATTERN.matcher(key).matches()) {
+      throw new IllegalArgumentException("Not a hexadecimal key: " + key);
+    }
+
+    return directory.resolve(key + RESULT_EXTENSION);
+  }
+
+  private void readIndex(Path indexPath) throws IOException {
+    try (var input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+      readHeader(input, INDEX_MAGIC);
+      int count = input.readInt();
+
+      for (int i = 0; i < count; i++) {
+        var key = input.readUTF();
+        var entry = new IndexEntry(input.readLong(), Instant.ofEpochMilli(input.readLong()));
+        index.put(key, entry);
+        totalBytes += entry.size();
+      }
+    }
+  }
+
+  private void rebuildIndex() throws IOException {
+    List<Map.Entry<String, IndexEntry>> entries = new ArrayList<>();
+
+    try (var paths = Files.list(directory)) {
+      for (var path : paths.filter(n -> n.getFileName().toString().endsWith(RESULT_EXTENSION))
+          .toList()) {
+        var fileName = path.getFileName().toString();
+        var key = fileName.substring(0, fileName.length() - RESULT_EXTENSION.length());
+        entries.add(Map.entry(key, new IndexEntry(Files.size(path),
+            Files.getLastModifiedTime(path).toInstant())));
+      }
+    }
+
+    entries.sort(Comparator.comparing(n -> n.getValue().createdAt()));
+
+    for (var entry : entries) {
+      index.put(entry.getKey(), entry.getValue());
+      totalBytes += entry.getValue().size();
+    }
+  }
+
+  private void writeIndex() throws IOException {
+    Files.createDirectories(directory);
+    var temporaryPath = Files.createTempFile(directory, "index", ".tmp");
+
+    try {
+      try (var output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+        output.writeInt(INDEX_MAGIC);
+        output.writeByte(VERSION);
+        output.writeInt(index.size());
+
+        for (var entry : index.entrySet()) {
+          output.writeUTF(entry.getKey());
+          output.writeLong(entry.getValue().size());
+          output.writeLong(entry.getValue().createdAt().toEpochMilli());
+        }
+      }
+
+      Files.move(temporaryPath, directory.resolve(INDEX_FILE_NAME),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      deleteIfNotMoved(temporaryPath);
+    }
+  }
+
+  /**
+   * Deletes a temporary file left behind by a failed write or move, without hiding the failure.
+   */
+  private void deleteIfNotMoved(Path temporaryPath) {
+    try {
+      Files.deleteIfExists(temporaryPath);
+    } catch (IOException e) {
+      logger.warn("Could not delete temporary file '{}'", temporaryPath, e);
+    }
+  }
+
+  private static void writeResult(Path path, OcrResult result) throws IOException {
+    var words = result.getWords();
+    var frameSize = result.getFrameSize();
+
+    try (var output =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+      output.writeInt(RESULT_MAGIC);
+      output.writeByte(VERSION);
+      output.writeInt(frameSize.map(n -> n.width).orElse(-1));
+      output.writeInt(frameSize.map(n -> n.height).orElse(-1));
+      output.writeInt(words.size());
+
+      for (var word : words) {
+        var boundingBox = word.getBoundingBox();
+        output.writeUTF(word.getText());
+        output.writeInt(boundingBox.x);
+        output.writeInt(boundingBox.y);
+        output.writeInt(boundingBox.width);
+        output.writeInt(boundingBox.height);
+      }
+    }
+  }
+
+  private static OcrResult readResult(Path path) throws IOException {
+    try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      readHeader(input, RESULT_MAGIC);
+      int frameWidth = input.readInt();
+      int frameHeight = input.readInt();
+      int count = input.readInt();
+      List<LocatedWord> words = new ArrayList<>(count);
+
+      for (int i = 0; i < count; i++) {
+        var text = input.readUTF();
+        words.add(new LocatedWord(text,
+            new Rectangle(input.readInt(), input.readInt(), input.readInt(), input.readInt())));
+      }
+
+      var frameSize = frameWidth < 0 || frameHeight < 0 ? null
+          : new Dimension(frameWidth, frameHeight);
+
+      return new OcrResult(words, frameSize);
+    }
+  }
+
+  private static void readHeader(DataInputStream input, int magic) throws IOException {
+    if (input.readInt() != magic || input.readByte() != VERSION) {
+      throw new IOException("Not a supported OCR result cache file");
+    }
+  }
+
+  private record IndexEntry(long size, Instant createdAt) {
+  }
+}
@@ -27,17 +27,35 @@ public class CommodityCsvWriter extends AsynchronousProcessor<CommoditySubmissio
   private final Logger logger = LoggerFactory.getLogger(CommodityCsvWriter.class);
 
   private Path folder;
+  private TimeFormat fileNameFormat;
+  private String fileNameSuffix;
 
   /**
-   * Creates a new instance of the commodity CSV writer.
+   * Creates a new instance of the commodity CSV writer, writing to a file per month.
    *
    * @param settings The settings repository.
    * @param notificationService The notification service.
    */
   public CommodityCsvWriter(SettingRepository settings, NotificationService notificationService) {
+    this(settings, notificationService, TimeFormat.CSV_FILENAME, "_commodity-listings.csv");
+  }
+
+  /**
+   * Creates a new instance of the commodity CSV writer.
+   *
+   * @param settings The settings repository.
+   * @param notificationService The notification service.
+   * @param fileNameFormat Formats the time of writing into the start of the file name. Listings
+   *        written at times formatted the same are appended to the same file.
+   * @param fileNameSuffix The end of the file name.
+   */
+  public CommodityCsvWriter(SettingRepository settings, NotificationService notificationService,
+      TimeFormat fileNameFormat, String fileNameSuffix) {
     super(notificationService);
 
     folder = settings.get(Setting.MY_DATA_PATH);
+    this.fileNameFormat = fileNameFormat;
+    this.fileNameSuffix = fileNameSuffix;
     logger.info("CSV output path: {}", folder);
   }
 
@@ -63,7 +81,7 @@ public class CommodityCsvWriter extends AsynchronousProcessor<CommoditySubmissio
   }
 
   private Path buildFilePath() {
-    String fileName = TimeUtil.getNowAsString(TimeFormat.CSV_FILENAME) + "_commodity-listings.csv";
+    String fileName = TimeUtil.getNowAsString(fileNameFormat) + fileNameSuffix;
 
     return Paths.get(folder.toString(), fileName);
   }
@@ -1,10 +1,13 @@
 package tools.sctrade.companion.spring;
 
+import jakarta.annotation.PostConstruct;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import org.apache.commons.io.input.TailerListener;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,10 +17,12 @@ import org.springframework.boot.info.BuildProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.reactive.function.client.WebClient;
 import tools.sctrade.companion.domain.LocationRepository;
 import tools.sctrade.companion.domain.commodity.CommodityListingFactory;
 import tools.sctrade.companion.domain.commodity.CommodityLocationReader;
+import tools.sctrade.companion.domain.commodity.CommodityReprocessor;
 import tools.sctrade.companion.domain.commodity.CommodityRepository;
 import tools.sctrade.companion.domain.commodity.CommodityService;
 import tools.sctrade.companion.domain.commodity.CommoditySubmissionFactory;
@@ -31,8 +36,13 @@ import tools.sctrade.companion.domain.image.manipulations.AlignToTemplate;
 import tools.sctrade.companion.domain.image.manipulations.UpscaleTo4k;
 import tools.sctrade.companion.domain.notification.NotificationRepository;
 import tools.sctrade.companion.domain.notification.NotificationService;
+import tools.sctrade.companion.domain.ocr.CachingOcr;
 import tools.sctrade.companion.domain.ocr.Ocr;
+import tools.sctrade.companion.domain.ocr.OcrBackend;
 import tools.sctrade.companion.domain.ocr.OneOcr;
+import tools.sctrade.companion.domain.ocr.RecordingOcr;
+import tools.sctrade.companion.domain.ocr.ReplayOcr;
+import tools.sctrade.companion.domain.ocr.TiledOcr;
 import tools.sctrade.companion.domain.setting.Setting;
 import tools.sctrade.companion.domain.setting.SettingRepository;
 import tools.sctrade.companion.domain.user.UserIdGenerator;
@@ -47,9 +57,17 @@ import tools.sctrade.companion.input.KeyListener;
 import tools.sctrade.companion.input.LineListener;
 import tools.sctrade.companion.input.ScreenPrinter;
 import tools.sctrade.companion.output.DiskImageWriter;
+import tools.sctrade.companion.output.DiskOcrRecordingRepository;
+import tools.sctrade.companion.output.DiskOcrResultCache;
 import tools.sctrade.companion.output.commodity.CommodityCsvWriter;
 import tools.sctrade.companion.output.commodity.ScTradeToolsClient;
+import tools.sctrade.companion.utils.AlignmentReference;
+import tools.sctrade.companion.utils.MatScope;
+import tools.sctrade.companion.utils.NativeRuntimeBootstrap;
+import tools.sctrade.companion.utils.PerceptualHashCache;
+import tools.sctrade.companion.utils.ScalingQuality;
 import tools.sctrade.companion.utils.SoundUtil;
+import tools.sctrade.companion.utils.TimeFormat;
 
 @Configuration
 @EnableCaching
@@ -61,6 +79,42 @@ public class AppConfig {
   private String outputScreenshots;
   @Value("${output.intermediary-images:false}")
   private String outputIntermediaryImages;
+  @Value("${ocr.native-resolution:false}")
+  private String ocrNativeResolution;
+  @Value("${ocr.pipelines:2}")
+  private int ocrPipelines;
+  // FFM needs the JVM options --enable-preview and --enable-native-access=ALL-UNNAMED
+  @Value("${ocr.binding:JNA}")
+  private String ocrBinding;
+  @Value("${ocr.tiles:1}")
+  private int ocrTiles;
+  @Value("${ocr.backend:ONE_OCR}")
+  private String ocrBackend;
+  @Value("${ocr.record:false}")
+  private String ocrRecord;
+  @Value("${ocr.replay-latency:0ms}")
+  private Duration ocrReplayLatency;
+  @Value("${ocr.replay-max-distance:0.0}")
+  private double ocrReplayMaxDistance;
+  @Value("${ocr.cache:false}")
+  private String ocrCache;
+  @Value("${ocr.cache-max-size:512MB}")
+  private DataSize ocrCacheMaxSize;
+  @Value("${ocr.cache-max-age:90d}")
+  private Duration ocrCacheMaxAge;
+  @Value("${ocr.upscale-quality:ULTRA_QUALITY}")
+  private String ocrUpscaleQuality;
+  @Value("${capture.duplicate-time-to-live:60s}")
+  private Duration captureDuplicateTimeToLive;
+  @Value("${capture.duplicate-max-distance:0.0}")
+  private double captureDuplicateMaxDistance;
+  @Value("${debug.mat-leak-detection:false}")
+  private String debugMatLeakDetection;
+
+  @PostConstruct
+  public void configureNativeMemory() {
+    MatScope.setLeakDetectionEnabled(Boolean.parseBoolean(debugMatLeakDetection));
+  }
 
   @Bean("SettingRepository")
   public SettingRepository buildSettingRepository() {
@@ -147,6 +201,12 @@ public class AppConfig {
 
   }
 
+  @Bean("DiskOcrRecordingRepository")
+  public DiskOcrRecordingRepository buildDiskOcrRecordingRepository(
+      SettingRepository settingRepository) {
+    return new DiskOcrRecordingRepository(settingRepository);
+  }
+
   @Bean("CommodityLocationReader")
   public CommodityLocationReader buildCommodityLocationReader(
       LocationRepository locationRepository) {
@@ -159,16 +219,75 @@ public class AppConfig {
     return new CommodityListingFactory(commodityRepository);
   }
 
+  @Bean("DiskOcrResultCache")
+  public DiskOcrResultCache buildDiskOcrResultCache(SettingRepository settingRepository) {
+    return new DiskOcrResultCache(settingRepository, ocrCacheMaxSize.toBytes(), ocrCacheMaxAge);
+  }
+
+  // Closed by Spring on shutdown, whatever the backend, releasing native pipelines and threads
+  @Bean("Ocr")
+  public Ocr buildOcr(DiskOcrRecordingRepository ocrRecordingRepository,
+      DiskOcrResultCache ocrResultCache) {
+    var resolution = Boolean.parseBoolean(ocrNativeResolution)
+        ? AlignmentReference.Resolution.NATIVE
+        : AlignmentReference.Resolution.REFERENCE;
+    List<ImageManipulation> preprocessingManipulations =
+        List.of(new AlignToTemplate(resolution));
+
+    var backend = OcrBackend.valueOf(ocrBackend);
+    Ocr ocr = switch (backend) {
+      case ONE_OCR -> new OneOcr(preprocessingManipulations, ocrPipelines,
+          OneOcr.Binding.valueOf(ocrBinding));
+      case REPLAY -> new ReplayOcr(preprocessingManipulations, ocrRecordingRepository.findAll(),
+          ocrReplayMaxDistance, ocrReplayLatency);
+    };
+
+    if (Boolean.parseBoolean(ocrRecord)) {
+      ocr = new RecordingOcr(ocr, ocrRecordingRepository);
+    }
+
+    // More tiles than pipelines would only queue for them
+    if (ocrTiles < 1 || (backend == OcrBackend.ONE_OCR && ocrTiles > ocrPipelines)) {
+      throw new IllegalArgumentException(String.format(Locale.ROOT,
+          "ocr.tiles must be between 1 and ocr.pipelines (%d): %d", ocrPipelines, ocrTiles));
+    }
+
+    // Tiles are recorded, and replayed, one by one
+    if (ocrTiles > 1) {
+      ocr = new TiledOcr(ocr, ocrTiles);
+    }
+
+    if (Boolean.parseBoolean(ocrCache)) {
+      var configuration = String.format(Locale.ROOT, "%s;resolution=%s;tiles=%d", ocrBackend,
+          resolution, ocrTiles);
+      ocr = new CachingOcr(ocr, ocrResultCache, configuration);
+    }
+
+    return ocr;
+  }
+
   @Bean("CommoditySubmissionFactory")
   public CommoditySubmissionFactory buildCommoditySubmissionFactory(UserService userService,
       NotificationService notificationService, CommodityLocationReader commodityLocationReader,
-      CommodityListingFactory commodityListingFactory, DiskImageWriter diskImageWriter) {
-    Ocr ocr = new OneOcr(List.of(new AlignToTemplate()), diskImageWriter);
-
+      CommodityListingFactory commodityListingFactory, @Qualifier("Ocr") Ocr ocr) {
     return new CommoditySubmissionFactory(userService, notificationService, commodityLocationReader,
         commodityListingFactory, ocr);
   }
 
+  @Bean("CommodityReprocessor")
+  public CommodityReprocessor buildCommodityReprocessor(
+      CommoditySubmissionFactory commoditySubmissionFactory, DiskOcrResultCache ocrResultCache) {
+    return new CommodityReprocessor(commoditySubmissionFactory, ocrResultCache,
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  @Bean("ReprocessedCommodityCsvWriter")
+  public CommodityCsvWriter buildReprocessedCommodityCsvWriter(
+      SettingRepository settingRepository, NotificationService notificationService) {
+    return new CommodityCsvWriter(settingRepository, notificationService,
+        TimeFormat.IMAGE_FILENAME, "_reprocessed-commodity-listings.csv");
+  }
+
   @Bean("CommodityService")
   public CommodityService buildCommodityService(
       CommoditySubmissionFactory commoditySubmissionFactory,
@@ -176,7 +295,9 @@ public class AppConfig {
       @Qualifier("ScTradeToolsClient") ScTradeToolsClient scTradeToolsClient,
       NotificationService notificationService) {
     return new CommodityService(commoditySubmissionFactory,
-        Arrays.asList(commodityCsvLogger, scTradeToolsClient), notificationService);
+        Arrays.asList(commodityCsvLogger, scTradeToolsClient),
+        new PerceptualHashCache<>(captureDuplicateTimeToLive, captureDuplicateMaxDistance),
+        notificationService);
   }
 
   @Bean
@@ -190,7 +311,10 @@ public class AppConfig {
       ImageWriter<Optional<Path>> imageWriter, SoundUtil soundPlayer,
       NotificationService notificationService, SettingRepository settings) {
     List<ImageManipulation> postprocessingManipulations = new ArrayList<>();
-    postprocessingManipulations.add(new UpscaleTo4k());
+
+    if (!Boolean.parseBoolean(ocrNativeResolution)) {
+      postprocessingManipulations.add(new UpscaleTo4k(ScalingQuality.valueOf(ocrUpscaleQuality)));
+    }
 
     return new ScreenPrinter(Arrays.asList(commodityService), postprocessingManipulations,
         imageWriter, soundPlayer, notificationService, settings);
@@ -202,6 +326,12 @@ public class AppConfig {
     return new KeyListener(Arrays.asList(screenPrinter), settingRepository);
   }
 
+  @Bean("NativeRuntimeBootstrap")
+  public NativeRuntimeBootstrap buildNativeRuntimeBootstrap(
+      @Qualifier("ScreenPrinter") ScreenPrinter screenPrinter) {
+    return new NativeRuntimeBootstrap(List.of(screenPrinter::warmUp));
+  }
+
   private String getVersion() {
     return buildProperties == null ? "TEST" : buildProperties.getVersion();
   }
@@ -0,0 +1,1054 @@
+package tools.sctrade.companion.utils;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.opencv.calib3d.Calib3d;
+import org.opencv.core.Core;
+import org.opencv.core.Core.MinMaxLocResult;
+import org.opencv.core.CvType;
+import org.opencv.core.DMatch;
+import org.opencv.core.KeyPoint;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDMatch;
+import org.opencv.core.MatOfKeyPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.features2d.DescriptorMatcher;
+import org.opencv.features2d.ORB;
+import org.opencv.imgproc.Imgproc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.sctrade.companion.exceptions.ImageProcessingException;
+
+/**
+ * Reference image that other images can be aligned to, using homography transformation. Alignment
+ * relies on ORB features detected on the blue channel. The features of the reference are detected
+ * once, when it is created, so aligning an image only requires detecting the features of that
+ * image.
+ *
+ * <p>
+ * In {@link Mode#COARSE_TO_FINE} mode, the homography is estimated from features detected on a
+ * downscaled copy of both images, then refined with a few full resolution correspondences, found by
+ * matching small patches of the reference around the coarse inliers. The image is only warped once,
+ * at full resolution. Alignments are validated with the matches they were estimated from. In
+ * {@link Mode#FULL_RESOLUTION} mode, they are validated by scoring the aligned image instead, see
+ * {@link #calculateSimilarity(Mat)}.
+ * </p>
+ *
+ * <p>
+ * Black parts of the reference are considered masked out: features are only detected in its
+ * content, i.e. the bounding box of its non-black pixels. In images to align, features are only
+ * detected in the same region, widened by a margin to account for camera movement. Parts of the
+ * screen that can't match the reference (e.g. HUD, chat) are thereby ignored.
+ * </p>
+ *
+ * <p>
+ * In {@link Resolution#NATIVE} resolution, images are warped into the reference's frame scaled to
+ * their own height, rather than into the reference's frame itself. A 1080p image thus stays 1080p
+ * instead of being resampled to the resolution of the reference.
+ * </p>
+ *
+ * <p>
+ * Consecutive images are often captured from the same camera pose (e.g. while scrolling a kiosk).
+ * After each successful alignment, small patches of the image are kept around the points that
+ * supported the homography. If those patches are unchanged in the next image, the pose is
+ * considered unchanged, and the previous homography is reused instead of being recomputed.
+ * </p>
+ *
+ * <p>
+ * Must be closed to release the native memory holding the reference's features.
+ * </p>
+ */
+public class AlignmentReference implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(AlignmentReference.class);
+
+  private static final int MAX_FEATURES = 500;
+  private static final double GOOD_MATCHES_RATIO = 0.1;
+  private static final int MIN_MATCHES = 4; // Minimum 4 matches required for homography
+  private static final float MAX_GOOD_MATCH_DISTANCE = 50.0f;
+  private static final double RANSAC_REPROJECTION_THRESHOLD = 3.0;
+  private static final double CONSISTENT_MATCHES_WEIGHT = 2.0;
+  private static final int POSE_PATCH_SIZE = 16;
+  private static final int MIN_POSE_PATCHES = 8;
+  private static final double MAX_POSE_PATCH_DIFFERENCE = 8.0;
+  private static final double MIN_UNCHANGED_POSE_PATCHES_RATIO = 0.5;
+  private static final int COARSE_HEIGHT = 540;
+  private static final int REFINEMENT_PATCH_SIZE = 32;
+  private static final int REFINEMENT_SEARCH_RADIUS = 8;
+  private static final int MAX_REFINEMENT_PATCHES = 32;
+  private static final int MIN_REFINEMENT_PATCHES = 8;
+  private static final double MIN_REFINEMENT_PATCH_SCORE = 0.8;
+  private static final double REFINEMENT_REPROJECTION_THRESHOLD = 1.5;
+  private static final double MAX_MASKED_OUT_INTENSITY = 8;
+  private static final double SEARCH_MARGIN_RATIO = 0.15;
+
+  /**
+   * How the homography between an image and the reference is estimated.
+   */
+  public enum Mode {
+    /**
+     * Features are detected and matched on the full resolution images.
+     */
+    FULL_RESOLUTION,
+    /**
+     * Features are detected and matched on downscaled images, then the resulting homography is
+     * refined on a few full resolution patches.
+     */
+    COARSE_TO_FINE
+  }
+
+  /**
+   * Resolution of aligned images.
+   */
+  public enum Resolution {
+    /**
+     * Aligned images have the resolution of the reference.
+     */
+    REFERENCE,
+    /**
+     * Aligned images have the height of the image they were aligned from, and the aspect ratio of
+     * the reference.
+     */
+    NATIVE
+  }
+
+  private final Mode mode;
+  private final Resolution resolution;
+  private final Size size;
+  private final Mat blue;
+  private final Rect content;
+  private final Features features;
+  private final Features coarseFeatures;
+  private final DescriptorMatcher matcher;
+  private Pose lastPose;
+  private final Map<Size, Features> scaledFeatures = new HashMap<>();
+
+  private AlignmentReference(Mat reference, Mode mode, Resolution resolution) {
+    this.mode = mode;
+    this.resolution = resolution;
+    this.size = reference.size();
+    this.blue = extractBlueChannel(reference);
+    this.content = findContent(blue);
+    this.features = Features.detect(blue, getContentRegion());
+    Mat coarseBlue = downscale(blue);
+
+    try {
+      this.coarseFeatures =
+          Features.detect(coarseBlue, toPixels(content, coarseBlue.size(), 0));
+    } finally {
+      coarseBlue.release();
+    }
+    this.matcher = DescriptorMatcher.create(DescriptorMatcher.BRUTEFORCE_HAMMING);
+  }
+
+  /**
+   * Creates a reference out of an image, detecting its features. Images are aligned to it in
+   * {@link Mode#FULL_RESOLUTION} mode.
+   *
+   * @param image The reference image. Untouched.
+   * @return The alignment reference.
+   */
+  public static AlignmentReference of(BufferedImage image) {
+    return of(image, Mode.FULL_RESOLUTION);
+  }
+
+  /**
+   * Creates a reference out of an image, detecting its features. Aligned images have the resolution
+   * of the reference.
+   *
+   * @param image The reference image. Untouched.
+   * @param mode How images are aligned to the reference.
+   * @return The alignment reference.
+   */
+  public static AlignmentReference of(BufferedImage image, Mode mode) {
+    return of(image, mode, Resolution.REFERENCE);
+  }
+
+  /**
+   * Creates a reference out of an image, detecting its features.
+   *
+   * @param image The reference image. Untouched.
+   * @param mode How images are aligned to the reference.
+   * @param resolution The resolution of aligned images.
+   * @return The alignment reference.
+   */
+  public static AlignmentReference of(BufferedImage image, Mode mode, Resolution resolution) {
+    NativeRuntime.load();
+    Mat mat = ImageUtil.toMat(image);
+
+    try {
+      return new AlignmentReference(mat, mode, resolution);
+    } finally {
+      mat.release();
+    }
+  }
+
+  /**
+   * Aligns a mat to this reference using homography transformation with validation. See
+   * {@link ImageUtil#alignToReferenceWithValidation(BufferedImage, BufferedImage, double)}.
+   *
+   * @param imgMat The mat to be aligned. Untouched.
+   * @param minSimilarityThreshold Minimum similarity score (0.0 to 1.0) required for the alignment
+   *        to be considered valid. Use 0.0 to skip validation.
+   * @return The aligned mat, owned by the caller, or empty if the alignment quality is below the
+   *         threshold.
+   * @throws ImageProcessingException if the alignment fails.
+   */
+  Optional<Mat> align(Mat imgMat, double minSimilarityThreshold) {
+    return align(imgMat, minSimilarityThreshold, true);
+  }
+
+  /**
+   * Aligns a mat to this reference, see {@link #align(Mat, double)}.
+   *
+   * @param imgMat The mat to be aligned. Untouched.
+   * @param minSimilarityThreshold Minimum similarity score (0.0 to 1.0) required for the alignment
+   *        to be considered valid. Use 0.0 to skip validation.
+   * @param rememberPose Whether the pose of the mat is remembered, so that its homography is reused
+   *        for the next mats captured from the same pose. Never for synthetic mats.
+   * @return The aligned mat, owned by the caller, or empty if the alignment quality is below the
+   *         threshold.
+   * @throws ImageProcessingException if the alignment fails.
+   */
+  Optional<Mat> align(Mat imgMat, double minSimilarityThreshold, boolean rememberPose) {
+    Mat imgBlue = extractBlueChannel(imgMat);
+
+    try {
+      var aligned = alignWithLastPose(imgMat, imgBlue);
+
+      if (aligned.isPresent()) {
+        logger.debug("Camera pose unchanged, reused the previous homography");
+        return aligned;
+      }
+
+      return align(imgMat, imgBlue, minSimilarityThreshold, rememberPose);
+    } finally {
+      imgBlue.release();
+    }
+  }
+
+  private synchronized Optional<Mat> alignWithLastPose(Mat imgMat, Mat imgBlue) {
+    if (lastPose == null || !lastPose.isUnchangedIn(imgBlue)) {
+      return Optional.empty();
+    }
+
+    return Optional.of(warp(imgMat, lastPose.homography()));
+  }
+
+  private Optional<Mat> align(Mat imgMat, Mat imgBlue, double minSimilarityThreshold,
+      boolean rememberPose) {
+    Estimate estimate = estimate(imgBlue);
+    Mat aligned = null;
+
+    try {
+      // Validate alignment quality if threshold is specified, before paying for the warp
+      if (minSimilarityThreshold > 0.0 && mode == Mode.COARSE_TO_FINE
+          && !isSimilarEnough(estimate.similarity(), minSimilarityThreshold)) {
+        return Optional.empty(); // Keep the original image if alignment is poor
+      }
+
+      aligned = warp(imgMat, estimate.homography());
+
+      // Full resolution matches don't tell good alignments from bad ones: score the aligned image
+      if (minSimilarityThreshold > 0.0 && mode == Mode.FULL_RESOLUTION
+          && !isSimilarEnough(calculateSimilarity(aligned), minSimilarityThreshold)) {
+        return Optional.empty();
+      }
+
+      if (rememberPose) {
+        setLastPose(Pose.of(imgBlue, estimate.homography(), estimate.imagePoints()));
+        estimate = null; // Ownership of the homography is transferred to the pose
+      }
+
+      Mat result = aligned;
+      aligned = null; // Ownership is transferred to the caller
+
+      return Optional.of(result);
+    } finally {
+      if (estimate != null) {
+        estimate.homography().release();
+      }
+      if (aligned != null) {
+        aligned.release();
+      }
+    }
+  }
+
+  /**
+   * Warps a mat into the frame of this reference, at the resolution of aligned images.
+   *
+   * @param imgMat The mat to warp. Untouched.
+   * @param homography The homography mapping the mat onto this reference.
+   * @return The warped mat, owned by the caller.
+   */
+  private Mat warp(Mat imgMat, Mat homography) {
+    Size alignedSize = getAlignedSize(imgMat.size());
+    Mat aligned = new Mat();
+
+    if (alignedSize.equals(size)) {
+      Imgproc.warpPerspective(imgMat, aligned, homography, size);
+      return aligned;
+    }
+
+    Mat scaled = toMat(
+        multiply(invertScaling(toFullResolution(alignedSize, size)), toArray(homography)));
+
+    try {
+      Imgproc.warpPerspective(imgMat, aligned, scaled, alignedSize);
+    } finally {
+      scaled.release();
+    }
+
+    return aligned;
+  }
+
+  /**
+   * Computes the size of an image once aligned to this reference.
+   *
+   * @param imageSize The size of the image before alignment.
+   * @return The size of the aligned image.
+   */
+  Size getAlignedSize(Size imageSize) {
+    if (resolution == Resolution.REFERENCE || imageSize.height == size.height) {
+      return size;
+    }
+
+    return new Size(Math.round(size.width * imageSize.height / size.height), imageSize.height);
+  }
+
+  /**
+   * Estimates the homography mapping a mat onto this reference, without warping the mat.
+   *
+   * @param imgMat The mat to be aligned. Untouched.
+   * @return The 3x3 homography matrix, owned by the caller.
+   * @throws ImageProcessingException if the homography cannot be estimated.
+   */
+  Mat findHomography(Mat imgMat) {
+    Mat imgBlue = extractBlueChannel(imgMat);
+
+    try {
+      return estimate(imgBlue).homography();
+    } finally {
+      imgBlue.release();
+    }
+  }
+
+  /**
+   * Gets the region of the reference its features are detected in: the bounding box of its
+   * non-black pixels.
+   *
+   * @return The region, in the reference's pixels.
+   */
+  Rect getContentRegion() {
+    return toPixels(content, size, 0);
+  }
+
+  /**
+   * Gets the region of an image to align its features are detected in: the content of the
+   * reference scaled to the image, widened by a margin to account for camera movement.
+   *
+   * @param imageSize The size of the image to align.
+   * @return The region, in the image's pixels.
+   */
+  Rect getSearchRegion(Size imageSize) {
+    return toPixels(content, imageSize, SEARCH_MARGIN_RATIO);
+  }
+
+  /**
+   * Gets the keypoints of the reference's features, at full resolution.
+   *
+   * @return The keypoints, in the reference's pixels.
+   */
+  List<KeyPoint> getKeypoints() {
+    return features.keypoints();
+  }
+
+  /**
+   * Detects the keypoints of an image to align, the way they are detected when aligning it at full
+   * resolution.
+   *
+   * @param imgMat The image. Untouched.
+   * @return The keypoints, in the image's pixels.
+   */
+  List<KeyPoint> detectKeypoints(Mat imgMat) {
+    Mat imgBlue = extractBlueChannel(imgMat);
+
+    try (var imgFeatures = Features.detect(imgBlue, getSearchRegion(imgBlue.size()))) {
+      return imgFeatures.keypoints();
+    } finally {
+      imgBlue.release();
+    }
+  }
+
+  private Estimate estimate(Mat imgBlue) {
+    if (mode == Mode.FULL_RESOLUTION) {
+      return estimate(features, imgBlue);
+    }
+
+    Mat coarseImgBlue = downscale(imgBlue);
+    Estimate coarse;
+
+    try {
+      coarse = estimate(coarseFeatures, coarseImgBlue).upscale(
+          toFullResolution(coarseImgBlue.size(), imgBlue.size()),
+          toFullResolution(coarseSize(size), size));
+    } finally {
+      coarseImgBlue.release();
+    }
+
+    try {
+      return refine(imgBlue, coarse);
+    } finally {
+      coarse.homography().release();
+    }
+  }
+
+  private Estimate estimate(Features referenceFeatures, Mat imgBlue) {
+    Features imgFeatures = null;
+    MatOfDMatch matches = null;
+    MatOfPoint2f matPoints1 = null;
+    MatOfPoint2f matPoints2 = null;
+    Mat inliersMask = null;
+    Mat homography = null;
+
+    try {
+      imgFeatures = Features.detect(imgBlue, getSearchRegion(imgBlue.size()));
+
+      if (imgFeatures.isEmpty()) {
+        throw new ImageProcessingException(
+            new IllegalArgumentException("No features found in the image to align"));
+      }
+
+      // Match features
+      matches = new MatOfDMatch();
+      matcher.match(referenceFeatures.descriptors(), imgFeatures.descriptors(), matches);
+
+      // Sort and filter matches - keep best 10%
+      List<DMatch> allMatches = matches.toList();
+      allMatches.sort((a, b) -> Float.compare(a.distance, b.distance));
+      int numGoodMatches = (int) (allMatches.size() * GOOD_MATCHES_RATIO);
+      numGoodMatches = Math.max(numGoodMatches, MIN_MATCHES);
+      List<DMatch> matchList = allMatches.subList(0, Math.min(numGoodMatches, allMatches.size()));
+
+      if (matchList.size() < MIN_MATCHES) {
+        throw new ImageProcessingException(
+            new IllegalArgumentException("Insufficient matches found for homography computation"));
+      }
+
+      // Extract matched points
+      List<KeyPoint> imgKeypoints = imgFeatures.keypoints();
+      List<Point> points1 = new ArrayList<>();
+      List<Point> points2 = new ArrayList<>();
+      for (DMatch match : matchList) {
+        points1.add(referenceFeatures.keypoints().get(match.queryIdx).pt);
+        points2.add(imgKeypoints.get(match.trainIdx).pt);
+      }
+
+      matPoints1 = new MatOfPoint2f();
+      matPoints2 = new MatOfPoint2f();
+      matPoints1.fromList(points1);
+      matPoints2.fromList(points2);
+
+      // Find homography
+      inliersMask = new Mat();
+      homography = Calib3d.findHomography(matPoints2, matPoints1, Calib3d.RANSAC,
+          RANSAC_REPROJECTION_THRESHOLD, inliersMask);
+
+      if (homography.empty()) {
+        throw new ImageProcessingException(
+            new IllegalStateException("Failed to compute homography matrix"));
+      }
+
+      double similarity =
+          calculateSimilarity(allMatches, referenceFeatures, imgFeatures, homography);
+      Estimate estimate = new Estimate(homography, getInliers(points2, inliersMask),
+          getInliers(points1, inliersMask), similarity);
+      homography = null; // Ownership is transferred to the estimate
+
+      return estimate;
+    } finally {
+      // Release OpenCV resources - always executed
+      if (imgFeatures != null) {
+        imgFeatures.close();
+      }
+      if (matches != null) {
+        matches.release();
+      }
+      if (matPoints1 != null) {
+        matPoints1.release();
+      }
+      if (matPoints2 != null) {
+        matPoints2.release();
+      }
+      if (inliersMask != null) {
+        inliersMask.release();
+      }
+      if (homography != null) {
+        homography.release();
+      }
+    }
+  }
+
+  /**
+   * Refines a homography on full resolution patches. Patches of the reference are taken around the
+   * inliers of the homography, and searched for in the image, warped by the homography around the
+   * same location. The offsets at which they are found correct the correspondences the refined
+   * homography is computed from.
+   */
+  private Estimate refine(Mat imgBlue, Estimate estimate) {
+    double[] homography = toArray(estimate.homography());
+    Mat inverseMat = estimate.homography().inv();
+    double[] inverse = toArray(inverseMat);
+    inverseMat.release();
+    int windowSize = REFINEMENT_PATCH_SIZE + (2 * REFINEMENT_SEARCH_RADIUS);
+    var bounds = new Rect(0, 0, blue.cols(), blue.rows());
+    List<Point> imagePoints = new ArrayList<>();
+    List<Point> referencePoints = new ArrayList<>();
+    Mat window = new Mat();
+    Mat scores = new Mat();
+
+    try {
+      int step = Math.max(1, estimate.referencePoints().size() / MAX_REFINEMENT_PATCHES);
+
+      for (int i = 0; i < estimate.referencePoints().size(); i += step) {
+        Point point = estimate.referencePoints().get(i);
+        var patch = new Rect((int) Math.round(point.x) - (REFINEMENT_PATCH_SIZE / 2),
+            (int) Math.round(point.y) - (REFINEMENT_PATCH_SIZE / 2), REFINEMENT_PATCH_SIZE,
+            REFINEMENT_PATCH_SIZE);
+
+        if (!contains(bounds, patch)) {
+          continue;
+        }
+
+        double originX = patch.x - REFINEMENT_SEARCH_RADIUS;
+        double originY = patch.y - REFINEMENT_SEARCH_RADIUS;
+        Mat translated = toMat(translate(homography, -originX, -originY));
+        Mat template = blue.submat(patch);
+
+        try {
+          Imgproc.warpPerspective(imgBlue, window, translated, new Size(windowSize, windowSize));
+          Imgproc.matchTemplate(window, template, scores, Imgproc.TM_CCOEFF_NORMED);
+        } finally {
+          translated.release();
+          template.release();
+        }
+
+        MinMaxLocResult best = Core.minMaxLoc(scores);
+
+        if (best.maxVal < MIN_REFINEMENT_PATCH_SCORE) {
+          continue;
+        }
+
+        Point offset = refinePeak(scores, best.maxLoc);
+        var center = new Point(patch.x + (REFINEMENT_PATCH_SIZE / 2.0),
+            patch.y + (REFINEMENT_PATCH_SIZE / 2.0));
+        referencePoints.add(center);
+        imagePoints.add(project(inverse, new Point(center.x + offset.x - REFINEMENT_SEARCH_RADIUS,
+            center.y + offset.y - REFINEMENT_SEARCH_RADIUS)));
+      }
+    } finally {
+      window.release();
+      scores.release();
+    }
+
+    if (imagePoints.size() < MIN_REFINEMENT_PATCHES) {
+      logger.debug("Only {} patches found, keeping the coarse homography", imagePoints.size());
+      return estimate.copy();
+    }
+
+    MatOfPoint2f matImagePoints = new MatOfPoint2f();
+    MatOfPoint2f matReferencePoints = new MatOfPoint2f();
+    Mat inliersMask = new Mat();
+
+    try {
+      matImagePoints.fromList(imagePoints);
+      matReferencePoints.fromList(referencePoints);
+      Mat refined = Calib3d.findHomography(matImagePoints, matReferencePoints, Calib3d.RANSAC,
+          REFINEMENT_REPROJECTION_THRESHOLD, inliersMask);
+
+      if (refined.empty()) {
+        refined.release();
+        return estimate.copy();
+      }
+
+      return new Estimate(refined, getInliers(imagePoints, inliersMask),
+          getInliers(referencePoints, inliersMask), estimate.similarity());
+    } finally {
+      matImagePoints.release();
+      matReferencePoints.release();
+      inliersMask.release();
+    }
+  }
+
+  /**
+   * Computes a similarity score between a mat and this reference. See
+   * {@link ImageUtil#calculateImageSimilarity(BufferedImage, BufferedImage)}. Only the content of
+   * the reference is compared, so the mat is expected to be in the reference's frame, possibly
+   * scaled. In which case it is compared to the reference scaled the same way.
+   *
+   * @param sourceMat The mat to compare to this reference. Untouched.
+   * @return A similarity score between 0.0 and 1.0, where higher values indicate better similarity.
+   *         Returns 0.0 if insufficient features are found.
+   */
+  double calculateSimilarity(Mat sourceMat) {
+    Features sourceFeatures = null;
+    MatOfDMatch matches = null;
+
+    try {
+      Mat sourceBlue = extractBlueChannel(sourceMat);
+
+      try {
+        sourceFeatures = Features.detect(sourceBlue, toPixels(content, sourceBlue.size(), 0));
+      } finally {
+        sourceBlue.release();
+      }
+
+      var referenceFeatures = getFeatures(sourceMat.size());
+
+      // Check if we have enough features
+      if (sourceFeatures.isEmpty() || referenceFeatures.isEmpty()) {
+        return 0.0;
+      }
+
+      // Match features
+      matches = new MatOfDMatch();
+      matcher.match(sourceFeatures.descriptors(), referenceFeatures.descriptors(), matches);
+
+      List<DMatch> matchList = matches.toList();
+      if (matchList.isEmpty()) {
+        return 0.0;
+      }
+
+      // Calculate similarity score based on good matches
+      // Good matches are those with distance below a threshold
+      int numGoodMatches = 0;
+
+      for (DMatch match : matchList) {
+        if (match.distance < MAX_GOOD_MATCH_DISTANCE) {
+          numGoodMatches++;
+        }
+      }
+
+      // Normalize the score: ratio of good matches to total possible matches
+      int minKeypoints = Math.min(sourceFeatures.size(), referenceFeatures.size());
+      double similarityScore = (double) numGoodMatches / minKeypoints;
+
+      // Clamp between 0 and 1
+      return Math.min(1.0, Math.max(0.0, similarityScore));
+    } finally {
+      if (sourceFeatures != null) {
+        sourceFeatures.close();
+      }
+      if (matches != null) {
+        matches.release();
+      }
+    }
+  }
+
+  /**
+   * Checks whether an image was captured from the same camera pose as the last image successfully
+   * aligned to this reference, in which case its homography would be reused.
+   *
+   * @param imgMat The image to check. Untouched.
+   * @return {@code true} if the previous homography would be reused for this image.
+   */
+  synchronized boolean isLastPoseUnchangedIn(Mat imgMat) {
+    if (lastPose == null) {
+      return false;
+    }
+
+    Mat imgBlue = extractBlueChannel(imgMat);
+
+    try {
+      return lastPose.isUnchangedIn(imgBlue);
+    } finally {
+      imgBlue.release();
+    }
+  }
+
+  /**
+   * Gets the features of this reference scaled to a size. They are detected once per size, and
+   * there are only ever a few sizes: one per screen resolution.
+   */
+  private synchronized Features getFeatures(Size scaledSize) {
+    if (scaledSize.equals(size)) {
+      return features;
+    }
+
+    return scaledFeatures.computeIfAbsent(scaledSize, n -> {
+      Mat scaledBlue = new Mat();
+      Imgproc.resize(blue, scaledBlue, n, 0, 0, Imgproc.INTER_AREA);
+
+      try {
+        return Features.detect(scaledBlue, toPixels(content, n, 0));
+      } finally {
+        scaledBlue.release();
+      }
+    });
+  }
+
+  @Override
+  public synchronized void close() {
+    blue.release();
+    features.close();
+    coarseFeatures.close();
+    setLastPose(null);
+    scaledFeatures.values().forEach(Features::close);
+    scaledFeatures.clear();
+  }
+
+  private synchronized void setLastPose(Pose pose) {
+    if (lastPose != null) {
+      lastPose.homography().release();
+    }
+
+    lastPose = pose;
+  }
+
+  private static Mat extractBlueChannel(Mat image) {
+    Mat blue = new Mat();
+    Core.extractChannel(image, blue, 0);
+
+    return blue;
+  }
+
+  private static List<Point> getInliers(List<Point> points, Mat inliersMask) {
+    byte[] mask = new byte[(int) inliersMask.total()];
+    inliersMask.get(0, 0, mask);
+    List<Point> inliers = new ArrayList<>();
+
+    for (int i = 0; i < points.size(); i++) {
+      if (mask[i] != 0) {
+        inliers.add(points.get(i));
+      }
+    }
+
+    return inliers;
+  }
+
+  /**
+   * Finds the bounding box of the non-black pixels of an image.
+   */
+  private static Rect findContent(Mat blue) {
+    Mat unmasked = new Mat();
+
+    try {
+      Imgproc.threshold(blue, unmasked, MAX_MASKED_OUT_INTENSITY, 255, Imgproc.THRESH_BINARY);
+      Rect bounds = Imgproc.boundingRect(unmasked);
+
+      if (bounds.empty()) {
+        return new Rect(0, 0, blue.cols(), blue.rows());
+      }
+
+      return bounds;
+    } finally {
+      unmasked.release();
+    }
+  }
+
+  /**
+   * Scales the content of the reference to another size, widened by a margin relative to that
+   * size, and clamped to it. Scaling is exact when the sizes are the same.
+   */
+  private Rect toPixels(Rect region, Size scaledSize, double marginRatio) {
+    double scaleX = scaledSize.width / size.width;
+    double scaleY = scaledSize.height / size.height;
+    double marginX = marginRatio * scaledSize.width;
+    double marginY = marginRatio * scaledSize.height;
+    int x = (int) Math.max(0, Math.floor(region.x * scaleX - marginX));
+    int y = (int) Math.max(0, Math.floor(region.y * scaleY - marginY));
+    int right = (int) Math.min(scaledSize.width,
+        Math.ceil((region.x + region.width) * scaleX + marginX));
+    int bottom = (int) Math.min(scaledSize.height,
+        Math.ceil((region.y + region.height) * scaleY + marginY));
+
+    return new Rect(x, y, right - x, bottom - y);
+  }
+
+  private static Mat downscale(Mat image) {
+    Mat downscaled = new Mat();
+    Imgproc.resize(image, downscaled, coarseSize(image.size()), 0, 0, Imgproc.INTER_AREA);
+
+    return downscaled;
+  }
+
+  private static Size coarseSize(Size size) {
+    double scale = COARSE_HEIGHT / size.height;
+
+    return new Size(Math.round(size.width * scale), COARSE_HEIGHT);
+  }
+
+  /**
+   * Transformation from the pixel coordinates of a downscaled image to those of the full resolution
+   * image. Pixel centers are at integer coordinates, hence the half pixel offsets.
+   */
+  private static double[] toFullResolution(Size coarse, Size full) {
+    double scaleX = full.width / coarse.width;
+    double scaleY = full.height / coarse.height;
+
+    return new double[] {scaleX, 0, (scaleX - 1) / 2, 0, scaleY, (scaleY - 1) / 2, 0, 0, 1};
+  }
+
+  private static boolean contains(Rect bounds, Rect rect) {
+    return rect.x >= bounds.x && rect.y >= bounds.y
+        && rect.x + rect.width <= bounds.x + bounds.width
+        && rect.y + rect.height <= bounds.y + bounds.height;
+  }
+
+  /**
+   * Locates a score peak with sub-pixel precision, by fitting a parabola on each axis.
+   */
+  private static Point refinePeak(Mat scores, Point peak) {
+    int x = (int) peak.x;
+    int y = (int) peak.y;
+    double offsetX = 0;
+    double offsetY = 0;
+
+    if (x > 0 && x < scores.cols() - 1) {
+      offsetX = parabolaVertex(scores.get(y, x - 1)[0], scores.get(y, x)[0],
+          scores.get(y, x + 1)[0]);
+    }
+    if (y > 0 && y < scores.rows() - 1) {
+      offsetY = parabolaVertex(scores.get(y - 1, x)[0], scores.get(y, x)[0],
+          scores.get(y + 1, x)[0]);
+    }
+
+    return new Point(x + offsetX, y + offsetY);
+  }
+
+  private static double parabolaVertex(double left, double center, double right) {
+    double denominator = left - (2 * center) + right;
+
+    return denominator == 0 ? 0 : (left - right) / (2 * denominator);
+  }
+
+  private static boolean isSimilarEnough(double similarity, double minSimilarityThreshold) {
+    if (similarity < minSimilarityThreshold) {
+      logger.warn("Alignment quality below threshold: {} < {}", similarity,
+          minSimilarityThreshold);
+      return false;
+    }
+
+    logger.debug("Alignment quality: {}", similarity);
+    return true;
+  }
+
+  /**
+   * Scores a homography with the matches it was estimated from, the way
+   * {@link #calculateSimilarity(Mat)} scores an aligned image, without detecting features again.
+   * Good matches only count if the homography projects the image's keypoint onto the reference's,
+   * which rules out the repeated patterns of kiosks (e.g. digits, borders) matching by chance.
+   * Fewer good matches survive than in an aligned image, so their ratio is weighted to keep
+   * similarity thresholds meaningful. Only calibrated for, and used in, {@link Mode#COARSE_TO_FINE}
+   * mode: at full resolution, good and bad alignments score alike.
+   */
+  private static double calculateSimilarity(List<DMatch> matches, Features referenceFeatures,
+      Features imgFeatures, Mat homography) {
+    double[] imageToReference = toArray(homography);
+    int consistentMatches = 0;
+
+    for (DMatch match : matches) {
+      if (match.distance >= MAX_GOOD_MATCH_DISTANCE) {
+        continue;
+      }
+
+      Point projected = project(imageToReference, imgFeatures.keypoints().get(match.trainIdx).pt);
+      Point referencePoint = referenceFeatures.keypoints().get(match.queryIdx).pt;
+
+      if (Math.hypot(projected.x - referencePoint.x,
+          projected.y - referencePoint.y) <= RANSAC_REPROJECTION_THRESHOLD) {
+        consistentMatches++;
+      }
+    }
+
+    int minKeypoints = Math.min(imgFeatures.size(), referenceFeatures.size());
+
+    return Math.min(1.0, CONSISTENT_MATCHES_WEIGHT * consistentMatches / minKeypoints);
+  }
+
+  private static double[] toArray(Mat homography) {
+    Mat doubles = new Mat();
+    homography.convertTo(doubles, CvType.CV_64F);
+    double[] values = new double[9];
+    doubles.get(0, 0, values);
+    doubles.release();
+
+    return values;
+  }
+
+  private static Mat toMat(double[] homography) {
+    Mat mat = new Mat(3, 3, CvType.CV_64FC1);
+    mat.put(0, 0, homography);
+
+    return mat;
+  }
+
+  private static double[] multiply(double[] a, double[] b) {
+    double[] product = new double[9];
+
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 3; col++) {
+        for (int i = 0; i < 3; i++) {
+          product[(row * 3) + col] += a[(row * 3) + i] * b[(i * 3) + col];
+        }
+      }
+    }
+
+    return product;
+  }
+
+  private static double[] invertScaling(double[] scaling) {
+    return new double[] {1 / scaling[0], 0, -scaling[2] / scaling[0], 0, 1 / scaling[4],
+        -scaling[5] / scaling[4], 0, 0, 1};
+  }
+
+  private static double[] translate(double[] homography, double x, double y) {
+    return multiply(new double[] {1, 0, x, 0, 1, y, 0, 0, 1}, homography);
+  }
+
+  private static Point project(double[] homography, Point point) {
+    double w = (homography[6] * point.x) + (homography[7] * point.y) + homography[8];
+
+    return new Point(
+        ((homography[0] * point.x) + (homography[1] * point.y) + homography[2]) / w,
+        ((homography[3] * point.x) + (homography[4] * point.y) + homography[5]) / w);
+  }
+
+  /**
+   * Homography mapping an image onto the reference, with the correspondences supporting it, and
+   * the similarity score of the matches it was estimated from.
+   */
+  private record Estimate(Mat homography, List<Point> imagePoints, List<Point> referencePoints,
+      double similarity) {
+    /**
+     * Expresses this estimate, made between downscaled images, between the full resolution images.
+     * This estimate's homography is released.
+     */
+    Estimate upscale(double[] imageScaling, double[] referenceScaling) {
+      double[] coarse = toArray(homography);
+      homography.release();
+      double[] full =
+          multiply(multiply(referenceScaling, coarse), invertScaling(imageScaling));
+
+      return new Estimate(toMat(full),
+          imagePoints.stream().map(p -> project(imageScaling, p)).toList(),
+          referencePoints.stream().map(p -> project(referenceScaling, p)).toList(), similarity);
+    }
+
+    Estimate copy() {
+      return new Estimate(homography.clone(), imagePoints, referencePoints, similarity);
+    }
+  }
+
+  /**
+   * ORB keypoints and descriptors of a region of an image's blue channel. Keypoints are in the
+   * image's coordinates.
+   */
+  private record Features(List<KeyPoint> keypoints, Mat descriptors) implements AutoCloseable {
+    static Features detect(Mat blue, Rect region) {
+      Mat roi = blue.submat(region);
+      Mat emptyMask = new Mat();
+      var keypoints = new MatOfKeyPoint();
+      var descriptors = new Mat();
+
+      try {
+        ORB.create(MAX_FEATURES).detectAndCompute(roi, emptyMask, keypoints, descriptors);
+        List<KeyPoint> keypointList = keypoints.toList();
+
+        for (KeyPoint keypoint : keypointList) {
+          keypoint.pt.x += region.x;
+          keypoint.pt.y += region.y;
+        }
+
+        return new Features(keypointList, descriptors);
+      } finally {
+        roi.release();
+        emptyMask.release();
+        keypoints.release();
+      }
+    }
+
+    boolean isEmpty() {
+      return keypoints.isEmpty();
+    }
+
+    int size() {
+      return keypoints.size();
+    }
+
+    @Override
+    public void close() {
+      descriptors.release();
+    }
+  }
+
+  /**
+   * Camera pose of the last successfully aligned image: its homography, and the pixels of its blue
+   * channel around the points that supported that homography. Those points sit on corners, so any
+   * camera movement changes nearly all of their pixels. Scrolling only changes the ones that fall
+   * on listings, hence only half of them have to be unchanged for the pose to be.
+   */
+  private record Pose(Size imageSize, Mat homography, List<Rect> patches, List<byte[]> pixels) {
+    static Pose of(Mat blue, Mat homography, List<Point> points) {
+      Rect bounds = new Rect(0, 0, blue.cols(), blue.rows());
+      List<Rect> patches = new ArrayList<>();
+      List<byte[]> pixels = new ArrayList<>();
+
+      for (Point point : points) {
+        var patch = new Rect((int) point.x - (POSE_PATCH_SIZE / 2),
+            (int) point.y - (POSE_PATCH_SIZE / 2), POSE_PATCH_SIZE, POSE_PATCH_SIZE);
+
+        if (bounds.contains(patch.tl()) && bounds.contains(new Point(patch.x + patch.width - 1,
+            patch.y + patch.height - 1))) {
+          patches.add(patch);
+          pixels.add(readPatch(blue, patch));
+        }
+      }
+
+      return new Pose(blue.size(), homography, patches, pixels);
+    }
+
+    boolean isUnchangedIn(Mat blue) {
+      if (patches.size() < MIN_POSE_PATCHES || !imageSize.equals(blue.size())) {
+        return false;
+      }
+
+      int unchangedPatches = 0;
+
+      for (int i = 0; i < patches.size(); i++) {
+        byte[] previous = pixels.get(i);
+        byte[] current = readPatch(blue, patches.get(i));
+        long difference = 0;
+
+        for (int j = 0; j < previous.length; j++) {
+          difference += Math.abs((previous[j] & 0xFF) - (current[j] & 0xFF));
+        }
+
+        if ((double) difference / previous.length <= MAX_POSE_PATCH_DIFFERENCE) {
+          unchangedPatches++;
+        }
+      }
+
+      return unchangedPatches >= patches.size() * MIN_UNCHANGED_POSE_PATCHES_RATIO;
+    }
+
+    private static byte[] readPatch(Mat blue, Rect patch) {
+      byte[] pixels = new byte[patch.width * patch.height];
+      Mat submat = blue.submat(patch);
+
+      try {
+        submat.get(0, 0, pixels);
+      } finally {
+        submat.release();
+      }
+
+      return pixels;
+    }
+  }
+}
@@ -46,4 +46,15 @@ public abstract class AsynchronousProcessor<T> {
    * @throws Exception if an error occurs while processing
    */
   protected abstract void process(T unitOfWork) throws Exception;
+
+  /**
+   * Runs a synthetic unit of work through the processing, without any side effect, so that the
+   * first real unit of work doesn't pay for loading resources and warming the JIT up. Does nothing
+   * by default.
+   *
+   * @param syntheticUnitOfWork the synthetic unit of work
+   */
+  public void warmUp(T syntheticUnitOfWork) {
+    // Intentionally empty
+  }
 }
@@ -1,19 +1,24 @@
 package tools.sctrade.companion.utils;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
-import javax.imageio.ImageIO;
+import java.util.List;
 import tools.sctrade.companion.domain.ocr.OcrResult;
 import tools.sctrade.companion.exceptions.HashException;
 
 /**
- * Utility class for hashing strings, byte arrays, and images.
+ * Utility class for hashing strings, byte arrays, and image content.
  */
 public class HashUtil {
   private static final String SHA3_256 = "SHA3-256";
+  private static final String SHA_256 = "SHA-256"; // Hardware accelerated, unlike SHA3-256
 
   private HashUtil() {}
 
@@ -32,19 +37,43 @@ public class HashUtil {
   }
 
   /**
-   * Hashes an image using SHA3-256.
+   * Hashes the pixels of regions of an image using SHA-256, ignoring the rest of it. Unlike
+   * {@link PerceptualHash}, any change to a single pixel changes the hash: meant to address
+   * content, e.g. to cache what was computed from an image.
    *
-   * @param image The image to hash.
-   * @return The hash of the image.
+   * @param image The image to hash. Untouched.
+   * @param regions The regions to hash, clipped to the image. Their location is hashed too.
+   * @param namespace Hashed along with the pixels, so that the same image hashes differently in
+   *        different namespaces, e.g. to tell apart the results of different configurations.
+   * @return The hash of the regions.
    */
-  public static String hash(BufferedImage image) {
+  public static String hashContent(BufferedImage image, List<Rectangle> regions,
+      String namespace) {
     try {
-      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-      ImageIO.write(image, "jpg", outputStream);
-      byte[] bytes = outputStream.toByteArray();
+      final MessageDigest digest = MessageDigest.getInstance(SHA_256);
+      var bounds = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+      var header = ByteBuffer.allocate(Integer.BYTES * (3 + (4 * regions.size())));
+      header.putInt(image.getType()).putInt(image.getWidth()).putInt(image.getHeight());
 
-      return hash(bytes);
-    } catch (IOException e) {
+      for (var region : regions) {
+        var clippedRegion = region.intersection(bounds);
+        header.putInt(clippedRegion.x).putInt(clippedRegion.y)
+            .putInt(Math.max(0, clippedRegion.width)).putInt(Math.max(0, clippedRegion.height));
+      }
+
+      digest.update(namespace.getBytes(StandardCharsets.UTF_8));
+      digest.update(header.array());
+
+      for (var region : regions) {
+        var clippedRegion = region.intersection(bounds);
+
+        if (!clippedRegion.isEmpty()) {
+          updateWithPixels(digest, image, clippedRegion);
+        }
+      }
+
+      return bytesToHex(digest.digest());
+    } catch (Exception e) {
       throw new HashException(e);
     }
   }
@@ -66,6 +95,50 @@ public class HashUtil {
     }
   }
 
+  // Interleaved rows are hashed straight from the raster's data, without converting them to RGB
+  private static void updateWithPixels(MessageDigest digest, BufferedImage image,
+      Rectangle region) {
+    var raster = image.getRaster();
+    var sampleModel = raster.getSampleModel();
+    var dataBuffer = raster.getDataBuffer();
+    int x = region.x - raster.getSampleModelTranslateX();
+    int y = region.y - raster.getSampleModelTranslateY();
+
+    if (sampleModel instanceof PixelInterleavedSampleModel interleaved
+        && dataBuffer instanceof DataBufferByte bytes && bytes.getNumBanks() == 1) {
+      int pixelStride = interleaved.getPixelStride();
+      int offset = bytes.getOffset() + (y * interleaved.getScanlineStride()) + (x * pixelStride);
+
+      for (int row = 0; row < region.height; row++) {
+        digest.update(bytes.getData(), offset, region.width * pixelStride);
+        offset += interleaved.getScanlineStride();
+      }
+    } else if (sampleModel instanceof SinglePixelPackedSampleModel packed
+        && dataBuffer instanceof DataBufferInt ints && ints.getNumBanks() == 1) {
+      var rowBytes = ByteBuffer.allocate(region.width * Integer.BYTES);
+      var rowInts = rowBytes.asIntBuffer();
+      int offset = ints.getOffset() + (y * packed.getScanlineStride()) + x;
+
+      for (int row = 0; row < region.height; row++) {
+        rowInts.clear();
+        rowInts.put(ints.getData(), offset, region.width);
+        digest.update(rowBytes.array());
+        offset += packed.getScanlineStride();
+      }
+    } else {
+      int[] row = new int[region.width];
+      var rowBytes = ByteBuffer.allocate(region.width * Integer.BYTES);
+      var rowInts = rowBytes.asIntBuffer();
+
+      for (int rowY = region.y; rowY < region.getMaxY(); rowY++) {
+        image.getRGB(region.x, rowY, region.width, 1, row, 0, region.width);
+        rowInts.clear();
+        rowInts.put(row);
+        digest.update(rowBytes.array());
+      }
+    }
+  }
+
   private static String bytesToHex(byte[] bytes) {
     StringBuilder hexString = new StringBuilder(2 * bytes.length);
 
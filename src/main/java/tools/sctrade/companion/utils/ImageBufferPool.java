@@ -0,0 +1,204 @@
+package tools.sctrade.companion.utils;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import org.opencv.core.Mat;
+
+/**
+ * Pool of image buffers, so that the large, short-lived buffers a capture goes through are reused
+ * from one capture to the next instead of being allocated each time. Buffers are keyed by their
+ * width, height and type: captures of a given resolution always need the same ones.
+ *
+ * <p>
+ * Borrowed buffers hold whatever their previous borrower left in them, and must be entirely
+ * overwritten. Returning a buffer is optional: a buffer that is never returned is simply left to
+ * the garbage collector or, for mats, to its {@link MatScope}. Idle buffers are kept up to a
+ * maximum footprint, beyond which the least recently returned ones are dropped.
+ * </p>
+ */
+public class ImageBufferPool {
+  private static final long DEFAULT_MAX_RETAINED_BYTES = 256L * 1024 * 1024; // ~8 4k ARGB frames
+
+  private static final ImageBufferPool DEFAULT = new ImageBufferPool(DEFAULT_MAX_RETAINED_BYTES);
+
+  private final long maxRetainedBytes;
+  private final Deque<IdleBuffer> idleBuffers = new ArrayDeque<>();
+  private long retainedBytes = 0;
+  private long peakRetainedBytes = 0;
+  private long hits = 0;
+  private long misses = 0;
+
+  /**
+   * Creates a pool.
+   *
+   * @param maxRetainedBytes The maximum number of bytes held by idle buffers.
+   */
+  public ImageBufferPool(long maxRetainedBytes) {
+    if (maxRetainedBytes < 0) {
+      throw new IllegalArgumentException(
+          "Max retained bytes can't be negative: " + maxRetainedBytes);
+    }
+
+    this.maxRetainedBytes = maxRetainedBytes;
+  }
+
+  /**
+   * Gets the shared pool, retaining up to 256 MB.
+   *
+   * @return The shared pool.
+   */
+  public static ImageBufferPool get() {
+    return DEFAULT;
+  }
+
+  /**
+   * Borrows an image. Its content is undefined.
+   *
+   * @param width The width of the image.
+   * @param height The height of the image.
+   * @param type The type of the image, see {@link BufferedImage#getType()}.
+   * @return An idle image of that size and type if there is one, a new image otherwise.
+   */
+  public BufferedImage borrowImage(int width, int height, int type) {
+    var image = (BufferedImage) borrow(new Key(Kind.IMAGE, width, height, type));
+
+    return image == null ? new BufferedImage(width, height, type) : image;
+  }
+
+  /**
+   * Returns an image to the pool. The image must no longer be used by the caller. Images of a
+   * custom type are ignored, as they can't be borrowed.
+   *
+   * @param image The image to return.
+   */
+  public void returnImage(BufferedImage image) {
+    if (image.getType() == BufferedImage.TYPE_CUSTOM) {
+      return;
+    }
+
+    DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+    long bytes = (long) dataBuffer.getSize() * dataBuffer.getNumBanks()
+        * DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / Byte.SIZE;
+
+    giveBack(new IdleBuffer(new Key(Kind.IMAGE, image.getWidth(), image.getHeight(),
+        image.getType()), image, bytes));
+  }
+
+  /**
+   * Borrows a mat, registered in the current {@link MatScope}. Its content is undefined.
+   *
+   * @param rows The number of rows of the mat.
+   * @param cols The number of columns of the mat.
+   * @param type The type of the mat, see {@link Mat#type()}.
+   * @return An idle mat of that size and type if there is one, a new mat otherwise.
+   */
+  Mat borrowMat(int rows, int cols, int type) {
+    var mat = (Mat) borrow(new Key(Kind.MAT, cols, rows, type));
+
+    return MatScope.track(mat == null ? new Mat(rows, cols, type) : mat);
+  }
+
+  /**
+   * Returns a mat to the pool, removing it from its {@link MatScope}. The mat must no longer be
+   * used by the caller. Released mats are ignored.
+   *
+   * @param mat The mat to return.
+   */
+  void returnMat(Mat mat) {
+    MatScope.untrack(mat);
+
+    if (mat.empty()) {
+      return;
+    }
+
+    giveBack(new IdleBuffer(new Key(Kind.MAT, mat.cols(), mat.rows(), mat.type()), mat,
+        mat.total() * mat.elemSize()));
+  }
+
+  /**
+   * Computes the ratio of borrowed buffers that were reused rather than allocated.
+   *
+   * @return The hit rate, between 0.0 and 1.0.
+   */
+  public synchronized double getHitRate() {
+    return hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+  }
+
+  public synchronized long getRetainedBytes() {
+    return retainedBytes;
+  }
+
+  public synchronized long getPeakRetainedBytes() {
+    return peakRetainedBytes;
+  }
+
+  /**
+   * Drops every idle buffer, releasing the native memory of mats.
+   */
+  public synchronized void clear() {
+    while (!idleBuffers.isEmpty()) {
+      evictOldest();
+    }
+  }
+
+  private synchronized Object borrow(Key key) {
+    // Most recently returned first: the likeliest to still be in the CPU's caches
+    Iterator<IdleBuffer> iterator = idleBuffers.descendingIterator();
+
+    while (iterator.hasNext()) {
+      var idleBuffer = iterator.next();
+
+      if (idleBuffer.key().equals(key)) {
+        iterator.remove();
+        retainedBytes -= idleBuffer.bytes();
+        hits++;
+
+        return idleBuffer.buffer();
+      }
+    }
+
+    misses++;
+
+    return null;
+  }
+
+  private synchronized void giveBack(IdleBuffer idleBuffer) {
+    if (idleBuffer.bytes() > maxRetainedBytes) {
+      drop(idleBuffer);
+      return;
+    }
+
+    while (retainedBytes + idleBuffer.bytes() > maxRetainedBytes) {
+      evictOldest();
+    }
+
+    idleBuffers.addLast(idleBuffer);
+    retainedBytes += idleBuffer.bytes();
+    peakRetainedBytes = Math.max(peakRetainedBytes, retainedBytes);
+  }
+
+  private void evictOldest() {
+    var idleBuffer = idleBuffers.removeFirst();
+    retainedBytes -= idleBuffer.bytes();
+    drop(idleBuffer);
+  }
+
+  private static void drop(IdleBuffer idleBuffer) {
+    if (idleBuffer.buffer() instanceof Mat mat) {
+      mat.release();
+    }
+  }
+
+  private enum Kind {
+    IMAGE, MAT
+  }
+
+  private record Key(Kind kind, int width, int height, int type) {
+  }
+
+  private record IdleBuffer(Key key, Object buffer, long bytes) {
+  }
+}
@@ -1,9 +1,14 @@
 package tools.sctrade.companion.utils;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
 import java.awt.image.RescaleOp;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -13,30 +18,16 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.stream.Collectors;
 import javax.imageio.ImageIO;
-import nu.pattern.OpenCV;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 import org.imgscalr.Scalr;
-import org.imgscalr.Scalr.Method;
 import org.imgscalr.Scalr.Mode;
-import org.opencv.calib3d.Calib3d;
-import org.opencv.core.Core;
-import org.opencv.core.DMatch;
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfByte;
-import org.opencv.core.MatOfDMatch;
-import org.opencv.core.MatOfKeyPoint;
 import org.opencv.core.MatOfPoint;
-import org.opencv.core.MatOfPoint2f;
-import org.opencv.core.Point;
-import org.opencv.core.Size;
-import org.opencv.features2d.DescriptorMatcher;
-import org.opencv.features2d.ORB;
-import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,17 +50,10 @@ public class ImageUtil {
    * @return A greyscale copy of the image
    */
   public static BufferedImage makeHistogramEqualizedGreyscaleCopy(BufferedImage image) {
-    image = makeGreyscaleCopy(image);
-    OpenCV.loadShared();
+    try (var nativeImage = toGreyscaleNativeImage(image)) {
+      nativeImage.equalizeHistogram();
 
-    try {
-      Mat original = toMat(image);
-      Mat processed = new Mat(original.rows(), original.cols(), original.type());
-      Imgproc.equalizeHist(original, processed);
-
-      return toBufferedImage(processed);
-    } catch (IOException e) {
-      throw new ImageProcessingException(e);
+      return nativeImage.toBufferedImage();
     }
   }
 
@@ -81,20 +65,10 @@ public class ImageUtil {
    * @return A greyscale copy of the image
    */
   public static BufferedImage makeClaheEqualizedGreyscaleCopy(BufferedImage image) {
-    image = makeGreyscaleCopy(image);
-    OpenCV.loadShared();
-
-    try {
-      Mat original = toMat(image);
-      Mat processed = new Mat(original.rows(), original.cols(), original.type());
-
-      var clahe = Imgproc.createCLAHE();
-      clahe.setClipLimit(3.0);
-      clahe.apply(original, processed);
+    try (var nativeImage = toGreyscaleNativeImage(image)) {
+      nativeImage.applyClahe(3.0);
 
-      return toBufferedImage(processed);
-    } catch (IOException e) {
-      throw new ImageProcessingException(e);
+      return nativeImage.toBufferedImage();
     }
   }
 
@@ -114,20 +88,31 @@ public class ImageUtil {
     return greyscaleImage;
   }
 
+  /**
+   * Copies an image into native memory, converted to greyscale the way
+   * {@link #makeGreyscaleCopy(BufferedImage)} does, through a pooled greyscale image.
+   */
+  private static NativeImage toGreyscaleNativeImage(BufferedImage image) {
+    var pool = ImageBufferPool.get();
+    BufferedImage greyscaleImage =
+        pool.borrowImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+
+    try {
+      drawOnto(image, greyscaleImage);
+
+      return NativeImage.of(greyscaleImage);
+    } finally {
+      pool.returnImage(greyscaleImage);
+    }
+  }
+
   /**
    * Inverts the colors of an image. Inplace: transacts on the original image.
    *
    * @param image The image to invert the colors of.
    */
   public static void invertColors(BufferedImage image) {
-    for (int x = 0; x < image.getWidth(); x++) {
-      for (int y = 0; y < image.getHeight(); y++) {
-        int rgba = image.getRGB(x, y);
-        Color color = new Color(rgba, false);
-        color = new Color(255 - color.getRed(), 255 - color.getGreen(), 255 - color.getBlue());
-        image.setRGB(x, y, color.getRGB());
-      }
-    }
+    PixelKernels.get().invertColors(image);
   }
 
   /**
@@ -144,8 +129,8 @@ public class ImageUtil {
   }
 
   /**
-   * Calculate the most frequent color of an image. Approximate colors are used, and the most
-   * frequent one is returned.
+   * Calculate the most frequent color of an image. Approximate colors are used (channels rounded
+   * down to the nearest multiple of 10), and the most frequent one is returned.
    *
    * @param image The image to calculate the dominant color of.
    * @return The dominant color of the image.
@@ -170,27 +155,7 @@ public class ImageUtil {
       throw new RectangleOutOfBoundsException(rectangle, imageRectangle);
     }
 
-    var countByApproximateColors = new HashMap<Color, Integer>();
-
-    for (int x = (int) rectangle.getMinX(); x < rectangle.getMaxX(); x++) {
-      for (int y = (int) rectangle.getMinY(); y < rectangle.getMaxY(); y++) {
-        Color pixel = new Color(image.getRGB(x, y));
-        int approximateRed = pixel.getRed() - (pixel.getRed() % 10);
-        int approximateGreen = pixel.getGreen() - (pixel.getGreen() % 10);
-        int approximateBlue = pixel.getBlue() - (pixel.getBlue() % 10);
-        Color approximateColor = new Color(approximateRed, approximateGreen, approximateBlue);
-        countByApproximateColors.put(approximateColor,
-            countByApproximateColors.getOrDefault(approximateColor, 0) + 1);
-      }
-    }
-
-    var approximateColorsByCount = new HashMap<Integer, Color>();
-
-    for (Entry<Color, Integer> entry : countByApproximateColors.entrySet()) {
-      approximateColorsByCount.put(entry.getValue(), entry.getKey());
-    }
-
-    return approximateColorsByCount.get(Collections.max(approximateColorsByCount.keySet()));
+    return new Color(PixelKernels.get().calculateDominantColor(image, rectangle));
   }
 
   /**
@@ -220,25 +185,7 @@ public class ImageUtil {
       throw new RectangleOutOfBoundsException(rectangle, imageRectangle);
     }
 
-    int totalRed = 0;
-    int totalGreen = 0;
-    int totalBlue = 0;
-
-    for (int x = (int) rectangle.getMinX(); x < rectangle.getMaxX(); x++) {
-      for (int y = (int) rectangle.getMinY(); y < rectangle.getMaxY(); y++) {
-        Color pixel = new Color(image.getRGB(x, y));
-        totalRed += pixel.getRed();
-        totalGreen += pixel.getGreen();
-        totalBlue += pixel.getBlue();
-      }
-    }
-
-    int pixelCount = (int) (rectangle.getWidth() * rectangle.getHeight());
-    int averageRed = totalRed / pixelCount;
-    int averageGreen = totalGreen / pixelCount;
-    int averageBlue = totalBlue / pixelCount;
-
-    return new Color(averageRed, averageGreen, averageBlue);
+    return new Color(PixelKernels.get().calculateAverageColor(image, rectangle));
   }
 
   /**
@@ -249,7 +196,20 @@ public class ImageUtil {
    * @return The scaled image.
    */
   public static BufferedImage scaleToHeight(BufferedImage image, int height) {
-    return Scalr.resize(image, Method.ULTRA_QUALITY, Mode.FIT_TO_HEIGHT, height, height);
+    return scaleToHeight(image, height, ScalingQuality.ULTRA_QUALITY);
+  }
+
+  /**
+   * Scale an image to a specific height, maintaining aspect ratio.
+   *
+   * @param image The image to scale.
+   * @param height The height to scale the image to.
+   * @param quality The quality tier of the scaling, trading speed for quality.
+   * @return The scaled image.
+   */
+  public static BufferedImage scaleToHeight(BufferedImage image, int height,
+      ScalingQuality quality) {
+    return Scalr.resize(image, quality.method, Mode.FIT_TO_HEIGHT, height, height);
   }
 
   /**
@@ -292,18 +252,10 @@ public class ImageUtil {
    */
   public static BufferedImage applyGaussianBlur(BufferedImage image, int pixelNeighborhoodSize,
       int substractedConstant) {
-    OpenCV.loadShared();
-
-    try {
-      Mat original = toMat(image);
-      Mat processed = new Mat(original.rows(), original.cols(), original.type());
+    try (var nativeImage = NativeImage.of(image)) {
+      nativeImage.applyGaussianBlur(pixelNeighborhoodSize, substractedConstant);
 
-      Imgproc.GaussianBlur(original, processed,
-          new Size(pixelNeighborhoodSize, pixelNeighborhoodSize), substractedConstant);
-
-      return toBufferedImage(processed);
-    } catch (IOException e) {
-      throw new ImageProcessingException(e);
+      return nativeImage.toBufferedImage();
     }
   }
 
@@ -319,18 +271,10 @@ public class ImageUtil {
    */
   public static BufferedImage applyAdaptiveGaussianThreshold(BufferedImage image,
       int pixelNeighborhoodSize, int substractedConstant) {
-    OpenCV.loadShared();
+    try (var nativeImage = NativeImage.of(image)) {
+      nativeImage.applyAdaptiveGaussianThreshold(pixelNeighborhoodSize, substractedConstant);
 
-    try {
-      Mat original = toMat(image);
-      Mat processed = new Mat(original.rows(), original.cols(), original.type());
-
-      Imgproc.adaptiveThreshold(original, processed, 255, Imgproc.ADAPTIVE_THRESH_MEAN_C,
-          Imgproc.THRESH_BINARY, pixelNeighborhoodSize, substractedConstant);
-
-      return toBufferedImage(processed);
-    } catch (IOException e) {
-      throw new ImageProcessingException(e);
+      return nativeImage.toBufferedImage();
     }
   }
 
@@ -343,19 +287,10 @@ public class ImageUtil {
    *      "https://docs.opencv.org/4.x/d7/d4d/tutorial_py_thresholding.html#autotoc_md1426">Documentation</a>
    */
   public static BufferedImage applyOtsuBinarization(BufferedImage image) {
-    OpenCV.loadShared();
+    try (var nativeImage = NativeImage.of(image)) {
+      nativeImage.applyOtsuBinarization();
 
-    try {
-      Mat original = toMat(image);
-      Mat filtered = new Mat(original.rows(), original.cols(), original.type());
-      Mat processed = new Mat(original.rows(), original.cols(), original.type());
-
-      Imgproc.GaussianBlur(original, filtered, new Size(5, 5), 0);
-      Imgproc.threshold(filtered, processed, Imgproc.THRESH_BINARY, 255, Imgproc.THRESH_OTSU);
-
-      return toBufferedImage(processed);
-    } catch (IOException e) {
-      throw new ImageProcessingException(e);
+      return nativeImage.toBufferedImage();
     }
   }
 
@@ -368,51 +303,230 @@ public class ImageUtil {
    *      "https://docs.opencv.org/4.x/dd/d49/tutorial_py_contour_features.html#autotoc_md1308">Documentation</a>
    */
   public static List<Rectangle> findBoundingBoxes(BufferedImage image) {
-    OpenCV.loadShared();
+    NativeRuntime.load();
 
-    try {
-      Mat original = toMat(image);
+    Mat original = toMat(image);
+    Mat hierarchy = new Mat();
+    List<MatOfPoint> contours = new ArrayList<>();
 
-      List<MatOfPoint> contours = new ArrayList<>();
-      Imgproc.findContours(original, contours, new Mat(), Imgproc.RETR_TREE,
+    try {
+      Imgproc.findContours(original, contours, hierarchy, Imgproc.RETR_TREE,
           Imgproc.CHAIN_APPROX_SIMPLE);
 
       return contours.parallelStream().map(n -> Imgproc.boundingRect(n))
           .map(n -> new Rectangle(n.x, n.y, n.width, n.height)).collect(Collectors.toList());
-    } catch (IOException e) {
-      throw new ImageProcessingException(e);
+    } finally {
+      original.release();
+      hierarchy.release();
+      contours.forEach(MatOfPoint::release);
     }
   }
 
   /**
-   * Convert a BufferedImage to an OpenCV {@link Mat}.
+   * Convert a BufferedImage to an OpenCV {@link Mat}. The pixels are copied straight from the
+   * image's raster, without any intermediary encoding. Greyscale images become single-channel
+   * {@link CvType#CV_8UC1} mats, every other image becomes a 3-channel {@link CvType#CV_8UC3} BGR
+   * mat (the alpha channel, if any, is dropped). The mat is registered in the current
+   * {@link MatScope}, if any.
    *
    * @param image The image to convert.
-   * 
-   * @see <a href=
-   *      "https://answers.opencv.org/question/28348/converting-bufferedimage-to-mat-in-java/">Source</a>
+   * @return The converted mat.
    */
-  public static Mat toMat(BufferedImage image) throws IOException {
-    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-    ImageIO.write(image, "jpg", byteArrayOutputStream);
-    byteArrayOutputStream.flush();
+  public static Mat toMat(BufferedImage image) {
+    NativeRuntime.load();
+    BufferedImage packedImage = toPackedRaster(image);
+
+    try {
+      return toMatFromPackedRaster(packedImage);
+    } finally {
+      if (packedImage != image) {
+        ImageBufferPool.get().returnImage(packedImage);
+      }
+    }
+  }
 
-    return Imgcodecs.imdecode(new MatOfByte(byteArrayOutputStream.toByteArray()),
-        Imgcodecs.IMREAD_ANYCOLOR);
+  private static Mat toMatFromPackedRaster(BufferedImage image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+
+    switch (image.getType()) {
+      case BufferedImage.TYPE_BYTE_GRAY:
+        return toMat(width, height, CvType.CV_8UC1, ((DataBufferByte) dataBuffer).getData());
+      case BufferedImage.TYPE_3BYTE_BGR:
+        return toMat(width, height, CvType.CV_8UC3, ((DataBufferByte) dataBuffer).getData());
+      case BufferedImage.TYPE_4BYTE_ABGR:
+        return abgrToBgrMat(width, height, ((DataBufferByte) dataBuffer).getData());
+      case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB:
+        return rgbToBgrMat(width, height, ((DataBufferInt) dataBuffer).getData(), false);
+      case BufferedImage.TYPE_INT_BGR:
+        return rgbToBgrMat(width, height, ((DataBufferInt) dataBuffer).getData(), true);
+      default:
+        throw new ImageProcessingException(
+            new IllegalArgumentException("Unsupported image type: " + image.getType()));
+    }
   }
 
   /**
-   * Convert an OpenCV {@link Mat} to a BufferedImage.
+   * Convert an OpenCV {@link Mat} to a BufferedImage. The pixels are copied straight into the
+   * image's raster, without any intermediary encoding. Single-channel mats become
+   * {@link BufferedImage#TYPE_BYTE_GRAY} images, 3-channel (BGR) mats become
+   * {@link BufferedImage#TYPE_3BYTE_BGR} images and 4-channel (BGRA) mats become
+   * {@link BufferedImage#TYPE_4BYTE_ABGR} images. Mats of a depth other than 8 bits are converted
+   * first, without scaling: their values are rounded and saturated to 0-255.
    *
    * @param mat The mat to convert.
    * @return The converted image.
-   * @throws IOException If the image could not be processed.
    */
-  public static BufferedImage toBufferedImage(Mat mat) throws IOException {
-    MatOfByte mob = new MatOfByte();
-    Imgcodecs.imencode(".jpg", mat, mob);
+  public static BufferedImage toBufferedImage(Mat mat) {
+    NativeRuntime.load();
+    Mat source = mat;
+
+    try {
+      if (source.depth() != CvType.CV_8U) {
+        source = MatScope.track(new Mat());
+        mat.convertTo(source, CvType.CV_8U);
+      }
+
+      if (!source.isContinuous()) {
+        source = MatScope.track(mat.clone());
+      }
+
+      int imageType = switch (source.channels()) {
+        case 1 -> BufferedImage.TYPE_BYTE_GRAY;
+        case 3 -> BufferedImage.TYPE_3BYTE_BGR;
+        case 4 -> BufferedImage.TYPE_4BYTE_ABGR;
+        default -> throw new ImageProcessingException(
+            new IllegalArgumentException("Unsupported channel count: " + source.channels()));
+      };
+
+      var image = new BufferedImage(source.cols(), source.rows(), imageType);
+      byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+      source.get(0, 0, pixels);
+
+      if (imageType == BufferedImage.TYPE_4BYTE_ABGR) {
+        bgraToAbgr(pixels);
+      }
+
+      return image;
+    } finally {
+      if (source != mat) {
+        source.release();
+      }
+    }
+  }
+
+  private static Mat toMat(int width, int height, int cvType, byte[] pixels) {
+    Mat mat = ImageBufferPool.get().borrowMat(height, width, cvType);
+    mat.put(0, 0, pixels);
+
+    return mat;
+  }
+
+  /**
+   * Ensures the image is backed by a raster the {@link Mat} bridge can read as-is: a supported
+   * type, whose data buffer starts at the first pixel and contains nothing but this image's rows
+   * (which is not the case of sub-images, for example). Images that do not qualify are redrawn into
+   * a pooled image.
+   */
+  private static BufferedImage toPackedRaster(BufferedImage image) {
+    if (isPackedRaster(image)) {
+      return image;
+    }
+
+    int type = image.getColorModel().getNumColorComponents() == 1 ? BufferedImage.TYPE_BYTE_GRAY
+        : BufferedImage.TYPE_3BYTE_BGR;
+    BufferedImage packedImage =
+        ImageBufferPool.get().borrowImage(image.getWidth(), image.getHeight(), type);
+    drawOnto(image, packedImage);
+
+    return packedImage;
+  }
+
+  /**
+   * Draws an image over the whole of another one of the same size, replacing its pixels rather
+   * than blending with them, as pooled images hold the pixels of their previous use.
+   */
+  private static void drawOnto(BufferedImage source, BufferedImage destination) {
+    Graphics2D graphics = destination.createGraphics();
+    graphics.setComposite(AlphaComposite.Src);
+    graphics.drawImage(source, 0, 0, null);
+    graphics.dispose();
+  }
+
+  private static boolean isPackedRaster(BufferedImage image) {
+    int samplesPerPixel = switch (image.getType()) {
+      case BufferedImage.TYPE_BYTE_GRAY -> 1;
+      case BufferedImage.TYPE_3BYTE_BGR -> 3;
+      case BufferedImage.TYPE_4BYTE_ABGR -> 4;
+      case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR -> 1;
+      default -> 0;
+    };
+
+    if (samplesPerPixel == 0) {
+      return false;
+    }
+
+    var raster = image.getRaster();
+    var dataBuffer = raster.getDataBuffer();
+
+    return raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+        && dataBuffer.getNumBanks() == 1 && dataBuffer.getOffset() == 0
+        && dataBuffer.getSize() == image.getWidth() * image.getHeight() * samplesPerPixel;
+  }
+
+  /**
+   * Converts the pixels row by row into a pooled mat, so that only one row of converted pixels is
+   * ever held in Java memory, rather than a copy of the whole image.
+   */
+  private static Mat abgrToBgrMat(int width, int height, byte[] abgr) {
+    Mat mat = ImageBufferPool.get().borrowMat(height, width, CvType.CV_8UC3);
+    byte[] row = new byte[width * 3];
+
+    for (int y = 0, j = 0; y < height; y++) {
+      for (int i = 0; i < row.length; i += 3, j += 4) {
+        row[i] = abgr[j + 1];
+        row[i + 1] = abgr[j + 2];
+        row[i + 2] = abgr[j + 3];
+      }
+
+      mat.put(y, 0, row);
+    }
+
+    return mat;
+  }
+
+  /**
+   * See {@link #abgrToBgrMat(int, int, byte[])}.
+   */
+  private static Mat rgbToBgrMat(int width, int height, int[] pixels, boolean isBgr) {
+    int redShift = isBgr ? 0 : 16;
+    int blueShift = isBgr ? 16 : 0;
+    Mat mat = ImageBufferPool.get().borrowMat(height, width, CvType.CV_8UC3);
+    byte[] row = new byte[width * 3];
 
-    return ImageIO.read(new ByteArrayInputStream(mob.toArray()));
+    for (int y = 0, j = 0; y < height; y++) {
+      for (int i = 0; i < row.length; i += 3, j++) {
+        int pixel = pixels[j];
+        row[i] = (byte) (pixel >> blueShift);
+        row[i + 1] = (byte) (pixel >> 8);
+        row[i + 2] = (byte) (pixel >> redShift);
+      }
+
+      mat.put(y, 0, row);
+    }
+
+    return mat;
+  }
+
+  private static void bgraToAbgr(byte[] pixels) {
+    for (int i = 0; i < pixels.length; i += 4) {
+      byte alpha = pixels[i + 3];
+      pixels[i + 3] = pixels[i + 2];
+      pixels[i + 2] = pixels[i + 1];
+      pixels[i + 1] = pixels[i];
+      pixels[i] = alpha;
+    }
   }
 
   /**
@@ -454,6 +568,51 @@ public class ImageUtil {
     ImageIO.write(image, format, imageFile);
   }
 
+  /**
+   * Encodes an image as JPEG in memory, exactly as it would be written to a ".jpg" file: same
+   * encoder, same default settings, same bytes. Never touches the disk, not even ImageIO's cache.
+   *
+   * @param image The image to encode. Must not have an alpha channel.
+   * @return The JPEG bytes.
+   * @throws ImageProcessingException If the image can't be encoded.
+   */
+  public static byte[] encodeToJpeg(BufferedImage image) {
+    var outputStream = new ByteArrayOutputStream();
+
+    try (var imageOutputStream = new MemoryCacheImageOutputStream(outputStream)) {
+      if (!ImageIO.write(image, "jpg", imageOutputStream)) {
+        throw new IOException("No JPEG encoder for images of type " + image.getType());
+      }
+    } catch (IOException e) {
+      throw new ImageProcessingException(e);
+    }
+
+    return outputStream.toByteArray();
+  }
+
+  /**
+   * Decodes an image in memory, exactly as it would be read from a file: same decoder, same pixels.
+   * Never touches the disk, not even ImageIO's cache.
+   *
+   * @param bytes The encoded image, e.g. from {@link #encodeToJpeg(BufferedImage)}.
+   * @return The decoded image.
+   * @throws ImageProcessingException If the image can't be decoded.
+   */
+  public static BufferedImage decode(byte[] bytes) {
+    try {
+      // Closed by ImageIO once read
+      var image = ImageIO.read(new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes)));
+
+      if (image == null) {
+        throw new IOException("No decoder for the image's format");
+      }
+
+      return image;
+    } catch (IOException e) {
+      throw new ImageProcessingException(e);
+    }
+  }
+
   /**
    * Aligns an image to a reference image using homography transformation. Uses ORB features
    * detected on the blue channel for alignment.
@@ -485,153 +644,10 @@ public class ImageUtil {
    */
   public static BufferedImage alignToReferenceWithValidation(BufferedImage imageToAlign,
       BufferedImage referenceImage, double minSimilarityThreshold) {
-    OpenCV.loadShared();
-
-    Mat refMat = null;
-    Mat imgMat = null;
-    List<Mat> refChannels = new ArrayList<>();
-    List<Mat> imgChannels = new ArrayList<>();
-    Mat emptyMask = null;
-    MatOfKeyPoint keypoints1 = null;
-    MatOfKeyPoint keypoints2 = null;
-    Mat descriptors1 = null;
-    Mat descriptors2 = null;
-    MatOfDMatch matches = null;
-    MatOfPoint2f matPoints1 = null;
-    MatOfPoint2f matPoints2 = null;
-    Mat homography = null;
-    Mat aligned = null;
-
-    try {
-      refMat = toMat(referenceImage);
-      imgMat = toMat(imageToAlign);
-
-      // Split into channels and extract blue channel (index 0)
-      Core.split(refMat, refChannels);
-      Core.split(imgMat, imgChannels);
-
-      Mat refBlue = refChannels.get(0);
-      Mat imgBlue = imgChannels.get(0);
-
-      // Detect ORB features and compute descriptors
-      int maxFeatures = 500;
-      ORB orb = ORB.create(maxFeatures);
-
-      keypoints1 = new MatOfKeyPoint();
-      keypoints2 = new MatOfKeyPoint();
-      descriptors1 = new Mat();
-      descriptors2 = new Mat();
-
-      emptyMask = new Mat();
-      orb.detectAndCompute(refBlue, emptyMask, keypoints1, descriptors1);
-      orb.detectAndCompute(imgBlue, emptyMask, keypoints2, descriptors2);
-
-      // Match features
-      DescriptorMatcher matcher = DescriptorMatcher.create(DescriptorMatcher.BRUTEFORCE_HAMMING);
-      matches = new MatOfDMatch();
-      matcher.match(descriptors1, descriptors2, matches);
-
-      // Sort and filter matches - keep best 10%
-      List<DMatch> matchList = matches.toList();
-      matchList.sort((a, b) -> Float.compare(a.distance, b.distance));
-      int numGoodMatches = (int) (matchList.size() * 0.1);
-      numGoodMatches = Math.max(numGoodMatches, 4); // Minimum 4 matches required for homography
-      matchList = matchList.subList(0, Math.min(numGoodMatches, matchList.size()));
-
-      if (matchList.size() < 4) {
-        throw new ImageProcessingException(
-            new IllegalArgumentException("Insufficient matches found for homography computation"));
-      }
-
-      // Extract matched points
-      List<Point> points1 = new ArrayList<>();
-      List<Point> points2 = new ArrayList<>();
-      for (DMatch match : matchList) {
-        points1.add(keypoints1.toList().get(match.queryIdx).pt);
-        points2.add(keypoints2.toList().get(match.trainIdx).pt);
-      }
-
-      matPoints1 = new MatOfPoint2f();
-      matPoints2 = new MatOfPoint2f();
-      matPoints1.fromList(points1);
-      matPoints2.fromList(points2);
-
-      // Find homography
-      homography = Calib3d.findHomography(matPoints2, matPoints1, Calib3d.RANSAC);
-
-      if (homography.empty()) {
-        throw new ImageProcessingException(
-            new IllegalStateException("Failed to compute homography matrix"));
-      }
-
-      // Warp image
-      aligned = new Mat();
-      Imgproc.warpPerspective(imgMat, aligned, homography, new Size(refMat.cols(), refMat.rows()));
-
-      BufferedImage result = toBufferedImage(aligned);
-
-      // Validate alignment quality if threshold is specified
-      if (minSimilarityThreshold > 0.0) {
-        double similarity = calculateImageSimilarity(result, referenceImage);
-        if (similarity < minSimilarityThreshold) {
-          logger.warn("Alignment quality below threshold: {} < {}", similarity,
-              minSimilarityThreshold);
-          return imageToAlign; // Return original image if alignment is poor
-        }
-        logger.debug("Alignment quality: {}", similarity);
-      }
-
-      return result;
-    } catch (IOException e) {
-      throw new ImageProcessingException(e);
-    } finally {
-      // Release OpenCV resources - always executed
-      for (Mat channel : refChannels) {
-        if (channel != null) {
-          channel.release();
-        }
-      }
-      for (Mat channel : imgChannels) {
-        if (channel != null) {
-          channel.release();
-        }
-      }
-      if (emptyMask != null) {
-        emptyMask.release();
-      }
-      if (keypoints1 != null) {
-        keypoints1.release();
-      }
-      if (keypoints2 != null) {
-        keypoints2.release();
-      }
-      if (descriptors1 != null) {
-        descriptors1.release();
-      }
-      if (descriptors2 != null) {
-        descriptors2.release();
-      }
-      if (matches != null) {
-        matches.release();
-      }
-      if (matPoints1 != null) {
-        matPoints1.release();
-      }
-      if (matPoints2 != null) {
-        matPoints2.release();
-      }
-      if (homography != null) {
-        homography.release();
-      }
-      if (aligned != null) {
-        aligned.release();
-      }
-      if (refMat != null) {
-        refMat.release();
-      }
-      if (imgMat != null) {
-        imgMat.release();
-      }
+    try (var reference = AlignmentReference.of(referenceImage);
+        var image = NativeImage.of(imageToAlign)) {
+      return image.alignTo(reference, minSimilarityThreshold) ? image.toBufferedImage()
+          : imageToAlign;
     }
   }
 
@@ -647,120 +663,14 @@ public class ImageUtil {
    */
   public static double calculateImageSimilarity(BufferedImage sourceImage,
       BufferedImage targetImage) {
-    OpenCV.loadShared();
-
-    Mat sourceMat = null;
-    Mat targetMat = null;
-    List<Mat> sourceChannels = new ArrayList<>();
-    List<Mat> targetChannels = new ArrayList<>();
-    Mat emptyMask = null;
-    MatOfKeyPoint keypoints1 = null;
-    MatOfKeyPoint keypoints2 = null;
-    Mat descriptors1 = null;
-    Mat descriptors2 = null;
-    MatOfDMatch matches = null;
-
-    try {
-      sourceMat = toMat(sourceImage);
-      targetMat = toMat(targetImage);
-
-      // Split into channels and extract blue channel (index 0)
-      Core.split(sourceMat, sourceChannels);
-      Core.split(targetMat, targetChannels);
-
-      Mat sourceBlue = sourceChannels.get(0);
-      Mat targetBlue = targetChannels.get(0);
+    try (var reference = AlignmentReference.of(targetImage)) {
+      Mat sourceMat = toMat(sourceImage);
 
-      // Detect ORB features and compute descriptors
-      int maxFeatures = 500;
-      ORB orb = ORB.create(maxFeatures);
-
-      keypoints1 = new MatOfKeyPoint();
-      keypoints2 = new MatOfKeyPoint();
-      descriptors1 = new Mat();
-      descriptors2 = new Mat();
-
-      emptyMask = new Mat();
-      orb.detectAndCompute(sourceBlue, emptyMask, keypoints1, descriptors1);
-      orb.detectAndCompute(targetBlue, emptyMask, keypoints2, descriptors2);
-
-      // Check if we have enough features
-      if (keypoints1.toList().isEmpty() || keypoints2.toList().isEmpty()) {
-        return 0.0;
-      }
-
-      // Match features
-      DescriptorMatcher matcher = DescriptorMatcher.create(DescriptorMatcher.BRUTEFORCE_HAMMING);
-      matches = new MatOfDMatch();
-      matcher.match(descriptors1, descriptors2, matches);
-
-      List<DMatch> matchList = matches.toList();
-      if (matchList.isEmpty()) {
-        return 0.0;
-      }
-
-      // Sort matches by distance (lower is better)
-      matchList.sort((a, b) -> Float.compare(a.distance, b.distance));
-
-      // Calculate similarity score based on good matches
-      // Good matches are those with distance below a threshold
-      int numGoodMatches = 0;
-      float maxDistance = 50.0f; // Threshold for considering a match "good"
-
-      for (DMatch match : matchList) {
-        if (match.distance < maxDistance) {
-          numGoodMatches++;
-        }
-      }
-
-      // Normalize the score: ratio of good matches to total possible matches
-      int minKeypoints = Math.min(keypoints1.toList().size(), keypoints2.toList().size());
-      if (minKeypoints == 0) {
-        return 0.0;
-      }
-      double similarityScore = (double) numGoodMatches / minKeypoints;
-
-      // Clamp between 0 and 1
-      return Math.min(1.0, Math.max(0.0, similarityScore));
-    } catch (IOException e) {
-      logger.warn("Failed to calculate image similarity", e);
-      return 0.0;
-    } finally {
-      // Release OpenCV resources - always executed
-      for (Mat channel : sourceChannels) {
-        if (channel != null) {
-          channel.release();
-        }
-      }
-      for (Mat channel : targetChannels) {
-        if (channel != null) {
-          channel.release();
-        }
-      }
-      if (emptyMask != null) {
-        emptyMask.release();
-      }
-      if (keypoints1 != null) {
-        keypoints1.release();
-      }
-      if (keypoints2 != null) {
-        keypoints2.release();
-      }
-      if (descriptors1 != null) {
-        descriptors1.release();
-      }
-      if (descriptors2 != null) {
-        descriptors2.release();
-      }
-      if (matches != null) {
-        matches.release();
-      }
-      if (sourceMat != null) {
+      try {
+        return reference.calculateSimilarity(sourceMat);
+      } finally {
         sourceMat.release();
       }
-      if (targetMat != null) {
-        targetMat.release();
-      }
     }
   }
 }
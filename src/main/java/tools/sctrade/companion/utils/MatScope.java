@@ -0,0 +1,166 @@
+package tools.sctrade.companion.utils;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.opencv.core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scope owning the native memory of the {@link Mat}s created while it is open, typically while a
+ * capture is processed. Mats are registered with {@link #track(Mat)} by the code creating them, and
+ * are all released when the scope is closed, whether their owner released them or not. Scopes are
+ * bound to the thread that opened them, and can be nested: a mat belongs to the innermost scope.
+ *
+ * <p>
+ * Open scopes can be measured at any time, from any thread, with {@link #getLiveCount()} and
+ * {@link #getLiveBytes()}. With leak detection enabled, the allocation site of every mat is kept,
+ * and the mats their owner never released are reported when their scope is closed.
+ * </p>
+ */
+public class MatScope implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(MatScope.class);
+
+  private static final ThreadLocal<MatScope> current = new ThreadLocal<>();
+  private static final Set<MatScope> openScopes = ConcurrentHashMap.newKeySet();
+  private static final AtomicLong leakedCount = new AtomicLong();
+  private static volatile boolean isLeakDetectionEnabled = false;
+
+  private final MatScope parent;
+  private final Queue<TrackedMat> mats = new ConcurrentLinkedQueue<>();
+  private boolean isClosed = false;
+
+  private MatScope(MatScope parent) {
+    this.parent = parent;
+  }
+
+  /**
+   * Opens a scope on the current thread. Must be closed by the same thread.
+   *
+   * @return The scope, now the current scope of the thread.
+   */
+  public static MatScope open() {
+    var scope = new MatScope(current.get());
+    current.set(scope);
+    openScopes.add(scope);
+
+    return scope;
+  }
+
+  /**
+   * Registers a mat in the current scope of the thread, which will release it when closed. Mats
+   * created outside of any scope are left to their owner, and are not measured.
+   *
+   * @param <T> The type of mat.
+   * @param mat The mat to register.
+   * @return The mat.
+   */
+  static <T extends Mat> T track(T mat) {
+    var scope = current.get();
+
+    if (scope != null) {
+      scope.mats.add(new TrackedMat(mat,
+          isLeakDetectionEnabled ? new Throwable("Mat allocated here") : null));
+    }
+
+    return mat;
+  }
+
+  /**
+   * Removes a mat from the scope it was registered in, among the scopes of the current thread. The
+   * mat is then left to its owner.
+   *
+   * @param mat The mat to remove.
+   */
+  static void untrack(Mat mat) {
+    for (var scope = current.get(); scope != null; scope = scope.parent) {
+      if (scope.mats.removeIf(n -> n.mat() == mat)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Enables or disables leak detection. Keeping allocation sites is costly, so it should only be
+   * enabled when debugging.
+   *
+   * @param isEnabled {@code true} to report the mats that are never released by their owner.
+   */
+  public static void setLeakDetectionEnabled(boolean isEnabled) {
+    isLeakDetectionEnabled = isEnabled;
+  }
+
+  /**
+   * Counts the mats of all open scopes that hold native memory.
+   *
+   * @return The number of live mats.
+   */
+  public static int getLiveCount() {
+    return (int) openScopes.stream().flatMap(n -> n.mats.stream()).filter(TrackedMat::isLive)
+        .count();
+  }
+
+  /**
+   * Sums the native memory held by the mats of all open scopes.
+   *
+   * @return The number of bytes held by live mats.
+   */
+  public static long getLiveBytes() {
+    return openScopes.stream().flatMap(n -> n.mats.stream()).mapToLong(TrackedMat::getBytes)
+        .sum();
+  }
+
+  /**
+   * Counts the mats released by their scope rather than by their owner, since the application
+   * started. Only counted when leak detection is enabled.
+   *
+   * @return The number of leaked mats.
+   */
+  public static long getLeakedCount() {
+    return leakedCount.get();
+  }
+
+  /**
+   * Releases every mat of this scope, and restores the scope it was opened in as the current scope
+   * of the thread.
+   */
+  @Override
+  public void close() {
+    if (isClosed) {
+      return;
+    }
+
+    isClosed = true;
+    TrackedMat trackedMat;
+
+    while ((trackedMat = mats.poll()) != null) {
+      if (trackedMat.allocationSite() != null && trackedMat.isLive()) {
+        leakedCount.incrementAndGet();
+        logger.warn("Leaked a mat of {} bytes", trackedMat.getBytes(),
+            trackedMat.allocationSite());
+      }
+
+      trackedMat.mat().release();
+    }
+
+    openScopes.remove(this);
+    current.set(parent);
+
+    if (parent == null) {
+      current.remove();
+    }
+  }
+
+  private record TrackedMat(Mat mat, Throwable allocationSite) {
+    boolean isLive() {
+      return !mat.empty();
+    }
+
+    long getBytes() {
+      return mat.total() * mat.elemSize();
+    }
+  }
+}
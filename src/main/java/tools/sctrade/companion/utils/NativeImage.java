@@ -0,0 +1,226 @@
+package tools.sctrade.companion.utils;
+
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Image held in native (OpenCV) memory. Lets a chain of image operations run without converting
+ * between Java and native memory at every step: the image is converted once when created, and once
+ * when read back with {@link #toBufferedImage()}. Every operation releases the native memory of the
+ * frame it replaces. Must be closed to release the native memory of the current frame. Frames are
+ * borrowed from the {@link ImageBufferPool}, and returned to it once replaced. While in use, they
+ * are registered in the current {@link MatScope}, if any.
+ */
+public class NativeImage implements AutoCloseable {
+  private Mat mat;
+
+  private NativeImage(Mat mat) {
+    this.mat = mat;
+  }
+
+  /**
+   * Copies an image into native memory.
+   *
+   * @param image The image to copy. Untouched.
+   * @return The native copy of the image.
+   */
+  public static NativeImage of(BufferedImage image) {
+    return new NativeImage(ImageUtil.toMat(image));
+  }
+
+  public int getWidth() {
+    return mat.cols();
+  }
+
+  public int getHeight() {
+    return mat.rows();
+  }
+
+  /**
+   * Copies this image back into Java memory.
+   *
+   * @return A copy of this image.
+   */
+  public BufferedImage toBufferedImage() {
+    return ImageUtil.toBufferedImage(mat);
+  }
+
+  /**
+   * Converts this image to greyscale. Does nothing if the image already is greyscale. Gives the same
+   * result as {@link ImageUtil#makeGreyscaleCopy(BufferedImage)}, that is Java2D's
+   * {@code (77 R + 150 G + 29 B + 128) / 256}, rather than OpenCV's own weights and rounding.
+   */
+  public void convertToGreyscale() {
+    if (mat.channels() == 1) {
+      return;
+    }
+
+    var weights = Mat.zeros(1, mat.channels() + 1, CvType.CV_32FC1);
+    try {
+      // Blue, green, red, (alpha,) offset. The 1/512 offset turns OpenCV's round half to even into
+      // Java2D's round half up, without moving any other value across a rounding boundary
+      weights.put(0, 0, 29 / 256f, 150 / 256f, 77 / 256f);
+      weights.put(0, mat.channels(), 1 / 512f);
+      apply(CvType.CV_8UC1, processed -> Core.transform(mat, processed, weights));
+    } finally {
+      weights.release();
+    }
+  }
+
+  /**
+   * Converts this image to greyscale and equalizes its histogram.
+   *
+   * @see {@link org.opencv.imgproc.Imgproc#equalizeHist Equalized histogram}
+   */
+  public void equalizeHistogram() {
+    convertToGreyscale();
+    apply(processed -> Imgproc.equalizeHist(mat, processed));
+  }
+
+  /**
+   * Converts this image to greyscale and equalizes its histogram by regions.
+   *
+   * @param clipLimit The contrast limit.
+   * @see {@link org.opencv.imgproc.CLAHE#apply Contrast Limited Adaptive Histogram Equalization}
+   */
+  public void applyClahe(double clipLimit) {
+    convertToGreyscale();
+    var clahe = Imgproc.createCLAHE();
+    clahe.setClipLimit(clipLimit);
+    apply(processed -> clahe.apply(mat, processed));
+  }
+
+  /**
+   * Adjusts the brightness and contrast of this image. Every channel of every pixel is multiplied
+   * by the contrast scale, then offset by the brightness. Like
+   * {@link ImageUtil#adjustBrightnessAndContrast(BufferedImage, float, float)}, results are
+   * truncated, then clamped.
+   *
+   * @param contrastScale The contrast
+   * @param brightnessOffset The brightness
+   */
+  public void adjustBrightnessAndContrast(float contrastScale, float brightnessOffset) {
+    var table = new byte[256];
+    for (int i = 0; i < table.length; i++) {
+      // Same computation as RescaleOp's lookup table
+      int value = (int) (i * contrastScale + brightnessOffset);
+      table[i] = (byte) Math.max(0, Math.min(255, value));
+    }
+
+    var lookUpTable = new Mat(1, table.length, CvType.CV_8UC1);
+    try {
+      lookUpTable.put(0, 0, table);
+      apply(processed -> Core.LUT(mat, lookUpTable, processed));
+    } finally {
+      lookUpTable.release();
+    }
+  }
+
+  /**
+   * Applies a Gaussian blur to this image.
+   *
+   * @param pixelNeighborhoodSize The size of the pixel neighborhood.
+   * @param sigma The Gaussian kernel standard deviation.
+   */
+  public void applyGaussianBlur(int pixelNeighborhoodSize, int sigma) {
+    apply(processed -> Imgproc.GaussianBlur(mat, processed,
+        new Size(pixelNeighborhoodSize, pixelNeighborhoodSize), sigma));
+  }
+
+  /**
+   * Converts this image to greyscale and applies an adaptive threshold to it.
+   *
+   * @param pixelNeighborhoodSize The size of the pixel neighborhood.
+   * @param substractedConstant The constant to subtract from the mean.
+   * @see <a href=
+   *      "https://docs.opencv.org/4.x/d7/d4d/tutorial_py_thresholding.html#autotoc_md1425">Documentation</a>
+   */
+  public void applyAdaptiveGaussianThreshold(int pixelNeighborhoodSize, int substractedConstant) {
+    convertToGreyscale();
+    apply(processed -> Imgproc.adaptiveThreshold(mat, processed, 255,
+        Imgproc.ADAPTIVE_THRESH_MEAN_C, Imgproc.THRESH_BINARY, pixelNeighborhoodSize,
+        substractedConstant));
+  }
+
+  /**
+   * Converts this image to greyscale and binarizes it using Otsu's method.
+   *
+   * @see <a href=
+   *      "https://docs.opencv.org/4.x/d7/d4d/tutorial_py_thresholding.html#autotoc_md1426">Documentation</a>
+   */
+  public void applyOtsuBinarization() {
+    convertToGreyscale();
+    applyGaussianBlur(5, 0);
+    apply(processed -> Imgproc.threshold(mat, processed, Imgproc.THRESH_BINARY, 255,
+        Imgproc.THRESH_OTSU));
+  }
+
+  /**
+   * Aligns this image to a reference image. See
+   * {@link ImageUtil#alignToReferenceWithValidation(BufferedImage, BufferedImage, double)}.
+   *
+   * @param reference The reference to align to.
+   * @param minSimilarityThreshold Minimum similarity score (0.0 to 1.0) required for the alignment
+   *        to be considered valid. Use 0.0 to skip validation.
+   * @return {@code true} if this image was aligned, {@code false} if the alignment quality was
+   *         below the threshold, in which case this image is untouched.
+   */
+  public boolean alignTo(AlignmentReference reference, double minSimilarityThreshold) {
+    return alignTo(reference, minSimilarityThreshold, true);
+  }
+
+  /**
+   * Aligns this image to a reference image. See
+   * {@link AlignmentReference#align(Mat, double, boolean)}.
+   *
+   * @param reference The reference to align to.
+   * @param minSimilarityThreshold Minimum similarity score (0.0 to 1.0) required for the alignment
+   *        to be considered valid. Use 0.0 to skip validation.
+   * @param rememberPose Whether the reference remembers this image's pose, to align the next ones.
+   * @return {@code true} if this image was aligned, {@code false} if the alignment quality was
+   *         below the threshold, in which case this image is untouched.
+   */
+  public boolean alignTo(AlignmentReference reference, double minSimilarityThreshold,
+      boolean rememberPose) {
+    var aligned = reference.align(mat, minSimilarityThreshold, rememberPose);
+    aligned.map(MatScope::track).ifPresent(this::replace);
+
+    return aligned.isPresent();
+  }
+
+  @Override
+  public void close() {
+    ImageBufferPool.get().returnMat(mat);
+  }
+
+  private void apply(Consumer<Mat> operation) {
+    apply(mat.type(), operation);
+  }
+
+  /**
+   * Applies an operation writing to a new frame, borrowed with the size of the current frame and
+   * the given type. OpenCV reallocates the frame if the operation's output differs.
+   */
+  private void apply(int type, Consumer<Mat> operation) {
+    Mat processed = ImageBufferPool.get().borrowMat(mat.rows(), mat.cols(), type);
+
+    try {
+      operation.accept(processed);
+    } catch (RuntimeException e) {
+      ImageBufferPool.get().returnMat(processed);
+      throw e;
+    }
+
+    replace(processed);
+  }
+
+  private void replace(Mat processed) {
+    ImageBufferPool.get().returnMat(mat);
+    mat = processed;
+  }
+}
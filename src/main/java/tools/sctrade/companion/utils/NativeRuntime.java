@@ -0,0 +1,38 @@
+package tools.sctrade.companion.utils;
+
+import nu.pattern.OpenCV;
+
+/**
+ * Native runtime of the image pipeline, i.e. OpenCV's native library. Loading it extracts and links
+ * a large library, so it's only done once per application, ideally at startup (see
+ * {@link NativeRuntimeBootstrap}). Every entry point into OpenCV must still call {@link #load()},
+ * which is free once the runtime is loaded.
+ */
+public class NativeRuntime {
+  private static volatile boolean isLoaded = false;
+
+  /**
+   * Loads the native runtime, unless it's already loaded. Thread-safe: concurrent callers wait for
+   * the first one to be done.
+   */
+  public static void load() {
+    if (isLoaded) {
+      return;
+    }
+
+    synchronized (NativeRuntime.class) {
+      if (!isLoaded) {
+        OpenCV.loadShared();
+        isLoaded = true;
+      }
+    }
+  }
+
+  public static boolean isLoaded() {
+    return isLoaded;
+  }
+
+  private NativeRuntime() {
+    // Intentionally empty
+  }
+}
@@ -0,0 +1,98 @@
+package tools.sctrade.companion.utils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Prepares the application for its first capture in the background, so that it is as fast as the
+ * next ones: loads the {@link NativeRuntime}, then runs warm-ups, e.g. a synthetic capture through
+ * the whole pipeline to load its resources and warm the JIT up. Warm-ups are best effort: a failing
+ * one is logged, and only costs the first capture some time.
+ */
+public class NativeRuntimeBootstrap {
+  private final Logger logger = LoggerFactory.getLogger(NativeRuntimeBootstrap.class);
+
+  private final Executor executor;
+  private final List<Runnable> warmUps;
+  private final CompletableFuture<Void> readiness = new CompletableFuture<>();
+  private final AtomicBoolean isStarted = new AtomicBoolean(false);
+
+  /**
+   * Creates a bootstrap running on its own daemon thread.
+   *
+   * @param warmUps The warm-ups to run, in order, once the native runtime is loaded.
+   */
+  public NativeRuntimeBootstrap(List<Runnable> warmUps) {
+    this(n -> Thread.ofPlatform().daemon().name("NativeRuntimeBootstrap").start(n), warmUps);
+  }
+
+  /**
+   * Creates a bootstrap.
+   *
+   * @param executor The executor to run the bootstrap on.
+   * @param warmUps The warm-ups to run, in order, once the native runtime is loaded.
+   */
+  public NativeRuntimeBootstrap(Executor executor, List<Runnable> warmUps) {
+    this.executor = executor;
+    this.warmUps = List.copyOf(warmUps);
+  }
+
+  /**
+   * Starts the bootstrap, unless it's already started. Never blocks.
+   *
+   * @return The readiness of the application, see {@link #getReadiness()}.
+   */
+  public CompletableFuture<Void> start() {
+    if (isStarted.compareAndSet(false, true)) {
+      executor.execute(this::run);
+    }
+
+    return readiness;
+  }
+
+  /**
+   * Gets the readiness of the application, completed once the native runtime is loaded and every
+   * warm-up has run. Completed exceptionally if the native runtime can't be loaded.
+   *
+   * @return The readiness of the application.
+   */
+  public CompletableFuture<Void> getReadiness() {
+    return readiness;
+  }
+
+  private void run() {
+    long start = System.nanoTime();
+
+    try {
+      logger.debug("Loading native runtime...");
+      NativeRuntime.load();
+      logger.debug("Loaded native runtime");
+    } catch (Throwable e) {
+      logger.error("Error while loading native runtime", e);
+      readiness.completeExceptionally(e);
+
+      return;
+    }
+
+    try {
+      for (var warmUp : warmUps) {
+        try {
+          warmUp.run();
+        } catch (Exception | LinkageError e) {
+          // e.g. UnsatisfiedLinkError when the OCR's native library is missing
+          logger.warn("Error while warming up, the first capture will be slower", e);
+        }
+      }
+
+      logger.info("Ready in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } finally {
+      // Warm-ups are best effort: whatever happened, the application is as ready as it gets
+      readiness.complete(null);
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package tools.sctrade.companion.utils;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Perceptual hash of an image: near-identical images have near-identical hashes, unlike
+ * cryptographic hashes. Each region of the image is averaged into a thumbnail, a grid of cells, and
+ * hashes are compared cell by cell. Cells fine enough for text to matter: a kiosk's listings are
+ * split into rows of a few lines each, and a changed digit shifts a cell's luminance by several
+ * levels, while noise averages out.
+ *
+ * <p>
+ * Cells are compared by luminance rather than by the sign of their difference with their neighbour
+ * (dHash): on dark, uniform backgrounds, neighbours are so alike that noise flips their order.
+ * </p>
+ */
+public class PerceptualHash {
+  private static final int GRID_WIDTH = 32;
+  private static final int GRID_HEIGHT = 32;
+  private static final int CELLS_PER_REGION = GRID_WIDTH * GRID_HEIGHT;
+  private static final int SAMPLING_HEIGHT = 1080; // Finer sampling wouldn't change the averages
+  private static final float LUMINANCE_TOLERANCE = 1.5f; // Out of 255
+
+  private final float[] luminances;
+
+  private PerceptualHash(float[] luminances) {
+    this.luminances = luminances;
+  }
+
+  /**
+   * Hashes a whole image.
+   *
+   * @param image The image to hash. Untouched.
+   * @return The hash.
+   */
+  public static PerceptualHash of(BufferedImage image) {
+    return of(image, List.of(new Rectangle(0, 0, image.getWidth(), image.getHeight())));
+  }
+
+  /**
+   * Hashes regions of an image, ignoring the rest of it.
+   *
+   * @param image The image to hash. Untouched.
+   * @param regions The regions to hash, clipped to the image.
+   * @return The hash.
+   */
+  public static PerceptualHash of(BufferedImage image, List<Rectangle> regions) {
+    var bounds = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+    int stride = Math.max(1, image.getHeight() / SAMPLING_HEIGHT);
+    float[] luminances = new float[regions.size() * CELLS_PER_REGION];
+
+    for (int i = 0; i < regions.size(); i++) {
+      var region = regions.get(i).intersection(bounds);
+
+      if (!region.isEmpty()) {
+        average(image, region, stride, luminances, i * CELLS_PER_REGION);
+      }
+    }
+
+    return new PerceptualHash(luminances);
+  }
+
+  /**
+   * Parses a hash formatted by {@link #toString()}. Luminances are rounded to the nearest level, well
+   * within the tolerance of {@link #distanceTo(PerceptualHash)}.
+   *
+   * @param hex The hash, as hexadecimal.
+   * @return The hash.
+   * @throws IllegalArgumentException If it isn't a hash.
+   */
+  public static PerceptualHash parse(String hex) {
+    byte[] bytes = HexFormat.of().parseHex(hex);
+    if (bytes.length % CELLS_PER_REGION != 0) {
+      throw new IllegalArgumentException("Not a whole number of regions: " + bytes.length);
+    }
+
+    float[] luminances = new float[bytes.length];
+    for (int i = 0; i < bytes.length; i++) {
+      luminances[i] = bytes[i] & 0xFF;
+    }
+
+    return new PerceptualHash(luminances);
+  }
+
+  /**
+   * Measures how different two hashes are.
+   *
+   * @param other The other hash.
+   * @return The ratio of differing cells, between 0.0 (identical) and 1.0. Hashes of different
+   *         lengths, i.e. of a different number of regions, are entirely different.
+   */
+  public double distanceTo(PerceptualHash other) {
+    if (luminances.length != other.luminances.length) {
+      return 1.0;
+    }
+    if (luminances.length == 0) {
+      return 0.0;
+    }
+
+    int differingCells = 0;
+
+    for (int i = 0; i < luminances.length; i++) {
+      if (Math.abs(luminances[i] - other.luminances[i]) > LUMINANCE_TOLERANCE) {
+        differingCells++;
+      }
+    }
+
+    return (double) differingCells / luminances.length;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof PerceptualHash other && Arrays.equals(luminances, other.luminances);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(luminances);
+  }
+
+  /**
+   * Formats the thumbnail as hexadecimal, one byte of luminance per cell.
+   *
+   * @return The hash, as hexadecimal.
+   */
+  @Override
+  public String toString() {
+    byte[] bytes = new byte[luminances.length];
+
+    for (int i = 0; i < luminances.length; i++) {
+      bytes[i] = (byte) Math.round(luminances[i]);
+    }
+
+    return HexFormat.of().formatHex(bytes);
+  }
+
+  private static void average(BufferedImage image, Rectangle region, int stride,
+      float[] luminances, int offset) {
+    double[] sums = new double[CELLS_PER_REGION];
+    int[] counts = new int[CELLS_PER_REGION];
+    int[] row = new int[region.width];
+
+    for (int y = region.y; y < region.y + region.height; y += stride) {
+      int cellY = (int) ((long) (y - region.y) * GRID_HEIGHT / region.height);
+      image.getRGB(region.x, y, region.width, 1, row, 0, region.width);
+
+      for (int x = 0; x < region.width; x += stride) {
+        int cell = (cellY * GRID_WIDTH) + (int) ((long) x * GRID_WIDTH / region.width);
+        int rgb = row[x];
+        sums[cell] +=
+            0.299 * ((rgb >> 16) & 0xFF) + 0.587 * ((rgb >> 8) & 0xFF) + 0.114 * (rgb & 0xFF);
+        counts[cell]++;
+      }
+    }
+
+    for (int cell = 0; cell < CELLS_PER_REGION; cell++) {
+      luminances[offset + cell] = counts[cell] == 0 ? 0f : (float) (sums[cell] / counts[cell]);
+    }
+  }
+}
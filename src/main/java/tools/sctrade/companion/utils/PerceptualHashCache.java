@@ -0,0 +1,123 @@
+package tools.sctrade.companion.utils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Short-lived cache of values, e.g. processing results, keyed by the {@link PerceptualHash} of the
+ * image they were computed from. Lookups are fuzzy: any hash close enough to a cached one hits it,
+ * so that near-identical images share a value. Entries expire a fixed time after being added.
+ * Thread-safe.
+ *
+ * @param <V> The type of the cached values.
+ */
+public class PerceptualHashCache<V> {
+  private final Duration timeToLive;
+  private final double maxDistance;
+  private final Clock clock;
+  private final List<Entry<V>> entries = new ArrayList<>();
+
+  /**
+   * Creates a cache.
+   *
+   * @param timeToLive How long entries are kept.
+   * @param maxDistance The maximum distance between two hashes of near-identical images, see
+   *        {@link PerceptualHash#distanceTo(PerceptualHash)}.
+   */
+  public PerceptualHashCache(Duration timeToLive, double maxDistance) {
+    this(timeToLive, maxDistance, Clock.systemUTC());
+  }
+
+  /**
+   * Creates a cache.
+   *
+   * @param timeToLive How long entries are kept.
+   * @param maxDistance The maximum distance between two hashes of near-identical images, see
+   *        {@link PerceptualHash#distanceTo(PerceptualHash)}.
+   * @param clock The clock entries expire by.
+   */
+  public PerceptualHashCache(Duration timeToLive, double maxDistance, Clock clock) {
+    if (maxDistance < 0.0 || maxDistance > 1.0) {
+      throw new IllegalArgumentException("Max distance must be between 0 and 1: " + maxDistance);
+    }
+
+    this.timeToLive = timeToLive;
+    this.maxDistance = maxDistance;
+    this.clock = clock;
+  }
+
+  /**
+   * Finds the value of a near-identical image.
+   *
+   * @param hash The hash of the image.
+   * @return The value of the closest near-identical image, if any.
+   */
+  public synchronized Optional<V> get(PerceptualHash hash) {
+    removeExpiredEntries();
+
+    return findClosest(hash).map(Entry::value);
+  }
+
+  /**
+   * Adds a value, unless a near-identical image already has one. Checking and adding are atomic,
+   * so that concurrent near-identical images can't both add theirs.
+   *
+   * @param hash The hash of the image.
+   * @param value The value of the image.
+   * @return The value of the closest near-identical image if there was one, in which case nothing
+   *         was added.
+   */
+  public synchronized Optional<V> putIfAbsent(PerceptualHash hash, V value) {
+    removeExpiredEntries();
+    var closest = findClosest(hash);
+
+    if (closest.isEmpty()) {
+      entries.add(new Entry<>(hash, value, clock.instant().plus(timeToLive)));
+    }
+
+    return closest.map(Entry::value);
+  }
+
+  /**
+   * Removes the value of an image, e.g. because it couldn't be computed after all.
+   *
+   * @param hash The hash of the image, as it was added.
+   */
+  public synchronized void remove(PerceptualHash hash) {
+    entries.removeIf(n -> n.hash().equals(hash));
+  }
+
+  public synchronized int size() {
+    removeExpiredEntries();
+
+    return entries.size();
+  }
+
+  private Optional<Entry<V>> findClosest(PerceptualHash hash) {
+    Entry<V> closest = null;
+    double closestDistance = Double.MAX_VALUE;
+
+    for (var entry : entries) {
+      double distance = entry.hash().distanceTo(hash);
+
+      if (distance <= maxDistance && distance < closestDistance) {
+        closest = entry;
+        closestDistance = distance;
+      }
+    }
+
+    return Optional.ofNullable(closest);
+  }
+
+  private void removeExpiredEntries() {
+    Instant now = clock.instant();
+    entries.removeIf(n -> !n.expiration().isAfter(now));
+  }
+
+  private record Entry<V>(PerceptualHash hash, V value, Instant expiration) {
+  }
+}
@@ -0,0 +1,385 @@
+package tools.sctrade.companion.utils;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per-pixel image operations working directly on the data buffer of an image. Pixels are read and
+ * written as primitives, without allocating per pixel. Images backed by packed int pixels
+ * ({@link BufferedImage#TYPE_INT_RGB}, {@link BufferedImage#TYPE_INT_ARGB},
+ * {@link BufferedImage#TYPE_INT_BGR}) or interleaved byte samples
+ * ({@link BufferedImage#TYPE_3BYTE_BGR}, {@link BufferedImage#TYPE_4BYTE_ABGR}), sub-images
+ * included, are read straight from their buffer. Other images go through their color model, one
+ * row at a time.
+ *
+ * <p>
+ * The inner loops over buffers and rows are vectorized with the Vector API when the
+ * {@code jdk.incubator.vector} module is added to the JVM ({@code --add-modules
+ * jdk.incubator.vector}) and the CPU has SIMD registers of at least 128 bits. Otherwise, scalar
+ * loops are used. Both produce identical results.
+ * </p>
+ *
+ * <p>
+ * Images read straight from their buffer are processed in bands, in parallel, by a
+ * {@link TiledExecutor}. Others are processed on the calling thread, as color models are not meant
+ * to be used concurrently.
+ * </p>
+ */
+final class PixelKernels {
+  private static final Logger logger = LoggerFactory.getLogger(PixelKernels.class);
+
+  private static final int APPROXIMATION_STEP = 10;
+  private static final int APPROXIMATE_LEVELS = (255 / APPROXIMATION_STEP) + 1;
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+  private static final int ROW_BYTES_PER_PIXEL = 4; // Rows are processed as int RGB values
+
+  private static final PixelKernels SCALAR = new PixelKernels(false, TiledExecutor.get());
+  private static final Optional<PixelKernels> VECTORIZED = loadVectorized();
+
+  private final boolean isVectorized;
+  private final TiledExecutor executor;
+
+  private PixelKernels(boolean isVectorized, TiledExecutor executor) {
+    this.isVectorized = isVectorized;
+    this.executor = executor;
+  }
+
+  /**
+   * Gets the fastest kernels available on this JVM and CPU.
+   *
+   * @return The vectorized kernels if available, the scalar ones otherwise.
+   */
+  static PixelKernels get() {
+    return VECTORIZED.orElse(SCALAR);
+  }
+
+  static PixelKernels scalar() {
+    return SCALAR;
+  }
+
+  /**
+   * Gets the vectorized kernels.
+   *
+   * @return The vectorized kernels, or empty if the Vector API is unavailable or not accelerated.
+   */
+  static Optional<PixelKernels> vectorized() {
+    return VECTORIZED;
+  }
+
+  private static Optional<PixelKernels> loadVectorized() {
+    // VectorPixelKernels can't even be loaded without the module
+    if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+      logger.info("{} module not added, using scalar pixel kernels", VECTOR_MODULE);
+      return Optional.empty();
+    }
+
+    if (!VectorPixelKernels.isAccelerated()) {
+      logger.info("SIMD not supported by the CPU, using scalar pixel kernels");
+      return Optional.empty();
+    }
+
+    return Optional.of(new PixelKernels(true, TiledExecutor.get()));
+  }
+
+  /**
+   * Gets the same kernels, run by another executor.
+   *
+   * @param executor The executor to run the kernels on.
+   * @return The kernels run by the executor.
+   */
+  PixelKernels on(TiledExecutor executor) {
+    return new PixelKernels(isVectorized, executor);
+  }
+
+  /**
+   * Inverts the colors of an image, in place. The alpha channel, if any, becomes opaque.
+   */
+  void invertColors(BufferedImage image) {
+    getExecutor(image).forEachBand(image.getHeight(), image.getWidth() * ROW_BYTES_PER_PIXEL, 0,
+        band -> invertColors(image, band.y(), band.height()));
+  }
+
+  private void invertColors(BufferedImage image, int y, int height) {
+    var raster = image.getRaster();
+    int width = image.getWidth();
+
+    switch (image.getType()) {
+      case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_BGR:
+        invertInts(raster, width, y, height, 0xFFFFFF, 0);
+        break;
+      case BufferedImage.TYPE_INT_ARGB:
+        invertInts(raster, width, y, height, 0xFFFFFF, 0xFF000000);
+        break;
+      case BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR:
+        invertBytes(raster, width, y, height);
+        break;
+      default:
+        int[] row = new int[width];
+
+        for (int rowY = y; rowY < y + height; rowY++) {
+          image.getRGB(0, rowY, width, 1, row, 0, width);
+
+          for (int x = 0; x < width; x++) {
+            row[x] = ~row[x] | 0xFF000000;
+          }
+
+          image.setRGB(0, rowY, width, 1, row, 0, width);
+        }
+    }
+  }
+
+  /**
+   * Finds the most frequent approximate color of a rectangle in an image. Channels are rounded
+   * down to the nearest multiple of 10. Ties go to the darkest color, red first.
+   *
+   * @return The RGB value of the dominant approximate color.
+   */
+  int calculateDominantColor(BufferedImage image, Rectangle rectangle) {
+    int[] counts = getExecutor(image).reduceBands(rectangle.height,
+        rectangle.width * ROW_BYTES_PER_PIXEL, () -> new Histogram(rectangle.width),
+        (histogram, band) -> count(image, rectangle, band, histogram), Histogram::add).counts();
+    int dominant = 0;
+
+    for (int i = 1; i < counts.length; i++) {
+      if (counts[i] > counts[dominant]) {
+        dominant = i;
+      }
+    }
+
+    int red = (dominant / (APPROXIMATE_LEVELS * APPROXIMATE_LEVELS)) * APPROXIMATION_STEP;
+    int green = ((dominant / APPROXIMATE_LEVELS) % APPROXIMATE_LEVELS) * APPROXIMATION_STEP;
+    int blue = (dominant % APPROXIMATE_LEVELS) * APPROXIMATION_STEP;
+
+    return (red << 16) | (green << 8) | blue;
+  }
+
+  /**
+   * Averages the colors of a rectangle in an image, channel by channel, rounding down.
+   *
+   * @return The RGB value of the average color.
+   */
+  int calculateAverageColor(BufferedImage image, Rectangle rectangle) {
+    long[] totals = getExecutor(image).reduceBands(rectangle.height,
+        rectangle.width * ROW_BYTES_PER_PIXEL, () -> new Sums(rectangle.width),
+        (sums, band) -> sum(image, rectangle, band, sums), Sums::add).totals();
+    long pixelCount = (long) rectangle.width * rectangle.height;
+
+    return (int) ((totals[0] / pixelCount) << 16 | (totals[1] / pixelCount) << 8
+        | (totals[2] / pixelCount));
+  }
+
+  private void count(BufferedImage image, Rectangle rectangle, TiledExecutor.Band band,
+      Histogram histogram) {
+    for (int y = rectangle.y + band.y(); y < rectangle.y + band.y() + band.height(); y++) {
+      readRow(image, rectangle.x, y, histogram.row());
+
+      if (isVectorized) {
+        VectorPixelKernels.approximate(histogram.row(), histogram.bins(), APPROXIMATE_LEVELS);
+      } else {
+        approximate(histogram.row(), histogram.bins());
+      }
+
+      for (int bin : histogram.bins()) {
+        histogram.counts()[bin]++;
+      }
+    }
+  }
+
+  private void sum(BufferedImage image, Rectangle rectangle, TiledExecutor.Band band, Sums sums) {
+    for (int y = rectangle.y + band.y(); y < rectangle.y + band.y() + band.height(); y++) {
+      readRow(image, rectangle.x, y, sums.row());
+
+      if (isVectorized) {
+        VectorPixelKernels.sumChannels(sums.row(), sums.totals());
+      } else {
+        sumChannels(sums.row(), sums.totals());
+      }
+    }
+  }
+
+  private TiledExecutor getExecutor(BufferedImage image) {
+    return switch (image.getType()) {
+      case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR,
+          BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR -> executor;
+      default -> TiledExecutor.sequential();
+    };
+  }
+
+  private static void approximate(int[] row, int[] bins) {
+    for (int i = 0; i < row.length; i++) {
+      int red = ((row[i] >> 16) & 0xFF) / APPROXIMATION_STEP;
+      int green = ((row[i] >> 8) & 0xFF) / APPROXIMATION_STEP;
+      int blue = (row[i] & 0xFF) / APPROXIMATION_STEP;
+      bins[i] = (((red * APPROXIMATE_LEVELS) + green) * APPROXIMATE_LEVELS) + blue;
+    }
+  }
+
+  private static void sumChannels(int[] row, long[] totals) {
+    for (int rgb : row) {
+      totals[0] += (rgb >> 16) & 0xFF;
+      totals[1] += (rgb >> 8) & 0xFF;
+      totals[2] += rgb & 0xFF;
+    }
+  }
+
+  /**
+   * Reads the RGB values of a row of pixels, starting at (x, y), without alpha.
+   */
+  private void readRow(BufferedImage image, int x, int y, int[] row) {
+    var raster = image.getRaster();
+
+    switch (image.getType()) {
+      case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB:
+        readInts(raster, x, y, row, false);
+        break;
+      case BufferedImage.TYPE_INT_BGR:
+        readInts(raster, x, y, row, true);
+        break;
+      case BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR:
+        readBytes(raster, x, y, row);
+        break;
+      default:
+        image.getRGB(x, y, row.length, 1, row, 0, row.length);
+
+        for (int i = 0; i < row.length; i++) {
+          row[i] &= 0xFFFFFF;
+        }
+    }
+  }
+
+  private void readInts(WritableRaster raster, int x, int y, int[] row, boolean isBgr) {
+    int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+    int index = intIndex(raster, x, y);
+
+    if (isVectorized) {
+      VectorPixelKernels.readInts(data, index, row, isBgr);
+      return;
+    }
+
+    for (int i = 0; i < row.length; i++) {
+      int pixel = data[index + i];
+      row[i] = isBgr ? ((pixel & 0xFF) << 16) | (pixel & 0xFF00) | ((pixel >> 16) & 0xFF)
+          : pixel & 0xFFFFFF;
+    }
+  }
+
+  private static void readBytes(WritableRaster raster, int x, int y, int[] row) {
+    var sampleModel = (PixelInterleavedSampleModel) raster.getSampleModel();
+    byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+    int[] bandOffsets = sampleModel.getBandOffsets();
+    int pixelStride = sampleModel.getPixelStride();
+    int index = byteIndex(raster, x, y);
+
+    for (int i = 0; i < row.length; i++, index += pixelStride) {
+      row[i] = ((data[index + bandOffsets[0]] & 0xFF) << 16)
+          | ((data[index + bandOffsets[1]] & 0xFF) << 8) | (data[index + bandOffsets[2]] & 0xFF);
+    }
+  }
+
+  private void invertInts(WritableRaster raster, int width, int y, int height, int colorMask,
+      int alphaMask) {
+    int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+
+    for (int rowY = y; rowY < y + height; rowY++) {
+      int index = intIndex(raster, 0, rowY);
+
+      if (isVectorized) {
+        VectorPixelKernels.invertInts(data, index, width, colorMask, alphaMask);
+        continue;
+      }
+
+      for (int i = index; i < index + width; i++) {
+        data[i] = (~data[i] & colorMask) | alphaMask;
+      }
+    }
+  }
+
+  private void invertBytes(WritableRaster raster, int width, int y, int height) {
+    var sampleModel = (PixelInterleavedSampleModel) raster.getSampleModel();
+    byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+    int[] bandOffsets = sampleModel.getBandOffsets();
+    int pixelStride = sampleModel.getPixelStride();
+
+    if (isVectorized) {
+      VectorPixelKernels.invertBytes(data, byteIndex(raster, 0, y),
+          sampleModel.getScanlineStride(), width, height, pixelStride,
+          bandOffsets.length == 4 ? bandOffsets[3] : -1);
+      return;
+    }
+
+    for (int rowY = y; rowY < y + height; rowY++) {
+      int index = byteIndex(raster, 0, rowY);
+
+      for (int x = 0; x < width; x++, index += pixelStride) {
+        data[index + bandOffsets[0]] = (byte) ~data[index + bandOffsets[0]];
+        data[index + bandOffsets[1]] = (byte) ~data[index + bandOffsets[1]];
+        data[index + bandOffsets[2]] = (byte) ~data[index + bandOffsets[2]];
+
+        if (bandOffsets.length == 4) {
+          data[index + bandOffsets[3]] = (byte) 0xFF;
+        }
+      }
+    }
+  }
+
+  private static int intIndex(WritableRaster raster, int x, int y) {
+    var sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+
+    return raster.getDataBuffer().getOffset() + sampleModel.getOffset(
+        x - raster.getSampleModelTranslateX(), y - raster.getSampleModelTranslateY());
+  }
+
+  /**
+   * Index of the first sample of a pixel, to which band offsets are added.
+   */
+  private static int byteIndex(WritableRaster raster, int x, int y) {
+    var sampleModel = (PixelInterleavedSampleModel) raster.getSampleModel();
+
+    return raster.getDataBuffer().getOffset()
+        + ((y - raster.getSampleModelTranslateY()) * sampleModel.getScanlineStride())
+        + ((x - raster.getSampleModelTranslateX()) * sampleModel.getPixelStride());
+  }
+
+  /**
+   * Approximate color counts of some rows, with buffers to process rows.
+   */
+  private record Histogram(int[] counts, int[] row, int[] bins) {
+    Histogram(int width) {
+      this(new int[APPROXIMATE_LEVELS * APPROXIMATE_LEVELS * APPROXIMATE_LEVELS], new int[width],
+          new int[width]);
+    }
+
+    Histogram add(Histogram other) {
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] += other.counts[i];
+      }
+
+      return this;
+    }
+  }
+
+  /**
+   * Red, green and blue totals of some rows, with a buffer to read rows.
+   */
+  private record Sums(long[] totals, int[] row) {
+    Sums(int width) {
+      this(new long[3], new int[width]);
+    }
+
+    Sums add(Sums other) {
+      for (int i = 0; i < totals.length; i++) {
+        totals[i] += other.totals[i];
+      }
+
+      return this;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package tools.sctrade.companion.utils;
+
+import org.imgscalr.Scalr.Method;
+
+/**
+ * Quality tiers of image scaling, from fastest to best looking.
+ */
+public enum ScalingQuality {
+  /**
+   * Nearest neighbor interpolation.
+   */
+  SPEED(Method.SPEED),
+  /**
+   * Bilinear interpolation.
+   */
+  BALANCED(Method.BALANCED),
+  /**
+   * Bicubic interpolation.
+   */
+  QUALITY(Method.QUALITY),
+  /**
+   * Bicubic interpolation, in incremental steps when downscaling. By far the slowest.
+   */
+  ULTRA_QUALITY(Method.ULTRA_QUALITY);
+
+  final Method method;
+
+  ScalingQuality(Method method) {
+    this.method = method;
+  }
+}
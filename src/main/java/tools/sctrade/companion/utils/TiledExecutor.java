@@ -0,0 +1,246 @@
+package tools.sctrade.companion.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Runs image kernels over horizontal bands of a frame, in parallel, on a dedicated fork/join pool
+ * of limited size. Bands are sized so that the rows a kernel works on fit in a core's cache.
+ *
+ * <p>
+ * Kernels reading a neighborhood of pixels (e.g. a blur) ask for a halo: the rows around their band
+ * that they may read from. Such kernels must write to a separate destination, as the rows of the
+ * halo belong to other bands, being processed concurrently.
+ * </p>
+ *
+ * <p>
+ * Frames too small to be worth splitting are processed on the calling thread.
+ * </p>
+ */
+public class TiledExecutor {
+  private static final int BAND_BYTES = 256 * 1024; // Per-core L2 cache
+  private static final int MIN_BAND_ROWS = 8;
+  private static final int MIN_PARALLEL_BYTES = 1024 * 1024;
+  private static final int MAX_DEFAULT_PARALLELISM = 4;
+
+  private static final TiledExecutor SEQUENTIAL = new TiledExecutor(1);
+  private static final TiledExecutor DEFAULT = new TiledExecutor(
+      Math.min(MAX_DEFAULT_PARALLELISM, Runtime.getRuntime().availableProcessors()));
+
+  private final int parallelism;
+  private final ForkJoinPool pool;
+
+  /**
+   * Creates an executor backed by its own pool.
+   *
+   * @param parallelism The maximum number of threads working on a frame. 1 to run everything on the
+   *        calling thread.
+   */
+  public TiledExecutor(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+    }
+
+    this.parallelism = parallelism;
+    this.pool = parallelism == 1 ? null : new ForkJoinPool(parallelism, pool -> {
+      var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("image-tile-" + thread.getPoolIndex());
+
+      return thread;
+    }, null, false);
+  }
+
+  /**
+   * Gets the shared executor, using up to 4 threads.
+   *
+   * @return The shared executor.
+   */
+  public static TiledExecutor get() {
+    return DEFAULT;
+  }
+
+  /**
+   * Gets an executor running everything on the calling thread.
+   *
+   * @return The sequential executor.
+   */
+  public static TiledExecutor sequential() {
+    return SEQUENTIAL;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Runs a kernel on every band of a frame, and waits for all of them.
+   *
+   * @param height The number of rows of the frame.
+   * @param rowBytes The number of bytes of a row, used to size bands.
+   * @param halo The number of rows above and below its band that the kernel reads from.
+   * @param kernel The kernel to run on each band.
+   */
+  public void forEachBand(int height, int rowBytes, int halo, BandKernel kernel) {
+    List<Band> bands = split(height, rowBytes, halo);
+
+    if (!isParallel(height, rowBytes) || bands.size() == 1) {
+      bands.forEach(kernel::apply);
+      return;
+    }
+
+    pool.invoke(new BandAction(bands, 0, bands.size(), kernel));
+  }
+
+  /**
+   * Reduces the bands of a frame to a single result. Bands are grouped in as many contiguous groups
+   * as there are threads. Each group accumulates its bands into its own partial result, and partial
+   * results are then combined.
+   *
+   * @param <T> The type of the result.
+   * @param height The number of rows of the frame.
+   * @param rowBytes The number of bytes of a row, used to size bands.
+   * @param partial Creates an empty partial result.
+   * @param kernel Accumulates a band into a partial result.
+   * @param combiner Combines two partial results.
+   * @return The combined result.
+   */
+  public <T> T reduceBands(int height, int rowBytes, Supplier<T> partial,
+      BandReduction<T> kernel, BinaryOperator<T> combiner) {
+    List<Band> bands = split(height, rowBytes, 0);
+    int groups = Math.min(parallelism, bands.size());
+
+    if (!isParallel(height, rowBytes) || groups == 1) {
+      T result = partial.get();
+      bands.forEach(band -> kernel.accumulate(result, band));
+
+      return result;
+    }
+
+    return pool.invoke(new BandTask<>(bands, groups, 0, groups, partial, kernel, combiner));
+  }
+
+  private boolean isParallel(int height, int rowBytes) {
+    return pool != null && (long) height * rowBytes >= MIN_PARALLEL_BYTES;
+  }
+
+  private static List<Band> split(int height, int rowBytes, int halo) {
+    int bandHeight = Math.max(MIN_BAND_ROWS, (BAND_BYTES / Math.max(1, rowBytes)) - (2 * halo));
+    List<Band> bands = new ArrayList<>();
+
+    for (int y = 0; y < height; y += bandHeight) {
+      int bandEnd = Math.min(height, y + bandHeight);
+      int haloY = Math.max(0, y - halo);
+      int haloEnd = Math.min(height, bandEnd + halo);
+      bands.add(new Band(y, bandEnd - y, haloY, haloEnd - haloY));
+    }
+
+    return bands;
+  }
+
+  /**
+   * Rows of a frame a kernel works on.
+   *
+   * @param y The first row to process.
+   * @param height The number of rows to process.
+   * @param haloY The first row the kernel may read from.
+   * @param haloHeight The number of rows the kernel may read from.
+   */
+  public record Band(int y, int height, int haloY, int haloHeight) {
+  }
+
+  /**
+   * Kernel processing a band of a frame.
+   */
+  @FunctionalInterface
+  public interface BandKernel {
+    void apply(Band band);
+  }
+
+  /**
+   * Kernel accumulating a band of a frame into a partial result.
+   *
+   * @param <T> The type of the partial result.
+   */
+  @FunctionalInterface
+  public interface BandReduction<T> {
+    void accumulate(T partial, Band band);
+  }
+
+  private static class BandAction extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<Band> bands;
+    private final int from;
+    private final int to;
+    private final transient BandKernel kernel;
+
+    BandAction(List<Band> bands, int from, int to, BandKernel kernel) {
+      this.bands = bands;
+      this.from = from;
+      this.to = to;
+      this.kernel = kernel;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        kernel.apply(bands.get(from));
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new BandAction(bands, from, middle, kernel),
+          new BandAction(bands, middle, to, kernel));
+    }
+  }
+
+  private static class BandTask<T> extends RecursiveTask<T> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<Band> bands;
+    private final int groups;
+    private final int from;
+    private final int to;
+    private final transient Supplier<T> partial;
+    private final transient BandReduction<T> kernel;
+    private final transient BinaryOperator<T> combiner;
+
+    BandTask(List<Band> bands, int groups, int from, int to, Supplier<T> partial,
+        BandReduction<T> kernel, BinaryOperator<T> combiner) {
+      this.bands = bands;
+      this.groups = groups;
+      this.from = from;
+      this.to = to;
+      this.partial = partial;
+      this.kernel = kernel;
+      this.combiner = combiner;
+    }
+
+    @Override
+    protected T compute() {
+      if (to - from == 1) {
+        T result = partial.get();
+        int firstBand = (int) ((long) bands.size() * from / groups);
+        int lastBand = (int) ((long) bands.size() * to / groups);
+
+        for (int i = firstBand; i < lastBand; i++) {
+          kernel.accumulate(result, bands.get(i));
+        }
+
+        return result;
+      }
+
+      int middle = (from + to) >>> 1;
+      var right = new BandTask<>(bands, groups, middle, to, partial, kernel, combiner);
+      right.fork();
+      T left = new BandTask<>(bands, groups, from, middle, partial, kernel, combiner).compute();
+
+      return combiner.apply(left, right.join());
+    }
+  }
+}
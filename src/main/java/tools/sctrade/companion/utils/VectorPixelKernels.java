@@ -0,0 +1,153 @@
+package tools.sctrade.companion.utils;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD counterparts of the inner loops of {@link PixelKernels}, using the Vector API. Only loaded
+ * when the {@code jdk.incubator.vector} module is present, see {@link PixelKernels#vectorized()}.
+ * Every method produces the same result as its scalar counterpart.
+ */
+final class VectorPixelKernels {
+  private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+  private static final int MIN_VECTOR_BITS = 128;
+
+  private VectorPixelKernels() {}
+
+  /**
+   * Whether the preferred vector shape of this CPU is wide enough for SIMD to pay off. Below that,
+   * the Vector API falls back to slower than scalar code.
+   */
+  static boolean isAccelerated() {
+    return INTS.vectorBitSize() >= MIN_VECTOR_BITS && BYTES.vectorBitSize() >= MIN_VECTOR_BITS;
+  }
+
+  static void readInts(int[] data, int index, int[] row, boolean isBgr) {
+    int i = 0;
+
+    for (; i < INTS.loopBound(row.length); i += INTS.length()) {
+      var pixels = IntVector.fromArray(INTS, data, index + i);
+
+      if (isBgr) {
+        pixels = pixels.and(0xFF).lanewise(VectorOperators.LSHL, 16).or(pixels.and(0xFF00))
+            .or(pixels.lanewise(VectorOperators.LSHR, 16).and(0xFF));
+      } else {
+        pixels = pixels.and(0xFFFFFF);
+      }
+
+      pixels.intoArray(row, i);
+    }
+
+    for (; i < row.length; i++) {
+      int pixel = data[index + i];
+      row[i] = isBgr ? ((pixel & 0xFF) << 16) | (pixel & 0xFF00) | ((pixel >> 16) & 0xFF)
+          : pixel & 0xFFFFFF;
+    }
+  }
+
+  static void invertInts(int[] data, int index, int width, int colorMask, int alphaMask) {
+    int i = 0;
+
+    for (; i < INTS.loopBound(width); i += INTS.length()) {
+      IntVector.fromArray(INTS, data, index + i).not().and(colorMask).or(alphaMask)
+          .intoArray(data, index + i);
+    }
+
+    for (; i < width; i++) {
+      data[index + i] = (~data[index + i] & colorMask) | alphaMask;
+    }
+  }
+
+  /**
+   * Inverts the color samples of rows of interleaved pixels, and makes the alpha samples, if any,
+   * opaque.
+   *
+   * @param index The index of the first sample of the first row.
+   * @param alphaOffset The offset of the alpha sample in a pixel, or -1 if there is none.
+   */
+  static void invertBytes(byte[] data, int index, int scanlineStride, int width, int height,
+      int pixelStride, int alphaOffset) {
+    byte[] flipped = new byte[BYTES.length()];
+    byte[] opaque = new byte[BYTES.length()];
+
+    for (int i = 0; i < flipped.length; i++) {
+      boolean isAlpha = alphaOffset >= 0 && i % pixelStride == alphaOffset;
+      flipped[i] = isAlpha ? 0 : (byte) 0xFF;
+      opaque[i] = isAlpha ? (byte) 0xFF : 0;
+    }
+
+    var flip = ByteVector.fromArray(BYTES, flipped, 0);
+    var opacity = ByteVector.fromArray(BYTES, opaque, 0);
+    int length = width * pixelStride;
+    // Patterns only line up with pixels if vectors hold whole pixels
+    int bound = alphaOffset < 0 || BYTES.length() % pixelStride == 0 ? BYTES.loopBound(length) : 0;
+
+    for (int y = 0; y < height; y++, index += scanlineStride) {
+      int i = 0;
+
+      for (; i < bound; i += BYTES.length()) {
+        ByteVector.fromArray(BYTES, data, index + i).lanewise(VectorOperators.XOR, flip)
+            .or(opacity).intoArray(data, index + i);
+      }
+
+      for (; i < length; i++) {
+        data[index + i] = i % pixelStride == alphaOffset ? (byte) 0xFF : (byte) ~data[index + i];
+      }
+    }
+  }
+
+  /**
+   * Adds the red, green and blue channels of a row of RGB values to the totals.
+   */
+  static void sumChannels(int[] row, long[] totals) {
+    var red = IntVector.zero(INTS);
+    var green = IntVector.zero(INTS);
+    var blue = IntVector.zero(INTS);
+    int i = 0;
+
+    for (; i < INTS.loopBound(row.length); i += INTS.length()) {
+      var pixels = IntVector.fromArray(INTS, row, i);
+      red = red.add(pixels.lanewise(VectorOperators.LSHR, 16).and(0xFF));
+      green = green.add(pixels.lanewise(VectorOperators.LSHR, 8).and(0xFF));
+      blue = blue.add(pixels.and(0xFF));
+    }
+
+    totals[0] += red.reduceLanesToLong(VectorOperators.ADD);
+    totals[1] += green.reduceLanesToLong(VectorOperators.ADD);
+    totals[2] += blue.reduceLanesToLong(VectorOperators.ADD);
+
+    for (; i < row.length; i++) {
+      totals[0] += (row[i] >> 16) & 0xFF;
+      totals[1] += (row[i] >> 8) & 0xFF;
+      totals[2] += row[i] & 0xFF;
+    }
+  }
+
+  /**
+   * Computes the approximate color histogram bin of each RGB value of a row. Channels are divided
+   * by 10 as (channel * 205) >> 11, which is exact for 0-255.
+   */
+  static void approximate(int[] row, int[] bins, int levels) {
+    int i = 0;
+
+    for (; i < INTS.loopBound(row.length); i += INTS.length()) {
+      var pixels = IntVector.fromArray(INTS, row, i);
+      var red = pixels.lanewise(VectorOperators.LSHR, 16).and(0xFF).mul(205)
+          .lanewise(VectorOperators.LSHR, 11);
+      var green = pixels.lanewise(VectorOperators.LSHR, 8).and(0xFF).mul(205)
+          .lanewise(VectorOperators.LSHR, 11);
+      var blue = pixels.and(0xFF).mul(205).lanewise(VectorOperators.LSHR, 11);
+      red.mul(levels).add(green).mul(levels).add(blue).intoArray(bins, i);
+    }
+
+    for (; i < row.length; i++) {
+      int red = ((row[i] >> 16) & 0xFF) / 10;
+      int green = ((row[i] >> 8) & 0xFF) / 10;
+      int blue = (row[i] & 0xFF) / 10;
+      bins[i] = (((red * levels) + green) * levels) + blue;
+    }
+  }
+}
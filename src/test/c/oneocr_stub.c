@@ -0,0 +1,261 @@
+/*
+ * Stub of the native OneOCR library, implementing the same C ABI so that the bindings can be
+ * exercised on any platform. Every recognition "reads" the same grid of words, set with
+ * StubSetWords. Built by the `buildOneOcrStub` Gradle task.
+ *
+ * Not part of the real library: the Stub* functions, used by tests to set the stub up and to check
+ * what the bindings did.
+ */
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
+
+#ifdef _WIN32
+#define EXPORT __declspec(dllexport)
+#else
+#define EXPORT __attribute__((visibility("default")))
+#endif
+
+typedef struct {
+  int32_t t;
+  int32_t col;
+  int32_t row;
+  int32_t unk;
+  int64_t step;
+  int64_t data_ptr;
+} Img;
+
+typedef struct {
+  float x1, y1, x2, y2, x3, y3, x4, y4;
+} OcrBoundingBox;
+
+typedef struct {
+  int64_t index;
+  const char *text;
+  OcrBoundingBox box;
+} Word;
+
+typedef struct {
+  const char *text;
+  OcrBoundingBox box;
+  int64_t word_count;
+  Word *words;
+} Line;
+
+typedef struct {
+  int64_t line_count;
+  Line *lines;
+} Result;
+
+typedef struct {
+  int64_t max_line_count;
+} Options;
+
+static const char *TEXTS[] = {"agricium", "2.70", "12.5k", "scu", "levski", "medical",
+                              "supplies", "1,234"};
+static const int64_t TEXT_COUNT = sizeof(TEXTS) / sizeof(TEXTS[0]);
+
+static int64_t line_count = 40;
+static int64_t words_per_line = 6;
+static int64_t live_objects = 0;
+static Img last_image;
+static uint32_t last_first_pixel;
+static uint32_t last_last_pixel;
+
+static void *allocate(size_t size) {
+  __atomic_add_fetch(&live_objects, 1, __ATOMIC_SEQ_CST);
+  return calloc(1, size);
+}
+
+static int64_t release(void *object) {
+  if (object == NULL) {
+    return 1;
+  }
+
+  __atomic_sub_fetch(&live_objects, 1, __ATOMIC_SEQ_CST);
+  free(object);
+  return 0;
+}
+
+static OcrBoundingBox to_box(float x, float y, float width, float height) {
+  OcrBoundingBox box = {x, y, x + width, y, x + width, y + height, x, y + height};
+  return box;
+}
+
+// Stub set up and inspection
+
+EXPORT void StubSetWords(int64_t lines, int64_t words) {
+  line_count = lines;
+  words_per_line = words;
+}
+
+EXPORT int64_t StubGetLiveObjectCount(void) {
+  return __atomic_load_n(&live_objects, __ATOMIC_SEQ_CST);
+}
+
+EXPORT void StubGetLastImage(int32_t *col, int32_t *row, int64_t *step, uint32_t *first_pixel,
+                             uint32_t *last_pixel) {
+  *col = last_image.col;
+  *row = last_image.row;
+  *step = last_image.step;
+  *first_pixel = last_first_pixel;
+  *last_pixel = last_last_pixel;
+}
+
+// Initialisation
+
+EXPORT int64_t CreateOcrInitOptions(void **ctx) {
+  *ctx = allocate(sizeof(Options));
+  return 0;
+}
+
+EXPORT int64_t OcrInitOptionsSetUseModelDelayLoad(void *ctx, uint8_t flag) {
+  return ctx == NULL ? 1 : 0;
+}
+
+EXPORT int64_t CreateOcrPipeline(const char *model_path, const char *key, void *ctx,
+                                 void **pipeline) {
+  if (model_path == NULL || key == NULL || ctx == NULL) {
+    return 1;
+  }
+
+  *pipeline = allocate(sizeof(Options));
+  return 0;
+}
+
+EXPORT int64_t CreateOcrProcessOptions(void **opt) {
+  *opt = allocate(sizeof(Options));
+  return 0;
+}
+
+EXPORT int64_t OcrProcessOptionsSetMaxRecognitionLineCount(void *opt, int64_t count) {
+  if (opt == NULL) {
+    return 1;
+  }
+
+  ((Options *)opt)->max_line_count = count;
+  return 0;
+}
+
+// Recognition
+
+EXPORT int64_t RunOcrPipeline(void *pipeline, Img *img, void *opt, void **instance) {
+  if (pipeline == NULL || img == NULL || opt == NULL || img->data_ptr == 0) {
+    return 1;
+  }
+
+  // Reads the pixels, as the real pipeline would
+  const uint8_t *pixels = (const uint8_t *)(intptr_t)img->data_ptr;
+  last_image = *img;
+  memcpy(&last_first_pixel, pixels, sizeof(uint32_t));
+  memcpy(&last_last_pixel, pixels + (img->row - 1) * img->step + (img->col - 1) * 4,
+         sizeof(uint32_t));
+
+  Result *result = allocate(sizeof(Result));
+  int64_t max_line_count = ((Options *)opt)->max_line_count;
+  result->line_count = line_count < max_line_count ? line_count : max_line_count;
+  result->lines = calloc(result->line_count, sizeof(Line));
+
+  for (int64_t i = 0; i < result->line_count; i++) {
+    Line *line = &result->lines[i];
+    line->text = TEXTS[i % TEXT_COUNT];
+    line->box = to_box(10.0f, 20.0f * i, 100.0f * words_per_line, 16.0f);
+    line->word_count = words_per_line;
+    line->words = calloc(words_per_line, sizeof(Word));
+
+    for (int64_t j = 0; j < words_per_line; j++) {
+      Word *word = &line->words[j];
+      word->index = i * words_per_line + j;
+      word->text = TEXTS[word->index % TEXT_COUNT];
+      word->box = to_box(10.0f + 100.0f * j, 20.0f * i, 90.0f, 16.0f);
+    }
+  }
+
+  *instance = result;
+  return 0;
+}
+
+EXPORT int64_t GetOcrLineCount(void *instance, int64_t *count) {
+  if (instance == NULL) {
+    return 1;
+  }
+
+  *count = ((Result *)instance)->line_count;
+  return 0;
+}
+
+EXPORT int64_t GetOcrLine(void *instance, int64_t index, void **line) {
+  Result *result = instance;
+
+  if (result == NULL || index < 0 || index >= result->line_count) {
+    return 1;
+  }
+
+  *line = &result->lines[index];
+  return 0;
+}
+
+EXPORT int64_t GetOcrLineContent(void *line, const char **text) {
+  *text = ((Line *)line)->text;
+  return 0;
+}
+
+EXPORT int64_t GetOcrLineBoundingBox(void *line, OcrBoundingBox **box) {
+  *box = &((Line *)line)->box;
+  return 0;
+}
+
+EXPORT int64_t GetOcrLineWordCount(void *line, int64_t *count) {
+  *count = ((Line *)line)->word_count;
+  return 0;
+}
+
+EXPORT int64_t GetOcrWord(void *line, int64_t index, void **word) {
+  Line *l = line;
+
+  if (l == NULL || index < 0 || index >= l->word_count) {
+    return 1;
+  }
+
+  *word = &l->words[index];
+  return 0;
+}
+
+EXPORT int64_t GetOcrWordContent(void *word, const char **text) {
+  *text = ((Word *)word)->text;
+  return 0;
+}
+
+EXPORT int64_t GetOcrWordBoundingBox(void *word, OcrBoundingBox **box) {
+  *box = &((Word *)word)->box;
+  return 0;
+}
+
+// Release
+
+EXPORT int64_t ReleaseOcrResult(void *instance) {
+  Result *result = instance;
+
+  if (result == NULL) {
+    return 1;
+  }
+
+  for (int64_t i = 0; i < result->line_count; i++) {
+    free(result->lines[i].words);
+  }
+
+  free(result->lines);
+  return release(result);
+}
+
+EXPORT int64_t ReleaseOcrProcessOptions(void *opt) {
+  return release(opt);
+}
+
+EXPORT int64_t ReleaseOcrPipeline(void *pipeline) {
+  return release(pipeline);
+}
+
+EXPORT int64_t ReleaseOcrInitOptions(void *ctx) {
+  return release(ctx);
+}
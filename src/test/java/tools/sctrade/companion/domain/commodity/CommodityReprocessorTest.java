@@ -0,0 +1,126 @@
+package tools.sctrade.companion.domain.commodity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tools.sctrade.companion.domain.notification.ConsoleNotificationRepository;
+import tools.sctrade.companion.domain.notification.NotificationService;
+import tools.sctrade.companion.domain.ocr.LocatedWord;
+import tools.sctrade.companion.domain.ocr.Ocr;
+import tools.sctrade.companion.domain.ocr.OcrResult;
+import tools.sctrade.companion.domain.ocr.OcrResultCache;
+import tools.sctrade.companion.domain.user.User;
+import tools.sctrade.companion.domain.user.UserService;
+import tools.sctrade.companion.utils.JsonUtil;
+import tools.sctrade.companion.utils.ResourceUtil;
+
+@ExtendWith(MockitoExtension.class)
+class CommodityReprocessorTest {
+  private static final Dimension FOUR_K = new Dimension(3840, 2160);
+
+  @Mock
+  private UserService userService;
+
+  private MapOcrResultCache cache;
+  private CommoditySubmissionFactory submissionFactory;
+
+  @BeforeEach
+  void setUp() {
+    cache = new MapOcrResultCache();
+    var ocr = new Ocr(List.of()) {
+      @Override
+      protected OcrResult process(BufferedImage image) {
+        throw new UnsupportedOperationException("Cached results only");
+      }
+    };
+    submissionFactory = new CommoditySubmissionFactory(userService,
+        new NotificationService(new ConsoleNotificationRepository()),
+        new CommodityLocationReader(new TestLocationRepository()),
+        new CommodityListingFactory(new TestCommodityRepository()), ocr);
+  }
+
+  @Test
+  void givenCachedCapturesWhenReprocessingThenListingsOfEachAreRead() {
+    when(userService.get()).thenReturn(new User("id", "label"));
+    var ocrResult = new OcrResult(readRecordedWords("arc-l2-sell-1"), FOUR_K);
+    cache.put("01", ocrResult);
+    cache.put("02", ocrResult);
+    var expectedListings = submissionFactory.build(ocrResult).getListings();
+
+    var submission = new CommodityReprocessor(submissionFactory, cache, 2).reprocess();
+
+    assertFalse(expectedListings.isEmpty());
+    assertEquals(2 * expectedListings.size(), submission.orElseThrow().getListings().size());
+  }
+
+  @Test
+  void givenCachedCapturesWithoutListingsWhenReprocessingThenTheyAreSkipped() {
+    when(userService.get()).thenReturn(new User("id", "label"));
+    cache.put("01", new OcrResult(readRecordedWords("arc-l2-sell-1"), FOUR_K));
+    cache.put("02", new OcrResult(List.of(), FOUR_K));
+    cache.put("03", new OcrResult(readRecordedWords("arc-l2-sell-1")));
+
+    var submission = new CommodityReprocessor(submissionFactory, cache, 2).reprocess();
+
+    assertEquals(submissionFactory.build(cache.get("01").orElseThrow()).getListings().size(),
+        submission.orElseThrow().getListings().size());
+  }
+
+  @Test
+  void givenEmptyCacheWhenReprocessingThenNothingIsRead() {
+    assertTrue(new CommodityReprocessor(submissionFactory, cache, 2).reprocess().isEmpty());
+  }
+
+  private static List<LocatedWord> readRecordedWords(String testCase) {
+    var json = ResourceUtil.getTextLines("/kiosks/commodity/actuals/" + testCase + ".json")
+        .stream().collect(Collectors.joining(""));
+
+    return JsonUtil.parseList(json, RecordedWord.class).stream().map(RecordedWord::toLocatedWord)
+        .toList();
+  }
+
+  private static class MapOcrResultCache implements OcrResultCache {
+    private final Map<String, OcrResult> results = new LinkedHashMap<>();
+
+    @Override
+    public Optional<OcrResult> get(String key) {
+      return Optional.ofNullable(results.get(key));
+    }
+
+    @Override
+    public void put(String key, OcrResult result) {
+      results.put(key, result);
+    }
+
+    @Override
+    public Collection<String> getKeys() {
+      return results.keySet();
+    }
+  }
+
+  private record RecordedWord(@JsonProperty("Text") String text, @JsonProperty("X") double x,
+      @JsonProperty("Y") double y, @JsonProperty("Width") double width,
+      @JsonProperty("Height") double height) {
+    LocatedWord toLocatedWord() {
+      return new LocatedWord(text.toLowerCase(), new Rectangle((int) Math.round(x),
+          (int) Math.round(y), (int) Math.round(width), (int) Math.round(height)));
+    }
+  }
+}
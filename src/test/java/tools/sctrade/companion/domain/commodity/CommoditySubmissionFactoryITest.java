@@ -1,11 +1,9 @@
 package tools.sctrade.companion.domain.commodity;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.when;
 
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -27,10 +25,7 @@ import tools.sctrade.companion.domain.notification.ConsoleNotificationRepository
 import tools.sctrade.companion.domain.notification.NotificationService;
 import tools.sctrade.companion.domain.ocr.Ocr;
 import tools.sctrade.companion.domain.ocr.OneOcr;
-import tools.sctrade.companion.domain.setting.Setting;
-import tools.sctrade.companion.domain.setting.SettingRepository;
 import tools.sctrade.companion.domain.user.UserService;
-import tools.sctrade.companion.output.DiskImageWriter;
 import tools.sctrade.companion.utils.JsonUtil;
 import tools.sctrade.companion.utils.ResourceUtil;
 
@@ -43,10 +38,6 @@ class CommoditySubmissionFactoryITest {
 
   @Mock
   private UserService userService;
-  @Mock
-  private SettingRepository settings;
-
-  private DiskImageWriter diskImageWriter;
 
   private LocationRepository locationRepository = new TestLocationRepository();
   private CommodityRepository commodityRepository = new TestCommodityRepository();
@@ -63,11 +54,8 @@ class CommoditySubmissionFactoryITest {
 
   @BeforeEach
   void setUp() {
-    setupMocks();
-
-    diskImageWriter = new DiskImageWriter(settings);
     List<ImageManipulation> imageManipulations = List.of(new AlignToTemplate());
-    ocr = new OneOcr(imageManipulations, diskImageWriter);
+    ocr = new OneOcr(imageManipulations);
 
     submissionFactory = new CommoditySubmissionFactory(userService, notificationService,
         commodityLocationReader, commodityListingFactory, ocr);
@@ -202,11 +190,4 @@ class CommoditySubmissionFactoryITest {
 
     return expected;
   }
-
-  private void setupMocks() {
-    // when(settings.get(Setting.OUTPUT_TRANSIENT_IMAGES)).thenReturn(true);
-    when(settings.get(Setting.OUTPUT_SCREENSHOTS)).thenReturn(true);
-    when(settings.get(Setting.MY_IMAGES_PATH))
-        .thenReturn(Paths.get(".", "test-images").normalize().toAbsolutePath());
-  }
 }
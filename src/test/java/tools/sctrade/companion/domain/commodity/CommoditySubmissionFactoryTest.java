@@ -0,0 +1,104 @@
+package tools.sctrade.companion.domain.commodity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tools.sctrade.companion.domain.notification.ConsoleNotificationRepository;
+import tools.sctrade.companion.domain.notification.NotificationService;
+import tools.sctrade.companion.domain.ocr.LocatedWord;
+import tools.sctrade.companion.domain.ocr.Ocr;
+import tools.sctrade.companion.domain.ocr.OcrResult;
+import tools.sctrade.companion.domain.user.User;
+import tools.sctrade.companion.domain.user.UserService;
+import tools.sctrade.companion.utils.JsonUtil;
+import tools.sctrade.companion.utils.ResourceUtil;
+
+@ExtendWith(MockitoExtension.class)
+class CommoditySubmissionFactoryTest {
+  private static final Dimension FOUR_K = new Dimension(3840, 2160);
+
+  @Mock
+  private UserService userService;
+
+  /**
+   * Words recorded by the OCR on 4k kiosks are scaled down, as if the OCR had read a lower
+   * resolution capture. Since thresholds are relative to the size of the text, the same listings
+   * should be read.
+   */
+  @ParameterizedTest(name = "{0} at {1}p")
+  @CsvSource({"arc-l2-sell-1, 1440", "arc-l2-sell-1, 1080", "arc-l2-sell-1, 720"})
+  void givenOcrResultAtLowerResolutionWhenBuildingThenListingsAreIdenticalToFourK(String testCase,
+      int height) {
+    when(userService.get()).thenReturn(new User("id", "label"));
+    var fourKListings = build(testCase, 1.0);
+
+    var listings = build(testCase, (double) height / FOUR_K.height);
+
+    assertFalse(fourKListings.isEmpty());
+    assertEquals(fourKListings, listings);
+  }
+
+  private List<String> build(String testCase, double scale) {
+    var words = readRecordedWords(testCase).stream().map(n -> n.toLocatedWord(scale)).toList();
+    var frameSize = new Dimension((int) Math.round(FOUR_K.width * scale),
+        (int) Math.round(FOUR_K.height * scale));
+    var ocr = new Ocr(List.of()) {
+      @Override
+      protected OcrResult process(BufferedImage image) {
+        return new OcrResult(words, frameSize);
+      }
+
+      // Only the words in the regions are read
+      @Override
+      protected OcrResult process(BufferedImage image, List<Rectangle> regions) {
+        return new OcrResult(
+            words.stream().filter(n -> regions.stream().anyMatch(n::isContainedBy)).toList(),
+            frameSize);
+      }
+    };
+    var submissionFactory = new CommoditySubmissionFactory(userService,
+        new NotificationService(new ConsoleNotificationRepository()),
+        new CommodityLocationReader(new TestLocationRepository()),
+        new CommodityListingFactory(new TestCommodityRepository()), ocr);
+
+    // Regions of interest are located in the capture, which has the size of the recorded frame
+    var capture =
+        new BufferedImage(frameSize.width, frameSize.height, BufferedImage.TYPE_BYTE_GRAY);
+
+    // Batch ids and timestamps differ from one build to the other
+    return submissionFactory.build(capture).getListings().stream()
+        .map(n -> String.join("|", n.location(), n.transactionType().name(), n.commodity(),
+            n.price().toString(), n.inventory().toString(), n.inventoryLevel().name(),
+            n.boxSizesInScu().toString()))
+        .sorted().toList();
+  }
+
+  private static List<RecordedWord> readRecordedWords(String testCase) {
+    var json = ResourceUtil.getTextLines("/kiosks/commodity/actuals/" + testCase + ".json")
+        .stream().collect(Collectors.joining(""));
+
+    return JsonUtil.parseList(json, RecordedWord.class);
+  }
+
+  private record RecordedWord(@JsonProperty("Text") String text, @JsonProperty("X") double x,
+      @JsonProperty("Y") double y, @JsonProperty("Width") double width,
+      @JsonProperty("Height") double height) {
+    LocatedWord toLocatedWord(double scale) {
+      return new LocatedWord(text.toLowerCase(),
+          new Rectangle((int) Math.round(x * scale), (int) Math.round(y * scale),
+              (int) Math.round(width * scale), (int) Math.round(height * scale)));
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package tools.sctrade.companion.domain.image;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import tools.sctrade.companion.domain.image.manipulations.AdjustBrightnessAndContrast;
+import tools.sctrade.companion.domain.image.manipulations.CommodityKioskTextThreshold1;
+import tools.sctrade.companion.domain.image.manipulations.ConvertToGreyscale;
+import tools.sctrade.companion.utils.ImageUtil;
+import tools.sctrade.companion.utils.NativeImage;
+
+class ImageManipulationPipelineTest {
+  @Test
+  void givenNativeManipulationsWhenManipulatingThenResultMatchesManipulatingOneByOne() {
+    var image = buildGradientImage();
+    List<ImageManipulation> manipulations = List.of(new AdjustBrightnessAndContrast(1.5f, -20f),
+        new ConvertToGreyscale(), new CommodityKioskTextThreshold1());
+
+    var expected = image;
+    for (var manipulation : manipulations) {
+      expected = manipulation.manipulate(expected);
+    }
+    var actual = new ImageManipulationPipeline(manipulations).manipulate(image);
+
+    assertEquals(BufferedImage.TYPE_BYTE_GRAY, actual.getType());
+    assertArrayEquals(getPixels(expected), getPixels(actual));
+  }
+
+  @Test
+  void givenConvertToGreyscaleWhenManipulatingThenResultMatchesImageUtil() {
+    var image = buildNoiseImage();
+
+    var expected = ImageUtil.makeGreyscaleCopy(image);
+    var actual = new ImageManipulationPipeline(List.of(new ConvertToGreyscale())).manipulate(image);
+
+    assertArrayEquals(getPixels(expected), getPixels(actual));
+  }
+
+  @Test
+  void givenAdjustBrightnessAndContrastWhenManipulatingThenResultMatchesImageUtil() {
+    var image = buildNoiseImage();
+
+    var expected = ImageUtil.makeCopy(image);
+    ImageUtil.adjustBrightnessAndContrast(expected, 1.3f, -20.5f);
+    var manipulations = List.<ImageManipulation>of(new AdjustBrightnessAndContrast(1.3f, -20.5f));
+    var actual = new ImageManipulationPipeline(manipulations).manipulate(image);
+
+    assertArrayEquals(getPixels(expected), getPixels(actual));
+  }
+
+  @Test
+  void givenMixedManipulationsWhenManipulatingThenApplyInOrderAndConvertOncePerNativeSequence() {
+    var calls = new ArrayList<String>();
+    List<ImageManipulation> manipulations = List.of(new RecordingNativeManipulation("a", calls),
+        new RecordingNativeManipulation("b", calls), new RecordingManipulation("c", calls),
+        new RecordingNativeManipulation("d", calls));
+
+    new ImageManipulationPipeline(manipulations).manipulate(buildGradientImage());
+
+    assertEquals(List.of("native a", "native b", "java c", "native d"), calls);
+  }
+
+  @Test
+  void givenMixedManipulationsWhenManipulatingForWarmUpThenEachIsManipulatedForWarmUp() {
+    var calls = new ArrayList<String>();
+    List<ImageManipulation> manipulations = List.of(new RecordingNativeManipulation("a", calls),
+        new RecordingManipulation("b", calls), new RecordingNativeManipulation("c", calls));
+
+    new ImageManipulationPipeline(manipulations).manipulateForWarmUp(buildGradientImage());
+
+    assertEquals(List.of("warm-up native a", "warm-up java b", "warm-up native c"), calls);
+  }
+
+  private static BufferedImage buildGradientImage() {
+    var image = new BufferedImage(96, 64, BufferedImage.TYPE_3BYTE_BGR);
+
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        image.setRGB(x, y, ((x * 2) << 16) | ((y * 3) << 8) | ((x + y) % 256));
+      }
+    }
+
+    return image;
+  }
+
+  private static BufferedImage buildNoiseImage() {
+    var image = new BufferedImage(256, 256, BufferedImage.TYPE_3BYTE_BGR);
+    var random = new Random(42);
+
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        image.setRGB(x, y, random.nextInt());
+      }
+    }
+
+    return image;
+  }
+
+  private static int[] getPixels(BufferedImage image) {
+    return image.getRaster().getPixels(0, 0, image.getWidth(), image.getHeight(), (int[]) null);
+  }
+
+  private record RecordingNativeManipulation(String name, List<String> calls)
+      implements NativeImageManipulation {
+    @Override
+    public void manipulate(NativeImage image) {
+      calls.add("native " + name);
+    }
+
+    @Override
+    public void manipulateForWarmUp(NativeImage image) {
+      calls.add("warm-up native " + name);
+    }
+
+    @Override
+    public BufferedImage manipulate(BufferedImage image) {
+      calls.add("standalone " + name);
+
+      return image;
+    }
+  }
+
+  private record RecordingManipulation(String name, List<String> calls)
+      implements ImageManipulation {
+    @Override
+    public BufferedImage manipulate(BufferedImage image) {
+      calls.add("java " + name);
+
+      return image;
+    }
+
+    @Override
+    public BufferedImage manipulateForWarmUp(BufferedImage image) {
+      calls.add("warm-up java " + name);
+
+      return image;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package tools.sctrade.companion.domain.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CachingOcrTest {
+  private static final List<Rectangle> REGIONS = List.of(new Rectangle(0, 0, 160, 45));
+
+  private CountingOcr countingOcr;
+  private InMemoryOcrResultCache cache;
+
+  @BeforeEach
+  void setUp() {
+    countingOcr = new CountingOcr();
+    cache = new InMemoryOcrResultCache();
+  }
+
+  @Test
+  void givenImageReadBeforeWhenReadingThenCachedResultIsReturned() throws Exception {
+    try (var ocr = new CachingOcr(countingOcr, cache, "config")) {
+      ocr.read(buildImage(0x202020), n -> REGIONS);
+
+      var result = ocr.read(buildImage(0x202020), n -> REGIONS);
+
+      assertEquals(1, countingOcr.reads);
+      assertEquals("word1", result.getWords().getFirst().getText());
+      assertEquals(new Dimension(160, 90), result.getFrameSize().orElseThrow());
+    }
+  }
+
+  @Test
+  void givenOtherImageWhenReadingThenItIsRead() throws Exception {
+    try (var ocr = new CachingOcr(countingOcr, cache, "config")) {
+      ocr.read(buildImage(0x202020));
+
+      var result = ocr.read(buildImage(0x202021));
+
+      assertEquals(2, countingOcr.reads);
+      assertEquals("word2", result.getWords().getFirst().getText());
+    }
+  }
+
+  @Test
+  void givenOtherConfigurationWhenReadingThenImageIsReadAgain() throws Exception {
+    new CachingOcr(countingOcr, cache, "config").read(buildImage(0x202020), n -> REGIONS);
+
+    new CachingOcr(countingOcr, cache, "other config").read(buildImage(0x202020), n -> REGIONS);
+
+    assertEquals(2, countingOcr.reads);
+  }
+
+  @Test
+  void givenWarmUpWhenReadingThenNothingIsCached() {
+    new CachingOcr(countingOcr, cache, "config").warmUp(buildImage(0x202020), n -> REGIONS);
+
+    assertTrue(cache.getKeys().isEmpty());
+  }
+
+  @Test
+  void givenFailingCacheWhenReadingThenImageIsRead() {
+    var ocr = new CachingOcr(countingOcr, new InMemoryOcrResultCache() {
+      @Override
+      public Optional<OcrResult> get(String key) {
+        throw new IllegalStateException("Disk unreadable");
+      }
+
+      @Override
+      public void put(String key, OcrResult result) {
+        throw new IllegalStateException("Disk full");
+      }
+    }, "config");
+
+    var result = ocr.read(buildImage(0x202020), n -> REGIONS);
+
+    assertEquals("word1", result.getWords().getFirst().getText());
+  }
+
+  private static BufferedImage buildImage(int rgb) {
+    var image = new BufferedImage(160, 90, BufferedImage.TYPE_INT_RGB);
+    image.setRGB(10, 10, rgb);
+
+    return image;
+  }
+
+  private static class CountingOcr extends Ocr {
+    private int reads;
+
+    CountingOcr() {
+      super(List.of());
+    }
+
+    @Override
+    protected OcrResult process(BufferedImage image) {
+      reads++;
+
+      return new OcrResult(List.of(new LocatedWord("word" + reads, new Rectangle(10, 10, 40, 16))),
+          new Dimension(image.getWidth(), image.getHeight()));
+    }
+  }
+
+  private static class InMemoryOcrResultCache implements OcrResultCache {
+    private final Map<String, OcrResult> results = new HashMap<>();
+
+    @Override
+    public Optional<OcrResult> get(String key) {
+      return Optional.ofNullable(results.get(key));
+    }
+
+    @Override
+    public void put(String key, OcrResult result) {
+      results.put(key, result);
+    }
+
+    @Override
+    public Collection<String> getKeys() {
+      return results.keySet();
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package tools.sctrade.companion.domain.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs {@link ForeignOcrPipeline} on the native stub of the library, see {@link OneOcrStub}.
+ * Skipped where it couldn't be built.
+ */
+class ForeignOcrPipelineTest {
+  private OneOcrStub stub;
+  private ForeignOneOcrLib lib;
+
+  @BeforeEach
+  void setUp() {
+    var path = OneOcrStub.getPath();
+    assumeTrue(path.isPresent(), "OneOCR stub not built");
+
+    stub = OneOcrStub.load(path.get());
+    lib = ForeignOneOcrLib.load(path.get());
+  }
+
+  @Test
+  void givenImageWhenRunningThenWordsAreReadInOrder() {
+    stub.StubSetWords(2, 3);
+
+    try (var pipeline = new ForeignOcrPipeline(lib, "oneocr.onemodel", "key")) {
+      var words = pipeline.run(new BufferedImage(160, 90, BufferedImage.TYPE_INT_ARGB));
+
+      assertEquals(List.of("agricium", "2.70", "12.5k", "scu", "levski", "medical"),
+          words.stream().map(LocatedWord::getText).toList());
+      assertEquals(new Rectangle(210, 20, 90, 16), words.get(5).getBoundingBox());
+    }
+  }
+
+  @Test
+  void givenImageWhenRunningThenImgStructIsLaidOutLikeNativeOne() {
+    var image = new BufferedImage(160, 90, BufferedImage.TYPE_3BYTE_BGR);
+    image.setRGB(0, 0, 0x123456);
+    image.setRGB(159, 89, 0xABCDEF);
+    var col = new IntByReference();
+    var row = new IntByReference();
+    var step = new LongByReference();
+    var firstPixel = new IntByReference();
+    var lastPixel = new IntByReference();
+
+    try (var pipeline = new ForeignOcrPipeline(lib, "oneocr.onemodel", "key")) {
+      pipeline.run(image);
+    }
+    stub.StubGetLastImage(col, row, step, firstPixel, lastPixel);
+
+    assertEquals(160, col.getValue());
+    assertEquals(90, row.getValue());
+    assertEquals(160L * 4, step.getValue());
+    // BGRA in memory, read as a little-endian int
+    assertEquals(0xFF123456, firstPixel.getValue());
+    assertEquals(0xFFABCDEF, lastPixel.getValue());
+  }
+
+  @Test
+  void givenSeveralRecognitionsWhenRunningThenNothingIsHeldBetweenThem() {
+    long before = stub.StubGetLiveObjectCount();
+
+    try (var pipeline = new ForeignOcrPipeline(lib, "oneocr.onemodel", "key")) {
+      for (int i = 0; i < 3; i++) {
+        pipeline.run(new BufferedImage(160, 90, BufferedImage.TYPE_INT_RGB));
+      }
+
+      // The pipeline and its process options, nothing left of the recognitions
+      assertEquals(before + 2, stub.StubGetLiveObjectCount());
+      assertEquals(2, pipeline.getNativeHandles());
+      assertEquals(0, pipeline.getNativeBufferBytes());
+    }
+  }
+
+  @Test
+  void givenPipelineWhenClosingThenNativeObjectsAreReleased() {
+    long before = stub.StubGetLiveObjectCount();
+    var pipeline = new ForeignOcrPipeline(lib, "oneocr.onemodel", "key");
+    pipeline.run(new BufferedImage(160, 90, BufferedImage.TYPE_3BYTE_BGR));
+
+    pipeline.close();
+
+    assertEquals(before, stub.StubGetLiveObjectCount());
+    assertEquals(0, pipeline.getNativeHandles());
+  }
+}
@@ -0,0 +1,57 @@
+package tools.sctrade.companion.domain.ocr;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in for an OCR reading the words of a frame, whether it is given the whole frame or a part
+ * of it, located from the offset of its raster. Words cut by the edges of the part are read as
+ * their visible part. Each read takes a fixed latency, and the reads running at the same time are
+ * counted.
+ */
+class FrameWordsOcr extends Ocr {
+  private final List<LocatedWord> words;
+  private final Duration latency;
+  private final AtomicInteger concurrentReads = new AtomicInteger();
+  private final AtomicInteger maxConcurrentReads = new AtomicInteger();
+
+  FrameWordsOcr(List<LocatedWord> words, Duration latency) {
+    super(List.of());
+    this.words = words;
+    this.latency = latency;
+  }
+
+  int getMaxConcurrentReads() {
+    return maxConcurrentReads.get();
+  }
+
+  @Override
+  protected OcrResult process(BufferedImage image) {
+    maxConcurrentReads.accumulateAndGet(concurrentReads.incrementAndGet(), Math::max);
+
+    try {
+      Thread.sleep(latency);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } finally {
+      concurrentReads.decrementAndGet();
+    }
+
+    var raster = image.getRaster();
+    var part = new Rectangle(-raster.getSampleModelTranslateX(),
+        -raster.getSampleModelTranslateY(), image.getWidth(), image.getHeight());
+
+    return new OcrResult(words.stream().filter(n -> n.getBoundingBox().intersects(part))
+        .map(n -> {
+          var boundingBox = n.getBoundingBox().intersection(part);
+          boundingBox.translate(-part.x, -part.y);
+
+          return new LocatedWord(n.getText(), boundingBox);
+        }).toList(), new Dimension(image.getWidth(), image.getHeight()));
+  }
+}
@@ -0,0 +1,18 @@
+package tools.sctrade.companion.domain.ocr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class InMemoryOcrRecordingRepository implements OcrRecordingRepository {
+  private final List<OcrRecording> recordings = new ArrayList<>();
+
+  @Override
+  public void save(OcrRecording recording) {
+    recordings.add(recording);
+  }
+
+  @Override
+  public List<OcrRecording> findAll() {
+    return List.copyOf(recordings);
+  }
+}
@@ -0,0 +1,109 @@
+package tools.sctrade.companion.domain.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import tools.sctrade.companion.utils.ImageUtil;
+import tools.sctrade.companion.utils.ResourceUtil;
+
+class NativePixelBufferTest {
+  private static final int WIDTH = 64;
+  private static final int HEIGHT = 48;
+
+  @ParameterizedTest(name = "{0}")
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+      BufferedImage.TYPE_BYTE_GRAY})
+  void givenImageWhenPackingThenBytesAreIdenticalToPreviousImplementation(int imageType) {
+    var image = buildRandomImage(imageType, WIDTH, HEIGHT);
+
+    try (var buffer = new NativePixelBuffer()) {
+      assertArrayEquals(packPreviously(image), read(buffer.pack(image), image));
+    }
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_INT_ARGB})
+  void givenSubimageWhenPackingThenOnlySubimageIsPacked(int imageType) {
+    var image = buildRandomImage(imageType, WIDTH, HEIGHT).getSubimage(5, 7, 30, 20);
+
+    try (var buffer = new NativePixelBuffer()) {
+      assertArrayEquals(packPreviously(image), read(buffer.pack(image), image));
+    }
+  }
+
+  @Test
+  void givenDecodedScreenshotWhenPackingThenBytesAreIdenticalToPreviousImplementation()
+      throws IOException {
+    var screenshot = ResourceUtil.getBufferedImage("/kiosks/commodity/images/levski-buy-1.jpg");
+    var image = ImageUtil.decode(ImageUtil.encodeToJpeg(screenshot));
+
+    try (var buffer = new NativePixelBuffer()) {
+      assertArrayEquals(packPreviously(image), read(buffer.pack(image), image));
+    }
+  }
+
+  @Test
+  void givenSmallerImageWhenPackingThenBufferIsReused() {
+    var image = buildRandomImage(BufferedImage.TYPE_3BYTE_BGR, WIDTH, HEIGHT);
+    var smallerImage = buildRandomImage(BufferedImage.TYPE_INT_RGB, WIDTH / 2, HEIGHT / 2);
+
+    try (var buffer = new NativePixelBuffer()) {
+      var pixels = buffer.pack(image);
+      var smallerPixels = buffer.pack(smallerImage);
+
+      assertEquals(Pointer.nativeValue(pixels), Pointer.nativeValue(smallerPixels));
+      assertEquals((long) WIDTH * HEIGHT * Integer.BYTES, buffer.getCapacity());
+      assertArrayEquals(packPreviously(smallerImage), read(smallerPixels, smallerImage));
+    }
+  }
+
+  /**
+   * Previous implementation of the packing, kept as a reference: the image is drawn onto an ARGB
+   * copy, read with {@link BufferedImage#getRGB}, then copied into native memory.
+   */
+  private static byte[] packPreviously(BufferedImage image) {
+    var bgra = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+    Graphics2D graphics = bgra.createGraphics();
+    graphics.setComposite(AlphaComposite.Src);
+    graphics.drawImage(image, 0, 0, null);
+    graphics.dispose();
+
+    int[] pixels = new int[bgra.getWidth() * bgra.getHeight()];
+    bgra.getRGB(0, 0, bgra.getWidth(), bgra.getHeight(), pixels, 0, bgra.getWidth());
+
+    try (Memory memory = new Memory((long) pixels.length * Integer.BYTES)) {
+      memory.write(0, pixels, 0, pixels.length);
+
+      return memory.getByteArray(0, (int) memory.size());
+    }
+  }
+
+  private static byte[] read(Pointer pixels, BufferedImage image) {
+    return pixels.getByteArray(0, (int) NativePixelBuffer.getStep(image) * image.getHeight());
+  }
+
+  private static BufferedImage buildRandomImage(int imageType, int width, int height) {
+    var random = new Random(imageType);
+    var image = new BufferedImage(width, height, imageType);
+
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, random.nextInt());
+      }
+    }
+
+    return image;
+  }
+}
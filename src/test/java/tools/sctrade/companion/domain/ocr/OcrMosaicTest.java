@@ -0,0 +1,130 @@
+package tools.sctrade.companion.domain.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class OcrMosaicTest {
+  private static final int WIDTH = 400;
+  private static final int HEIGHT = 300;
+  private static final Rectangle TOP_LEFT = new Rectangle(0, 0, WIDTH / 2, HEIGHT / 3);
+  private static final Rectangle RIGHT_HALF = new Rectangle(WIDTH / 2, 0, WIDTH / 2, HEIGHT);
+  private static final Rectangle LOCATION_WORD = new Rectangle(20, 20, 40, 10);
+  private static final Rectangle LISTING_WORD = new Rectangle(250, 240, 30, 10);
+  private static final Rectangle IGNORED_WORD = new Rectangle(20, 200, 40, 10);
+
+  @Test
+  void givenRegionsWhenPackingThenMosaicHoldsTheirPixelsOnly() {
+    var frame = buildFrame();
+
+    try (var mosaic = OcrMosaic.of(frame, List.of(TOP_LEFT, RIGHT_HALF))) {
+      var image = mosaic.getImage();
+
+      assertEquals(Color.WHITE.getRGB(), image.getRGB(LOCATION_WORD.x, LOCATION_WORD.y));
+      assertTrue(mosaic.getPixelCount() < (long) WIDTH * HEIGHT);
+      assertEquals(Set.of(LOCATION_WORD.getSize(), LISTING_WORD.getSize()),
+          findWords(image).stream().map(n -> n.getBoundingBox().getSize())
+              .collect(Collectors.toSet()));
+    }
+  }
+
+  @Test
+  void givenWordsReadInMosaicWhenMappingThenWordsAreLocatedInFrame() {
+    var frame = buildFrame();
+
+    try (var mosaic = OcrMosaic.of(frame, List.of(TOP_LEFT, RIGHT_HALF))) {
+      var words = mosaic.toFrame(findWords(mosaic.getImage()));
+
+      assertEquals(Set.of(LOCATION_WORD, LISTING_WORD),
+          words.stream().map(LocatedWord::getBoundingBox).collect(Collectors.toSet()));
+    }
+  }
+
+  @Test
+  void givenWordInGapWhenMappingThenWordIsDropped() {
+    try (var mosaic = OcrMosaic.of(buildFrame(), List.of(TOP_LEFT, RIGHT_HALF))) {
+      var gapWord = new LocatedWord("gap", new Rectangle(0, TOP_LEFT.height + 1, 10, 1));
+
+      assertTrue(mosaic.toFrame(List.of(gapWord)).isEmpty());
+    }
+  }
+
+  @Test
+  void givenRegionLocatorWhenReadingThenOnlyRegionsAreReadAndWordsAreLocatedInFrame() {
+    List<Long> readPixelCounts = new ArrayList<>();
+    var ocr = new Ocr(List.of()) {
+      @Override
+      protected OcrResult process(BufferedImage image) {
+        readPixelCounts.add((long) image.getWidth() * image.getHeight());
+
+        return new OcrResult(findWords(image), new Dimension(image.getWidth(), image.getHeight()));
+      }
+    };
+
+    var result = ocr.read(buildFrame(), n -> List.of(new Rectangle(0, 0, n.width / 2,
+        n.height / 3), new Rectangle(n.width / 2, 0, n.width - n.width / 2, n.height)));
+
+    assertEquals(new Dimension(WIDTH, HEIGHT), result.getFrameSize().orElseThrow());
+    assertEquals(Set.of(LOCATION_WORD, LISTING_WORD),
+        result.getWords().stream().map(LocatedWord::getBoundingBox).collect(Collectors.toSet()));
+    assertTrue(readPixelCounts.get(0) < (long) WIDTH * HEIGHT);
+  }
+
+  private static BufferedImage buildFrame() {
+    var frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    var graphics = frame.createGraphics();
+    graphics.setColor(Color.WHITE);
+
+    for (var word : List.of(LOCATION_WORD, LISTING_WORD, IGNORED_WORD)) {
+      graphics.fill(word);
+    }
+
+    graphics.dispose();
+
+    return frame;
+  }
+
+  /**
+   * Stand-in for an OCR: every white rectangle is a word.
+   */
+  private static List<LocatedWord> findWords(BufferedImage image) {
+    List<LocatedWord> words = new ArrayList<>();
+    boolean[][] isVisited = new boolean[image.getHeight()][image.getWidth()];
+
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        if (isVisited[y][x] || image.getRGB(x, y) != Color.WHITE.getRGB()) {
+          continue;
+        }
+
+        int width = 0;
+        int height = 0;
+        while (x + width < image.getWidth() && image.getRGB(x + width, y) == Color.WHITE.getRGB()) {
+          width++;
+        }
+        while (y + height < image.getHeight()
+            && image.getRGB(x, y + height) == Color.WHITE.getRGB()) {
+          height++;
+        }
+        for (int i = y; i < y + height; i++) {
+          for (int j = x; j < x + width; j++) {
+            isVisited[i][j] = true;
+          }
+        }
+
+        words.add(new LocatedWord("word", new Rectangle(x, y, width, height)));
+      }
+    }
+
+    return words;
+  }
+}
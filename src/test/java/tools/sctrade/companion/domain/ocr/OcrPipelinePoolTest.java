@@ -0,0 +1,187 @@
+package tools.sctrade.companion.domain.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class OcrPipelinePoolTest {
+  private static final List<List<LocatedWord>> LINES =
+      List.of(List.of(new LocatedWord("Levski", new Rectangle(10, 20, 60, 12))),
+          List.of(new LocatedWord("Agricium", new Rectangle(10, 40, 80, 12)),
+              new LocatedWord("2.70", new Rectangle(100, 40, 30, 12))));
+  private static final long TIMEOUT_MILLIS = 5000;
+
+  private final BufferedImage image = new BufferedImage(160, 90, BufferedImage.TYPE_3BYTE_BGR);
+  private final TestOneOcrLib lib = new TestOneOcrLib(LINES);
+  private final CountDownLatch gate = new CountDownLatch(1);
+  // Recognitions must run concurrently, whatever the common pool's size
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+  @AfterEach
+  void tearDown() {
+    gate.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  void givenImageWhenRunningThenWordsAreReadAndResultIsReleased() {
+    try (var pool = buildPool(2)) {
+      var words = pool.run(image);
+
+      assertEquals(List.of("levski", "agricium", "2.70"),
+          words.stream().map(LocatedWord::getText).toList());
+      assertEquals(new Rectangle(10, 40, 80, 12), words.get(1).getBoundingBox());
+      // The pipeline and its process options, nothing left of the recognition
+      assertEquals(2, lib.getLiveObjectCount());
+      assertEquals(2, pool.getNativeHandles());
+      assertEquals(160L * 90 * 4, pool.getNativeBufferBytes());
+      assertEquals(0, pool.getInUse());
+    }
+  }
+
+  @Test
+  void givenFailingWordWhenRunningThenWordIsSkipped() {
+    lib.failWord("Agricium");
+
+    try (var pool = buildPool(1)) {
+      var words = pool.run(image);
+
+      assertEquals(List.of("levski", "2.70"), words.stream().map(LocatedWord::getText).toList());
+    }
+  }
+
+  @Test
+  void givenIdlePipelineWhenRunningAgainThenPipelineIsReused() {
+    try (var pool = buildPool(2)) {
+      pool.run(image);
+      pool.run(image);
+
+      assertEquals(1, lib.getPipelineCreationCount());
+      assertEquals(1, pool.getSize());
+    }
+  }
+
+  @Test
+  void givenBusyPipelineWhenRunningThenAnotherPipelineIsCreated() throws Exception {
+    lib.holdRecognitions(gate);
+
+    try (var pool = buildPool(2)) {
+      var first = CompletableFuture.supplyAsync(() -> pool.run(image), executor);
+      var second = CompletableFuture.supplyAsync(() -> pool.run(image), executor);
+
+      awaitUntil(() -> pool.getInUse() == 2);
+      gate.countDown();
+      first.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      second.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+      assertEquals(2, lib.getPipelineCreationCount());
+      assertEquals(0, pool.getWaiting());
+    }
+  }
+
+  @Test
+  void givenAllPipelinesBusyWhenRunningThenRecognitionWaits() throws Exception {
+    lib.holdRecognitions(gate);
+
+    try (var pool = buildPool(1)) {
+      var first = CompletableFuture.supplyAsync(() -> pool.run(image), executor);
+      awaitUntil(() -> pool.getInUse() == 1);
+      var second = CompletableFuture.supplyAsync(() -> pool.run(image), executor);
+
+      awaitUntil(() -> pool.getWaiting() == 1);
+      assertEquals(0, lib.getRecognitionCount());
+
+      gate.countDown();
+      first.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      second.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+      assertEquals(1, lib.getPipelineCreationCount());
+      assertEquals(2, lib.getRecognitionCount());
+      assertEquals(0, pool.getWaiting());
+    }
+  }
+
+  @Test
+  void givenFailingRecognitionWhenRunningThenPipelineIsReturned() {
+    lib.failRecognitions();
+
+    try (var pool = buildPool(1)) {
+      assertThrows(IllegalStateException.class, () -> pool.run(image));
+      assertThrows(IllegalStateException.class, () -> pool.run(image));
+
+      assertEquals(0, pool.getInUse());
+      assertEquals(1, lib.getPipelineCreationCount());
+      assertEquals(2, lib.getLiveObjectCount());
+    }
+  }
+
+  @Test
+  void givenFailingPipelineCreationWhenRunningThenSlotIsFreed() {
+    try (var pool = new OcrPipelinePool(() -> {
+      throw new IllegalStateException("Model not found");
+    }, 1)) {
+      assertThrows(IllegalStateException.class, () -> pool.run(image));
+
+      assertEquals(0, pool.getInUse());
+      assertEquals(0, pool.getSize());
+    }
+  }
+
+  @Test
+  void givenUsedPoolWhenClosingThenEverythingIsReleased() {
+    var pool = buildPool(2);
+    pool.run(image);
+
+    pool.close();
+
+    assertEquals(0, lib.getLiveObjectCount());
+    assertEquals(0, pool.getSize());
+    assertThrows(IllegalStateException.class, () -> pool.run(image));
+  }
+
+  @Test
+  void givenBusyPipelineWhenClosingThenPipelineIsReleasedOnceReturned() throws Exception {
+    lib.holdRecognitions(gate);
+    var pool = buildPool(1);
+    var recognition = CompletableFuture.supplyAsync(() -> pool.run(image), executor);
+    awaitUntil(() -> pool.getInUse() == 1);
+
+    pool.close();
+    assertEquals(2, lib.getLiveObjectCount());
+
+    gate.countDown();
+    recognition.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+    assertEquals(0, lib.getLiveObjectCount());
+  }
+
+  @Test
+  void givenNoPipelinesWhenCreatingThenExceptionIsThrown() {
+    assertThrows(IllegalArgumentException.class, () -> buildPool(0));
+  }
+
+  private OcrPipelinePool buildPool(int size) {
+    return new OcrPipelinePool(() -> new JnaOcrPipeline(lib, "oneocr.onemodel", "key"), size);
+  }
+
+  private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.currentTimeMillis() < deadline, "Timed out");
+      Thread.sleep(1);
+    }
+  }
+}
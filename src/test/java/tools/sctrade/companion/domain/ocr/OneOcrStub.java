@@ -0,0 +1,37 @@
+package tools.sctrade.companion.domain.ocr;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Functions of the native stub of OneOCR, not of the real library: they set the stub up and tell
+ * what the bindings did. The stub is built from {@code src/test/c} by the {@code buildOneOcrStub}
+ * task, and its path passed in the {@code oneocr.stub} system property.
+ */
+interface OneOcrStub extends Library {
+  void StubSetWords(long lines, long words);
+
+  long StubGetLiveObjectCount();
+
+  void StubGetLastImage(IntByReference col, IntByReference row, LongByReference step,
+      IntByReference firstPixel, IntByReference lastPixel);
+
+  /**
+   * Gets the path of the stub.
+   *
+   * @return The path, empty if the stub wasn't built.
+   */
+  static Optional<String> getPath() {
+    return Optional.ofNullable(System.getProperty("oneocr.stub"))
+        .filter(path -> Files.exists(Path.of(path)));
+  }
+
+  static OneOcrStub load(String path) {
+    return Native.load(path, OneOcrStub.class);
+  }
+}
@@ -0,0 +1,85 @@
+package tools.sctrade.companion.domain.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.sctrade.companion.utils.PerceptualHash;
+
+class RecordingOcrTest {
+  private static final List<LocatedWord> WORDS =
+      List.of(new LocatedWord("agricium", new Rectangle(10, 10, 80, 16)),
+          new LocatedWord("levski", new Rectangle(210, 20, 90, 16)));
+  private static final List<Rectangle> REGIONS = List.of(new Rectangle(0, 0, 320, 90));
+
+  private BufferedImage image;
+  private InMemoryOcrRecordingRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    image = new BufferedImage(320, 180, BufferedImage.TYPE_INT_RGB);
+    var graphics = image.createGraphics();
+    graphics.setColor(Color.WHITE);
+    graphics.fillRect(10, 10, 80, 16);
+    graphics.dispose();
+    repository = new InMemoryOcrRecordingRepository();
+  }
+
+  @Test
+  void givenRegionsWhenReadingThenWordsAreRecordedWithHashOfRegions() {
+    var ocr = new RecordingOcr(new FixedOcr(), repository);
+
+    var result = ocr.read(image, n -> REGIONS);
+
+    assertEquals(WORDS, result.getWords());
+    var recording = repository.findAll().getFirst();
+    assertEquals(WORDS, recording.getWords());
+    assertEquals(0.0, recording.getImageHash().distanceTo(PerceptualHash.of(image, REGIONS)));
+    assertEquals(new Dimension(320, 180), recording.getFrameSize().orElseThrow());
+  }
+
+  @Test
+  void givenWarmUpWhenReadingThenNothingIsRecorded() {
+    var ocr = new RecordingOcr(new FixedOcr(), repository);
+
+    ocr.warmUp(image, n -> REGIONS);
+
+    assertTrue(repository.findAll().isEmpty());
+  }
+
+  @Test
+  void givenFailingRepositoryWhenReadingThenWordsAreStillReturned() {
+    var ocr = new RecordingOcr(new FixedOcr(), new InMemoryOcrRecordingRepository() {
+      @Override
+      public void save(OcrRecording recording) {
+        throw new IllegalStateException("Disk full");
+      }
+    });
+
+    var result = ocr.read(image);
+
+    assertEquals(WORDS, result.getWords());
+  }
+
+  private static class FixedOcr extends Ocr {
+    FixedOcr() {
+      super(List.of());
+    }
+
+    @Override
+    protected OcrResult process(BufferedImage image) {
+      return new OcrResult(WORDS, new Dimension(image.getWidth(), image.getHeight()));
+    }
+
+    @Override
+    protected OcrResult process(BufferedImage image, List<Rectangle> regions) {
+      return process(image);
+    }
+  }
+}
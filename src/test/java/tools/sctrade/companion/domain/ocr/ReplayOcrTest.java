@@ -0,0 +1,60 @@
+package tools.sctrade.companion.domain.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import tools.sctrade.companion.utils.PerceptualHash;
+
+class ReplayOcrTest {
+  private static final List<Rectangle> REGIONS = List.of(new Rectangle(0, 0, 320, 90));
+
+  @Test
+  void givenRecordedImageWhenReadingThenNearestRecordingIsReplayed() {
+    var buy = new OcrRecording(PerceptualHash.of(buildImage(10), REGIONS),
+        List.of(new LocatedWord("buy", new Rectangle(10, 10, 40, 16))), new Dimension(320, 180));
+    var sell = new OcrRecording(PerceptualHash.of(buildImage(200), REGIONS),
+        List.of(new LocatedWord("sell", new Rectangle(200, 10, 40, 16))), null);
+    var ocr = new ReplayOcr(List.of(), List.of(buy, sell), 0.0, Duration.ZERO);
+
+    var result = ocr.read(buildImage(200), n -> REGIONS);
+
+    assertEquals(sell.getWords(), result.getWords());
+    assertTrue(result.getFrameSize().isEmpty());
+  }
+
+  @Test
+  void givenUnrecordedImageWhenReadingThenExceptionIsThrown() {
+    var recording =
+        new OcrRecording(PerceptualHash.of(buildImage(10), REGIONS), List.of(), null);
+    var ocr = new ReplayOcr(List.of(), List.of(recording), 0.0, Duration.ZERO);
+
+    assertThrows(IllegalStateException.class, () -> ocr.read(buildImage(200), n -> REGIONS));
+  }
+
+  @Test
+  void givenNoRecordingWhenWarmingUpThenNothingIsRead() {
+    var ocr = new ReplayOcr(List.of(), List.of(), 0.0, Duration.ofHours(1));
+
+    var result = ocr.warmUp(buildImage(10), n -> REGIONS);
+
+    assertTrue(result.getWords().isEmpty());
+  }
+
+  private static BufferedImage buildImage(int x) {
+    var image = new BufferedImage(320, 180, BufferedImage.TYPE_INT_RGB);
+    var graphics = image.createGraphics();
+    graphics.setColor(Color.WHITE);
+    graphics.fillRect(x, 10, 80, 16);
+    graphics.dispose();
+
+    return image;
+  }
+}
@@ -0,0 +1,234 @@
+package tools.sctrade.companion.domain.ocr;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import java.awt.Rectangle;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import tools.sctrade.companion.domain.ocr.OneOcr.Img;
+import tools.sctrade.companion.domain.ocr.OneOcr.OneOcrLib;
+
+/**
+ * Stand-in for the native OneOCR library, running on any platform. Every recognition reads the same
+ * lines of words. Tracks the native objects it hands out, to check that they're all released.
+ */
+class TestOneOcrLib implements OneOcrLib {
+  private final List<List<LocatedWord>> lines;
+  private final Map<Long, Object> liveObjects = new HashMap<>();
+  private final AtomicInteger recognitions = new AtomicInteger();
+  private final AtomicInteger pipelineCreations = new AtomicInteger();
+  private final List<Memory> results = new ArrayList<>();
+  private long nextAddress = 0x1000;
+  private volatile CountDownLatch recognitionGate;
+  private volatile boolean failingRecognitions;
+  private volatile String failingWord;
+
+  /**
+   * Creates the library.
+   *
+   * @param lines The lines of words read by every recognition.
+   */
+  TestOneOcrLib(List<List<LocatedWord>> lines) {
+    this.lines = lines;
+  }
+
+  /**
+   * Makes recognitions wait until the gate opens, to keep pipelines busy.
+   *
+   * @param gate The gate.
+   */
+  void holdRecognitions(CountDownLatch gate) {
+    this.recognitionGate = gate;
+  }
+
+  void failRecognitions() {
+    this.failingRecognitions = true;
+  }
+
+  /**
+   * Makes getting a word fail, without setting the out parameter, like a failing native call.
+   *
+   * @param text The text of the word.
+   */
+  void failWord(String text) {
+    this.failingWord = text;
+  }
+
+  synchronized int getLiveObjectCount() {
+    return liveObjects.size();
+  }
+
+  int getRecognitionCount() {
+    return recognitions.get();
+  }
+
+  int getPipelineCreationCount() {
+    return pipelineCreations.get();
+  }
+
+  @Override
+  public long CreateOcrInitOptions(long[] ctx) {
+    ctx[0] = allocate("init options");
+    return 0;
+  }
+
+  @Override
+  public long OcrInitOptionsSetUseModelDelayLoad(long ctx, byte flag) {
+    return 0;
+  }
+
+  @Override
+  public long CreateOcrPipeline(Pointer modelPath, Pointer key, long ctx, long[] pipeline) {
+    pipelineCreations.incrementAndGet();
+    pipeline[0] = allocate("pipeline");
+    return 0;
+  }
+
+  @Override
+  public long CreateOcrProcessOptions(long[] opt) {
+    opt[0] = allocate("process options");
+    return 0;
+  }
+
+  @Override
+  public long OcrProcessOptionsSetMaxRecognitionLineCount(long opt, long count) {
+    return 0;
+  }
+
+  @Override
+  public long RunOcrPipeline(long pipeline, Img.ByReference img, long opt, long[] instance) {
+    var gate = recognitionGate;
+
+    if (gate != null) {
+      try {
+        gate.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return 1;
+      }
+    }
+
+    recognitions.incrementAndGet();
+
+    if (failingRecognitions) {
+      return 2;
+    }
+
+    instance[0] = allocate("result");
+    return 0;
+  }
+
+  @Override
+  public long GetOcrLineCount(long instance, long[] count) {
+    count[0] = lines.size();
+    return 0;
+  }
+
+  @Override
+  public long GetOcrLine(long instance, long index, long[] line) {
+    line[0] = index + 1;
+    return 0;
+  }
+
+  @Override
+  public long GetOcrLineContent(long line, long[] text) {
+    return 1;
+  }
+
+  @Override
+  public long GetOcrLineBoundingBox(long line, long[] box) {
+    return 1;
+  }
+
+  @Override
+  public long GetOcrLineWordCount(long line, long[] count) {
+    count[0] = getLine(line).size();
+    return 0;
+  }
+
+  @Override
+  public long GetOcrWord(long line, long index, long[] word) {
+    // Line in the high bits, word in the low ones
+    long address = (line << 32) | (index + 1);
+
+    if (getWord(address).getText().equals(failingWord)) {
+      return 4;
+    }
+
+    word[0] = address;
+    return 0;
+  }
+
+  @Override
+  public long GetOcrWordContent(long word, long[] textPtr) {
+    byte[] text = getWord(word).getText().getBytes(StandardCharsets.UTF_8);
+    var memory = keep(new Memory(text.length + 1L));
+    memory.write(0, text, 0, text.length);
+    memory.setByte(text.length, (byte) 0);
+    textPtr[0] = Pointer.nativeValue(memory);
+    return 0;
+  }
+
+  @Override
+  public long GetOcrWordBoundingBox(long word, long[] boxPtr) {
+    Rectangle box = getWord(word).getBoundingBox();
+    var memory = keep(new Memory(8L * Float.BYTES));
+    memory.write(0, new float[] {box.x, box.y, box.x + box.width, box.y, box.x + box.width,
+        box.y + box.height, box.x, box.y + box.height}, 0, 8);
+    boxPtr[0] = Pointer.nativeValue(memory);
+    return 0;
+  }
+
+  @Override
+  public long ReleaseOcrResult(long instance) {
+    return release(instance);
+  }
+
+  @Override
+  public long ReleaseOcrProcessOptions(long opt) {
+    return release(opt);
+  }
+
+  @Override
+  public long ReleaseOcrPipeline(long pipeline) {
+    return release(pipeline);
+  }
+
+  @Override
+  public long ReleaseOcrInitOptions(long ctx) {
+    return release(ctx);
+  }
+
+  private synchronized long allocate(String type) {
+    long address = nextAddress++;
+    liveObjects.put(address, type);
+
+    return address;
+  }
+
+  private synchronized long release(long address) {
+    return liveObjects.remove(address) == null ? 3 : 0;
+  }
+
+  private synchronized Memory keep(Memory memory) {
+    // Strings and boxes live as long as their result, i.e. until the test ends here
+    results.add(memory);
+
+    return memory;
+  }
+
+  private List<LocatedWord> getLine(long line) {
+    return lines.get((int) (line - 1));
+  }
+
+  private LocatedWord getWord(long word) {
+    var line = lines.get((int) ((word >>> 32) - 1));
+
+    return line.get((int) ((word & 0xFFFFFFFFL) - 1));
+  }
+}
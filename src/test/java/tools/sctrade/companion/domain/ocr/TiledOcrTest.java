@@ -0,0 +1,134 @@
+package tools.sctrade.companion.domain.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class TiledOcrTest {
+  private static final int WIDTH = 3840;
+  private static final int HEIGHT = 2160;
+  private static final int WORD_HEIGHT = 40;
+
+  @Test
+  void givenWordsAcrossBandsWhenReadingThenEachWordIsReadOnceWhole() throws Exception {
+    List<LocatedWord> words = new ArrayList<>();
+    for (int y = 0; y + WORD_HEIGHT <= HEIGHT; y += 13) {
+      words.add(new LocatedWord("word" + y, new Rectangle(y % 3000, y, 200, WORD_HEIGHT)));
+    }
+
+    try (var ocr = new TiledOcr(new FrameWordsOcr(words, Duration.ZERO), 4)) {
+      var result = ocr.read(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB));
+
+      assertEquals(format(words), format(result.getWords()));
+    }
+  }
+
+  @Test
+  void givenRegionsWhenReadingThenWordsAreLocatedInFrame() throws Exception {
+    var words = List.of(new LocatedWord("levski", new Rectangle(500, 450, 200, WORD_HEIGHT)),
+        new LocatedWord("agricium", new Rectangle(2600, 700, 250, WORD_HEIGHT)),
+        new LocatedWord("ignored", new Rectangle(1500, 1500, 200, WORD_HEIGHT)));
+    var regions = List.of(new Rectangle(400, 300, 1000, 600), new Rectangle(2500, 300, 1000, 1500));
+
+    try (var ocr = new TiledOcr(new FrameWordsOcr(words, Duration.ZERO), 2)) {
+      var result = ocr.read(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB),
+          n -> regions);
+
+      assertEquals(format(words.subList(0, 2)), format(result.getWords()));
+    }
+  }
+
+  @Test
+  void givenSeveralTilesWhenReadingThenTheyAreRecognizedConcurrently() throws Exception {
+    var frameWordsOcr = new FrameWordsOcr(List.of(), Duration.ofMillis(200));
+
+    try (var ocr = new TiledOcr(frameWordsOcr, 4)) {
+      ocr.read(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB));
+    }
+
+    assertEquals(4, frameWordsOcr.getMaxConcurrentReads());
+  }
+
+  @Test
+  void givenMoreTilesThanRegionsWhenReadingThenRegionsAreSplitAndReadConcurrently()
+      throws Exception {
+    var regions = List.of(new Rectangle(400, 300, 1000, 600), new Rectangle(2500, 300, 1000, 1500));
+    List<LocatedWord> words = new ArrayList<>();
+    for (var region : regions) {
+      for (int y = region.y; y + WORD_HEIGHT <= region.getMaxY(); y += 17) {
+        words.add(new LocatedWord("word" + y,
+            new Rectangle(region.x + (y * 7 % 800), y, 200, WORD_HEIGHT)));
+      }
+    }
+    var frameWordsOcr = new FrameWordsOcr(words, Duration.ofMillis(200));
+
+    try (var ocr = new TiledOcr(frameWordsOcr, 4)) {
+      var result = ocr.read(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB),
+          n -> regions);
+
+      assertEquals(format(words), format(result.getWords()));
+    }
+
+    assertEquals(4, frameWordsOcr.getMaxConcurrentReads());
+  }
+
+  @Test
+  void givenFailingTileWhenReadingThenExceptionIsRethrown() throws Exception {
+    var failingOcr = new Ocr(List.of()) {
+      @Override
+      protected OcrResult process(BufferedImage image) {
+        throw new IllegalStateException("OCR failed");
+      }
+    };
+
+    try (var ocr = new TiledOcr(failingOcr, 2)) {
+      var image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+      assertThrows(IllegalStateException.class, () -> ocr.read(image));
+    }
+  }
+
+  @Test
+  void givenTiledOcrWhenClosingThenDecoratedOcrIsClosed() throws Exception {
+    var isClosed = new AtomicBoolean();
+    var decoratedOcr = new FrameWordsOcr(List.of(), Duration.ZERO) {
+      @Override
+      public void close() {
+        isClosed.set(true);
+      }
+    };
+
+    new TiledOcr(decoratedOcr, 2).close();
+
+    assertTrue(isClosed.get());
+  }
+
+  @Test
+  void givenAnyHeightWhenSplittingThenOwnedBandsCoverImageOnce() {
+    for (int height : List.of(1, 7, 40, 41, 1080, 2160)) {
+      var bands = TiledOcr.split(100, height, 8);
+      int y = 0;
+
+      for (var band : bands) {
+        assertEquals(y, band.owned().y);
+        assertTrue(band.bounds().contains(band.owned()));
+        y += band.owned().height;
+      }
+
+      assertEquals(height, y);
+    }
+  }
+
+  private static List<String> format(Collection<LocatedWord> words) {
+    return words.stream().map(n -> n.getText() + "@" + n.getBoundingBox()).sorted().toList();
+  }
+}
@@ -0,0 +1,169 @@
+package tools.sctrade.companion.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.sctrade.companion.domain.ocr.LocatedWord;
+import tools.sctrade.companion.domain.ocr.OcrResult;
+
+class DiskOcrResultCacheTest {
+  private static final long MAX_BYTES = 1024 * 1024;
+  private static final Duration MAX_AGE = Duration.ofDays(30);
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+  @TempDir
+  private Path directory;
+
+  @Test
+  void givenCachedResultWhenGettingThenWordsAndFrameSizeAreRead() {
+    var cache = new DiskOcrResultCache(directory, MAX_BYTES, MAX_AGE, new MutableClock(NOW));
+    cache.put("0a1b", buildResult("agricium", new Dimension(3840, 2160)));
+
+    var result = cache.get("0a1b").orElseThrow();
+
+    assertEquals(List.of("agricium", "2.70"),
+        result.getWords().stream().map(LocatedWord::getText).toList());
+    assertEquals(new Rectangle(2600, 700, 250, 40), result.getWords().getFirst().getBoundingBox());
+    assertEquals(new Dimension(3840, 2160), result.getFrameSize().orElseThrow());
+  }
+
+  @Test
+  void givenResultOfUnknownFrameWhenGettingThenFrameSizeIsUnknown() {
+    var cache = new DiskOcrResultCache(directory, MAX_BYTES, MAX_AGE, new MutableClock(NOW));
+    cache.put("0a1b", buildResult("agricium", null));
+
+    assertTrue(cache.get("0a1b").orElseThrow().getFrameSize().isEmpty());
+  }
+
+  @Test
+  void givenCacheReopenedWhenGettingThenResultsAreIndexed() {
+    new DiskOcrResultCache(directory, MAX_BYTES, MAX_AGE, new MutableClock(NOW)).put("0a1b",
+        buildResult("agricium", null));
+
+    var cache = new DiskOcrResultCache(directory, MAX_BYTES, MAX_AGE, new MutableClock(NOW));
+
+    assertEquals(Set.of("0a1b"), Set.copyOf(cache.getKeys()));
+    assertTrue(cache.get("0a1b").isPresent());
+  }
+
+  @Test
+  void givenIndexMissingWhenGettingThenItIsRebuilt() throws IOException {
+    new DiskOcrResultCache(directory, MAX_BYTES, MAX_AGE, new MutableClock(NOW)).put("0a1b",
+        buildResult("agricium", null));
+    Files.delete(directory.resolve("index.bin"));
+
+    var cache = new DiskOcrResultCache(directory, MAX_BYTES, MAX_AGE, new MutableClock(NOW));
+
+    assertEquals(Set.of("0a1b"), Set.copyOf(cache.getKeys()));
+  }
+
+  @Test
+  void givenTooManyBytesWhenPuttingThenOldestResultsAreEvicted() throws IOException {
+    var cache = new DiskOcrResultCache(directory, MAX_BYTES, MAX_AGE, new MutableClock(NOW));
+    cache.put("01", buildResult("agricium", null));
+    long size = Files.size(directory.resolve("01.ocr"));
+    cache = new DiskOcrResultCache(directory, (2 * size) + 1, MAX_AGE, new MutableClock(NOW));
+
+    cache.put("02", buildResult("laranite", null));
+    cache.put("03", buildResult("hadanite", null));
+
+    assertEquals(Set.of("02", "03"), Set.copyOf(cache.getKeys()));
+    assertTrue(Files.notExists(directory.resolve("01.ocr")));
+  }
+
+  @Test
+  void givenTooOldResultsWhenPuttingThenTheyAreEvicted() {
+    var clock = new MutableClock(NOW);
+    var cache = new DiskOcrResultCache(directory, MAX_BYTES, MAX_AGE, clock);
+    cache.put("01", buildResult("agricium", null));
+
+    clock.instant = NOW.plus(MAX_AGE).plusSeconds(1);
+    cache.put("02", buildResult("laranite", null));
+
+    assertEquals(Set.of("02"), Set.copyOf(cache.getKeys()));
+    assertTrue(cache.get("01").isEmpty());
+  }
+
+  @Test
+  void givenCorruptResultWhenGettingThenItIsEvicted() throws IOException {
+    var cache = new DiskOcrResultCache(directory, MAX_BYTES, MAX_AGE, new MutableClock(NOW));
+    cache.put("0a1b", buildResult("agricium", null));
+    Files.writeString(directory.resolve("0a1b.ocr"), "corrupt");
+
+    assertTrue(cache.get("0a1b").isEmpty());
+    assertTrue(cache.getKeys().isEmpty());
+  }
+
+  @Test
+  void givenUnwritableResultWhenPuttingThenNoTemporaryFileIsLeft() throws IOException {
+    var cache = new DiskOcrResultCache(directory, MAX_BYTES, MAX_AGE, new MutableClock(NOW));
+    var tooLongText = "a".repeat(70_000); // Over the 64 KB of modified UTF-8 writeUTF accepts
+
+    assertThrows(UncheckedIOException.class,
+        () -> cache.put("0a1b", buildResult(tooLongText, null)));
+
+    assertEquals(List.of(), listTemporaryFiles());
+  }
+
+  @Test
+  void givenUnmovableIndexWhenPuttingThenNoTemporaryFileIsLeft() throws IOException {
+    var cache = new DiskOcrResultCache(directory, MAX_BYTES, MAX_AGE, new MutableClock(NOW));
+    // A non-empty folder can't be replaced by the index
+    Files.createDirectories(directory.resolve("index.bin").resolve("blocker"));
+
+    assertThrows(UncheckedIOException.class,
+        () -> cache.put("0a1b", buildResult("agricium", null)));
+
+    assertEquals(List.of(), listTemporaryFiles());
+  }
+
+  private List<Path> listTemporaryFiles() throws IOException {
+    try (var paths = Files.list(directory)) {
+      return paths.filter(n -> n.getFileName().toString().endsWith(".tmp")).toList();
+    }
+  }
+
+  private static OcrResult buildResult(String commodity, Dimension frameSize) {
+    return new OcrResult(List.of(new LocatedWord(commodity, new Rectangle(2600, 700, 250, 40)),
+        new LocatedWord("2.70", new Rectangle(3300, 700, 90, 40))), frameSize);
+  }
+
+  private static class MutableClock extends Clock {
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
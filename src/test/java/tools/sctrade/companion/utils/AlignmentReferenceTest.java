@@ -0,0 +1,327 @@
+package tools.sctrade.companion.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+class AlignmentReferenceTest {
+  private static final String TEMPLATE_PATH = "/images/ocr/commodity_kiosk_template.jpg";
+  private static final String IMAGE_PATH = "/kiosks/commodity/images/rayari-anvik-buy-1.jpg";
+  private static final double MIN_SIMILARITY_TRESHOLD = 0.12;
+  private static final double LEFT_BORDER_RATIO = 0.4;
+  private static final double TOP_BORDER_RATIO = 0.2;
+
+  private AlignmentReference reference;
+  private Mat image;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    reference = AlignmentReference.of(ImageUtil.readFromResource(TEMPLATE_PATH));
+    image = ImageUtil.toMat(ResourceUtil.getBufferedImage(IMAGE_PATH));
+  }
+
+  @AfterEach
+  void tearDown() {
+    reference.close();
+    image.release();
+  }
+
+  @Test
+  void givenNothingAlignedWhenCheckingPoseThenPoseIsChanged() {
+    assertFalse(reference.isLastPoseUnchangedIn(image));
+  }
+
+  @Test
+  void givenAlignedImageWhenCheckingSameImageThenPoseIsUnchanged() {
+    reference.align(image, MIN_SIMILARITY_TRESHOLD).orElseThrow().release();
+
+    assertTrue(reference.isLastPoseUnchangedIn(image));
+  }
+
+  @Test
+  void givenImageAlignedWithoutRememberingPoseWhenCheckingSameImageThenPoseIsChanged() {
+    reference.align(image, MIN_SIMILARITY_TRESHOLD, false).orElseThrow().release();
+
+    assertFalse(reference.isLastPoseUnchangedIn(image));
+  }
+
+  @Test
+  void givenAlignedImageWhenCheckingShiftedImageThenPoseIsChanged() {
+    reference.align(image, MIN_SIMILARITY_TRESHOLD).orElseThrow().release();
+    Mat shifted = shift(image, 40, 25);
+
+    try {
+      assertFalse(reference.isLastPoseUnchangedIn(shifted));
+    } finally {
+      shifted.release();
+    }
+  }
+
+  @Test
+  void givenAlignedImageWhenAligningSameImageAgainThenReuseSameHomography() {
+    Mat first = reference.align(image, MIN_SIMILARITY_TRESHOLD).orElseThrow();
+    Mat second = reference.align(image, MIN_SIMILARITY_TRESHOLD).orElseThrow();
+    Mat difference = new Mat();
+
+    try {
+      Core.absdiff(first, second, difference);
+
+      assertEquals(0, Core.countNonZero(difference.reshape(1)));
+    } finally {
+      first.release();
+      second.release();
+      difference.release();
+    }
+  }
+
+  @Test
+  void givenAlignedImageWhenCheckingImageWithDifferentListingsThenPoseIsUnchanged() {
+    reference.align(image, MIN_SIMILARITY_TRESHOLD).orElseThrow().release();
+    Mat scrolled = image.clone();
+    var listings = new Rect(image.cols() / 2, image.rows() / 3, image.cols() / 4, image.rows() / 3);
+    Imgproc.rectangle(scrolled, listings, new Scalar(0, 0, 0), Imgproc.FILLED);
+
+    try {
+      assertTrue(reference.isLastPoseUnchangedIn(scrolled));
+    } finally {
+      scrolled.release();
+    }
+  }
+
+  @Test
+  void givenCoarseToFineModeWhenFindingHomographyOfWarpedTemplateThenHomographyIsInverted()
+      throws IOException {
+    Mat template = ImageUtil.toMat(ImageUtil.readFromResource(TEMPLATE_PATH));
+    Mat warp = new Mat(3, 3, CvType.CV_64FC1);
+    warp.put(0, 0, 0.66, 0.01, 30, -0.005, 0.67, 20, 0, 0, 1);
+    Mat warped = new Mat();
+    Imgproc.warpPerspective(template, warped, warp, new Size(2560, 1440));
+
+    try (var coarseToFine = AlignmentReference.of(ImageUtil.readFromResource(TEMPLATE_PATH),
+        AlignmentReference.Mode.COARSE_TO_FINE)) {
+      Mat homography = coarseToFine.findHomography(warped);
+      Mat roundTrip = new Mat();
+      Core.gemm(homography, warp, 1, new Mat(), 0, roundTrip);
+      var corners = new MatOfPoint2f(new Point(0, 0), new Point(template.cols(), 0),
+          new Point(template.cols(), template.rows()), new Point(0, template.rows()));
+      var projected = new MatOfPoint2f();
+      Core.perspectiveTransform(corners, projected, roundTrip);
+
+      for (int i = 0; i < 4; i++) {
+        Point corner = corners.toArray()[i];
+        Point projectedCorner = projected.toArray()[i];
+        assertTrue(Math.hypot(corner.x - projectedCorner.x, corner.y - projectedCorner.y) < 2.0);
+      }
+
+      homography.release();
+      roundTrip.release();
+      corners.release();
+      projected.release();
+    } finally {
+      template.release();
+      warp.release();
+      warped.release();
+    }
+  }
+
+  @Test
+  void givenNativeResolutionWhenAligningLowerResolutionImageThenResolutionIsKept()
+      throws IOException {
+    Mat lowResolution = new Mat();
+    Imgproc.resize(image, lowResolution, new Size(1920, 1080), 0, 0, Imgproc.INTER_AREA);
+    Mat fourK = null;
+    Mat downscaledFourK = new Mat();
+    Mat nativeResolution = null;
+
+    try (var nativeReference = AlignmentReference.of(ImageUtil.readFromResource(TEMPLATE_PATH),
+        AlignmentReference.Mode.COARSE_TO_FINE, AlignmentReference.Resolution.NATIVE)) {
+      nativeResolution =
+          nativeReference.align(lowResolution, MIN_SIMILARITY_TRESHOLD).orElseThrow();
+      fourK = reference.align(lowResolution, MIN_SIMILARITY_TRESHOLD).orElseThrow();
+      Imgproc.resize(fourK, downscaledFourK, nativeResolution.size(), 0, 0, Imgproc.INTER_AREA);
+      Mat difference = new Mat();
+      Core.absdiff(nativeResolution, downscaledFourK, difference);
+      double meanDifference = Core.mean(difference).val[0];
+      difference.release();
+
+      assertEquals(new Size(1920, 1080), nativeResolution.size());
+      assertTrue(meanDifference < 8, "Mean difference: " + meanDifference);
+    } finally {
+      lowResolution.release();
+      downscaledFourK.release();
+      if (fourK != null) {
+        fourK.release();
+      }
+      if (nativeResolution != null) {
+        nativeResolution.release();
+      }
+    }
+  }
+
+  /**
+   * Alignments are validated with the matches they were estimated from, instead of the features of
+   * the aligned image. Kiosks accepted by the latter must still be, while flipped kiosks and other
+   * kiosks, whose matches are not consistent with any homography, must be rejected.
+   */
+  @ParameterizedTest(name = "{0} at {1}p, flipped: {2}, {4}")
+  @CsvSource({
+      "/kiosks/commodity/images/lorville-sell-1.jpg, 2160, false, true, COARSE_TO_FINE",
+      "/kiosks/commodity/images/arc-l2-sell-1.jpg, 1080, false, true, COARSE_TO_FINE",
+      "/kiosks/commodity/images/arc-l3-buy-1.jpg, 2160, true, false, COARSE_TO_FINE",
+      "/kiosks/item/images/2026-01-14_10-03-34-706158600.jpg, 2160, false, false, COARSE_TO_FINE",
+      "/kiosks/commodity/images/lorville-sell-1.jpg, 2160, false, true, FULL_RESOLUTION",
+      "/kiosks/commodity/images/lorville-sell-1.jpg, 1080, false, true, FULL_RESOLUTION",
+      "/kiosks/commodity/images/rayari-anvik-buy-1.jpg, 2160, false, true, FULL_RESOLUTION",
+      "/kiosks/commodity/images/arc-l3-buy-1.jpg, 2160, true, false, FULL_RESOLUTION",
+      "/kiosks/item/images/2026-01-14_10-03-34-706158600.jpg, 2160, false, false, FULL_RESOLUTION"})
+  void givenKioskWhenAligningThenDecisionMatchesSimilarityOfAlignedImage(String path, int height,
+      boolean isFlipped, boolean isValid, AlignmentReference.Mode mode) throws IOException {
+    Mat kiosk = ImageUtil.toMat(ResourceUtil.getBufferedImage(path));
+    Imgproc.resize(kiosk, kiosk, new Size(height * 16 / 9, height), 0, 0, Imgproc.INTER_AREA);
+
+    if (isFlipped) {
+      Core.flip(kiosk, kiosk, 1);
+    }
+
+    try (var reference =
+        AlignmentReference.of(ImageUtil.readFromResource(TEMPLATE_PATH), mode)) {
+      var aligned = reference.align(kiosk, MIN_SIMILARITY_TRESHOLD);
+
+      assertEquals(isValid, aligned.isPresent());
+
+      if (aligned.isPresent()) {
+        double similarity = reference.calculateSimilarity(aligned.get());
+        aligned.get().release();
+
+        assertTrue(similarity >= MIN_SIMILARITY_TRESHOLD, "Similarity: " + similarity);
+      }
+    } finally {
+      kiosk.release();
+    }
+  }
+
+  @Test
+  void givenTemplateWithBlackBordersWhenCreatingReferenceThenContentIsBoundsOfNonBlackPixels()
+      throws IOException {
+    var template = buildBorderedTemplate();
+
+    try (var bordered = AlignmentReference.of(template)) {
+      var content = bordered.getContentRegion();
+
+      assertEquals(findNonBlackBounds(template), content);
+      assertTrue(content.x >= template.getWidth() * LEFT_BORDER_RATIO);
+      assertTrue(content.y >= template.getHeight() * TOP_BORDER_RATIO);
+    }
+  }
+
+  @Test
+  void givenTemplateWithBlackBordersWhenCreatingReferenceThenFeaturesAreOnlyDetectedInContent()
+      throws IOException {
+    try (var bordered = AlignmentReference.of(buildBorderedTemplate())) {
+      var content = bordered.getContentRegion();
+
+      assertFalse(bordered.getKeypoints().isEmpty());
+      assertTrue(bordered.getKeypoints().stream().allMatch(n -> content.contains(n.pt)));
+    }
+  }
+
+  @Test
+  void givenTemplateWithBlackBordersWhenDetectingImageFeaturesThenOnlyWidenedContentIsSearched()
+      throws IOException {
+    var template = buildBorderedTemplate();
+
+    try (var bordered = AlignmentReference.of(template)) {
+      var content = bordered.getContentRegion();
+      double scaleX = (double) image.cols() / template.getWidth();
+      double scaleY = (double) image.rows() / template.getHeight();
+      double marginX = 0.15 * image.cols();
+      double marginY = 0.15 * image.rows();
+      // Content scaled to the image, widened by 15% of the image on each side, clamped to it
+      int x = (int) Math.max(0, Math.floor(content.x * scaleX - marginX));
+      int y = (int) Math.max(0, Math.floor(content.y * scaleY - marginY));
+      int right = (int) Math.min(image.cols(),
+          Math.ceil((content.x + content.width) * scaleX + marginX));
+      int bottom = (int) Math.min(image.rows(),
+          Math.ceil((content.y + content.height) * scaleY + marginY));
+      var expectedSearchRegion = new Rect(x, y, right - x, bottom - y);
+
+      var searchRegion = bordered.getSearchRegion(image.size());
+      var keypoints = bordered.detectKeypoints(image);
+
+      assertEquals(expectedSearchRegion, searchRegion);
+      assertFalse(keypoints.isEmpty());
+      assertTrue(keypoints.stream().allMatch(n -> searchRegion.contains(n.pt)));
+      assertTrue(keypoints.stream().anyMatch(n -> n.pt.x < content.x * scaleX),
+          "No feature detected in the margin");
+    }
+  }
+
+  /**
+   * Reads the template, and blacks out its left and top parts.
+   */
+  private static BufferedImage buildBorderedTemplate() throws IOException {
+    var template = ImageUtil.makeCopy(ImageUtil.readFromResource(TEMPLATE_PATH));
+    Graphics2D graphics = template.createGraphics();
+    graphics.setColor(Color.BLACK);
+    graphics.fillRect(0, 0, (int) (template.getWidth() * LEFT_BORDER_RATIO),
+        template.getHeight());
+    graphics.fillRect(0, 0, template.getWidth(),
+        (int) (template.getHeight() * TOP_BORDER_RATIO));
+    graphics.dispose();
+
+    return template;
+  }
+
+  /**
+   * Finds the bounding box of the pixels whose blue channel is above 8, those below being masked
+   * out.
+   */
+  private static Rect findNonBlackBounds(BufferedImage image) {
+    int minX = Integer.MAX_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int maxX = -1;
+    int maxY = -1;
+
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        if ((image.getRGB(x, y) & 0xFF) > 8) {
+          minX = Math.min(minX, x);
+          minY = Math.min(minY, y);
+          maxX = Math.max(maxX, x);
+          maxY = Math.max(maxY, y);
+        }
+      }
+    }
+
+    return new Rect(minX, minY, maxX - minX + 1, maxY - minY + 1);
+  }
+
+  private static Mat shift(Mat mat, int x, int y) {
+    Mat translation = new Mat(2, 3, CvType.CV_64FC1);
+    translation.put(0, 0, 1, 0, x, 0, 1, y);
+    Mat shifted = new Mat();
+    Imgproc.warpAffine(mat, shifted, translation, mat.size());
+    translation.release();
+
+    return shifted;
+  }
+}
@@ -0,0 +1,66 @@
+package tools.sctrade.companion.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class HashUtilTest {
+  private static final List<Rectangle> REGIONS =
+      List.of(new Rectangle(0, 0, 80, 45), new Rectangle(80, 45, 80, 45));
+
+  @ParameterizedTest
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_GRAY})
+  void givenIdenticalImagesWhenHashingContentThenHashesAreEqual(int type) {
+    assertEquals(HashUtil.hashContent(buildImage(type), REGIONS, "ocr"),
+        HashUtil.hashContent(buildImage(type), REGIONS, "ocr"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_GRAY})
+  void givenSinglePixelChangedInRegionWhenHashingContentThenHashesDiffer(int type) {
+    var image = buildImage(type);
+    image.setRGB(120, 60, 0x404040);
+
+    assertNotEquals(HashUtil.hashContent(buildImage(type), REGIONS, "ocr"),
+        HashUtil.hashContent(image, REGIONS, "ocr"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB})
+  void givenPixelChangedOutsideOfRegionsWhenHashingContentThenHashesAreEqual(int type) {
+    var image = buildImage(type);
+    image.setRGB(120, 10, 0x404040);
+
+    assertEquals(HashUtil.hashContent(buildImage(type), REGIONS, "ocr"),
+        HashUtil.hashContent(image, REGIONS, "ocr"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"other", ""})
+  void givenOtherNamespaceWhenHashingContentThenHashesDiffer(String namespace) {
+    var image = buildImage(BufferedImage.TYPE_3BYTE_BGR);
+
+    assertNotEquals(HashUtil.hashContent(image, REGIONS, "ocr"),
+        HashUtil.hashContent(image, REGIONS, namespace));
+  }
+
+  private static BufferedImage buildImage(int type) {
+    var image = new BufferedImage(160, 90, type);
+
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        int level = (x * 7 + y * 3) % 256;
+        image.setRGB(x, y, level << 16 | level << 8 | level);
+      }
+    }
+
+    return image;
+  }
+}
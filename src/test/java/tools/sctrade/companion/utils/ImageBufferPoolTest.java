@@ -0,0 +1,149 @@
+package tools.sctrade.companion.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+class ImageBufferPoolTest {
+  private static final int WIDTH = 160;
+  private static final int HEIGHT = 90;
+  private static final long ARGB_BYTES = WIDTH * HEIGHT * 4L;
+  private static final String IMAGE_PATH = "/kiosks/commodity/images/rayari-anvik-buy-1.jpg";
+
+  private final ImageBufferPool pool = new ImageBufferPool(3 * ARGB_BYTES);
+
+  @BeforeAll
+  static void setUpAll() {
+    OpenCV.loadShared();
+  }
+
+  @Test
+  void givenReturnedImageWhenBorrowingSameKeyThenImageIsReused() {
+    var image = pool.borrowImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+    pool.returnImage(image);
+
+    assertSame(image, pool.borrowImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB));
+    assertEquals(0.5, pool.getHitRate());
+  }
+
+  @Test
+  void givenReturnedImageWhenBorrowingOtherKeyThenNewImageIsAllocated() {
+    var image = pool.borrowImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+    pool.returnImage(image);
+
+    var otherType = pool.borrowImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+    var otherSize = pool.borrowImage(HEIGHT, WIDTH, BufferedImage.TYPE_INT_ARGB);
+
+    assertNotSame(image, otherType);
+    assertNotSame(image, otherSize);
+    assertEquals(BufferedImage.TYPE_3BYTE_BGR, otherType.getType());
+    assertEquals(HEIGHT, otherSize.getWidth());
+    assertEquals(0.0, pool.getHitRate());
+  }
+
+  @Test
+  void givenFullPoolWhenReturningImageThenOldestImageIsDropped() {
+    BufferedImage[] images = new BufferedImage[4];
+
+    for (int i = 0; i < images.length; i++) {
+      images[i] = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+    }
+    for (var image : images) {
+      pool.returnImage(image);
+    }
+
+    assertEquals(3 * ARGB_BYTES, pool.getRetainedBytes());
+    assertEquals(3 * ARGB_BYTES, pool.getPeakRetainedBytes());
+    assertSame(images[3], pool.borrowImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB));
+    assertSame(images[2], pool.borrowImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB));
+    assertSame(images[1], pool.borrowImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB));
+    assertNotSame(images[0], pool.borrowImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB));
+    assertEquals(0, pool.getRetainedBytes());
+    assertEquals(3 * ARGB_BYTES, pool.getPeakRetainedBytes());
+  }
+
+  @Test
+  void givenImageLargerThanPoolWhenReturningThenImageIsDropped() {
+    pool.returnImage(new BufferedImage(WIDTH * 4, HEIGHT, BufferedImage.TYPE_INT_ARGB));
+
+    assertEquals(0, pool.getRetainedBytes());
+  }
+
+  @Test
+  void givenReturnedMatWhenClosingItsScopeThenMatIsKeptForReuse() {
+    Mat mat;
+
+    try (var scope = MatScope.open()) {
+      mat = pool.borrowMat(HEIGHT, WIDTH, CvType.CV_8UC3);
+      pool.returnMat(mat);
+    }
+
+    assertFalse(mat.empty());
+    assertSame(mat, pool.borrowMat(HEIGHT, WIDTH, CvType.CV_8UC3));
+    mat.release();
+  }
+
+  @Test
+  void givenReturnedMatsWhenClearingThenMatsAreReleased() {
+    var mat = pool.borrowMat(HEIGHT, WIDTH, CvType.CV_8UC1);
+    pool.returnMat(mat);
+
+    pool.clear();
+
+    assertTrue(mat.empty());
+    assertEquals(0, pool.getRetainedBytes());
+  }
+
+  @Test
+  void givenDirtyPooledBuffersWhenConvertingImagesThenResultIsIdenticalToFreshBuffers()
+      throws IOException {
+    var image = ResourceUtil.getBufferedImage(IMAGE_PATH);
+    var dirtyImage = ImageUtil.makeCopy(image);
+    ImageUtil.invertColors(dirtyImage);
+    // Sub-images are not packed, so they go through pooled buffers
+    var subimage = image.getSubimage(10, 10, 200, 100);
+    var dirtySubimage = dirtyImage.getSubimage(10, 10, 200, 100);
+
+    BufferedImage expectedGreyscale;
+    try (var nativeImage = NativeImage.of(ImageUtil.makeGreyscaleCopy(subimage))) {
+      nativeImage.equalizeHistogram();
+      expectedGreyscale = nativeImage.toBufferedImage();
+    }
+    Mat expectedMat = ImageUtil.toMat(ImageUtil.makeCopy(subimage));
+
+    ImageUtil.makeHistogramEqualizedGreyscaleCopy(dirtySubimage);
+    ImageUtil.toMat(dirtySubimage).release();
+    var greyscale = ImageUtil.makeHistogramEqualizedGreyscaleCopy(subimage);
+    Mat mat = ImageUtil.toMat(subimage);
+
+    try {
+      assertArrayEquals(getPixels(expectedGreyscale), getPixels(greyscale));
+      assertEquals(0, Core.norm(expectedMat, mat));
+    } finally {
+      expectedMat.release();
+      mat.release();
+    }
+  }
+
+  @Test
+  void givenNegativeMaxRetainedBytesWhenCreatingPoolThenExceptionIsThrown() {
+    assertThrows(IllegalArgumentException.class, () -> new ImageBufferPool(-1));
+  }
+
+  private static int[] getPixels(BufferedImage image) {
+    return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+  }
+}
@@ -0,0 +1,280 @@
+package tools.sctrade.companion.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map.Entry;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.opencv.core.CvType;
+import tools.sctrade.companion.exceptions.ImageProcessingException;
+
+class ImageUtilTest {
+  private static final int WIDTH = 64;
+  private static final int HEIGHT = 48;
+
+  @ParameterizedTest(name = "{0}")
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_4BYTE_ABGR})
+  void givenColorImageWhenConvertingToMatAndBackThenPixelsAreIdentical(int imageType) {
+    var image = buildRandomImage(imageType);
+
+    var mat = ImageUtil.toMat(image);
+    var result = ImageUtil.toBufferedImage(mat);
+
+    assertEquals(CvType.CV_8UC3, mat.type());
+    assertArrayEquals(getOpaqueRgb(image), getOpaqueRgb(result));
+  }
+
+  @Test
+  void givenGreyscaleImageWhenConvertingToMatAndBackThenPixelsAreIdentical() {
+    var image = ImageUtil.makeGreyscaleCopy(buildRandomImage(BufferedImage.TYPE_3BYTE_BGR));
+
+    var mat = ImageUtil.toMat(image);
+    var result = ImageUtil.toBufferedImage(mat);
+
+    assertEquals(CvType.CV_8UC1, mat.type());
+    assertEquals(BufferedImage.TYPE_BYTE_GRAY, result.getType());
+    assertArrayEquals(image.getRaster().getPixels(0, 0, WIDTH, HEIGHT, (int[]) null),
+        result.getRaster().getPixels(0, 0, WIDTH, HEIGHT, (int[]) null));
+  }
+
+  @Test
+  void givenSubimageWhenConvertingToMatThenOnlySubimagePixelsAreCopied() {
+    var image = buildRandomImage(BufferedImage.TYPE_3BYTE_BGR);
+    var subimage = image.getSubimage(10, 5, 20, 15);
+
+    var result = ImageUtil.toBufferedImage(ImageUtil.toMat(subimage));
+
+    assertEquals(20, result.getWidth());
+    assertEquals(15, result.getHeight());
+    assertArrayEquals(getOpaqueRgb(subimage), getOpaqueRgb(result));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+      BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_565_RGB})
+  void givenImageWhenInvertingColorsThenPixelsAreIdenticalToPerPixelInversion(int imageType) {
+    var image = buildRandomImage(imageType);
+    var expected = ImageUtil.makeCopy(image);
+    invertColorsPerPixel(expected);
+
+    ImageUtil.invertColors(image);
+
+    assertArrayEquals(getRgb(expected), getRgb(image));
+  }
+
+  @Test
+  void givenSubimageWhenInvertingColorsThenOnlySubimageIsInverted() {
+    var image = buildRandomImage(BufferedImage.TYPE_3BYTE_BGR);
+    var expected = ImageUtil.makeCopy(image);
+    invertColorsPerPixel(expected.getSubimage(10, 5, 20, 15));
+
+    ImageUtil.invertColors(image.getSubimage(10, 5, 20, 15));
+
+    assertArrayEquals(getRgb(expected), getRgb(image));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+      BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_565_RGB})
+  void givenImageWhenCalculatingAverageColorThenColorIsIdenticalToPerPixelAverage(int imageType) {
+    var image = buildRandomImage(imageType);
+    var rectangle = new Rectangle(7, 3, 30, 40);
+
+    assertEquals(calculateAverageColorPerPixel(image, rectangle),
+        ImageUtil.calculateAverageColor(image, rectangle));
+    var subimage = image.getSubimage(10, 5, 20, 15);
+    assertEquals(calculateAverageColorPerPixel(subimage, new Rectangle(0, 0, 20, 15)),
+        ImageUtil.calculateAverageColor(subimage));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+      BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_565_RGB})
+  void givenImageWithDominantColorWhenCalculatingDominantColorThenColorIsIdenticalToPerPixelCount(
+      int imageType) {
+    var image = buildRandomImage(imageType);
+    var random = new Random(imageType);
+
+    for (int y = 10; y < 40; y++) {
+      for (int x = 5; x < 50; x++) {
+        var jittered = new Color(123 + random.nextInt(6), 45 + random.nextInt(4),
+            201 + random.nextInt(8));
+        image.setRGB(x, y, jittered.getRGB());
+      }
+    }
+    var rectangle = new Rectangle(0, 0, WIDTH, HEIGHT);
+
+    assertEquals(calculateDominantColorPerPixel(image, rectangle),
+        ImageUtil.calculateDominantColor(image, rectangle));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_4BYTE_ABGR})
+  void givenLargeImageWhenRunningPixelKernelsThenNothingIsAllocatedPerPixel(int imageType) {
+    var image = new BufferedImage(2000, 2000, imageType);
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    for (int i = 0; i < 3; i++) { // Warm up
+      ImageUtil.invertColors(image);
+      ImageUtil.calculateAverageColor(image);
+      ImageUtil.calculateDominantColor(image);
+    }
+
+    // Kernels may run on other threads, so allocations of all threads are counted
+    long before = threads.getTotalThreadAllocatedBytes();
+    ImageUtil.invertColors(image);
+    ImageUtil.calculateAverageColor(image);
+    ImageUtil.calculateDominantColor(image);
+    long allocated = threads.getTotalThreadAllocatedBytes() - before;
+
+    // 4 million pixels: any per-pixel allocation would be tens of megabytes
+    assertTrue(allocated < 1024 * 1024, "Allocated " + allocated + " bytes");
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_INT_BGR})
+  void givenImageWhenRoundTrippingJpegInMemoryThenBytesAndPixelsAreIdenticalToDisk(int imageType,
+      @TempDir Path directory) throws IOException {
+    var image = buildRandomImage(imageType);
+    var path = directory.resolve("screenshot.jpg");
+    ImageUtil.writeToDisk(image, path);
+
+    var bytes = ImageUtil.encodeToJpeg(image);
+
+    assertArrayEquals(Files.readAllBytes(path), bytes);
+    assertArrayEquals(getRgb(ImageIO.read(path.toFile())), getRgb(ImageUtil.decode(bytes)));
+  }
+
+  @Test
+  void givenScreenshotWhenRoundTrippingJpegInMemoryThenPixelsAreIdenticalToDisk(
+      @TempDir Path directory) throws IOException {
+    var image = ResourceUtil.getBufferedImage("/kiosks/commodity/images/levski-buy-1.jpg");
+    var path = directory.resolve("screenshot.jpg");
+    ImageUtil.writeToDisk(image, path);
+
+    assertArrayEquals(getRgb(ImageIO.read(path.toFile())),
+        getRgb(ImageUtil.decode(ImageUtil.encodeToJpeg(image))));
+  }
+
+  @Test
+  void givenImageWithAlphaWhenEncodingToJpegThenExceptionIsThrown() {
+    var image = buildRandomImage(BufferedImage.TYPE_INT_ARGB);
+
+    assertThrows(ImageProcessingException.class, () -> ImageUtil.encodeToJpeg(image));
+  }
+
+  /**
+   * Previous implementation of {@link ImageUtil#invertColors(BufferedImage)}, kept as a reference.
+   */
+  private static void invertColorsPerPixel(BufferedImage image) {
+    for (int x = 0; x < image.getWidth(); x++) {
+      for (int y = 0; y < image.getHeight(); y++) {
+        int rgba = image.getRGB(x, y);
+        Color color = new Color(rgba, false);
+        color = new Color(255 - color.getRed(), 255 - color.getGreen(), 255 - color.getBlue());
+        image.setRGB(x, y, color.getRGB());
+      }
+    }
+  }
+
+  /**
+   * Previous implementation of {@link ImageUtil#calculateAverageColor(BufferedImage, Rectangle)},
+   * kept as a reference.
+   */
+  private static Color calculateAverageColorPerPixel(BufferedImage image, Rectangle rectangle) {
+    int totalRed = 0;
+    int totalGreen = 0;
+    int totalBlue = 0;
+
+    for (int x = (int) rectangle.getMinX(); x < rectangle.getMaxX(); x++) {
+      for (int y = (int) rectangle.getMinY(); y < rectangle.getMaxY(); y++) {
+        Color pixel = new Color(image.getRGB(x, y));
+        totalRed += pixel.getRed();
+        totalGreen += pixel.getGreen();
+        totalBlue += pixel.getBlue();
+      }
+    }
+
+    int pixelCount = (int) (rectangle.getWidth() * rectangle.getHeight());
+
+    return new Color(totalRed / pixelCount, totalGreen / pixelCount, totalBlue / pixelCount);
+  }
+
+  /**
+   * Previous implementation of {@link ImageUtil#calculateDominantColor(BufferedImage, Rectangle)},
+   * kept as a reference.
+   */
+  private static Color calculateDominantColorPerPixel(BufferedImage image, Rectangle rectangle) {
+    var countByApproximateColors = new HashMap<Color, Integer>();
+
+    for (int x = (int) rectangle.getMinX(); x < rectangle.getMaxX(); x++) {
+      for (int y = (int) rectangle.getMinY(); y < rectangle.getMaxY(); y++) {
+        Color pixel = new Color(image.getRGB(x, y));
+        int approximateRed = pixel.getRed() - (pixel.getRed() % 10);
+        int approximateGreen = pixel.getGreen() - (pixel.getGreen() % 10);
+        int approximateBlue = pixel.getBlue() - (pixel.getBlue() % 10);
+        Color approximateColor = new Color(approximateRed, approximateGreen, approximateBlue);
+        countByApproximateColors.put(approximateColor,
+            countByApproximateColors.getOrDefault(approximateColor, 0) + 1);
+      }
+    }
+
+    var approximateColorsByCount = new HashMap<Integer, Color>();
+
+    for (Entry<Color, Integer> entry : countByApproximateColors.entrySet()) {
+      approximateColorsByCount.put(entry.getValue(), entry.getKey());
+    }
+
+    return approximateColorsByCount.get(Collections.max(approximateColorsByCount.keySet()));
+  }
+
+  private static BufferedImage buildRandomImage(int imageType) {
+    var random = new Random(imageType);
+    var image = new BufferedImage(WIDTH, HEIGHT, imageType);
+
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        image.setRGB(x, y, 0xFF000000 | random.nextInt(0x1000000));
+      }
+    }
+
+    return image;
+  }
+
+  private static int[] getRgb(BufferedImage image) {
+    return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+  }
+
+  private static int[] getOpaqueRgb(BufferedImage image) {
+    int[] pixels =
+        image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] |= 0xFF000000;
+    }
+
+    return pixels;
+  }
+}
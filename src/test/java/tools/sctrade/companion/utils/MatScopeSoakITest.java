@@ -0,0 +1,89 @@
+package tools.sctrade.companion.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import oshi.SystemInfo;
+import oshi.software.os.OSProcess;
+
+@Disabled("Shouldn't run during CI/CD. Comment when looking for native memory leaks.")
+class MatScopeSoakITest {
+  private static final int WARMUP_ITERATIONS = 100;
+  private static final int ITERATIONS = 2000;
+  private static final int REPORT_INTERVAL = 250;
+  private static final long MAX_RESIDENT_SET_GROWTH = 64L * 1024 * 1024;
+  private static final String TEMPLATE_PATH = "/images/ocr/commodity_kiosk_template.jpg";
+  private static final double MIN_SIMILARITY_TRESHOLD = 0.12;
+  private static final List<String> TEST_CASES = List.of("arc-l1-sell-1", "canard-view-buy-1",
+      "levski-buy-1", "lorville-sell-1", "rayari-anvik-buy-1");
+
+  private final Logger logger = LoggerFactory.getLogger(MatScopeSoakITest.class);
+
+  @Test
+  void givenFixturesWhenProcessingThemThousandsOfTimesThenNativeMemoryIsBounded()
+      throws IOException {
+    MatScope.setLeakDetectionEnabled(true);
+    List<BufferedImage> images = new ArrayList<>();
+
+    for (String testCase : TEST_CASES) {
+      images.add(ResourceUtil.getBufferedImage("/kiosks/commodity/images/" + testCase + ".jpg"));
+    }
+
+    OSProcess process = new SystemInfo().getOperatingSystem().getCurrentProcess();
+    long leakedCount = MatScope.getLeakedCount();
+    long baseline = 0;
+
+    try (var reference = AlignmentReference.of(ImageUtil.readFromResource(TEMPLATE_PATH),
+        AlignmentReference.Mode.COARSE_TO_FINE)) {
+      for (int i = 0; i < WARMUP_ITERATIONS + ITERATIONS; i++) {
+        process(images.get(i % images.size()), reference);
+
+        if (i == WARMUP_ITERATIONS) {
+          baseline = getResidentSetSize(process);
+        } else if (i > WARMUP_ITERATIONS && (i - WARMUP_ITERATIONS) % REPORT_INTERVAL == 0) {
+          logger.info("{} iterations\tresident set: {} MB ({} MB at baseline)",
+              i - WARMUP_ITERATIONS, getResidentSetSize(process) / (1024 * 1024),
+              baseline / (1024 * 1024));
+        }
+      }
+    } finally {
+      MatScope.setLeakDetectionEnabled(false);
+    }
+
+    long growth = getResidentSetSize(process) - baseline;
+
+    assertEquals(leakedCount, MatScope.getLeakedCount());
+    assertTrue(growth < MAX_RESIDENT_SET_GROWTH, "Growth: " + growth + " bytes");
+  }
+
+  private static void process(BufferedImage image, AlignmentReference reference) {
+    try (var scope = MatScope.open()) {
+      try (var nativeImage = NativeImage.of(image)) {
+        nativeImage.alignTo(reference, MIN_SIMILARITY_TRESHOLD);
+        nativeImage.toBufferedImage();
+      }
+
+      ImageUtil.makeHistogramEqualizedGreyscaleCopy(image);
+      ImageUtil.applyGaussianBlur(image, 5, 0);
+      ImageUtil.applyAdaptiveGaussianThreshold(image, 11, 2);
+      ImageUtil.findBoundingBoxes(ImageUtil.applyOtsuBinarization(image));
+
+      assertEquals(0, MatScope.getLiveCount());
+    }
+  }
+
+  private static long getResidentSetSize(OSProcess process) {
+    System.gc();
+    process.updateAttributes();
+
+    return process.getResidentSetSize();
+  }
+}
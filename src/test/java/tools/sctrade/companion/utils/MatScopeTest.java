@@ -0,0 +1,123 @@
+package tools.sctrade.companion.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import nu.pattern.OpenCV;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+class MatScopeTest {
+  private static final String IMAGE_PATH = "/kiosks/commodity/images/rayari-anvik-buy-1.jpg";
+
+  @BeforeAll
+  static void setUpAll() {
+    OpenCV.loadShared();
+  }
+
+  @AfterEach
+  void tearDown() {
+    MatScope.setLeakDetectionEnabled(false);
+  }
+
+  @Test
+  void givenTrackedMatWhenClosingScopeThenMatIsReleased() {
+    Mat mat;
+
+    try (var scope = MatScope.open()) {
+      mat = MatScope.track(new Mat(100, 100, CvType.CV_8UC3));
+    }
+
+    assertTrue(mat.empty());
+  }
+
+  @Test
+  void givenMatCreatedOutsideOfScopeWhenClosingScopeThenMatIsKept() {
+    Mat mat = MatScope.track(new Mat(100, 100, CvType.CV_8UC3));
+
+    try (var scope = MatScope.open()) {
+      MatScope.track(new Mat(10, 10, CvType.CV_8UC1));
+    }
+
+    assertFalse(mat.empty());
+    mat.release();
+  }
+
+  @Test
+  void givenOpenScopeWhenTrackingMatsThenGaugesMeasureLiveMats() {
+    try (var scope = MatScope.open()) {
+      Mat colored = MatScope.track(new Mat(100, 100, CvType.CV_8UC3));
+      MatScope.track(new Mat(10, 10, CvType.CV_8UC1));
+      MatScope.track(new Mat());
+
+      assertEquals(2, MatScope.getLiveCount());
+      assertEquals((100 * 100 * 3) + (10 * 10), MatScope.getLiveBytes());
+
+      colored.release();
+
+      assertEquals(1, MatScope.getLiveCount());
+      assertEquals(10 * 10, MatScope.getLiveBytes());
+    }
+
+    assertEquals(0, MatScope.getLiveCount());
+    assertEquals(0, MatScope.getLiveBytes());
+  }
+
+  @Test
+  void givenNestedScopesWhenClosingInnerScopeThenOuterMatsAreKept() {
+    try (var outer = MatScope.open()) {
+      Mat outerMat = MatScope.track(new Mat(10, 10, CvType.CV_8UC1));
+      Mat innerMat;
+
+      try (var inner = MatScope.open()) {
+        innerMat = MatScope.track(new Mat(10, 10, CvType.CV_8UC1));
+      }
+
+      assertTrue(innerMat.empty());
+      assertFalse(outerMat.empty());
+
+      Mat laterMat = MatScope.track(new Mat(10, 10, CvType.CV_8UC1));
+      outer.close();
+
+      assertTrue(outerMat.empty());
+      assertTrue(laterMat.empty());
+    }
+  }
+
+  @Test
+  void givenLeakDetectionWhenClosingScopeWithUnreleasedMatThenLeakIsCounted() {
+    MatScope.setLeakDetectionEnabled(true);
+    long leakedCount = MatScope.getLeakedCount();
+
+    try (var scope = MatScope.open()) {
+      MatScope.track(new Mat(10, 10, CvType.CV_8UC1));
+      MatScope.track(new Mat(10, 10, CvType.CV_8UC1)).release();
+    }
+
+    assertEquals(leakedCount + 1, MatScope.getLeakedCount());
+  }
+
+  @Test
+  void givenLeakDetectionWhenProcessingImageThenNoMatIsLeaked() throws IOException {
+    MatScope.setLeakDetectionEnabled(true);
+    long leakedCount = MatScope.getLeakedCount();
+    BufferedImage image = ResourceUtil.getBufferedImage(IMAGE_PATH);
+
+    try (var scope = MatScope.open()) {
+      ImageUtil.makeHistogramEqualizedGreyscaleCopy(image);
+      ImageUtil.applyGaussianBlur(image, 5, 0);
+      ImageUtil.applyAdaptiveGaussianThreshold(image, 11, 2);
+      ImageUtil.findBoundingBoxes(ImageUtil.applyOtsuBinarization(image));
+
+      assertEquals(0, MatScope.getLiveCount());
+    }
+
+    assertEquals(leakedCount, MatScope.getLeakedCount());
+  }
+}
@@ -0,0 +1,82 @@
+package tools.sctrade.companion.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class NativeRuntimeBootstrapTest {
+  @Test
+  void givenWarmUpsWhenStartingThenNativeRuntimeIsLoadedBeforeWarmUpsRunInOrder() throws Exception {
+    List<String> calls = new ArrayList<>();
+    var bootstrap = new NativeRuntimeBootstrap(
+        List.of(() -> calls.add("first " + NativeRuntime.isLoaded()), () -> calls.add("second")));
+
+    bootstrap.start().get(1, TimeUnit.MINUTES);
+
+    assertEquals(List.of("first true", "second"), calls);
+  }
+
+  @Test
+  void givenStartedBootstrapWhenStartingAgainThenWarmUpsRunOnce() throws Exception {
+    var count = new AtomicInteger();
+    var bootstrap = new NativeRuntimeBootstrap(Runnable::run, List.of(count::incrementAndGet));
+
+    var readiness = bootstrap.start();
+
+    assertEquals(readiness, bootstrap.start());
+    assertEquals(readiness, bootstrap.getReadiness());
+    assertEquals(1, count.get());
+  }
+
+  @Test
+  void givenFailingWarmUpWhenStartingThenNextWarmUpsRunAndApplicationIsReady() {
+    var count = new AtomicInteger();
+    var bootstrap = new NativeRuntimeBootstrap(Runnable::run, List.of(() -> {
+      throw new IllegalStateException("OCR unavailable");
+    }, count::incrementAndGet));
+
+    var readiness = bootstrap.start();
+
+    assertTrue(readiness.isDone());
+    assertFalse(readiness.isCompletedExceptionally());
+    assertEquals(1, count.get());
+  }
+
+  @Test
+  void givenWarmUpFailingToLinkWhenStartingThenNextWarmUpsRunAndApplicationIsReady() {
+    var count = new AtomicInteger();
+    var bootstrap = new NativeRuntimeBootstrap(Runnable::run, List.of(() -> {
+      throw new UnsatisfiedLinkError("Unable to load library 'oneocr'");
+    }, count::incrementAndGet));
+
+    var readiness = bootstrap.start();
+
+    assertTrue(readiness.isDone());
+    assertFalse(readiness.isCompletedExceptionally());
+    assertEquals(1, count.get());
+  }
+
+  @Test
+  void givenWarmUpThrowingOtherErrorWhenStartingThenApplicationIsReadyAnyway() {
+    var bootstrap = new NativeRuntimeBootstrap(Runnable::run, List.of(() -> {
+      throw new AssertionError("Unexpected");
+    }));
+
+    assertThrows(AssertionError.class, bootstrap::start);
+    assertTrue(bootstrap.getReadiness().isDone());
+  }
+
+  @Test
+  void givenUnstartedBootstrapWhenGettingReadinessThenApplicationIsNotReady() {
+    var bootstrap = new NativeRuntimeBootstrap(Runnable::run, List.of());
+
+    assertFalse(bootstrap.getReadiness().isDone());
+  }
+}
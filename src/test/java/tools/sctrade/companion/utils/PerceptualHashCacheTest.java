@@ -0,0 +1,108 @@
+package tools.sctrade.companion.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class PerceptualHashCacheTest {
+  private static final Duration TIME_TO_LIVE = Duration.ofSeconds(60);
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+  private final PerceptualHash black = hash(Color.BLACK);
+  private final PerceptualHash white = hash(Color.WHITE);
+
+  @Test
+  void givenNearIdenticalHashWhenPuttingThenPreviousValueIsReturned() {
+    var cache = new PerceptualHashCache<String>(TIME_TO_LIVE, 0.0, clockAt(NOW));
+    cache.putIfAbsent(black, "first");
+
+    assertEquals(Optional.of("first"), cache.putIfAbsent(hash(Color.BLACK), "second"));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void givenDifferentHashWhenPuttingThenValueIsAdded() {
+    var cache = new PerceptualHashCache<String>(TIME_TO_LIVE, 0.0, clockAt(NOW));
+    cache.putIfAbsent(black, "black");
+
+    assertTrue(cache.putIfAbsent(white, "white").isEmpty());
+    assertEquals(Optional.of("white"), cache.get(white));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  void givenExpiredEntryWhenGettingThenNothingIsFound() {
+    var clock = new MutableClock(NOW);
+    var cache = new PerceptualHashCache<String>(TIME_TO_LIVE, 0.0, clock);
+    cache.putIfAbsent(black, "black");
+
+    clock.instant = NOW.plus(TIME_TO_LIVE).minusSeconds(1);
+    assertEquals(Optional.of("black"), cache.get(black));
+
+    clock.instant = NOW.plus(TIME_TO_LIVE);
+    assertTrue(cache.get(black).isEmpty());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void givenRemovedEntryWhenGettingThenNothingIsFound() {
+    var cache = new PerceptualHashCache<String>(TIME_TO_LIVE, 0.0, clockAt(NOW));
+    cache.putIfAbsent(black, "black");
+    cache.remove(black);
+
+    assertTrue(cache.get(black).isEmpty());
+  }
+
+  @Test
+  void givenOutOfRangeMaxDistanceWhenCreatingThenExceptionIsThrown() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new PerceptualHashCache<String>(TIME_TO_LIVE, 1.5));
+  }
+
+  private static PerceptualHash hash(Color color) {
+    var image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+    var graphics = image.createGraphics();
+    graphics.setColor(color);
+    graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+    graphics.dispose();
+
+    return PerceptualHash.of(image);
+  }
+
+  private static Clock clockAt(Instant instant) {
+    return Clock.fixed(instant, ZoneOffset.UTC);
+  }
+
+  private static class MutableClock extends Clock {
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
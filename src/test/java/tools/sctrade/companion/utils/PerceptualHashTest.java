@@ -0,0 +1,125 @@
+package tools.sctrade.companion.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PerceptualHashTest {
+  private static final String IMAGES_PATH = "/kiosks/commodity/images/";
+
+  private BufferedImage image;
+  private List<Rectangle> regions;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    image = ResourceUtil.getBufferedImage(IMAGES_PATH + "levski-buy-1.jpg");
+    regions = getRightHalf(image);
+  }
+
+  @Test
+  void givenReencodedImageWhenMeasuringDistanceThenZero() throws IOException {
+    var outputStream = new ByteArrayOutputStream();
+    ImageIO.write(image, "jpg", outputStream);
+    var reencodedImage = ImageIO.read(new ByteArrayInputStream(outputStream.toByteArray()));
+
+    assertEquals(0.0, PerceptualHash.of(image, regions)
+        .distanceTo(PerceptualHash.of(reencodedImage, regions)));
+  }
+
+  @Test
+  void givenNoisyImageWhenMeasuringDistanceThenZero() {
+    var noisyImage = ImageUtil.makeCopy(image);
+    var random = new Random(42);
+
+    for (int y = 0; y < noisyImage.getHeight(); y++) {
+      for (int x = 0; x < noisyImage.getWidth(); x++) {
+        int noise = random.nextInt(7) - 3;
+        var color = new Color(noisyImage.getRGB(x, y));
+        noisyImage.setRGB(x, y, new Color(clamp(color.getRed() + noise),
+            clamp(color.getGreen() + noise), clamp(color.getBlue() + noise)).getRGB());
+      }
+    }
+
+    assertEquals(0.0,
+        PerceptualHash.of(image, regions).distanceTo(PerceptualHash.of(noisyImage, regions)));
+  }
+
+  @Test
+  void givenChangedDigitWhenMeasuringDistanceThenNotZero() {
+    var changedImage = ImageUtil.makeCopy(image);
+    var graphics = changedImage.createGraphics();
+    graphics.setColor(Color.WHITE);
+    graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, image.getHeight() / 55));
+    graphics.drawString("8", image.getWidth() * 3 / 4, image.getHeight() / 2);
+    graphics.dispose();
+
+    assertTrue(
+        PerceptualHash.of(image, regions).distanceTo(PerceptualHash.of(changedImage, regions)) > 0);
+  }
+
+  @Test
+  void givenOtherTabOfSameKioskWhenMeasuringDistanceThenFar() throws IOException {
+    var otherImage = ResourceUtil.getBufferedImage(IMAGES_PATH + "levski-sell-1.jpg");
+
+    assertTrue(
+        PerceptualHash.of(image, regions).distanceTo(PerceptualHash.of(otherImage, regions)) > 0.1);
+  }
+
+  @Test
+  void givenDifferentNumberOfRegionsWhenMeasuringDistanceThenOne() {
+    var twoRegions = List.of(regions.get(0), regions.get(0));
+
+    assertEquals(1.0,
+        PerceptualHash.of(image, regions).distanceTo(PerceptualHash.of(image, twoRegions)));
+  }
+
+  @Test
+  void givenSameImageWhenHashingThenHashesAreEqual() {
+    var hash = PerceptualHash.of(image, regions);
+    var otherHash = PerceptualHash.of(ImageUtil.makeCopy(image), regions);
+
+    assertEquals(hash, otherHash);
+    assertEquals(hash.hashCode(), otherHash.hashCode());
+    assertEquals(hash.toString(), otherHash.toString());
+  }
+
+  @Test
+  void givenFormattedHashWhenParsingThenDistanceIsZero() {
+    var hash = PerceptualHash.of(image, List.of(regions.get(0), regions.get(0)));
+
+    var parsedHash = PerceptualHash.parse(hash.toString());
+
+    assertEquals(0.0, hash.distanceTo(parsedHash));
+    assertEquals(hash.toString(), parsedHash.toString());
+  }
+
+  @Test
+  void givenTruncatedHashWhenParsingThenExceptionIsThrown() {
+    var hex = PerceptualHash.of(image, regions).toString();
+
+    assertThrows(IllegalArgumentException.class,
+        () -> PerceptualHash.parse(hex.substring(0, hex.length() - 2)));
+  }
+
+  private static List<Rectangle> getRightHalf(BufferedImage image) {
+    return List.of(
+        new Rectangle(image.getWidth() / 2, 0, image.getWidth() / 2, image.getHeight()));
+  }
+
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(255, value));
+  }
+}
@@ -0,0 +1,115 @@
+package tools.sctrade.companion.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class PixelKernelsTest {
+  // Not a multiple of any vector length, so that scalar tails are exercised
+  private static final int WIDTH = 101;
+  private static final int HEIGHT = 37;
+  // Large enough to be split in several bands
+  private static final int LARGE_WIDTH = 1001;
+  private static final int LARGE_HEIGHT = 707;
+
+  private PixelKernels scalar;
+  private PixelKernels vectorized;
+
+  @BeforeEach
+  void setUp() {
+    assumeTrue(PixelKernels.vectorized().isPresent(), "Vector API unavailable");
+
+    scalar = PixelKernels.scalar();
+    vectorized = PixelKernels.vectorized().orElseThrow();
+  }
+
+  @Test
+  void givenVectorModuleAddedToTestJvmWhenGettingKernelsThenVectorizedKernelsAreUsed() {
+    assertEquals(vectorized, PixelKernels.get());
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_4BYTE_ABGR})
+  void givenImageWhenInvertingColorsThenVectorizedAndScalarResultsAreIdentical(int imageType) {
+    var scalarImage = buildRandomImage(imageType);
+    var vectorizedImage = buildRandomImage(imageType);
+
+    scalar.invertColors(scalarImage);
+    vectorized.invertColors(vectorizedImage);
+    scalar.invertColors(scalarImage.getSubimage(13, 7, 71, 19));
+    vectorized.invertColors(vectorizedImage.getSubimage(13, 7, 71, 19));
+
+    assertArrayEquals(getRgb(scalarImage), getRgb(vectorizedImage));
+    assertArrayEquals(getSamples(scalarImage), getSamples(vectorizedImage));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_4BYTE_ABGR})
+  void givenImageWhenCalculatingColorsThenVectorizedAndScalarResultsAreIdentical(int imageType) {
+    var image = buildRandomImage(imageType);
+    var rectangle = new Rectangle(3, 2, 97, 31);
+
+    assertEquals(scalar.calculateAverageColor(image, rectangle),
+        vectorized.calculateAverageColor(image, rectangle));
+    assertEquals(scalar.calculateDominantColor(image, rectangle),
+        vectorized.calculateDominantColor(image, rectangle));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @ValueSource(ints = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+      BufferedImage.TYPE_USHORT_565_RGB})
+  void givenLargeImageWhenRunningKernelsOnBandsThenResultsAreIdenticalToSequentialRun(
+      int imageType) {
+    var sequential = vectorized.on(TiledExecutor.sequential());
+    var tiled = vectorized.on(new TiledExecutor(4));
+    var sequentialImage = buildRandomImage(LARGE_WIDTH, LARGE_HEIGHT, imageType);
+    var tiledImage = buildRandomImage(LARGE_WIDTH, LARGE_HEIGHT, imageType);
+    var rectangle = new Rectangle(5, 3, LARGE_WIDTH - 9, LARGE_HEIGHT - 7);
+
+    assertEquals(sequential.calculateAverageColor(sequentialImage, rectangle),
+        tiled.calculateAverageColor(tiledImage, rectangle));
+    assertEquals(sequential.calculateDominantColor(sequentialImage, rectangle),
+        tiled.calculateDominantColor(tiledImage, rectangle));
+
+    sequential.invertColors(sequentialImage);
+    tiled.invertColors(tiledImage);
+
+    assertArrayEquals(getSamples(sequentialImage), getSamples(tiledImage));
+  }
+
+  private static BufferedImage buildRandomImage(int imageType) {
+    return buildRandomImage(WIDTH, HEIGHT, imageType);
+  }
+
+  private static BufferedImage buildRandomImage(int width, int height, int imageType) {
+    var random = new Random(imageType);
+    var image = new BufferedImage(width, height, imageType);
+
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, random.nextInt());
+      }
+    }
+
+    return image;
+  }
+
+  private static int[] getRgb(BufferedImage image) {
+    return image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+  }
+
+  private static int[] getSamples(BufferedImage image) {
+    return image.getRaster().getPixels(0, 0, image.getWidth(), image.getHeight(), (int[]) null);
+  }
+}
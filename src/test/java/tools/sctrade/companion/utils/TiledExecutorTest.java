@@ -0,0 +1,121 @@
+package tools.sctrade.companion.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class TiledExecutorTest {
+  private static final int WIDTH = 1920;
+  private static final int HEIGHT = 1080;
+  private static final int ROW_BYTES = WIDTH * 4;
+
+  private final TiledExecutor executor = new TiledExecutor(4);
+
+  @ParameterizedTest(name = "{0} rows of {1} bytes, halo of {2}")
+  @CsvSource({"1080, 7680, 0", "2160, 15360, 2", "1, 4, 0", "37, 1000000, 3", "1000, 7680, 50"})
+  void givenFrameWhenRunningOnBandsThenEveryRowIsProcessedOnce(int height, int rowBytes,
+      int halo) {
+    var visits = new AtomicIntegerArray(height);
+
+    executor.forEachBand(height, rowBytes, halo, band -> {
+      assertTrue(band.haloY() <= band.y());
+      assertTrue(band.haloY() + band.haloHeight() >= band.y() + band.height());
+      assertTrue(band.haloY() >= Math.max(0, band.y() - halo));
+      assertTrue(band.haloY() + band.haloHeight() <= height);
+
+      for (int y = band.y(); y < band.y() + band.height(); y++) {
+        visits.incrementAndGet(y);
+      }
+    });
+
+    for (int y = 0; y < height; y++) {
+      assertEquals(1, visits.get(y), "Row " + y);
+    }
+  }
+
+  @Test
+  void givenLargeFrameWhenRunningOnBandsThenPoolThreadsAreUsed() {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    executor.forEachBand(HEIGHT, ROW_BYTES, 0,
+        band -> threads.add(Thread.currentThread().getName()));
+
+    assertTrue(threads.stream().allMatch(name -> name.startsWith("image-tile-")),
+        "Threads: " + threads);
+  }
+
+  @Test
+  void givenSmallFrameWhenRunningOnBandsThenCallingThreadIsUsed() {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    executor.forEachBand(10, ROW_BYTES, 0,
+        band -> threads.add(Thread.currentThread().getName()));
+
+    assertEquals(Set.of(Thread.currentThread().getName()), threads);
+  }
+
+  @Test
+  void givenNeighborhoodKernelWhenRunningOnBandsThenResultIsIdenticalToSequentialRun() {
+    int[] source = new Random(0).ints(WIDTH * HEIGHT, 0, 256).toArray();
+    int[] sequential = new int[source.length];
+    int[] tiled = new int[source.length];
+
+    TiledExecutor.sequential().forEachBand(HEIGHT, ROW_BYTES, 2,
+        band -> blurVertically(source, sequential, band));
+    executor.forEachBand(HEIGHT, ROW_BYTES, 2, band -> blurVertically(source, tiled, band));
+
+    assertArrayEquals(sequential, tiled);
+  }
+
+  @Test
+  void givenFrameWhenReducingBandsThenResultIsIdenticalToSequentialRun() {
+    int[] source = new Random(1).ints(WIDTH * HEIGHT, 0, 256).toArray();
+    long expected = 0;
+
+    for (int value : source) {
+      expected += value;
+    }
+
+    long[] total = executor.reduceBands(HEIGHT, ROW_BYTES, () -> new long[1], (partial, band) -> {
+      for (int i = band.y() * WIDTH; i < (band.y() + band.height()) * WIDTH; i++) {
+        partial[0] += source[i];
+      }
+    }, (left, right) -> new long[] {left[0] + right[0]});
+
+    assertEquals(expected, total[0]);
+  }
+
+  @Test
+  void givenInvalidParallelismWhenCreatingExecutorThenExceptionIsThrown() {
+    assertThrows(IllegalArgumentException.class, () -> new TiledExecutor(0));
+  }
+
+  /**
+   * Averages every pixel with the 2 pixels above and below it, reading from the halo of the band.
+   */
+  private static void blurVertically(int[] source, int[] destination, TiledExecutor.Band band) {
+    for (int y = band.y(); y < band.y() + band.height(); y++) {
+      int top = Math.max(band.haloY(), y - 2);
+      int bottom = Math.min(band.haloY() + band.haloHeight() - 1, y + 2);
+
+      for (int x = 0; x < WIDTH; x++) {
+        int sum = 0;
+
+        for (int neighborY = top; neighborY <= bottom; neighborY++) {
+          sum += source[neighborY * WIDTH + x];
+        }
+
+        destination[y * WIDTH + x] = sum / (bottom - top + 1);
+      }
+    }
+  }
+}